@@ -0,0 +1,467 @@
+package com.enterprise.s3browser.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+import org.springframework.util.MimeType;
+import org.springframework.util.MimeTypeUtils;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.Deflater;
+
+/**
+ * Filter applying gzip Content-Encoding to compressible responses, both streamed object
+ * downloads and JSON API responses, for clients that accept it.
+ * The decision is made on the first body write: only 200 responses of a compressible content type
+ * that are not already encoded and reach the minimum size are compressed. Range requests are left
+ * alone so 206 responses keep their byte offsets. Deflaters come from a bounded pool.
+ */
+@Component
+public class CompressionFilter extends OncePerRequestFilter {
+
+    private static final Logger logger = LoggerFactory.getLogger(CompressionFilter.class);
+
+    private static final String CODEC = "gzip";
+
+    private static final String RESPONSE_ATTRIBUTE = CompressionFilter.class.getName() + ".RESPONSE";
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${app.compression.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.compression.min-size:2048}")
+    private int minSize;
+
+    @Value("${app.compression.level:5}")
+    private int level;
+
+    @Value("${app.compression.buffer-size:8192}")
+    private int bufferSize;
+
+    @Value("${app.compression.max-pooled-deflaters:64}")
+    private int maxPooledDeflaters;
+
+    @Value("${app.compression.mime-types:text/*,application/json,application/*+json,application/x-ndjson,application/xml,application/*+xml,application/javascript,application/yaml,application/x-yaml,application/csv,image/svg+xml}")
+    private String mimeTypes;
+
+    private final ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+
+    private DeflaterPool deflaterPool;
+    private List<MimeType> compressibleTypes;
+    private Counter bytesIn;
+    private Counter bytesOut;
+    private Counter bytesSaved;
+    private Timer cpuTime;
+
+    @PostConstruct
+    public void initialize() {
+        deflaterPool = new DeflaterPool(level, maxPooledDeflaters);
+        compressibleTypes = MimeTypeUtils.parseMimeTypes(mimeTypes);
+        bytesIn = meterRegistry.counter("s3browser.compression.bytes.in", "codec", CODEC);
+        bytesOut = meterRegistry.counter("s3browser.compression.bytes.out", "codec", CODEC);
+        bytesSaved = meterRegistry.counter("s3browser.compression.bytes.saved", "codec", CODEC);
+        cpuTime = meterRegistry.timer("s3browser.compression.cpu", "codec", CODEC);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        deflaterPool.close();
+    }
+
+    @Override
+    protected boolean shouldNotFilterAsyncDispatch() {
+        // Streamed and deferred bodies finish on the async dispatch, where the gzip trailer is written
+        return false;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+        if (isAsyncDispatch(request)) {
+            filterChain.doFilter(request, response);
+            CompressingResponse compressing = (CompressingResponse) request.getAttribute(RESPONSE_ATTRIBUTE);
+            if (compressing != null && !request.isAsyncStarted()) {
+                compressing.finish();
+            }
+            return;
+        }
+
+        if (!enabled || !acceptsGzip(request) || "HEAD".equals(request.getMethod())
+                || request.getHeader(HttpHeaders.RANGE) != null) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        CompressingResponse compressing = new CompressingResponse(response);
+        request.setAttribute(RESPONSE_ATTRIBUTE, compressing);
+        try {
+            filterChain.doFilter(request, compressing);
+        } catch (IOException | ServletException | RuntimeException e) {
+            compressing.abandon();
+            throw e;
+        }
+        if (!request.isAsyncStarted()) {
+            compressing.finish();
+        }
+    }
+
+    /**
+     * Check if the request accepts gzip, honoring an explicit q=0.
+     */
+    static boolean acceptsGzip(HttpServletRequest request) {
+        String acceptEncoding = request.getHeader(HttpHeaders.ACCEPT_ENCODING);
+        if (acceptEncoding == null) {
+            return false;
+        }
+        boolean accepted = false;
+        for (String coding : acceptEncoding.split(",")) {
+            String[] parts = coding.trim().split(";");
+            String name = parts[0].trim().toLowerCase(Locale.ROOT);
+            if (!name.equals("gzip") && !name.equals("x-gzip") && !name.equals("*")) {
+                continue;
+            }
+            boolean zeroQuality = false;
+            for (int i = 1; i < parts.length; i++) {
+                String parameter = parts[i].trim();
+                if (parameter.startsWith("q=")) {
+                    try {
+                        zeroQuality = Double.parseDouble(parameter.substring(2)) <= 0;
+                    } catch (NumberFormatException e) {
+                        zeroQuality = true;
+                    }
+                }
+            }
+            if (!name.equals("*")) {
+                return !zeroQuality;
+            }
+            accepted = !zeroQuality;
+        }
+        return accepted;
+    }
+
+    private boolean isCompressible(String contentType) {
+        if (contentType == null) {
+            return false;
+        }
+        try {
+            MimeType type = MimeTypeUtils.parseMimeType(contentType);
+            return compressibleTypes.stream().anyMatch(compressible -> compressible.includes(type));
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    private long currentThreadCpuTime() {
+        return threadMXBean.isCurrentThreadCpuTimeSupported() ? threadMXBean.getCurrentThreadCpuTime() : System.nanoTime();
+    }
+
+    /**
+     * Response wrapper that holds back Content-Length until it is known whether the body is compressed.
+     */
+    private class CompressingResponse extends HttpServletResponseWrapper {
+
+        private long contentLength = -1;
+        private CompressingOutputStream outputStream;
+        private PrintWriter writer;
+        private Boolean compressing;
+
+        CompressingResponse(HttpServletResponse response) {
+            super(response);
+        }
+
+        @Override
+        public void setContentLength(int length) {
+            setContentLengthLong(length);
+        }
+
+        @Override
+        public void setContentLengthLong(long length) {
+            if (compressing == null) {
+                contentLength = length;
+            } else if (!compressing) {
+                super.setContentLengthLong(length);
+            }
+        }
+
+        @Override
+        public void setHeader(String name, String value) {
+            if (HttpHeaders.CONTENT_LENGTH.equalsIgnoreCase(name)) {
+                setContentLengthLong(value != null ? Long.parseLong(value) : -1);
+            } else {
+                super.setHeader(name, value);
+            }
+        }
+
+        @Override
+        public void addHeader(String name, String value) {
+            if (HttpHeaders.CONTENT_LENGTH.equalsIgnoreCase(name)) {
+                setContentLengthLong(Long.parseLong(value));
+            } else {
+                super.addHeader(name, value);
+            }
+        }
+
+        @Override
+        public ServletOutputStream getOutputStream() throws IOException {
+            if (outputStream == null) {
+                outputStream = new CompressingOutputStream(this, super.getOutputStream());
+            }
+            return outputStream;
+        }
+
+        @Override
+        public PrintWriter getWriter() throws IOException {
+            if (writer == null) {
+                writer = new PrintWriter(new OutputStreamWriter(getOutputStream(), getCharacterEncoding()));
+            }
+            return writer;
+        }
+
+        @Override
+        public void flushBuffer() throws IOException {
+            if (writer != null) {
+                writer.flush();
+            }
+            if (outputStream != null) {
+                outputStream.flush();
+            }
+            if (compressing == null && (outputStream == null || !outputStream.hasPending())) {
+                // Committing before any body was written, e.g. a bodiless or sendfile response: never compressed
+                decide(false);
+            }
+            super.flushBuffer();
+        }
+
+        @Override
+        public void reset() {
+            super.reset();
+            contentLength = -1;
+        }
+
+        /**
+         * Decide whether to compress from the response as it stands and the body buffered so far.
+         * Stays undecided only while an eligible body of unknown length is still below min-size.
+         */
+        void decideFor(long bufferedBytes) {
+            if (compressing != null) {
+                return;
+            }
+            boolean eligible = getStatus() == HttpServletResponse.SC_OK
+                    && getHeader(HttpHeaders.CONTENT_ENCODING) == null
+                    && !noTransform()
+                    && isCompressible(getContentType());
+            if (!eligible) {
+                decide(false);
+            } else if (contentLength >= 0) {
+                decide(contentLength >= minSize);
+            } else if (bufferedBytes >= minSize) {
+                decide(true);
+            }
+        }
+
+        boolean isDecided() {
+            return compressing != null;
+        }
+
+        boolean isCompressing() {
+            return Boolean.TRUE.equals(compressing);
+        }
+
+        void decide(boolean compress) {
+            compressing = compress;
+            if (compress) {
+                super.setHeader(HttpHeaders.CONTENT_ENCODING, CODEC);
+                super.addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+                // The encoded body is a different representation, so a strong validator no longer matches it
+                String etag = getHeader(HttpHeaders.ETAG);
+                if (etag != null && !etag.startsWith("W/")) {
+                    super.setHeader(HttpHeaders.ETAG, "W/" + etag);
+                }
+            } else if (contentLength >= 0) {
+                super.setContentLengthLong(contentLength);
+            }
+        }
+
+        void finish() throws IOException {
+            if (writer != null) {
+                writer.flush();
+            }
+            if (outputStream != null) {
+                outputStream.finish();
+            } else if (compressing == null) {
+                decide(false);
+            }
+        }
+
+        void abandon() {
+            if (outputStream != null) {
+                outputStream.releaseDeflater();
+            }
+        }
+
+        private boolean noTransform() {
+            String cacheControl = getHeader(HttpHeaders.CACHE_CONTROL);
+            return cacheControl != null && cacheControl.toLowerCase(Locale.ROOT).contains("no-transform");
+        }
+    }
+
+    /**
+     * Output stream buffering up to min-size bytes when the length is unknown, then either
+     * compressing into the response or passing everything through unchanged.
+     */
+    private class CompressingOutputStream extends ServletOutputStream {
+
+        private final CompressingResponse response;
+        private final ServletOutputStream raw;
+        private final ByteArrayOutputStream pending = new ByteArrayOutputStream();
+        private OutputStream target;
+        private GzipOutputStream gzip;
+        private Deflater deflater;
+        private long cpuNanos;
+        private boolean finished;
+
+        CompressingOutputStream(CompressingResponse response, ServletOutputStream raw) {
+            this.response = response;
+            this.raw = raw;
+        }
+
+        boolean hasPending() {
+            return pending.size() > 0;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte[] { (byte) b }, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] buffer, int offset, int length) throws IOException {
+            if (target == null) {
+                pending.write(buffer, offset, length);
+                response.decideFor(pending.size());
+                if (!response.isDecided()) {
+                    return; // Length still unknown and below min-size; keep buffering
+                }
+                openTarget();
+                byte[] buffered = pending.toByteArray();
+                pending.reset();
+                writeTarget(buffered, 0, buffered.length);
+                return;
+            }
+            writeTarget(buffer, offset, length);
+        }
+
+        @Override
+        public void flush() throws IOException {
+            // A flush while still buffering below min-size is deferred; the body may yet end up uncompressed
+            if (target != null) {
+                target.flush();
+            }
+        }
+
+        @Override
+        public boolean isReady() {
+            return raw.isReady();
+        }
+
+        @Override
+        public void setWriteListener(WriteListener writeListener) {
+            raw.setWriteListener(writeListener);
+        }
+
+        void finish() throws IOException {
+            if (finished) {
+                return;
+            }
+            finished = true;
+            if (target == null) {
+                if (!response.isDecided()) {
+                    // The whole body fit under min-size: send it as is, with its now known length
+                    response.setContentLengthLong(pending.size());
+                    response.decide(false);
+                }
+                openTarget();
+                raw.write(pending.toByteArray());
+                pending.reset();
+            }
+            if (gzip != null) {
+                long start = currentThreadCpuTime();
+                try {
+                    gzip.finish();
+                } finally {
+                    cpuNanos += currentThreadCpuTime() - start;
+                    recordMetrics();
+                    releaseDeflater();
+                }
+            }
+            raw.flush();
+        }
+
+        void releaseDeflater() {
+            if (deflater != null) {
+                deflaterPool.release(deflater);
+                deflater = null;
+            }
+        }
+
+        private void openTarget() throws IOException {
+            if (response.isCompressing()) {
+                deflater = deflaterPool.borrow();
+                gzip = new GzipOutputStream(raw, deflater, bufferSize);
+                target = gzip;
+            } else {
+                target = raw;
+            }
+        }
+
+        private void writeTarget(byte[] buffer, int offset, int length) throws IOException {
+            if (gzip == null) {
+                target.write(buffer, offset, length);
+                return;
+            }
+            long start = currentThreadCpuTime();
+            try {
+                gzip.write(buffer, offset, length);
+            } finally {
+                cpuNanos += currentThreadCpuTime() - start;
+            }
+        }
+
+        private void recordMetrics() {
+            long in = gzip.getBytesIn();
+            long out = gzip.getBytesOut();
+            bytesIn.increment(in);
+            bytesOut.increment(out);
+            bytesSaved.increment(Math.max(0, in - out));
+            cpuTime.record(cpuNanos, TimeUnit.NANOSECONDS);
+            logger.debug("Compressed response body from {} to {} bytes", in, out);
+        }
+    }
+}
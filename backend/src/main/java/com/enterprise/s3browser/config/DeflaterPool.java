@@ -0,0 +1,71 @@
+package com.enterprise.s3browser.config;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.Deflater;
+
+/**
+ * Bounded pool of raw (nowrap) {@link Deflater} instances.
+ * Each Deflater owns native zlib state that is only freed by {@link Deflater#end()}, so reusing
+ * them avoids a native allocation and a finalization-dependent release per compressed response.
+ */
+class DeflaterPool {
+
+    private final int level;
+    private final int maxIdle;
+    private final Queue<Deflater> idle = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger idleCount = new AtomicInteger();
+    private final AtomicLong createdCount = new AtomicLong();
+
+    DeflaterPool(int level, int maxIdle) {
+        this.level = level;
+        this.maxIdle = maxIdle;
+    }
+
+    /**
+     * Take an idle Deflater, creating one when the pool is empty.
+     */
+    public Deflater borrow() {
+        Deflater deflater = idle.poll();
+        if (deflater != null) {
+            idleCount.decrementAndGet();
+            return deflater;
+        }
+        createdCount.incrementAndGet();
+        return new Deflater(level, true);
+    }
+
+    /**
+     * Return a Deflater for reuse, or release its native state when the pool is full.
+     */
+    public void release(Deflater deflater) {
+        deflater.reset();
+        if (idleCount.incrementAndGet() <= maxIdle) {
+            idle.offer(deflater);
+        } else {
+            idleCount.decrementAndGet();
+            deflater.end();
+        }
+    }
+
+    /**
+     * Release the native state of every idle Deflater.
+     */
+    public void close() {
+        Deflater deflater;
+        while ((deflater = idle.poll()) != null) {
+            idleCount.decrementAndGet();
+            deflater.end();
+        }
+    }
+
+    public int getIdleCount() {
+        return idleCount.get();
+    }
+
+    public long getCreatedCount() {
+        return createdCount.get();
+    }
+}
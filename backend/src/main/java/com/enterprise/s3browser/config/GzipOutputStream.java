@@ -0,0 +1,70 @@
+package com.enterprise.s3browser.config;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+
+/**
+ * Gzip (RFC 1952) writer over a caller-supplied raw Deflater.
+ * Unlike {@link java.util.zip.GZIPOutputStream}, which always allocates its own Deflater,
+ * this lets the Deflater come from a {@link DeflaterPool}. The Deflater is not ended on close;
+ * the caller hands it back to the pool once the stream is finished.
+ */
+class GzipOutputStream extends DeflaterOutputStream {
+
+    private static final byte[] HEADER = {
+        0x1f, (byte) 0x8b, Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, 0
+    };
+    private static final int TRAILER_SIZE = 8;
+
+    private final CRC32 crc = new CRC32();
+
+    GzipOutputStream(OutputStream out, Deflater deflater, int bufferSize) throws IOException {
+        super(out, deflater, bufferSize);
+        out.write(HEADER);
+    }
+
+    @Override
+    public synchronized void write(byte[] buffer, int offset, int length) throws IOException {
+        super.write(buffer, offset, length);
+        crc.update(buffer, offset, length);
+    }
+
+    /**
+     * Finish the compressed data and write the gzip trailer, without closing the underlying stream.
+     */
+    @Override
+    public void finish() throws IOException {
+        if (def.finished()) {
+            return;
+        }
+        super.finish();
+        byte[] trailer = new byte[TRAILER_SIZE];
+        writeInt((int) crc.getValue(), trailer, 0);
+        writeInt((int) def.getBytesRead(), trailer, 4);
+        out.write(trailer);
+    }
+
+    /**
+     * Uncompressed bytes written so far.
+     */
+    public long getBytesIn() {
+        return def.getBytesRead();
+    }
+
+    /**
+     * Compressed bytes produced so far, including the gzip header and, once finished, the trailer.
+     */
+    public long getBytesOut() {
+        return HEADER.length + def.getBytesWritten() + (def.finished() ? TRAILER_SIZE : 0);
+    }
+
+    private static void writeInt(int value, byte[] buffer, int offset) {
+        buffer[offset] = (byte) value;
+        buffer[offset + 1] = (byte) (value >> 8);
+        buffer[offset + 2] = (byte) (value >> 16);
+        buffer[offset + 3] = (byte) (value >> 24);
+    }
+}
@@ -1,16 +1,49 @@
 package com.enterprise.s3browser.config;
 
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
 import org.springframework.web.servlet.config.annotation.ResourceHandlerRegistry;
 import org.springframework.web.servlet.config.annotation.ViewControllerRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 
 /**
- * Web configuration for serving static frontend files.
+ * Web configuration for serving static frontend files and writing streamed response bodies.
  */
 @Configuration
 public class WebConfig implements WebMvcConfigurer {
 
+    @Value("${s3.download.threads:64}")
+    private int downloadThreads;
+
+    @Value("${s3.download.queue-capacity:256}")
+    private int downloadQueueCapacity;
+
+    /**
+     * Executor for streamed response bodies (downloads, archives, listings). Each body holds its
+     * thread for the whole transfer, so the pool is sized for concurrent transfers; bodies beyond
+     * the queue are rejected with 503 instead of waiting indefinitely.
+     */
+    @Bean
+    public ThreadPoolTaskExecutor mvcAsyncExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setThreadNamePrefix("mvc-async-");
+        executor.setCorePoolSize(downloadThreads);
+        executor.setMaxPoolSize(downloadThreads);
+        executor.setQueueCapacity(downloadQueueCapacity);
+        executor.setAllowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    @Override
+    public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+        // Runs after Spring Boot's configurer, so this replaces the shared application task executor;
+        // the timeout still comes from spring.mvc.async.request-timeout
+        configurer.setTaskExecutor(mvcAsyncExecutor());
+    }
+
     @Override
     public void addResourceHandlers(ResourceHandlerRegistry registry) {
         // Serve frontend files from classpath (embedded in JAR)
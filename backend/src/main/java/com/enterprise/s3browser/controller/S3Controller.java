@@ -1,31 +1,93 @@
 package com.enterprise.s3browser.controller;
 
+import com.enterprise.s3browser.dto.CompactionJobDto;
+import com.enterprise.s3browser.dto.DedupMatchDto;
+import com.enterprise.s3browser.dto.PresignedUrlDto;
 import com.enterprise.s3browser.dto.S3ObjectDto;
+import com.enterprise.s3browser.dto.TextPageDto;
+import com.enterprise.s3browser.dto.ThumbnailBatchRequest;
+import com.enterprise.s3browser.dto.ThumbnailDto;
+import com.enterprise.s3browser.dto.UploadResultDto;
+import com.enterprise.s3browser.dto.UploadSessionDto;
+import com.enterprise.s3browser.dto.UploadSessionRequest;
+import com.enterprise.s3browser.exception.PreconditionFailedException;
+import com.enterprise.s3browser.exception.RangeNotSatisfiableException;
+import com.enterprise.s3browser.exception.S3ServiceException;
+import com.enterprise.s3browser.model.ArchiveFormat;
+import com.enterprise.s3browser.model.ByteRange;
+import com.enterprise.s3browser.model.CompactionJob;
+import com.enterprise.s3browser.model.DedupEntry;
+import com.enterprise.s3browser.model.ObjectListing;
+import com.enterprise.s3browser.model.PresignedUrl;
+import com.enterprise.s3browser.model.RequestConditions;
 import com.enterprise.s3browser.model.S3Object;
+import com.enterprise.s3browser.model.StagedUpload;
+import com.enterprise.s3browser.model.TextPage;
+import com.enterprise.s3browser.model.Thumbnail;
+import com.enterprise.s3browser.model.ThumbnailSize;
+import com.enterprise.s3browser.model.UploadResult;
+import com.enterprise.s3browser.model.UploadSession;
+import com.enterprise.s3browser.service.AppendService;
+import com.enterprise.s3browser.service.ArchiveService;
+import com.enterprise.s3browser.service.BatchUploadService;
+import com.enterprise.s3browser.service.CompactionService;
+import com.enterprise.s3browser.service.DedupUploadService;
+import com.enterprise.s3browser.service.DeltaUploadService;
+import com.enterprise.s3browser.service.ListingCacheService;
+import com.enterprise.s3browser.service.ListingStreamService;
+import com.enterprise.s3browser.service.MultipartUploadService;
+import com.enterprise.s3browser.service.ObjectCacheService;
+import com.enterprise.s3browser.service.ParallelDownloadService;
+import com.enterprise.s3browser.service.PresignedUrlService;
+import com.enterprise.s3browser.service.ResumableUploadService;
 import com.enterprise.s3browser.service.S3Service;
+import com.enterprise.s3browser.service.TextViewerService;
+import com.enterprise.s3browser.service.ThumbnailService;
+import com.enterprise.s3browser.service.UnlistedObjects;
+import com.enterprise.s3browser.service.WriteBehindUploadService;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.validation.Valid;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.core.io.ByteArrayResource;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.util.MimeTypeUtils;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
-import software.amazon.awssdk.core.ResponseBytes;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import software.amazon.awssdk.core.ResponseInputStream;
 import software.amazon.awssdk.services.s3.model.GetObjectResponse;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URI;
 import java.net.URLEncoder;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
 import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 import java.util.stream.Collectors;
 
 /**
@@ -39,67 +101,450 @@ public class S3Controller {
 
     private static final Logger logger = LoggerFactory.getLogger(S3Controller.class);
 
+    // Tomcat request attributes for handing a file body to the connector's sendfile support
+
+    // Carries the token for the next page of a listing; absent on the last page
+    static final String CONTINUATION_TOKEN_HEADER = "X-Continuation-Token";
+
     @Autowired
     private S3Service s3Service;
 
-    @Operation(summary = "List objects", description = "List objects in the bucket with optional prefix")
+    @Autowired
+    private ParallelDownloadService parallelDownloadService;
+
+    @Autowired
+    private ObjectCacheService objectCacheService;
+
+    @Autowired
+    private ArchiveService archiveService;
+
+    @Autowired
+    private PresignedUrlService presignedUrlService;
+
+    @Autowired
+    private TextViewerService textViewerService;
+
+    @Autowired
+    private ThumbnailService thumbnailService;
+
+    @Autowired
+    private MultipartUploadService multipartUploadService;
+
+    @Autowired
+    private ResumableUploadService resumableUploadService;
+
+    @Autowired
+    private BatchUploadService batchUploadService;
+
+    @Autowired
+    private WriteBehindUploadService writeBehindUploadService;
+
+    @Autowired
+    private DedupUploadService dedupUploadService;
+
+    @Autowired
+    private DeltaUploadService deltaUploadService;
+
+    @Autowired
+    private AppendService appendService;
+
+    @Autowired
+    private CompactionService compactionService;
+
+    @Autowired
+    private ListingStreamService listingStreamService;
+
+    @Autowired
+    private ListingCacheService listingCacheService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${s3.download.buffer-size:65536}")
+    private int downloadBufferSize;
+
+    // Download bodies run on the MVC async executor, so one buffer per pooled thread is reused across downloads
+    private final ThreadLocal<byte[]> transferBuffer = ThreadLocal.withInitial(() -> new byte[downloadBufferSize]);
+
+    @Operation(summary = "List objects", description = "List one page of objects in the bucket with optional prefix. "
+            + "When more entries follow, the token for the next page is returned in the X-Continuation-Token header")
     @ApiResponse(responseCode = "200", description = "Successfully retrieved objects")
+    @ApiResponse(responseCode = "400", description = "Invalid page size or continuation token")
     @GetMapping("/objects")
     @PreAuthorize("hasAuthority('USER')")
     public ResponseEntity<List<S3ObjectDto>> listObjects(
-            @Parameter(description = "Prefix to filter objects") @RequestParam(required = false) String prefix) {
+            @Parameter(description = "Prefix to filter objects") @RequestParam(required = false) String prefix,
+            @Parameter(description = "Maximum number of entries in the page, 1 to 1000") @RequestParam(defaultValue = "1000") int pageSize,
+            @Parameter(description = "Token from the previous page's X-Continuation-Token header") @RequestParam(required = false) String continuationToken,
+            @Parameter(description = "List keys after this one; ignored with a continuation token") @RequestParam(required = false) String startAfter) {
         
         logger.info("Listing objects with prefix: {}", prefix);
         
-        List<S3Object> objects = s3Service.listObjects(prefix);
+        ObjectListing listing = listingCacheService.listObjects(prefix, pageSize, continuationToken, startAfter);
+        // Only entries in the page's key range: a page resumed after a folder lists that folder again
+        List<S3Object> objects = listing.getObjects().stream()
+                .filter(object -> listing.covers(object.getKey()))
+                .collect(Collectors.toList());
+        String nextToken = listing.getNextContinuationToken();
+        if (writeBehindUploadService.isEnabled() || compactionService.isEnabled()) {
+            // Unlisted entries come after the page's start, up to its last key unless it is the last page
+            String pageStart = listing.getStartAfter();
+            UnlistedObjects unlisted = new UnlistedObjects(writeBehindUploadService.pendingObjects(prefix, pageStart, false),
+                    compactionService.compactedObjects(prefix, pageStart, false));
+            Iterator<S3Object> merged = unlisted.mergeWith(objects, listing.isTruncated() ? listing.getLastKey() : null);
+            objects = new ArrayList<>();
+            while (merged.hasNext() && objects.size() < pageSize) {
+                objects.add(merged.next());
+            }
+            if (merged.hasNext()) {
+                // The page is full before the end of what S3 listed; the next one resumes after its last entry
+                nextToken = S3Service.continuationTokenAfter(objects.get(objects.size() - 1).getKey());
+            }
+        }
         List<S3ObjectDto> objectDtos = objects.stream()
                 .map(this::convertToDto)
                 .collect(Collectors.toList());
         
-        return ResponseEntity.ok(objectDtos);
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (nextToken != null) {
+            response.header(CONTINUATION_TOKEN_HEADER, nextToken);
+        }
+        return response.body(objectDtos);
     }
 
-    @Operation(summary = "Get object metadata", description = "Get metadata for a specific object")
+    @Operation(summary = "Stream listing", description = "Stream the full listing of a prefix, however large, as newline-delimited JSON in key order; "
+            + "the next page is fetched from S3 while the current one is written")
+    @ApiResponse(responseCode = "200", description = "One object per line; a listing that fails part way ends the response early")
+    @GetMapping("/objects/stream")
+    @PreAuthorize("hasAuthority('USER')")
+    public ResponseEntity<StreamingResponseBody> streamObjects(
+            @Parameter(description = "Prefix to list; the whole bucket when omitted") @RequestParam(required = false) String prefix,
+            @Parameter(description = "List every object below the prefix, or only the objects and folders directly under it") @RequestParam(defaultValue = "true") boolean recursive) {
+        
+        logger.info("Streaming listing of objects with prefix: {} (recursive: {})", prefix, recursive);
+        
+        StreamingResponseBody body = outputStream -> listingStreamService.streamListing(prefix, recursive, page -> {
+            for (S3Object object : page) {
+                outputStream.write(objectMapper.writeValueAsBytes(convertToDto(object)));
+                outputStream.write('\n');
+            }
+            // One flush per page gets the first entries out quickly without a flush per line
+            outputStream.flush();
+        });
+        
+        // Compression would hold back each flushed page until the deflater fills a block
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType("application/x-ndjson"))
+                .cacheControl(CacheControl.empty().noTransform())
+                .body(body);
+    }
+
+    @Operation(summary = "Get object metadata", description = "Get metadata for a specific object, honoring conditional request headers")
     @ApiResponse(responseCode = "200", description = "Successfully retrieved object metadata")
+    @ApiResponse(responseCode = "304", description = "Object not modified")
     @GetMapping("/objects/{key}/metadata")
     @PreAuthorize("hasAuthority('USER')")
     public ResponseEntity<S3ObjectDto> getObjectMetadata(
-            @Parameter(description = "Object key") @PathVariable String key) {
+            @Parameter(description = "Object key") @PathVariable String key,
+            @RequestHeader HttpHeaders requestHeaders) {
         
         logger.info("Getting metadata for object: {}", key);
         
-        S3Object object = s3Service.getObjectMetadata(key);
+        S3Object object = s3Service.getObjectMetadata(key, toConditions(requestHeaders));
         S3ObjectDto objectDto = convertToDto(object);
         
-        return ResponseEntity.ok(objectDto);
+        return ResponseEntity.ok()
+                .headers(validatorHeaders(object.getEtag(), object.getLastModified()))
+                .body(objectDto);
     }
 
-    @Operation(summary = "Download object", description = "Download object content")
+    @Operation(summary = "Download object", description = "Stream object content, honoring HTTP Range and conditional request headers")
     @ApiResponse(responseCode = "200", description = "Successfully downloaded object")
+    @ApiResponse(responseCode = "206", description = "Successfully downloaded the requested byte ranges")
+    @ApiResponse(responseCode = "302", description = "Redirected to a presigned URL on the S3 endpoint")
+    @ApiResponse(responseCode = "304", description = "Object not modified")
+    @ApiResponse(responseCode = "412", description = "Precondition failed")
+    @ApiResponse(responseCode = "416", description = "Requested ranges are not satisfiable")
     @GetMapping("/objects/download")
     @PreAuthorize("hasAuthority('USER')")
-    public ResponseEntity<ByteArrayResource> downloadObject(
-            @Parameter(description = "Object key") @RequestParam String key) {
+    public ResponseEntity<StreamingResponseBody> downloadObject(
+            @Parameter(description = "Object key") @RequestParam String key,
+            @Parameter(description = "HTTP byte ranges to download") @RequestHeader(value = HttpHeaders.RANGE, required = false) String rangeHeader,
+            @Parameter(description = "Redirect to a presigned URL instead of streaming through this server") @RequestParam(required = false) Boolean redirect,
+            @RequestHeader HttpHeaders requestHeaders) {
+        
+        logger.info("Downloading object: {} (range: {})", key, rangeHeader);
+        
+        if (writeBehindUploadService.isEnabled()) {
+            ResponseEntity<StreamingResponseBody> pending = downloadPendingObject(key, toConditions(requestHeaders));
+            if (pending != null) {
+                return pending;
+            }
+        }
+        // Compacted objects are not redirected, since their key no longer exists on the S3 endpoint
+        if (presignedUrlService.isEnabled()
+                && (redirect != null ? redirect : presignedUrlService.isRedirectDownloads())
+                && compactionService.resolve(key) == null) {
+            // Range and conditional headers are re-sent by the client to S3 along with the redirect
+            return ResponseEntity.status(HttpStatus.FOUND)
+                    .location(URI.create(presignedUrlService.getDownloadUrl(key).getUrl()))
+                    .cacheControl(CacheControl.noStore())
+                    .build();
+        }
+        
+        RequestConditions conditions = toConditions(requestHeaders);
+        List<HttpRange> httpRanges = parseRanges(rangeHeader);
+        if (httpRanges.size() > 1) {
+            return downloadObjectRanges(key, httpRanges, conditions);
+        }
+        
+        ObjectCacheService.CacheFill cacheFill = null;
+        if (httpRanges.isEmpty() && (parallelDownloadService.isEnabled() || objectCacheService.isEnabled())) {
+            S3Object metadata = s3Service.getObjectMetadata(key, conditions);
+            FileChannel cachedFile = objectCacheService.lookup(metadata);
+            if (cachedFile != null) {
+                return downloadObjectFromCache(key, metadata, cachedFile);
+            }
+            if (parallelDownloadService.shouldDownloadInParallel(metadata)) {
+                return downloadObjectInParallel(key, metadata);
+            }
+            // Conditions were already evaluated by HEAD; pin the GET to the version being cached
+            cacheFill = objectCacheService.startFill(metadata);
+            if (cacheFill != null) {
+                conditions = new RequestConditions();
+                conditions.setIfMatch(metadata.getEtag());
+            }
+        }
+        
+        ResponseInputStream<GetObjectResponse> stream;
+        try {
+            stream = httpRanges.isEmpty()
+                    ? s3Service.downloadObjectStream(key, null, conditions)
+                    : downloadObjectRange(key, HttpRange.toString(httpRanges), conditions);
+        } catch (RuntimeException e) {
+            if (cacheFill != null) {
+                cacheFill.close();
+            }
+            throw e;
+        }
+        GetObjectResponse objectResponse = stream.response();
+        
+        HttpHeaders headers = downloadHeaders(key, objectResponse.contentType());
+        headers.addAll(validatorHeaders(objectResponse.eTag(), objectResponse.lastModified()));
+        if (objectResponse.contentLength() != null) {
+            headers.setContentLength(objectResponse.contentLength());
+        }
+        
+        HttpStatus status = HttpStatus.OK;
+        if (objectResponse.contentRange() != null) {
+            headers.set(HttpHeaders.CONTENT_RANGE, objectResponse.contentRange());
+            status = HttpStatus.PARTIAL_CONTENT;
+        }
+        
+        ObjectCacheService.CacheFill fill = cacheFill;
+        return ResponseEntity.status(status)
+                .headers(headers)
+                .body(outputStream -> transferObject(key, stream, outputStream, fill));
+    }
+
+    /**
+     * Serve an object whose write-behind upload has not reached S3 yet from its staging file,
+     * or return null when the key has no pending upload. Pending content has no ETag yet, so
+     * ranges are not supported and only an If-Match of any version can be satisfied.
+     */
+    private ResponseEntity<StreamingResponseBody> downloadPendingObject(String key, RequestConditions conditions) {
+        StagedUpload upload = writeBehindUploadService.getPendingUpload(key);
+        if (upload == null) {
+            return null;
+        }
+        if (conditions != null && conditions.getIfMatch() != null && !conditions.getIfMatch().trim().equals("*")) {
+            throw new PreconditionFailedException("Precondition failed for object: " + key);
+        }
+        InputStream content;
+        try {
+            content = writeBehindUploadService.openPending(upload);
+        } catch (IOException e) {
+            throw new S3ServiceException("Failed to read staged upload: " + e.getMessage(), e);
+        }
+        if (content == null) {
+            return null;
+        }
+        logger.debug("Serving object {} from staged upload {}", key, upload.getId());
+        
+        HttpHeaders headers = downloadHeaders(key, upload.getContentType());
+        headers.remove(HttpHeaders.ACCEPT_RANGES);
+        headers.addAll(validatorHeaders(null, upload.getStagedAt()));
+        headers.setContentLength(upload.getSize());
+        
+        return ResponseEntity.ok()
+                .headers(headers)
+                .body(outputStream -> {
+                    try (InputStream in = content) {
+                        in.transferTo(outputStream);
+                    }
+                });
+    }
+
+    @Operation(summary = "Check object", description = "Get download headers for an object without transferring its content")
+    @ApiResponse(responseCode = "200", description = "Object exists")
+    @ApiResponse(responseCode = "304", description = "Object not modified")
+    @RequestMapping(value = "/objects/download", method = RequestMethod.HEAD)
+    @PreAuthorize("hasAuthority('USER')")
+    public ResponseEntity<Void> headObject(
+            @Parameter(description = "Object key") @RequestParam String key,
+            @RequestHeader HttpHeaders requestHeaders) {
         
-        logger.info("Downloading object: {}", key);
+        logger.info("Checking object: {}", key);
         
-        ResponseBytes<GetObjectResponse> response = s3Service.downloadObject(key);
-        ByteArrayResource resource = new ByteArrayResource(response.asByteArray());
+        S3Object object = s3Service.getObjectMetadata(key, toConditions(requestHeaders));
         
+        HttpHeaders headers = downloadHeaders(key, object.getContentType());
+        headers.addAll(validatorHeaders(object.getEtag(), object.getLastModified()));
+        headers.setContentLength(object.getSize());
+        
+        return ResponseEntity.ok()
+                .headers(headers)
+                .build();
+    }
+
+    @Operation(summary = "Download folder", description = "Stream every object under a prefix as a ZIP, tar or tar.gz archive")
+    @ApiResponse(responseCode = "200", description = "Successfully streamed archive")
+    @ApiResponse(responseCode = "400", description = "Unsupported archive format")
+    @GetMapping("/objects/archive")
+    @PreAuthorize("hasAuthority('USER')")
+    public ResponseEntity<StreamingResponseBody> downloadArchive(
+            @Parameter(description = "Prefix to archive; the whole bucket when omitted") @RequestParam(required = false) String prefix,
+            @Parameter(description = "Archive format: zip, tar or tar.gz") @RequestParam(defaultValue = "zip") String format) {
+        
+        logger.info("Archiving objects with prefix: {} (format: {})", prefix, format);
+        
+        ArchiveFormat archiveFormat = ArchiveFormat.fromExtension(format);
         HttpHeaders headers = new HttpHeaders();
-        headers.add(HttpHeaders.CONTENT_DISPOSITION, 
-                   "attachment; filename=\"" + URLEncoder.encode(getFileName(key), StandardCharsets.UTF_8) + "\"");
-        headers.add(HttpHeaders.CONTENT_TYPE, 
-                   response.response().contentType() != null ? response.response().contentType() : MediaType.APPLICATION_OCTET_STREAM_VALUE);
+        headers.add(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\""
+                + URLEncoder.encode(archiveService.getArchiveName(prefix, archiveFormat), StandardCharsets.UTF_8) + "\"");
+        headers.add(HttpHeaders.CONTENT_TYPE, archiveFormat.getContentType());
         
         return ResponseEntity.ok()
                 .headers(headers)
-                .contentLength(response.asByteArray().length)
-                .body(resource);
+                .body(outputStream -> archiveService.writeArchive(prefix, archiveFormat, outputStream));
+    }
+
+    @Operation(summary = "Get presigned download URL", description = "Get a short-lived URL for downloading an object directly from the S3 endpoint")
+    @ApiResponse(responseCode = "200", description = "Successfully presigned download")
+    @ApiResponse(responseCode = "404", description = "Presigned URLs are disabled")
+    @GetMapping("/objects/presigned-url")
+    @PreAuthorize("hasAuthority('USER')")
+    public ResponseEntity<PresignedUrlDto> getPresignedDownloadUrl(
+            @Parameter(description = "Object key") @RequestParam String key) {
+        
+        if (!presignedUrlService.isEnabled()) {
+            return ResponseEntity.notFound().build();
+        }
+        
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.noStore())
+                .body(convertToDto(presignedUrlService.getDownloadUrl(key)));
+    }
+
+    @Operation(summary = "Get presigned upload URL", description = "Get a short-lived URL for uploading an object directly to the S3 endpoint")
+    @ApiResponse(responseCode = "200", description = "Successfully presigned upload")
+    @ApiResponse(responseCode = "404", description = "Presigned URLs are disabled")
+    @GetMapping("/objects/presigned-upload-url")
+    @PreAuthorize("hasAuthority('USER')")
+    public ResponseEntity<PresignedUrlDto> getPresignedUploadUrl(
+            @Parameter(description = "Object key") @RequestParam String key,
+            @Parameter(description = "Content type the upload will be sent with") @RequestParam(required = false) String contentType) {
+        
+        if (!presignedUrlService.isEnabled()) {
+            return ResponseEntity.notFound().build();
+        }
+        
+        logger.info("Presigning upload of object: {}", key);
+        
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.noStore())
+                .body(convertToDto(presignedUrlService.getUploadUrl(key, contentType)));
+    }
+
+    @Operation(summary = "View text object", description = "Read a page of lines from a text object by line number, byte offset or from the end")
+    @ApiResponse(responseCode = "200", description = "Successfully read lines")
+    @ApiResponse(responseCode = "503", description = "The requested line is not indexed yet; retry shortly")
+    @GetMapping("/objects/text")
+    @PreAuthorize("hasAuthority('USER')")
+    public ResponseEntity<TextPageDto> viewTextObject(
+            @Parameter(description = "Object key") @RequestParam String key,
+            @Parameter(description = "Zero-based line to start at") @RequestParam(required = false) Long line,
+            @Parameter(description = "Byte offset to start at; the page begins at the next line start") @RequestParam(required = false) Long offset,
+            @Parameter(description = "Read the last lines instead") @RequestParam(defaultValue = "false") boolean tail,
+            @Parameter(description = "Number of lines to read") @RequestParam(defaultValue = "100") int count) {
+        
+        logger.debug("Viewing text object: {} (line: {}, offset: {}, tail: {}, count: {})", key, line, offset, tail, count);
+        
+        TextPage page;
+        if (tail) {
+            page = textViewerService.readTail(key, count);
+        } else if (offset != null) {
+            page = textViewerService.readFromOffset(key, offset, count);
+        } else {
+            page = textViewerService.readLines(key, line != null ? Math.max(0, line) : 0, count);
+        }
+        
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.noCache().cachePrivate())
+                .body(convertToDto(page));
+    }
+
+    @Operation(summary = "Get thumbnail", description = "Get a JPEG thumbnail of an image object")
+    @ApiResponse(responseCode = "200", description = "Successfully rendered thumbnail")
+    @ApiResponse(responseCode = "404", description = "Thumbnails are disabled or the object is not a renderable image")
+    @ApiResponse(responseCode = "503", description = "Too many thumbnails are being rendered; retry shortly")
+    @GetMapping("/objects/thumbnail")
+    @PreAuthorize("hasAuthority('USER')")
+    public CompletableFuture<ResponseEntity<byte[]>> getThumbnail(
+            @Parameter(description = "Object key") @RequestParam String key,
+            @Parameter(description = "Thumbnail size: small, medium or large") @RequestParam(defaultValue = "small") String size) {
+        
+        ThumbnailSize thumbnailSize = ThumbnailSize.fromName(size);
+        if (!thumbnailService.isEnabled()) {
+            return CompletableFuture.completedFuture(ResponseEntity.notFound().build());
+        }
+        
+        // Rendering runs on the thumbnail pool; the request thread is released until it completes
+        return thumbnailService.getThumbnail(key, thumbnailSize).thenApply(thumbnail -> {
+            if (thumbnail == null) {
+                return ResponseEntity.notFound().<byte[]>build();
+            }
+            return ResponseEntity.ok()
+                    .contentType(MediaType.parseMediaType(thumbnail.getContentType()))
+                    .cacheControl(CacheControl.maxAge(Duration.ofMinutes(5)).cachePrivate())
+                    .body(thumbnail.getData());
+        });
+    }
+
+    @Operation(summary = "Get thumbnails", description = "Get thumbnails of several objects at once; objects without one are left out")
+    @ApiResponse(responseCode = "200", description = "Successfully rendered thumbnails")
+    @ApiResponse(responseCode = "404", description = "Thumbnails are disabled")
+    @ApiResponse(responseCode = "503", description = "Too many thumbnails are being rendered; retry shortly")
+    @PostMapping("/objects/thumbnails")
+    @PreAuthorize("hasAuthority('USER')")
+    public CompletableFuture<ResponseEntity<List<ThumbnailDto>>> getThumbnails(@Valid @RequestBody ThumbnailBatchRequest batchRequest) {
+        
+        logger.debug("Rendering {} thumbnails (size: {})", batchRequest.getKeys().size(), batchRequest.getSize());
+        
+        ThumbnailSize thumbnailSize = ThumbnailSize.fromName(batchRequest.getSize());
+        if (!thumbnailService.isEnabled()) {
+            return CompletableFuture.completedFuture(ResponseEntity.notFound().build());
+        }
+        
+        return thumbnailService.getThumbnails(batchRequest.getKeys(), thumbnailSize)
+                .thenApply(thumbnails -> ResponseEntity.ok()
+                        .cacheControl(CacheControl.noCache().cachePrivate())
+                        .body(thumbnails.stream().map(this::convertToDto).collect(Collectors.toList())));
     }
 
     @Operation(summary = "Upload object", description = "Upload a file to S3")
     @ApiResponse(responseCode = "201", description = "Successfully uploaded object")
+    @ApiResponse(responseCode = "202", description = "Object staged in write-behind mode; it is stored in S3 in the background")
     @PostMapping("/objects")
     @PreAuthorize("hasAuthority('USER')")
     public ResponseEntity<String> uploadObject(
@@ -108,12 +553,284 @@ public class S3Controller {
         
         logger.info("Uploading object: {} (size: {} bytes)", key, file.getSize());
         
-        s3Service.uploadObject(key, file.getInputStream(), file.getSize(), file.getContentType());
+        if (writeBehindUploadService.tryStage(key, file.getInputStream(), file.getSize(), file.getContentType()) != null) {
+            return ResponseEntity.status(HttpStatus.ACCEPTED)
+                    .body("Object queued for upload: " + key);
+        }
+        if (dedupUploadService.isEnabled() && !deltaUploadService.shouldUseDelta(file.getSize())) {
+            // The file is spooled, so it can be hashed before deciding whether to send it at all
+            dedupUploadService.upload(key, file, file.getSize(), file.getContentType());
+        } else {
+            upload(key, file.getInputStream(), file.getSize(), file.getContentType());
+        }
+        
+        return ResponseEntity.status(HttpStatus.CREATED)
+                .body("Object uploaded successfully: " + key);
+    }
+
+    @Operation(summary = "Upload object (streaming)", description = "Upload the raw request body as an object, streamed to S3 as it arrives without being spooled; large or chunked bodies go up as a parallel multipart upload")
+    @ApiResponse(responseCode = "201", description = "Successfully uploaded object")
+    @ApiResponse(responseCode = "202", description = "Object staged in write-behind mode; it is stored in S3 in the background")
+    @ApiResponse(responseCode = "411", description = "The request has no Content-Length and multipart uploads are disabled")
+    @PutMapping("/objects")
+    @PreAuthorize("hasAuthority('USER')")
+    public ResponseEntity<String> uploadObjectStream(
+            @Parameter(description = "Object key") @RequestParam String key,
+            @Parameter(description = "Content type of the object") @RequestHeader(value = HttpHeaders.CONTENT_TYPE, required = false) String contentType,
+            HttpServletRequest request) throws IOException {
+        
+        long contentLength = request.getContentLengthLong();
+        if (contentLength < 0 && !multipartUploadService.shouldUseMultipart(contentLength)) {
+            return ResponseEntity.status(HttpStatus.LENGTH_REQUIRED)
+                    .body("Content-Length is required for streaming uploads");
+        }
+        
+        logger.info("Streaming upload of object: {} (size: {} bytes)", key, contentLength);
+        
+        if (writeBehindUploadService.tryStage(key, request.getInputStream(), contentLength, contentType) != null) {
+            return ResponseEntity.status(HttpStatus.ACCEPTED)
+                    .body("Object queued for upload: " + key);
+        }
+        upload(key, request.getInputStream(), contentLength, contentType);
         
         return ResponseEntity.status(HttpStatus.CREATED)
                 .body("Object uploaded successfully: " + key);
     }
 
+    @Operation(summary = "Append to object", description = "Append the raw request body to an object, creating it if it does not exist; the current content is copied on the server side, so only the appended bytes are sent")
+    @ApiResponse(responseCode = "200", description = "Successfully appended; returns the new version")
+    @ApiResponse(responseCode = "411", description = "The request has no Content-Length")
+    @PostMapping("/objects/append")
+    @PreAuthorize("hasAuthority('USER')")
+    public ResponseEntity<S3ObjectDto> appendObject(
+            @Parameter(description = "Object key") @RequestParam String key,
+            @Parameter(description = "Content type, used when the object is created") @RequestHeader(value = HttpHeaders.CONTENT_TYPE, required = false) String contentType,
+            HttpServletRequest request) throws IOException {
+        
+        long contentLength = request.getContentLengthLong();
+        if (contentLength < 0) {
+            return ResponseEntity.status(HttpStatus.LENGTH_REQUIRED).build();
+        }
+        
+        logger.info("Appending to object: {} ({} bytes)", key, contentLength);
+        
+        S3Object object = appendService.append(key, request.getInputStream(), contentLength, contentType);
+        return ResponseEntity.ok(convertToDto(object));
+    }
+
+    @Operation(summary = "Find content", description = "Look up an object already holding content with the given SHA-256 and length, so its upload can be replaced by a server-side copy")
+    @ApiResponse(responseCode = "200", description = "An object holds the content")
+    @ApiResponse(responseCode = "404", description = "The content is not known, or deduplication is disabled")
+    @GetMapping("/objects/dedup")
+    @PreAuthorize("hasAuthority('USER')")
+    public ResponseEntity<DedupMatchDto> findContent(
+            @Parameter(description = "SHA-256 of the content, hex encoded") @RequestParam String sha256,
+            @Parameter(description = "Content length in bytes") @RequestParam long size) {
+        
+        DedupEntry entry = dedupUploadService.find(sha256, size);
+        if (entry == null) {
+            return ResponseEntity.notFound().build();
+        }
+        
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.noStore())
+                .body(convertToDto(entry));
+    }
+
+    @Operation(summary = "Upload object by hash", description = "Create an object from content already in the bucket, identified by its SHA-256 and length, without sending it")
+    @ApiResponse(responseCode = "201", description = "Successfully uploaded object")
+    @ApiResponse(responseCode = "404", description = "The content is not known, or deduplication is disabled; upload it instead")
+    @PostMapping("/objects/dedup")
+    @PreAuthorize("hasAuthority('USER')")
+    public ResponseEntity<String> uploadObjectByHash(
+            @Parameter(description = "Object key") @RequestParam String key,
+            @Parameter(description = "SHA-256 of the content, hex encoded") @RequestParam String sha256,
+            @Parameter(description = "Content length in bytes") @RequestParam long size,
+            @Parameter(description = "Content type of the object") @RequestParam(required = false) String contentType) throws IOException {
+        
+        logger.info("Uploading object by hash: {} (sha256: {})", key, sha256);
+        
+        if (!dedupUploadService.copyExisting(key, sha256, size, contentType)) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                    .body("Content not found: " + sha256);
+        }
+        
+        return ResponseEntity.status(HttpStatus.CREATED)
+                .body("Object uploaded successfully: " + key);
+    }
+
+    @Operation(summary = "Upload many files", description = "Upload every file of a tar archive sent as the request body as an object under the prefix, keyed by its path in the archive; files are stored concurrently and reported individually")
+    @ApiResponse(responseCode = "200", description = "Per-file upload results, in archive order")
+    @PostMapping(value = "/objects/batch", consumes = "application/x-tar")
+    @PreAuthorize("hasAuthority('USER')")
+    public ResponseEntity<List<UploadResultDto>> uploadBatch(
+            @Parameter(description = "Prefix to store the files under") @RequestParam(required = false, defaultValue = "") String prefix,
+            HttpServletRequest request) throws IOException {
+        
+        logger.info("Uploading batch under prefix: {}", prefix);
+        
+        List<UploadResult> results = batchUploadService.uploadTar(prefix, request.getInputStream());
+        
+        return ResponseEntity.ok(results.stream().map(this::convertToDto).collect(Collectors.toList()));
+    }
+
+    @Operation(summary = "Expand archive", description = "Unpack a ZIP, tar or tar.gz archive sent as the request body under the prefix, without staging it; files are stored concurrently and each result is streamed back as a line of JSON as soon as it is stored")
+    @ApiResponse(responseCode = "200", description = "Per-file upload results as newline-delimited JSON, in completion order; a failure of the archive itself ends the stream with a result without key")
+    @PostMapping("/objects/expand")
+    @PreAuthorize("hasAuthority('USER')")
+    public ResponseEntity<StreamingResponseBody> expandArchive(
+            @Parameter(description = "Prefix to unpack the archive under") @RequestParam(required = false, defaultValue = "") String prefix,
+            HttpServletRequest request) throws IOException {
+        
+        logger.info("Expanding archive under prefix: {}", prefix);
+        
+        InputStream archive = request.getInputStream();
+        StreamingResponseBody body = outputStream -> {
+            Object lock = new Object();
+            try {
+                batchUploadService.expandArchive(prefix, archive,
+                        result -> writeResultLine(outputStream, result, lock));
+            } catch (IOException | RuntimeException e) {
+                logger.warn("Failed to expand archive under prefix {}: {}", prefix, e.getMessage());
+                writeResultLine(outputStream, UploadResult.failure(null, 0, "Failed to expand archive: " + e.getMessage()), lock);
+            }
+        };
+        
+        // Progress lines must reach the client as they are written, so the response is never compressed
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType("application/x-ndjson"))
+                .cacheControl(CacheControl.noStore().noTransform())
+                .body(body);
+    }
+
+    @Operation(summary = "Start resumable upload", description = "Start an upload whose content is sent as numbered chunks, in any order and in parallel, then committed")
+    @ApiResponse(responseCode = "201", description = "Successfully created upload session")
+    @PostMapping("/uploads")
+    @PreAuthorize("hasAuthority('USER')")
+    public ResponseEntity<UploadSessionDto> createUploadSession(@Valid @RequestBody UploadSessionRequest uploadRequest) {
+        
+        logger.info("Starting resumable upload of object: {} (size: {} bytes)", uploadRequest.getKey(), uploadRequest.getSize());
+        
+        UploadSession session = resumableUploadService.createSession(uploadRequest.getKey(),
+                uploadRequest.getContentType(), uploadRequest.getSize(), uploadRequest.getChunkSize());
+        
+        return ResponseEntity.status(HttpStatus.CREATED).body(convertToDto(session));
+    }
+
+    @Operation(summary = "Get resumable upload", description = "Get an upload session, including which chunks have been received")
+    @ApiResponse(responseCode = "200", description = "Successfully retrieved upload session")
+    @ApiResponse(responseCode = "404", description = "No such upload session")
+    @GetMapping("/uploads/{sessionId}")
+    @PreAuthorize("hasAuthority('USER')")
+    public ResponseEntity<UploadSessionDto> getUploadSession(
+            @Parameter(description = "Upload session id") @PathVariable String sessionId) {
+        
+        return ResponseEntity.ok(convertToDto(resumableUploadService.getSession(sessionId)));
+    }
+
+    @Operation(summary = "Upload chunk", description = "Upload one chunk of a resumable upload as the raw request body; sending a chunk again replaces it")
+    @ApiResponse(responseCode = "204", description = "Successfully received chunk")
+    @ApiResponse(responseCode = "400", description = "Chunk number or length does not match the session")
+    @ApiResponse(responseCode = "404", description = "No such upload session")
+    @PutMapping("/uploads/{sessionId}/chunks/{chunkNumber}")
+    @PreAuthorize("hasAuthority('USER')")
+    public ResponseEntity<Void> uploadChunk(
+            @Parameter(description = "Upload session id") @PathVariable String sessionId,
+            @Parameter(description = "Chunk number, from 1") @PathVariable int chunkNumber,
+            HttpServletRequest request) throws IOException {
+        
+        long contentLength = request.getContentLengthLong();
+        if (contentLength < 0) {
+            return ResponseEntity.status(HttpStatus.LENGTH_REQUIRED).build();
+        }
+        
+        resumableUploadService.uploadChunk(sessionId, chunkNumber, request.getInputStream(), contentLength);
+        
+        return ResponseEntity.noContent().build();
+    }
+
+    @Operation(summary = "Commit resumable upload", description = "Assemble all received chunks into the object")
+    @ApiResponse(responseCode = "201", description = "Successfully uploaded object")
+    @ApiResponse(responseCode = "400", description = "Not all chunks have been received")
+    @ApiResponse(responseCode = "404", description = "No such upload session")
+    @PostMapping("/uploads/{sessionId}/commit")
+    @PreAuthorize("hasAuthority('USER')")
+    public ResponseEntity<String> commitUploadSession(
+            @Parameter(description = "Upload session id") @PathVariable String sessionId) {
+        
+        UploadSession session = resumableUploadService.commit(sessionId);
+        
+        return ResponseEntity.status(HttpStatus.CREATED)
+                .body("Object uploaded successfully: " + session.getKey());
+    }
+
+    @Operation(summary = "Abort resumable upload", description = "Abandon an upload session and discard its chunks")
+    @ApiResponse(responseCode = "204", description = "Successfully aborted upload")
+    @ApiResponse(responseCode = "404", description = "No such upload session")
+    @DeleteMapping("/uploads/{sessionId}")
+    @PreAuthorize("hasAuthority('USER')")
+    public ResponseEntity<Void> abortUploadSession(
+            @Parameter(description = "Upload session id") @PathVariable String sessionId) {
+        
+        resumableUploadService.abort(sessionId);
+        
+        return ResponseEntity.noContent().build();
+    }
+
+    @Operation(summary = "Start compaction", description = "Start a background job packing the small objects under a prefix into large container objects; compacted objects are still listed and downloaded under their keys")
+    @ApiResponse(responseCode = "202", description = "Successfully queued compaction job")
+    @ApiResponse(responseCode = "404", description = "Compaction is disabled")
+    @PostMapping("/compactions")
+    @PreAuthorize("hasAuthority('USER')")
+    public ResponseEntity<CompactionJobDto> startCompaction(
+            @Parameter(description = "Prefix to compact; the whole bucket when omitted") @RequestParam(required = false) String prefix) {
+        
+        if (!compactionService.isEnabled()) {
+            return ResponseEntity.notFound().build();
+        }
+        
+        logger.info("Starting compaction of prefix: {}", prefix);
+        
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(convertToDto(compactionService.start(prefix)));
+    }
+
+    @Operation(summary = "List compactions", description = "List recent compaction jobs with their progress")
+    @ApiResponse(responseCode = "200", description = "Successfully retrieved compaction jobs")
+    @GetMapping("/compactions")
+    @PreAuthorize("hasAuthority('USER')")
+    public ResponseEntity<List<CompactionJobDto>> listCompactions() {
+        
+        List<CompactionJobDto> jobDtos = compactionService.getJobs().stream()
+                .map(this::convertToDto)
+                .collect(Collectors.toList());
+        
+        return ResponseEntity.ok(jobDtos);
+    }
+
+    @Operation(summary = "Get compaction", description = "Get the progress and throughput of a compaction job")
+    @ApiResponse(responseCode = "200", description = "Successfully retrieved compaction job")
+    @ApiResponse(responseCode = "404", description = "No such compaction job")
+    @GetMapping("/compactions/{jobId}")
+    @PreAuthorize("hasAuthority('USER')")
+    public ResponseEntity<CompactionJobDto> getCompaction(
+            @Parameter(description = "Compaction job id") @PathVariable String jobId) {
+        
+        return ResponseEntity.ok(convertToDto(compactionService.getJob(jobId)));
+    }
+
+    @Operation(summary = "Cancel compaction", description = "Stop a compaction job; containers it already completed stay in use")
+    @ApiResponse(responseCode = "200", description = "Successfully requested cancellation")
+    @ApiResponse(responseCode = "404", description = "No such compaction job")
+    @DeleteMapping("/compactions/{jobId}")
+    @PreAuthorize("hasAuthority('USER')")
+    public ResponseEntity<CompactionJobDto> cancelCompaction(
+            @Parameter(description = "Compaction job id") @PathVariable String jobId) {
+        
+        logger.info("Cancelling compaction job: {}", jobId);
+        
+        return ResponseEntity.ok(convertToDto(compactionService.cancel(jobId)));
+    }
+
     @Operation(summary = "Delete object", description = "Delete an object from S3")
     @ApiResponse(responseCode = "204", description = "Successfully deleted object")
     @DeleteMapping("/objects")
@@ -123,7 +840,10 @@ public class S3Controller {
         
         logger.info("Deleting object: {}", key);
         
+        // Drop queued write-behind uploads first, so none of them stores the object again
+        writeBehindUploadService.discardPending(key);
         s3Service.deleteObject(key);
+        compactionService.forget(key);
         
         return ResponseEntity.noContent().build();
     }
@@ -177,9 +897,378 @@ public class S3Controller {
         dto.setLastModified(object.getLastModified());
         dto.setStorageClass(object.getStorageClass());
         dto.setDirectory(object.isDirectory());
+        dto.setContentType(object.getContentType());
+        dto.setPending(object.isPending());
+        return dto;
+    }
+
+    private PresignedUrlDto convertToDto(PresignedUrl presignedUrl) {
+        return new PresignedUrlDto(
+                presignedUrl.getUrl(),
+                presignedUrl.getMethod(),
+                presignedUrl.getExpiration(),
+                presignedUrl.getSignedHeaders()
+        );
+    }
+
+    private TextPageDto convertToDto(TextPage page) {
+        TextPageDto dto = new TextPageDto();
+        dto.setKey(page.getKey());
+        dto.setEtag(page.getEtag());
+        dto.setObjectSize(page.getObjectSize());
+        dto.setStartLine(page.getStartLine());
+        dto.setStartOffset(page.getStartOffset());
+        dto.setEndOffset(page.getEndOffset());
+        dto.setLines(page.getLines());
+        dto.setTotalLines(page.getTotalLines());
+        dto.setIndexedLines(page.getIndexedLines());
+        dto.setIndexComplete(page.isIndexComplete());
         return dto;
     }
 
+    private ThumbnailDto convertToDto(Thumbnail thumbnail) {
+        return new ThumbnailDto(
+                thumbnail.getKey(),
+                thumbnail.getEtag(),
+                thumbnail.getSize().getName(),
+                thumbnail.getContentType(),
+                thumbnail.getData()
+        );
+    }
+
+    private DedupMatchDto convertToDto(DedupEntry entry) {
+        return new DedupMatchDto(entry.getSha256(), entry.getCrc32c(), entry.getSize(), entry.getKey());
+    }
+
+    private UploadResultDto convertToDto(UploadResult result) {
+        return new UploadResultDto(
+                result.getKey(),
+                result.getSize(),
+                result.isSuccess(),
+                result.getError()
+        );
+    }
+
+    private UploadSessionDto convertToDto(UploadSession session) {
+        return new UploadSessionDto(
+                session.getId(),
+                session.getKey(),
+                session.getSize(),
+                session.getChunkSize(),
+                session.chunkCount(),
+                session.receivedChunks(),
+                session.receivedBytes(),
+                session.getCreatedAt(),
+                session.getUpdatedAt()
+        );
+    }
+
+    private CompactionJobDto convertToDto(CompactionJob job) {
+        return new CompactionJobDto(
+                job.getId(),
+                job.getPrefix(),
+                job.getStatus().name(),
+                job.getObjectsScanned(),
+                job.getObjectsPacked(),
+                job.getBytesPacked(),
+                job.getContainers(),
+                job.bytesPerSecond(),
+                job.getCreatedAt(),
+                job.getStartedAt(),
+                job.getFinishedAt(),
+                job.getError()
+        );
+    }
+
+    /**
+     * Parse a Range header, ignoring it (and so serving the whole object) when it is malformed.
+     */
+    private List<HttpRange> parseRanges(String rangeHeader) {
+        if (rangeHeader == null || rangeHeader.isBlank()) {
+            return Collections.emptyList();
+        }
+        try {
+            return HttpRange.parseRanges(rangeHeader);
+        } catch (IllegalArgumentException e) {
+            logger.debug("Ignoring invalid Range header '{}': {}", rangeHeader, e.getMessage());
+            return Collections.emptyList();
+        }
+    }
+
+    /**
+     * Open a single range directly against S3, which resolves it without a separate HEAD request.
+     */
+    private ResponseInputStream<GetObjectResponse> downloadObjectRange(String key, String range, RequestConditions conditions) {
+        try {
+            return s3Service.downloadObjectStream(key, range, conditions);
+        } catch (RangeNotSatisfiableException e) {
+            throw new RangeNotSatisfiableException(e.getMessage(), s3Service.getObjectMetadata(key).getSize());
+        }
+    }
+
+    /**
+     * Serve several ranges as a multipart/byteranges body, fetching each range with its own ranged GET.
+     * Every part is pinned to the ETag seen by the initial HEAD so the parts come from one object version.
+     */
+    private ResponseEntity<StreamingResponseBody> downloadObjectRanges(String key, List<HttpRange> httpRanges,
+                                                                       RequestConditions conditions) {
+        S3Object metadata = s3Service.getObjectMetadata(key, conditions);
+        long objectLength = metadata.getSize();
+        List<ByteRange> ranges = resolveRanges(httpRanges, objectLength);
+        
+        if (ranges.isEmpty()) {
+            throw new RangeNotSatisfiableException("Requested ranges not satisfiable for object: " + key, objectLength);
+        }
+        
+        RequestConditions partConditions = new RequestConditions();
+        partConditions.setIfMatch(metadata.getEtag());
+        String contentType = metadata.getContentType() != null ? metadata.getContentType() : MediaType.APPLICATION_OCTET_STREAM_VALUE;
+        
+        if (ranges.size() == 1) {
+            ByteRange range = ranges.get(0);
+            ResponseInputStream<GetObjectResponse> stream = s3Service.downloadObjectStream(key, range.toRangeHeader(), partConditions);
+            HttpHeaders headers = downloadHeaders(key, contentType);
+            headers.addAll(validatorHeaders(metadata.getEtag(), metadata.getLastModified()));
+            headers.setContentLength(range.getLength());
+            headers.set(HttpHeaders.CONTENT_RANGE, range.toContentRange(objectLength));
+            return ResponseEntity.status(HttpStatus.PARTIAL_CONTENT)
+                    .headers(headers)
+                    .body(outputStream -> transferObject(key, stream, outputStream, null));
+        }
+        
+        String boundary = MimeTypeUtils.generateMultipartBoundaryString();
+        HttpHeaders headers = downloadHeaders(key, "multipart/byteranges; boundary=" + boundary);
+        headers.addAll(validatorHeaders(metadata.getEtag(), metadata.getLastModified()));
+        
+        return ResponseEntity.status(HttpStatus.PARTIAL_CONTENT)
+                .headers(headers)
+                .body(outputStream -> {
+                    for (int i = 0; i < ranges.size(); i++) {
+                        ByteRange range = ranges.get(i);
+                        ResponseInputStream<GetObjectResponse> stream = s3Service.downloadObjectStream(key, range.toRangeHeader(), partConditions);
+                        String partHeader = (i == 0 ? "" : "\r\n") + "--" + boundary + "\r\n"
+                                + HttpHeaders.CONTENT_TYPE + ": " + contentType + "\r\n"
+                                + HttpHeaders.CONTENT_RANGE + ": " + range.toContentRange(objectLength) + "\r\n\r\n";
+                        outputStream.write(partHeader.getBytes(StandardCharsets.US_ASCII));
+                        transferObject(key, stream, outputStream, null);
+                    }
+                    outputStream.write(("\r\n--" + boundary + "--\r\n").getBytes(StandardCharsets.US_ASCII));
+                    outputStream.flush();
+                });
+    }
+
+    /**
+     * Serve a large object by fetching several of its parts concurrently, filling the disk cache
+     * on the way when the object fits in it.
+     */
+    private ResponseEntity<StreamingResponseBody> downloadObjectInParallel(String key, S3Object metadata) {
+        HttpHeaders headers = downloadHeaders(key, metadata.getContentType());
+        headers.addAll(validatorHeaders(metadata.getEtag(), metadata.getLastModified()));
+        headers.setContentLength(metadata.getSize());
+        
+        return ResponseEntity.ok()
+                .headers(headers)
+                .body(outputStream -> parallelDownloadService.download(key, metadata, outputStream,
+                        objectCacheService.startFill(metadata)));
+    }
+
+    /**
+     * Serve an object from the local disk cache through the file channel opened at lookup.
+     * The connector's sendfile support is not used: it opens the file by name after the handler
+     * returns, when the entry may already have been evicted.
+     */
+    private ResponseEntity<StreamingResponseBody> downloadObjectFromCache(String key, S3Object metadata, FileChannel file) {
+        logger.debug("Serving object {} from disk cache", key);
+        
+        HttpHeaders headers = downloadHeaders(key, metadata.getContentType());
+        headers.addAll(validatorHeaders(metadata.getEtag(), metadata.getLastModified()));
+        headers.setContentLength(metadata.getSize());
+        
+        return ResponseEntity.ok()
+                .headers(headers)
+                .body(outputStream -> transferFile(file, outputStream));
+    }
+
+    /**
+     * Resolve requested ranges against the object length, dropping unsatisfiable ones
+     * and coalescing ranges that overlap or touch.
+     */
+    private List<ByteRange> resolveRanges(List<HttpRange> httpRanges, long objectLength) {
+        List<ByteRange> ranges = new ArrayList<>();
+        for (HttpRange httpRange : httpRanges) {
+            try {
+                long start = httpRange.getRangeStart(objectLength);
+                long end = httpRange.getRangeEnd(objectLength);
+                if (start <= end) {
+                    ranges.add(new ByteRange(start, end));
+                }
+            } catch (IllegalArgumentException e) {
+                // Range starts beyond the end of the object
+            }
+        }
+        
+        ranges.sort(Comparator.comparingLong(ByteRange::getStart));
+        List<ByteRange> coalesced = new ArrayList<>();
+        for (ByteRange range : ranges) {
+            ByteRange last = coalesced.isEmpty() ? null : coalesced.get(coalesced.size() - 1);
+            if (last != null && range.getStart() <= last.getEnd() + 1) {
+                coalesced.set(coalesced.size() - 1, new ByteRange(last.getStart(), Math.max(last.getEnd(), range.getEnd())));
+            } else {
+                coalesced.add(range);
+            }
+        }
+        return coalesced;
+    }
+
+    /**
+     * Collect the conditional request headers that S3 can evaluate itself.
+     * If-Modified-Since is only honored without If-None-Match, as HTTP requires.
+     */
+    private RequestConditions toConditions(HttpHeaders requestHeaders) {
+        RequestConditions conditions = new RequestConditions();
+        if (!requestHeaders.getIfMatch().isEmpty()) {
+            conditions.setIfMatch(toEtagList(requestHeaders.getIfMatch()));
+        }
+        if (!requestHeaders.getIfNoneMatch().isEmpty()) {
+            conditions.setIfNoneMatch(toEtagList(requestHeaders.getIfNoneMatch()));
+        } else {
+            conditions.setIfModifiedSince(headerInstant(requestHeaders, HttpHeaders.IF_MODIFIED_SINCE));
+        }
+        if (conditions.getIfMatch() == null) {
+            conditions.setIfUnmodifiedSince(headerInstant(requestHeaders, HttpHeaders.IF_UNMODIFIED_SINCE));
+        }
+        return conditions.isEmpty() ? null : conditions;
+    }
+
+    /**
+     * Join ETags for S3, dropping the weak prefix: compressed responses weaken the ETag they carry,
+     * and clients echo it back although the object itself is unchanged.
+     */
+    private static String toEtagList(List<String> etags) {
+        return etags.stream()
+                .map(etag -> etag.startsWith("W/") ? etag.substring(2) : etag)
+                .collect(Collectors.joining(", "));
+    }
+
+    private Instant headerInstant(HttpHeaders requestHeaders, String headerName) {
+        try {
+            long millis = requestHeaders.getFirstDate(headerName);
+            return millis >= 0 ? Instant.ofEpochMilli(millis) : null;
+        } catch (IllegalArgumentException e) {
+            // Unparseable dates are ignored, as HTTP requires
+            return null;
+        }
+    }
+
+    /**
+     * Validator headers for object responses. Responses may be stored privately but must be
+     * revalidated on every use, which turns repeated reads into conditional requests.
+     */
+    private HttpHeaders validatorHeaders(String etag, Instant lastModified) {
+        HttpHeaders headers = new HttpHeaders();
+        if (etag != null) {
+            headers.setETag(etag.startsWith("\"") || etag.startsWith("W/") ? etag : "\"" + etag + "\"");
+        }
+        if (lastModified != null) {
+            headers.setLastModified(lastModified);
+        }
+        headers.setCacheControl(CacheControl.noCache().cachePrivate());
+        return headers;
+    }
+
+    private HttpHeaders downloadHeaders(String key, String contentType) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.add(HttpHeaders.CONTENT_DISPOSITION, 
+                   "attachment; filename=\"" + URLEncoder.encode(getFileName(key), StandardCharsets.UTF_8) + "\"");
+        headers.add(HttpHeaders.CONTENT_TYPE, 
+                   contentType != null ? contentType : MediaType.APPLICATION_OCTET_STREAM_VALUE);
+        headers.add(HttpHeaders.ACCEPT_RANGES, "bytes");
+        return headers;
+    }
+
+    /**
+     * Copy an S3 object stream to the response using the calling thread's transfer buffer.
+     * If the copy does not complete (typically because the client went away) the S3 stream
+     * is aborted so the connection is dropped instead of being drained to the end.
+     * When a cache fill is given the content is also written to it, and committed only on completion.
+     */
+    private void transferObject(String key, ResponseInputStream<GetObjectResponse> stream,
+                                OutputStream outputStream, ObjectCacheService.CacheFill cacheFill) throws IOException {
+        byte[] buffer = transferBuffer.get();
+        boolean completed = false;
+        try {
+            int read;
+            while ((read = stream.read(buffer)) != -1) {
+                outputStream.write(buffer, 0, read);
+                if (cacheFill != null) {
+                    cacheFill.write(buffer, 0, read);
+                }
+            }
+            outputStream.flush();
+            completed = true;
+            if (cacheFill != null) {
+                cacheFill.commit();
+            }
+        } finally {
+            if (!completed) {
+                logger.warn("Download of object {} did not complete, aborting S3 stream", key);
+                stream.abort();
+            }
+            stream.close();
+            if (cacheFill != null) {
+                cacheFill.close();
+            }
+        }
+    }
+
+    /**
+     * Upload through the multipart engine when the content is large or of unknown length,
+     * as a delta against the current version when delta uploads are enabled, and indexing
+     * its hash on the way when deduplication is enabled.
+     */
+    private void upload(String key, InputStream inputStream, long contentLength, String contentType) throws IOException {
+        if (deltaUploadService.shouldUseDelta(contentLength)) {
+            deltaUploadService.upload(key, inputStream, contentLength, contentType);
+        } else if (dedupUploadService.isEnabled()) {
+            dedupUploadService.upload(key, inputStream, contentLength, contentType);
+        } else if (multipartUploadService.shouldUseMultipart(contentLength)) {
+            multipartUploadService.upload(key, inputStream, contentLength, contentType);
+        } else {
+            s3Service.uploadObject(key, inputStream, contentLength, contentType);
+        }
+    }
+
+    /**
+     * Write one upload result as a line of JSON and flush it; writers on several threads share the lock.
+     */
+    private void writeResultLine(OutputStream outputStream, UploadResult result, Object lock) {
+        synchronized (lock) {
+            try {
+                outputStream.write(objectMapper.writeValueAsBytes(convertToDto(result)));
+                outputStream.write('\n');
+                outputStream.flush();
+            } catch (IOException e) {
+                // The client went away; keep storing the archive, there is just no one to report to
+                logger.debug("Could not report upload of {}: {}", result.getKey(), e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Copy a cached file to the response through its file channel, closing the channel.
+     */
+    private void transferFile(FileChannel file, OutputStream outputStream) throws IOException {
+        try (FileChannel channel = file) {
+            WritableByteChannel target = Channels.newChannel(outputStream);
+            long position = 0;
+            long size = channel.size();
+            while (position < size) {
+                position += channel.transferTo(position, size - position, target);
+            }
+            outputStream.flush();
+        }
+    }
+
     private String getFileName(String key) {
         if (key.contains("/")) {
             return key.substring(key.lastIndexOf("/") + 1);
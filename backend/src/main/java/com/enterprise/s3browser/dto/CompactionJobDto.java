@@ -0,0 +1,176 @@
+package com.enterprise.s3browser.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.time.Instant;
+
+/**
+ * Data Transfer Object for the progress of a compaction job exposed via REST API.
+ */
+@Schema(description = "Compaction job")
+public class CompactionJobDto {
+
+    @Schema(description = "Job id", example = "3f0c9a52-8d1e-4c1b-9b7a-2f6e1d0c4a11")
+    @JsonProperty("id")
+    private String id;
+
+    @Schema(description = "Prefix whose small objects are packed", example = "logs/2024/")
+    @JsonProperty("prefix")
+    private String prefix;
+
+    @Schema(description = "Job status: QUEUED, RUNNING, COMPLETED, CANCELLED or FAILED", example = "RUNNING")
+    @JsonProperty("status")
+    private String status;
+
+    @Schema(description = "Objects listed so far", example = "120000")
+    @JsonProperty("objectsScanned")
+    private long objectsScanned;
+
+    @Schema(description = "Objects packed into containers so far", example = "118500")
+    @JsonProperty("objectsPacked")
+    private long objectsPacked;
+
+    @Schema(description = "Bytes packed into containers so far", example = "1942011904")
+    @JsonProperty("bytesPacked")
+    private long bytesPacked;
+
+    @Schema(description = "Containers completed so far", example = "29")
+    @JsonProperty("containers")
+    private int containers;
+
+    @Schema(description = "Packing throughput in bytes per second", example = "20971520")
+    @JsonProperty("bytesPerSecond")
+    private long bytesPerSecond;
+
+    @Schema(description = "When the job was queued")
+    @JsonProperty("createdAt")
+    private Instant createdAt;
+
+    @Schema(description = "When the job started running")
+    @JsonProperty("startedAt")
+    private Instant startedAt;
+
+    @Schema(description = "When the job finished")
+    @JsonProperty("finishedAt")
+    private Instant finishedAt;
+
+    @Schema(description = "Why the job failed", example = "Failed to upload part: Access Denied")
+    @JsonProperty("error")
+    private String error;
+
+    public CompactionJobDto() {}
+
+    public CompactionJobDto(String id, String prefix, String status, long objectsScanned, long objectsPacked,
+                            long bytesPacked, int containers, long bytesPerSecond, Instant createdAt,
+                            Instant startedAt, Instant finishedAt, String error) {
+        this.id = id;
+        this.prefix = prefix;
+        this.status = status;
+        this.objectsScanned = objectsScanned;
+        this.objectsPacked = objectsPacked;
+        this.bytesPacked = bytesPacked;
+        this.containers = containers;
+        this.bytesPerSecond = bytesPerSecond;
+        this.createdAt = createdAt;
+        this.startedAt = startedAt;
+        this.finishedAt = finishedAt;
+        this.error = error;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public String getPrefix() {
+        return prefix;
+    }
+
+    public void setPrefix(String prefix) {
+        this.prefix = prefix;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public void setStatus(String status) {
+        this.status = status;
+    }
+
+    public long getObjectsScanned() {
+        return objectsScanned;
+    }
+
+    public void setObjectsScanned(long objectsScanned) {
+        this.objectsScanned = objectsScanned;
+    }
+
+    public long getObjectsPacked() {
+        return objectsPacked;
+    }
+
+    public void setObjectsPacked(long objectsPacked) {
+        this.objectsPacked = objectsPacked;
+    }
+
+    public long getBytesPacked() {
+        return bytesPacked;
+    }
+
+    public void setBytesPacked(long bytesPacked) {
+        this.bytesPacked = bytesPacked;
+    }
+
+    public int getContainers() {
+        return containers;
+    }
+
+    public void setContainers(int containers) {
+        this.containers = containers;
+    }
+
+    public long getBytesPerSecond() {
+        return bytesPerSecond;
+    }
+
+    public void setBytesPerSecond(long bytesPerSecond) {
+        this.bytesPerSecond = bytesPerSecond;
+    }
+
+    public Instant getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(Instant createdAt) {
+        this.createdAt = createdAt;
+    }
+
+    public Instant getStartedAt() {
+        return startedAt;
+    }
+
+    public void setStartedAt(Instant startedAt) {
+        this.startedAt = startedAt;
+    }
+
+    public Instant getFinishedAt() {
+        return finishedAt;
+    }
+
+    public void setFinishedAt(Instant finishedAt) {
+        this.finishedAt = finishedAt;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public void setError(String error) {
+        this.error = error;
+    }
+}
@@ -0,0 +1,68 @@
+package com.enterprise.s3browser.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import io.swagger.v3.oas.annotations.media.Schema;
+
+/**
+ * Data Transfer Object for an object already holding some content, exposed via REST API.
+ */
+@Schema(description = "Object in the bucket holding content with the given hash")
+public class DedupMatchDto {
+
+    @Schema(description = "SHA-256 of the content, hex encoded", example = "9f86d081884c7d659a2feaa0c55ad015a3bf4f1b2b0b822cd15d6c15b0f00a08")
+    @JsonProperty("sha256")
+    private String sha256;
+
+    @Schema(description = "CRC32C of the content, hex encoded", example = "e3069283")
+    @JsonProperty("crc32c")
+    private String crc32c;
+
+    @Schema(description = "Content length in bytes", example = "1048576")
+    @JsonProperty("size")
+    private long size;
+
+    @Schema(description = "Key of the object holding the content", example = "artifacts/build-42.zip")
+    @JsonProperty("key")
+    private String key;
+
+    public DedupMatchDto() {}
+
+    public DedupMatchDto(String sha256, String crc32c, long size, String key) {
+        this.sha256 = sha256;
+        this.crc32c = crc32c;
+        this.size = size;
+        this.key = key;
+    }
+
+    public String getSha256() {
+        return sha256;
+    }
+
+    public void setSha256(String sha256) {
+        this.sha256 = sha256;
+    }
+
+    public String getCrc32c() {
+        return crc32c;
+    }
+
+    public void setCrc32c(String crc32c) {
+        this.crc32c = crc32c;
+    }
+
+    public long getSize() {
+        return size;
+    }
+
+    public void setSize(long size) {
+        this.size = size;
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    public void setKey(String key) {
+        this.key = key;
+    }
+}
@@ -0,0 +1,71 @@
+package com.enterprise.s3browser.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.time.Instant;
+import java.util.Map;
+
+/**
+ * Data Transfer Object for presigned URLs exposed via REST API.
+ */
+@Schema(description = "Presigned URL for transferring an object directly against the S3 endpoint")
+public class PresignedUrlDto {
+
+    @Schema(description = "Presigned URL", example = "http://localhost:9000/sampledata/file.pdf?X-Amz-Signature=...")
+    @JsonProperty("url")
+    private String url;
+
+    @Schema(description = "HTTP method the URL is signed for", example = "GET")
+    @JsonProperty("method")
+    private String method;
+
+    @Schema(description = "When the URL stops being valid")
+    @JsonProperty("expiresAt")
+    private Instant expiresAt;
+
+    @Schema(description = "Headers that must be sent with the request exactly as given")
+    @JsonProperty("headers")
+    private Map<String, String> headers;
+
+    public PresignedUrlDto() {}
+
+    public PresignedUrlDto(String url, String method, Instant expiresAt, Map<String, String> headers) {
+        this.url = url;
+        this.method = method;
+        this.expiresAt = expiresAt;
+        this.headers = headers;
+    }
+
+    public String getUrl() {
+        return url;
+    }
+
+    public void setUrl(String url) {
+        this.url = url;
+    }
+
+    public String getMethod() {
+        return method;
+    }
+
+    public void setMethod(String method) {
+        this.method = method;
+    }
+
+    public Instant getExpiresAt() {
+        return expiresAt;
+    }
+
+    public void setExpiresAt(Instant expiresAt) {
+        this.expiresAt = expiresAt;
+    }
+
+    public Map<String, String> getHeaders() {
+        return headers;
+    }
+
+    public void setHeaders(Map<String, String> headers) {
+        this.headers = headers;
+    }
+}
@@ -35,6 +35,14 @@ public class S3ObjectDto {
     @JsonProperty("isDirectory")
     private boolean isDirectory;
 
+    @Schema(description = "Content type", example = "application/pdf")
+    @JsonProperty("contentType")
+    private String contentType;
+
+    @Schema(description = "Whether the object was accepted in write-behind mode and is not stored in S3 yet", example = "false")
+    @JsonProperty("pending")
+    private boolean pending;
+
     public S3ObjectDto() {}
 
     public S3ObjectDto(String key, String etag, long size, Instant lastModified, 
@@ -94,4 +102,20 @@ public class S3ObjectDto {
     public void setDirectory(boolean directory) {
         isDirectory = directory;
     }
-}
\ No newline at end of file
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    public void setContentType(String contentType) {
+        this.contentType = contentType;
+    }
+
+    public boolean isPending() {
+        return pending;
+    }
+
+    public void setPending(boolean pending) {
+        this.pending = pending;
+    }
+}
@@ -0,0 +1,135 @@
+package com.enterprise.s3browser.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.util.List;
+
+/**
+ * Data Transfer Object for a page of lines of a text object exposed via REST API.
+ */
+@Schema(description = "Page of lines read from a text object")
+public class TextPageDto {
+
+    @Schema(description = "Object key/path", example = "logs/app.log")
+    @JsonProperty("key")
+    private String key;
+
+    @Schema(description = "ETag of the object version the lines were read from")
+    @JsonProperty("etag")
+    private String etag;
+
+    @Schema(description = "Object size in bytes", example = "21474836480")
+    @JsonProperty("objectSize")
+    private long objectSize;
+
+    @Schema(description = "Zero-based number of the first line, when known", example = "1000")
+    @JsonProperty("startLine")
+    private Long startLine;
+
+    @Schema(description = "Byte offset of the first line", example = "104857")
+    @JsonProperty("startOffset")
+    private long startOffset;
+
+    @Schema(description = "Byte offset just past the last line; the next page starts here", example = "115230")
+    @JsonProperty("endOffset")
+    private long endOffset;
+
+    @Schema(description = "Lines, without line terminators")
+    @JsonProperty("lines")
+    private List<String> lines;
+
+    @Schema(description = "Total number of lines, once the object has been fully indexed")
+    @JsonProperty("totalLines")
+    private Long totalLines;
+
+    @Schema(description = "Number of lines indexed so far", example = "250000")
+    @JsonProperty("indexedLines")
+    private long indexedLines;
+
+    @Schema(description = "Whether the line index covers the whole object", example = "false")
+    @JsonProperty("indexComplete")
+    private boolean indexComplete;
+
+    public TextPageDto() {}
+
+    public String getKey() {
+        return key;
+    }
+
+    public void setKey(String key) {
+        this.key = key;
+    }
+
+    public String getEtag() {
+        return etag;
+    }
+
+    public void setEtag(String etag) {
+        this.etag = etag;
+    }
+
+    public long getObjectSize() {
+        return objectSize;
+    }
+
+    public void setObjectSize(long objectSize) {
+        this.objectSize = objectSize;
+    }
+
+    public Long getStartLine() {
+        return startLine;
+    }
+
+    public void setStartLine(Long startLine) {
+        this.startLine = startLine;
+    }
+
+    public long getStartOffset() {
+        return startOffset;
+    }
+
+    public void setStartOffset(long startOffset) {
+        this.startOffset = startOffset;
+    }
+
+    public long getEndOffset() {
+        return endOffset;
+    }
+
+    public void setEndOffset(long endOffset) {
+        this.endOffset = endOffset;
+    }
+
+    public List<String> getLines() {
+        return lines;
+    }
+
+    public void setLines(List<String> lines) {
+        this.lines = lines;
+    }
+
+    public Long getTotalLines() {
+        return totalLines;
+    }
+
+    public void setTotalLines(Long totalLines) {
+        this.totalLines = totalLines;
+    }
+
+    public long getIndexedLines() {
+        return indexedLines;
+    }
+
+    public void setIndexedLines(long indexedLines) {
+        this.indexedLines = indexedLines;
+    }
+
+    public boolean isIndexComplete() {
+        return indexComplete;
+    }
+
+    public void setIndexComplete(boolean indexComplete) {
+        this.indexComplete = indexComplete;
+    }
+}
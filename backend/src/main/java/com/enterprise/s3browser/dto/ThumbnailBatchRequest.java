@@ -0,0 +1,46 @@
+package com.enterprise.s3browser.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import jakarta.validation.constraints.NotEmpty;
+import java.util.List;
+
+/**
+ * Data Transfer Object for requesting thumbnails of several objects at once.
+ */
+@Schema(description = "Batch thumbnail request")
+public class ThumbnailBatchRequest {
+
+    @Schema(description = "Object keys", example = "[\"photos/cat.jpg\", \"photos/dog.png\"]", required = true)
+    @JsonProperty("keys")
+    @NotEmpty(message = "Keys cannot be empty")
+    private List<String> keys;
+
+    @Schema(description = "Thumbnail size: small, medium or large", example = "small")
+    @JsonProperty("size")
+    private String size;
+
+    public ThumbnailBatchRequest() {}
+
+    public ThumbnailBatchRequest(List<String> keys, String size) {
+        this.keys = keys;
+        this.size = size;
+    }
+
+    public List<String> getKeys() {
+        return keys;
+    }
+
+    public void setKeys(List<String> keys) {
+        this.keys = keys;
+    }
+
+    public String getSize() {
+        return size;
+    }
+
+    public void setSize(String size) {
+        this.size = size;
+    }
+}
@@ -0,0 +1,81 @@
+package com.enterprise.s3browser.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import io.swagger.v3.oas.annotations.media.Schema;
+
+/**
+ * Data Transfer Object for thumbnails returned by the batch thumbnail endpoint.
+ */
+@Schema(description = "Thumbnail of an image object")
+public class ThumbnailDto {
+
+    @Schema(description = "Object key", example = "photos/cat.jpg")
+    @JsonProperty("key")
+    private String key;
+
+    @Schema(description = "ETag of the object version the thumbnail was rendered from", example = "\"d41d8cd98f00b204e9800998ecf8427e\"")
+    @JsonProperty("etag")
+    private String etag;
+
+    @Schema(description = "Thumbnail size", example = "small")
+    @JsonProperty("size")
+    private String size;
+
+    @Schema(description = "Content type of the thumbnail image", example = "image/jpeg")
+    @JsonProperty("contentType")
+    private String contentType;
+
+    @Schema(description = "Base64-encoded thumbnail image")
+    @JsonProperty("data")
+    private byte[] data;
+
+    public ThumbnailDto() {}
+
+    public ThumbnailDto(String key, String etag, String size, String contentType, byte[] data) {
+        this.key = key;
+        this.etag = etag;
+        this.size = size;
+        this.contentType = contentType;
+        this.data = data;
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    public void setKey(String key) {
+        this.key = key;
+    }
+
+    public String getEtag() {
+        return etag;
+    }
+
+    public void setEtag(String etag) {
+        this.etag = etag;
+    }
+
+    public String getSize() {
+        return size;
+    }
+
+    public void setSize(String size) {
+        this.size = size;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    public void setContentType(String contentType) {
+        this.contentType = contentType;
+    }
+
+    public byte[] getData() {
+        return data;
+    }
+
+    public void setData(byte[] data) {
+        this.data = data;
+    }
+}
@@ -0,0 +1,68 @@
+package com.enterprise.s3browser.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import io.swagger.v3.oas.annotations.media.Schema;
+
+/**
+ * Data Transfer Object for the outcome of storing one file of a multi-file upload.
+ */
+@Schema(description = "Result of uploading one file")
+public class UploadResultDto {
+
+    @Schema(description = "Object key", example = "photos/2024/img_0001.jpg")
+    @JsonProperty("key")
+    private String key;
+
+    @Schema(description = "File size in bytes", example = "48213")
+    @JsonProperty("size")
+    private long size;
+
+    @Schema(description = "Whether the file was stored", example = "true")
+    @JsonProperty("success")
+    private boolean success;
+
+    @Schema(description = "Why the file was not stored")
+    @JsonProperty("error")
+    private String error;
+
+    public UploadResultDto() {}
+
+    public UploadResultDto(String key, long size, boolean success, String error) {
+        this.key = key;
+        this.size = size;
+        this.success = success;
+        this.error = error;
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    public void setKey(String key) {
+        this.key = key;
+    }
+
+    public long getSize() {
+        return size;
+    }
+
+    public void setSize(long size) {
+        this.size = size;
+    }
+
+    public boolean isSuccess() {
+        return success;
+    }
+
+    public void setSuccess(boolean success) {
+        this.success = success;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public void setError(String error) {
+        this.error = error;
+    }
+}
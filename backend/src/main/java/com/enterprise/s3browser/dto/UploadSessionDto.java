@@ -0,0 +1,137 @@
+package com.enterprise.s3browser.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Data Transfer Object for the state of a resumable upload exposed via REST API.
+ */
+@Schema(description = "Resumable upload session")
+public class UploadSessionDto {
+
+    @Schema(description = "Session id", example = "3f0c9a52-8d1e-4c1b-9b7a-2f6e1d0c4a11")
+    @JsonProperty("id")
+    private String id;
+
+    @Schema(description = "Object key", example = "videos/recording.mp4")
+    @JsonProperty("key")
+    private String key;
+
+    @Schema(description = "Total object size in bytes", example = "10737418240")
+    @JsonProperty("size")
+    private long size;
+
+    @Schema(description = "Chunk size in bytes; every chunk but the last has exactly this length", example = "16777216")
+    @JsonProperty("chunkSize")
+    private long chunkSize;
+
+    @Schema(description = "Number of chunks, numbered from 1", example = "640")
+    @JsonProperty("chunkCount")
+    private int chunkCount;
+
+    @Schema(description = "Numbers of the chunks received so far")
+    @JsonProperty("receivedChunks")
+    private List<Integer> receivedChunks;
+
+    @Schema(description = "Bytes received so far", example = "33554432")
+    @JsonProperty("receivedBytes")
+    private long receivedBytes;
+
+    @Schema(description = "When the session was created")
+    @JsonProperty("createdAt")
+    private Instant createdAt;
+
+    @Schema(description = "When the session last received a chunk")
+    @JsonProperty("updatedAt")
+    private Instant updatedAt;
+
+    public UploadSessionDto() {}
+
+    public UploadSessionDto(String id, String key, long size, long chunkSize, int chunkCount,
+                            List<Integer> receivedChunks, long receivedBytes, Instant createdAt, Instant updatedAt) {
+        this.id = id;
+        this.key = key;
+        this.size = size;
+        this.chunkSize = chunkSize;
+        this.chunkCount = chunkCount;
+        this.receivedChunks = receivedChunks;
+        this.receivedBytes = receivedBytes;
+        this.createdAt = createdAt;
+        this.updatedAt = updatedAt;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    public void setKey(String key) {
+        this.key = key;
+    }
+
+    public long getSize() {
+        return size;
+    }
+
+    public void setSize(long size) {
+        this.size = size;
+    }
+
+    public long getChunkSize() {
+        return chunkSize;
+    }
+
+    public void setChunkSize(long chunkSize) {
+        this.chunkSize = chunkSize;
+    }
+
+    public int getChunkCount() {
+        return chunkCount;
+    }
+
+    public void setChunkCount(int chunkCount) {
+        this.chunkCount = chunkCount;
+    }
+
+    public List<Integer> getReceivedChunks() {
+        return receivedChunks;
+    }
+
+    public void setReceivedChunks(List<Integer> receivedChunks) {
+        this.receivedChunks = receivedChunks;
+    }
+
+    public long getReceivedBytes() {
+        return receivedBytes;
+    }
+
+    public void setReceivedBytes(long receivedBytes) {
+        this.receivedBytes = receivedBytes;
+    }
+
+    public Instant getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(Instant createdAt) {
+        this.createdAt = createdAt;
+    }
+
+    public Instant getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(Instant updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+}
@@ -0,0 +1,75 @@
+package com.enterprise.s3browser.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.PositiveOrZero;
+
+/**
+ * Data Transfer Object for starting a resumable upload.
+ */
+@Schema(description = "Resumable upload request")
+public class UploadSessionRequest {
+
+    @Schema(description = "Object key", example = "videos/recording.mp4", required = true)
+    @JsonProperty("key")
+    @NotBlank(message = "Key is required")
+    private String key;
+
+    @Schema(description = "Total object size in bytes", example = "10737418240", required = true)
+    @JsonProperty("size")
+    @NotNull(message = "Size is required")
+    @PositiveOrZero(message = "Size cannot be negative")
+    private Long size;
+
+    @Schema(description = "Content type of the object", example = "video/mp4")
+    @JsonProperty("contentType")
+    private String contentType;
+
+    @Schema(description = "Preferred chunk size in bytes; adjusted to S3 part limits, chosen by the server if omitted", example = "16777216")
+    @JsonProperty("chunkSize")
+    private Long chunkSize;
+
+    public UploadSessionRequest() {}
+
+    public UploadSessionRequest(String key, Long size, String contentType, Long chunkSize) {
+        this.key = key;
+        this.size = size;
+        this.contentType = contentType;
+        this.chunkSize = chunkSize;
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    public void setKey(String key) {
+        this.key = key;
+    }
+
+    public Long getSize() {
+        return size;
+    }
+
+    public void setSize(Long size) {
+        this.size = size;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    public void setContentType(String contentType) {
+        this.contentType = contentType;
+    }
+
+    public Long getChunkSize() {
+        return chunkSize;
+    }
+
+    public void setChunkSize(Long chunkSize) {
+        this.chunkSize = chunkSize;
+    }
+}
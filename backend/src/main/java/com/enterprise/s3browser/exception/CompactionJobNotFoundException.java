@@ -0,0 +1,11 @@
+package com.enterprise.s3browser.exception;
+
+/**
+ * Exception thrown when a compaction job does not exist, or is no longer remembered.
+ */
+public class CompactionJobNotFoundException extends RuntimeException {
+
+    public CompactionJobNotFoundException(String message) {
+        super(message);
+    }
+}
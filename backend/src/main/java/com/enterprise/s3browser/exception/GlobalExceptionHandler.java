@@ -2,6 +2,7 @@ package com.enterprise.s3browser.exception;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.FieldError;
@@ -13,6 +14,7 @@ import org.springframework.web.context.request.WebRequest;
 import java.time.Instant;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
 
 /**
  * Global exception handler for centralized error handling.
@@ -36,6 +38,116 @@ public class GlobalExceptionHandler {
         return new ResponseEntity<>(errorResponse, HttpStatus.INTERNAL_SERVER_ERROR);
     }
 
+    @ExceptionHandler(ObjectNotModifiedException.class)
+    public ResponseEntity<Void> handleObjectNotModifiedException(ObjectNotModifiedException ex, WebRequest request) {
+        logger.debug("Object not modified: {}", ex.getMessage());
+        
+        HttpHeaders headers = new HttpHeaders();
+        if (ex.getEtag() != null) {
+            headers.setETag(ex.getEtag());
+        }
+        if (ex.getLastModified() != null) {
+            headers.setLastModified(ex.getLastModified());
+        }
+        
+        return new ResponseEntity<>(headers, HttpStatus.NOT_MODIFIED);
+    }
+
+    @ExceptionHandler(PreconditionFailedException.class)
+    public ResponseEntity<ErrorResponse> handlePreconditionFailedException(PreconditionFailedException ex, WebRequest request) {
+        logger.debug("Precondition failed: {}", ex.getMessage());
+        
+        ErrorResponse errorResponse = new ErrorResponse(
+            HttpStatus.PRECONDITION_FAILED.value(),
+            "Precondition Failed",
+            ex.getMessage(),
+            Instant.now()
+        );
+        
+        return new ResponseEntity<>(errorResponse, HttpStatus.PRECONDITION_FAILED);
+    }
+
+    @ExceptionHandler(RangeNotSatisfiableException.class)
+    public ResponseEntity<ErrorResponse> handleRangeNotSatisfiableException(RangeNotSatisfiableException ex, WebRequest request) {
+        logger.debug("Range not satisfiable: {}", ex.getMessage());
+        
+        ErrorResponse errorResponse = new ErrorResponse(
+            HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE.value(),
+            "Range Not Satisfiable",
+            ex.getMessage(),
+            Instant.now()
+        );
+        
+        HttpHeaders headers = new HttpHeaders();
+        if (ex.getObjectLength() >= 0) {
+            headers.set(HttpHeaders.CONTENT_RANGE, "bytes */" + ex.getObjectLength());
+        }
+        
+        return new ResponseEntity<>(errorResponse, headers, HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE);
+    }
+
+    @ExceptionHandler(TextIndexNotReadyException.class)
+    public ResponseEntity<ErrorResponse> handleTextIndexNotReadyException(TextIndexNotReadyException ex, WebRequest request) {
+        logger.debug("Text index not ready: {} ({} lines indexed)", ex.getMessage(), ex.getIndexedLines());
+        
+        ErrorResponse errorResponse = new ErrorResponse(
+            HttpStatus.SERVICE_UNAVAILABLE.value(),
+            "Index Not Ready",
+            ex.getMessage(),
+            Instant.now()
+        );
+        
+        HttpHeaders headers = new HttpHeaders();
+        headers.set(HttpHeaders.RETRY_AFTER, "1");
+        
+        return new ResponseEntity<>(errorResponse, headers, HttpStatus.SERVICE_UNAVAILABLE);
+    }
+
+    @ExceptionHandler(UploadSessionNotFoundException.class)
+    public ResponseEntity<ErrorResponse> handleUploadSessionNotFoundException(UploadSessionNotFoundException ex, WebRequest request) {
+        logger.debug("Upload session not found: {}", ex.getMessage());
+        
+        ErrorResponse errorResponse = new ErrorResponse(
+            HttpStatus.NOT_FOUND.value(),
+            "Not Found",
+            ex.getMessage(),
+            Instant.now()
+        );
+        
+        return new ResponseEntity<>(errorResponse, HttpStatus.NOT_FOUND);
+    }
+
+    @ExceptionHandler(CompactionJobNotFoundException.class)
+    public ResponseEntity<ErrorResponse> handleCompactionJobNotFoundException(CompactionJobNotFoundException ex, WebRequest request) {
+        logger.debug("Compaction job not found: {}", ex.getMessage());
+        
+        ErrorResponse errorResponse = new ErrorResponse(
+            HttpStatus.NOT_FOUND.value(),
+            "Not Found",
+            ex.getMessage(),
+            Instant.now()
+        );
+        
+        return new ResponseEntity<>(errorResponse, HttpStatus.NOT_FOUND);
+    }
+
+    @ExceptionHandler(RejectedExecutionException.class)
+    public ResponseEntity<ErrorResponse> handleRejectedExecutionException(RejectedExecutionException ex, WebRequest request) {
+        logger.warn("Worker queue full: {}", ex.getMessage());
+        
+        ErrorResponse errorResponse = new ErrorResponse(
+            HttpStatus.SERVICE_UNAVAILABLE.value(),
+            "Service Busy",
+            "Too many requests in progress, please retry",
+            Instant.now()
+        );
+        
+        HttpHeaders headers = new HttpHeaders();
+        headers.set(HttpHeaders.RETRY_AFTER, "1");
+        
+        return new ResponseEntity<>(errorResponse, headers, HttpStatus.SERVICE_UNAVAILABLE);
+    }
+
     @ExceptionHandler(AuthenticationException.class)
     public ResponseEntity<ErrorResponse> handleAuthenticationException(AuthenticationException ex, WebRequest request) {
         logger.warn("Authentication error: {}", ex.getMessage());
@@ -50,6 +162,20 @@ public class GlobalExceptionHandler {
         return new ResponseEntity<>(errorResponse, HttpStatus.UNAUTHORIZED);
     }
 
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<ErrorResponse> handleIllegalArgumentException(IllegalArgumentException ex, WebRequest request) {
+        logger.warn("Invalid request: {}", ex.getMessage());
+        
+        ErrorResponse errorResponse = new ErrorResponse(
+            HttpStatus.BAD_REQUEST.value(),
+            "Bad Request",
+            ex.getMessage(),
+            Instant.now()
+        );
+        
+        return new ResponseEntity<>(errorResponse, HttpStatus.BAD_REQUEST);
+    }
+
     @ExceptionHandler(MethodArgumentNotValidException.class)
     public ResponseEntity<ErrorResponse> handleValidationExceptions(MethodArgumentNotValidException ex) {
         Map<String, String> errors = new HashMap<>();
@@ -0,0 +1,27 @@
+package com.enterprise.s3browser.exception;
+
+import java.time.Instant;
+
+/**
+ * Exception thrown when a conditional read finds the object unchanged.
+ * Carries the validators to send back with the 304 response.
+ */
+public class ObjectNotModifiedException extends RuntimeException {
+
+    private final String etag;
+    private final Instant lastModified;
+
+    public ObjectNotModifiedException(String message, String etag, Instant lastModified) {
+        super(message);
+        this.etag = etag;
+        this.lastModified = lastModified;
+    }
+
+    public String getEtag() {
+        return etag;
+    }
+
+    public Instant getLastModified() {
+        return lastModified;
+    }
+}
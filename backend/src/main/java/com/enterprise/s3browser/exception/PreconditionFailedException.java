@@ -0,0 +1,15 @@
+package com.enterprise.s3browser.exception;
+
+/**
+ * Exception thrown when an If-Match or If-Unmodified-Since condition does not hold.
+ */
+public class PreconditionFailedException extends RuntimeException {
+
+    public PreconditionFailedException(String message) {
+        super(message);
+    }
+
+    public PreconditionFailedException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
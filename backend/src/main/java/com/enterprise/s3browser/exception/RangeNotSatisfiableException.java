@@ -0,0 +1,25 @@
+package com.enterprise.s3browser.exception;
+
+/**
+ * Exception thrown when none of the requested byte ranges overlap the object.
+ */
+public class RangeNotSatisfiableException extends RuntimeException {
+
+    private final long objectLength;
+
+    public RangeNotSatisfiableException(String message) {
+        this(message, -1);
+    }
+
+    public RangeNotSatisfiableException(String message, long objectLength) {
+        super(message);
+        this.objectLength = objectLength;
+    }
+
+    /**
+     * Length of the object the ranges were checked against, or -1 when unknown.
+     */
+    public long getObjectLength() {
+        return objectLength;
+    }
+}
@@ -0,0 +1,18 @@
+package com.enterprise.s3browser.exception;
+
+/**
+ * Exception thrown when a requested line lies beyond what the text viewer has indexed so far.
+ */
+public class TextIndexNotReadyException extends RuntimeException {
+
+    private final long indexedLines;
+
+    public TextIndexNotReadyException(String message, long indexedLines) {
+        super(message);
+        this.indexedLines = indexedLines;
+    }
+
+    public long getIndexedLines() {
+        return indexedLines;
+    }
+}
@@ -0,0 +1,11 @@
+package com.enterprise.s3browser.exception;
+
+/**
+ * Exception thrown when a resumable upload session does not exist, or no longer does.
+ */
+public class UploadSessionNotFoundException extends RuntimeException {
+
+    public UploadSessionNotFoundException(String message) {
+        super(message);
+    }
+}
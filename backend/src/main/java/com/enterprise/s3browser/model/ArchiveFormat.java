@@ -0,0 +1,46 @@
+package com.enterprise.s3browser.model;
+
+/**
+ * Archive formats a prefix can be downloaded as.
+ */
+public enum ArchiveFormat {
+
+    ZIP("zip", "application/zip"),
+    TAR("tar", "application/x-tar"),
+    TAR_GZ("tar.gz", "application/gzip");
+
+    private final String extension;
+    private final String contentType;
+
+    ArchiveFormat(String extension, String contentType) {
+        this.extension = extension;
+        this.contentType = contentType;
+    }
+
+    public String getExtension() {
+        return extension;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    /**
+     * Resolve a format from its file extension (zip, tar, tar.gz or tgz), case-insensitively.
+     */
+    public static ArchiveFormat fromExtension(String extension) {
+        if (extension == null || extension.isEmpty()) {
+            return ZIP;
+        }
+        String normalized = extension.toLowerCase();
+        if ("tgz".equals(normalized)) {
+            return TAR_GZ;
+        }
+        for (ArchiveFormat format : values()) {
+            if (format.extension.equals(normalized)) {
+                return format;
+            }
+        }
+        throw new IllegalArgumentException("Unsupported archive format: " + extension);
+    }
+}
@@ -0,0 +1,53 @@
+package com.enterprise.s3browser.model;
+
+/**
+ * Domain model for the signature of one fixed-size block of an object: a cheap rolling
+ * checksum to find candidate matches at any offset, and a SHA-256 digest, hex encoded, to confirm them.
+ */
+public class BlockSignature {
+    private long offset;
+    private int length;
+    private int weak;
+    private String strong;
+
+    public BlockSignature() {}
+
+    public BlockSignature(long offset, int length, int weak, String strong) {
+        this.offset = offset;
+        this.length = length;
+        this.weak = weak;
+        this.strong = strong;
+    }
+
+    public long getOffset() {
+        return offset;
+    }
+
+    public void setOffset(long offset) {
+        this.offset = offset;
+    }
+
+    public int getLength() {
+        return length;
+    }
+
+    public void setLength(int length) {
+        this.length = length;
+    }
+
+    public int getWeak() {
+        return weak;
+    }
+
+    public void setWeak(int weak) {
+        this.weak = weak;
+    }
+
+    public String getStrong() {
+        return strong;
+    }
+
+    public void setStrong(String strong) {
+        this.strong = strong;
+    }
+}
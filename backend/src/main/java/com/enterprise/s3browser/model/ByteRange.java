@@ -0,0 +1,48 @@
+package com.enterprise.s3browser.model;
+
+/**
+ * Domain model for an inclusive byte range of an object.
+ */
+public class ByteRange {
+    private final long start;
+    private final long end;
+
+    public ByteRange(long start, long end) {
+        if (start < 0 || end < start) {
+            throw new IllegalArgumentException("Invalid byte range: " + start + "-" + end);
+        }
+        this.start = start;
+        this.end = end;
+    }
+
+    public long getStart() {
+        return start;
+    }
+
+    public long getEnd() {
+        return end;
+    }
+
+    public long getLength() {
+        return end - start + 1;
+    }
+
+    /**
+     * Value for an HTTP Range request header selecting this range.
+     */
+    public String toRangeHeader() {
+        return "bytes=" + start + "-" + end;
+    }
+
+    /**
+     * Value for an HTTP Content-Range response header for this range of an object.
+     */
+    public String toContentRange(long objectLength) {
+        return "bytes " + start + "-" + end + "/" + objectLength;
+    }
+
+    @Override
+    public String toString() {
+        return start + "-" + end;
+    }
+}
@@ -0,0 +1,104 @@
+package com.enterprise.s3browser.model;
+
+import java.time.Instant;
+
+/**
+ * Domain model for an object packed into a compaction container: its content is the byte range
+ * [offset, offset + length) of the container, as of the container's ETag. The original ETag,
+ * timestamp and content type are kept so the object can still be listed and served as before.
+ * Entries are persisted as JSON in the compaction index.
+ */
+public class CompactedObject {
+    private String key;
+    private String etag;
+    private long length;
+    private Instant lastModified;
+    private String contentType;
+    private String container;
+    private String containerEtag;
+    private long offset;
+
+    public CompactedObject() {}
+
+    public CompactedObject(String key, String etag, long length, Instant lastModified, String contentType,
+                           String container, long offset) {
+        this.key = key;
+        this.etag = etag;
+        this.length = length;
+        this.lastModified = lastModified;
+        this.contentType = contentType;
+        this.container = container;
+        this.offset = offset;
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    public void setKey(String key) {
+        this.key = key;
+    }
+
+    public String getEtag() {
+        return etag;
+    }
+
+    public void setEtag(String etag) {
+        this.etag = etag;
+    }
+
+    public long getLength() {
+        return length;
+    }
+
+    public void setLength(long length) {
+        this.length = length;
+    }
+
+    public Instant getLastModified() {
+        return lastModified;
+    }
+
+    public void setLastModified(Instant lastModified) {
+        this.lastModified = lastModified;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    public void setContentType(String contentType) {
+        this.contentType = contentType;
+    }
+
+    public String getContainer() {
+        return container;
+    }
+
+    public void setContainer(String container) {
+        this.container = container;
+    }
+
+    public String getContainerEtag() {
+        return containerEtag;
+    }
+
+    public void setContainerEtag(String containerEtag) {
+        this.containerEtag = containerEtag;
+    }
+
+    public long getOffset() {
+        return offset;
+    }
+
+    public void setOffset(long offset) {
+        this.offset = offset;
+    }
+
+    /**
+     * The HTTP Range of bytes [start, end] of this object within its container.
+     */
+    public String containerRange(long start, long end) {
+        return "bytes=" + (offset + start) + "-" + (offset + end);
+    }
+}
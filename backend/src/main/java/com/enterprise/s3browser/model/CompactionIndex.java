@@ -0,0 +1,57 @@
+package com.enterprise.s3browser.model;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Domain model for the index object written by a compaction job: where each object it packed
+ * now lives. Stored as JSON in the bucket next to the job's containers.
+ */
+public class CompactionIndex {
+    private String jobId;
+    private String prefix;
+    private Instant createdAt;
+    private List<CompactedObject> objects = new ArrayList<>();
+
+    public CompactionIndex() {}
+
+    public CompactionIndex(String jobId, String prefix, Instant createdAt, List<CompactedObject> objects) {
+        this.jobId = jobId;
+        this.prefix = prefix;
+        this.createdAt = createdAt;
+        this.objects = objects;
+    }
+
+    public String getJobId() {
+        return jobId;
+    }
+
+    public void setJobId(String jobId) {
+        this.jobId = jobId;
+    }
+
+    public String getPrefix() {
+        return prefix;
+    }
+
+    public void setPrefix(String prefix) {
+        this.prefix = prefix;
+    }
+
+    public Instant getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(Instant createdAt) {
+        this.createdAt = createdAt;
+    }
+
+    public List<CompactedObject> getObjects() {
+        return objects;
+    }
+
+    public void setObjects(List<CompactedObject> objects) {
+        this.objects = objects;
+    }
+}
@@ -0,0 +1,147 @@
+package com.enterprise.s3browser.model;
+
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * Domain model for a compaction job and its progress. A job is updated by the thread running
+ * it while requests read it, so its state is volatile.
+ */
+public class CompactionJob {
+    private final String id;
+    private final String bucket;
+    private final String prefix;
+    private final Instant createdAt;
+    private volatile CompactionStatus status = CompactionStatus.QUEUED;
+    private volatile Instant startedAt;
+    private volatile Instant updatedAt;
+    private volatile Instant finishedAt;
+    private volatile long objectsScanned;
+    private volatile long objectsPacked;
+    private volatile long bytesPacked;
+    private volatile int containers;
+    private volatile String error;
+    private volatile boolean cancelRequested;
+
+    public CompactionJob(String id, String bucket, String prefix, Instant createdAt) {
+        this.id = id;
+        this.bucket = bucket;
+        this.prefix = prefix;
+        this.createdAt = createdAt;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public String getBucket() {
+        return bucket;
+    }
+
+    public String getPrefix() {
+        return prefix;
+    }
+
+    public Instant getCreatedAt() {
+        return createdAt;
+    }
+
+    public CompactionStatus getStatus() {
+        return status;
+    }
+
+    public void setStatus(CompactionStatus status) {
+        this.status = status;
+    }
+
+    public Instant getStartedAt() {
+        return startedAt;
+    }
+
+    public void setStartedAt(Instant startedAt) {
+        this.startedAt = startedAt;
+    }
+
+    public Instant getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(Instant updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+
+    public Instant getFinishedAt() {
+        return finishedAt;
+    }
+
+    public void setFinishedAt(Instant finishedAt) {
+        this.finishedAt = finishedAt;
+    }
+
+    /**
+     * Objects listed under the prefix so far, whether or not they were small enough to pack.
+     */
+    public long getObjectsScanned() {
+        return objectsScanned;
+    }
+
+    public void setObjectsScanned(long objectsScanned) {
+        this.objectsScanned = objectsScanned;
+    }
+
+    public long getObjectsPacked() {
+        return objectsPacked;
+    }
+
+    public void setObjectsPacked(long objectsPacked) {
+        this.objectsPacked = objectsPacked;
+    }
+
+    public long getBytesPacked() {
+        return bytesPacked;
+    }
+
+    public void setBytesPacked(long bytesPacked) {
+        this.bytesPacked = bytesPacked;
+    }
+
+    /**
+     * Containers completed so far.
+     */
+    public int getContainers() {
+        return containers;
+    }
+
+    public void setContainers(int containers) {
+        this.containers = containers;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public void setError(String error) {
+        this.error = error;
+    }
+
+    public boolean isCancelRequested() {
+        return cancelRequested;
+    }
+
+    public void setCancelRequested(boolean cancelRequested) {
+        this.cancelRequested = cancelRequested;
+    }
+
+    /**
+     * Packing throughput between the start of the job and its last progress, or 0 before any.
+     */
+    public long bytesPerSecond() {
+        Instant start = startedAt;
+        Instant end = finishedAt != null ? finishedAt : updatedAt;
+        if (start == null || end == null) {
+            return 0;
+        }
+        long millis = Duration.between(start, end).toMillis();
+        return millis > 0 ? bytesPacked * 1000 / millis : 0;
+    }
+}
@@ -0,0 +1,17 @@
+package com.enterprise.s3browser.model;
+
+/**
+ * Lifecycle of a compaction job. Jobs run one at a time, so a new job waits as QUEUED.
+ */
+public enum CompactionStatus {
+
+    QUEUED,
+    RUNNING,
+    COMPLETED,
+    CANCELLED,
+    FAILED;
+
+    public boolean isFinished() {
+        return this == COMPLETED || this == CANCELLED || this == FAILED;
+    }
+}
@@ -0,0 +1,43 @@
+package com.enterprise.s3browser.model;
+
+/**
+ * Domain model for the fingerprint of some content: its SHA-256 digest, which identifies it,
+ * and its CRC32C checksum, both hex encoded, along with its length.
+ */
+public class ContentHash {
+    private String sha256;
+    private String crc32c;
+    private long size;
+
+    public ContentHash() {}
+
+    public ContentHash(String sha256, String crc32c, long size) {
+        this.sha256 = sha256;
+        this.crc32c = crc32c;
+        this.size = size;
+    }
+
+    public String getSha256() {
+        return sha256;
+    }
+
+    public void setSha256(String sha256) {
+        this.sha256 = sha256;
+    }
+
+    public String getCrc32c() {
+        return crc32c;
+    }
+
+    public void setCrc32c(String crc32c) {
+        this.crc32c = crc32c;
+    }
+
+    public long getSize() {
+        return size;
+    }
+
+    public void setSize(long size) {
+        this.size = size;
+    }
+}
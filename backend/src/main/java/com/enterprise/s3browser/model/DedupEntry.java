@@ -0,0 +1,85 @@
+package com.enterprise.s3browser.model;
+
+import java.time.Instant;
+
+/**
+ * Domain model for an entry of the deduplication index: an object known to hold the content
+ * with the given hash, as of the recorded ETag. Entries are persisted as JSON.
+ */
+public class DedupEntry {
+    private String sha256;
+    private String crc32c;
+    private long size;
+    private String bucket;
+    private String key;
+    private String etag;
+    private Instant recordedAt;
+
+    public DedupEntry() {}
+
+    public DedupEntry(String sha256, String crc32c, long size, String bucket, String key, String etag, Instant recordedAt) {
+        this.sha256 = sha256;
+        this.crc32c = crc32c;
+        this.size = size;
+        this.bucket = bucket;
+        this.key = key;
+        this.etag = etag;
+        this.recordedAt = recordedAt;
+    }
+
+    public String getSha256() {
+        return sha256;
+    }
+
+    public void setSha256(String sha256) {
+        this.sha256 = sha256;
+    }
+
+    public String getCrc32c() {
+        return crc32c;
+    }
+
+    public void setCrc32c(String crc32c) {
+        this.crc32c = crc32c;
+    }
+
+    public long getSize() {
+        return size;
+    }
+
+    public void setSize(long size) {
+        this.size = size;
+    }
+
+    public String getBucket() {
+        return bucket;
+    }
+
+    public void setBucket(String bucket) {
+        this.bucket = bucket;
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    public void setKey(String key) {
+        this.key = key;
+    }
+
+    public String getEtag() {
+        return etag;
+    }
+
+    public void setEtag(String etag) {
+        this.etag = etag;
+    }
+
+    public Instant getRecordedAt() {
+        return recordedAt;
+    }
+
+    public void setRecordedAt(Instant recordedAt) {
+        this.recordedAt = recordedAt;
+    }
+}
@@ -0,0 +1,73 @@
+package com.enterprise.s3browser.model;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Domain model for one page of a listing: the objects and folders directly under a prefix whose
+ * keys lie in the page's range, and the token for the next page if there is one. The range runs
+ * from after startAfter (the start of the listing when null) up to and including lastKey, or to
+ * the end of the listing on the last page.
+ */
+public class ObjectListing {
+    private List<S3Object> objects = new ArrayList<>();
+    private String startAfter;
+    private String lastKey;
+    private String nextContinuationToken;
+
+    public ObjectListing() {}
+
+    public ObjectListing(List<S3Object> objects, String startAfter, String lastKey, String nextContinuationToken) {
+        this.objects = objects;
+        this.startAfter = startAfter;
+        this.lastKey = lastKey;
+        this.nextContinuationToken = nextContinuationToken;
+    }
+
+    public List<S3Object> getObjects() {
+        return objects;
+    }
+
+    public void setObjects(List<S3Object> objects) {
+        this.objects = objects;
+    }
+
+    public String getStartAfter() {
+        return startAfter;
+    }
+
+    public void setStartAfter(String startAfter) {
+        this.startAfter = startAfter;
+    }
+
+    public String getLastKey() {
+        return lastKey;
+    }
+
+    public void setLastKey(String lastKey) {
+        this.lastKey = lastKey;
+    }
+
+    public String getNextContinuationToken() {
+        return nextContinuationToken;
+    }
+
+    public void setNextContinuationToken(String nextContinuationToken) {
+        this.nextContinuationToken = nextContinuationToken;
+    }
+
+    public boolean isTruncated() {
+        return nextContinuationToken != null;
+    }
+
+    /**
+     * Whether a key falls in this page's range, so that entries merged in from elsewhere are
+     * listed on exactly one page.
+     */
+    public boolean covers(String key) {
+        if (startAfter != null && key.compareTo(startAfter) <= 0) {
+            return false;
+        }
+        return !isTruncated() || lastKey == null || key.compareTo(lastKey) <= 0;
+    }
+}
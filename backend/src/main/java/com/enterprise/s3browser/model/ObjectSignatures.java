@@ -0,0 +1,88 @@
+package com.enterprise.s3browser.model;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Domain model for the block signatures of an object as of one ETag, used to upload a new
+ * version of it as a delta. Only whole blocks are signed. Signatures are persisted as JSON.
+ */
+public class ObjectSignatures {
+    private String bucket;
+    private String key;
+    private String etag;
+    private long size;
+    private int blockSize;
+    private List<BlockSignature> blocks = new ArrayList<>();
+    private Instant computedAt;
+
+    public ObjectSignatures() {}
+
+    public ObjectSignatures(String bucket, String key, String etag, long size, int blockSize,
+                            List<BlockSignature> blocks, Instant computedAt) {
+        this.bucket = bucket;
+        this.key = key;
+        this.etag = etag;
+        this.size = size;
+        this.blockSize = blockSize;
+        this.blocks = blocks;
+        this.computedAt = computedAt;
+    }
+
+    public String getBucket() {
+        return bucket;
+    }
+
+    public void setBucket(String bucket) {
+        this.bucket = bucket;
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    public void setKey(String key) {
+        this.key = key;
+    }
+
+    public String getEtag() {
+        return etag;
+    }
+
+    public void setEtag(String etag) {
+        this.etag = etag;
+    }
+
+    public long getSize() {
+        return size;
+    }
+
+    public void setSize(long size) {
+        this.size = size;
+    }
+
+    public int getBlockSize() {
+        return blockSize;
+    }
+
+    public void setBlockSize(int blockSize) {
+        this.blockSize = blockSize;
+    }
+
+    public List<BlockSignature> getBlocks() {
+        return blocks;
+    }
+
+    public void setBlocks(List<BlockSignature> blocks) {
+        this.blocks = blocks;
+    }
+
+    public Instant getComputedAt() {
+        return computedAt;
+    }
+
+    public void setComputedAt(Instant computedAt) {
+        this.computedAt = computedAt;
+    }
+}
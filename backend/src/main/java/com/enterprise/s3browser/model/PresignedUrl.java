@@ -0,0 +1,63 @@
+package com.enterprise.s3browser.model;
+
+import java.time.Instant;
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * Domain model for a presigned S3 request that a client can send directly to the S3 endpoint.
+ */
+public class PresignedUrl {
+    private String url;
+    private String method;
+    private Instant expiration;
+    private Map<String, String> signedHeaders = Collections.emptyMap();
+
+    public PresignedUrl() {}
+
+    public PresignedUrl(String url, String method, Instant expiration, Map<String, String> signedHeaders) {
+        this.url = url;
+        this.method = method;
+        this.expiration = expiration;
+        this.signedHeaders = signedHeaders;
+    }
+
+    /**
+     * Check if the URL is still valid for at least the given number of seconds.
+     */
+    public boolean isValidFor(long seconds, Instant now) {
+        return expiration != null && expiration.isAfter(now.plusSeconds(seconds));
+    }
+
+    public String getUrl() {
+        return url;
+    }
+
+    public void setUrl(String url) {
+        this.url = url;
+    }
+
+    public String getMethod() {
+        return method;
+    }
+
+    public void setMethod(String method) {
+        this.method = method;
+    }
+
+    public Instant getExpiration() {
+        return expiration;
+    }
+
+    public void setExpiration(Instant expiration) {
+        this.expiration = expiration;
+    }
+
+    public Map<String, String> getSignedHeaders() {
+        return signedHeaders;
+    }
+
+    public void setSignedHeaders(Map<String, String> signedHeaders) {
+        this.signedHeaders = signedHeaders;
+    }
+}
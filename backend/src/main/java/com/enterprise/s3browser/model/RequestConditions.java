@@ -0,0 +1,51 @@
+package com.enterprise.s3browser.model;
+
+import java.time.Instant;
+
+/**
+ * Domain model for HTTP conditional request validators forwarded to S3.
+ */
+public class RequestConditions {
+    private String ifMatch;
+    private String ifNoneMatch;
+    private Instant ifModifiedSince;
+    private Instant ifUnmodifiedSince;
+
+    public RequestConditions() {}
+
+    public String getIfMatch() {
+        return ifMatch;
+    }
+
+    public void setIfMatch(String ifMatch) {
+        this.ifMatch = ifMatch;
+    }
+
+    public String getIfNoneMatch() {
+        return ifNoneMatch;
+    }
+
+    public void setIfNoneMatch(String ifNoneMatch) {
+        this.ifNoneMatch = ifNoneMatch;
+    }
+
+    public Instant getIfModifiedSince() {
+        return ifModifiedSince;
+    }
+
+    public void setIfModifiedSince(Instant ifModifiedSince) {
+        this.ifModifiedSince = ifModifiedSince;
+    }
+
+    public Instant getIfUnmodifiedSince() {
+        return ifUnmodifiedSince;
+    }
+
+    public void setIfUnmodifiedSince(Instant ifUnmodifiedSince) {
+        this.ifUnmodifiedSince = ifUnmodifiedSince;
+    }
+
+    public boolean isEmpty() {
+        return ifMatch == null && ifNoneMatch == null && ifModifiedSince == null && ifUnmodifiedSince == null;
+    }
+}
@@ -12,6 +12,8 @@ public class S3Object {
     private Instant lastModified;
     private String storageClass;
     private boolean isDirectory;
+    private String contentType;
+    private boolean pending;
 
     public S3Object() {}
 
@@ -71,4 +73,20 @@ public class S3Object {
     public void setDirectory(boolean directory) {
         isDirectory = directory;
     }
-}
\ No newline at end of file
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    public void setContentType(String contentType) {
+        this.contentType = contentType;
+    }
+
+    public boolean isPending() {
+        return pending;
+    }
+
+    public void setPending(boolean pending) {
+        this.pending = pending;
+    }
+}
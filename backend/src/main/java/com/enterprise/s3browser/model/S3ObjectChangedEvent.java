@@ -0,0 +1,29 @@
+package com.enterprise.s3browser.model;
+
+/**
+ * Application event published after an object was written, copied to or deleted through the
+ * S3 service, so anything derived from listings of its bucket can be invalidated.
+ */
+public class S3ObjectChangedEvent {
+    private final String endpoint;
+    private final String bucket;
+    private final String key;
+
+    public S3ObjectChangedEvent(String endpoint, String bucket, String key) {
+        this.endpoint = endpoint;
+        this.bucket = bucket;
+        this.key = key;
+    }
+
+    public String getEndpoint() {
+        return endpoint;
+    }
+
+    public String getBucket() {
+        return bucket;
+    }
+
+    public String getKey() {
+        return key;
+    }
+}
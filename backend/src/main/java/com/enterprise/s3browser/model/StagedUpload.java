@@ -0,0 +1,114 @@
+package com.enterprise.s3browser.model;
+
+import java.time.Instant;
+
+/**
+ * Domain model for an upload accepted in write-behind mode: its content sits in the local
+ * staging directory until a background worker has stored it in S3.
+ * Staged uploads are persisted as JSON, so everything here is plain bean state.
+ */
+public class StagedUpload {
+    private String id;
+    private long sequence;
+    private String bucket;
+    private String key;
+    private String contentType;
+    private long size;
+    private Instant stagedAt;
+    private int attempts;
+    private Instant nextAttemptAt;
+    private String lastError;
+
+    public StagedUpload() {}
+
+    public StagedUpload(String id, long sequence, String bucket, String key, String contentType, long size, Instant stagedAt) {
+        this.id = id;
+        this.sequence = sequence;
+        this.bucket = bucket;
+        this.key = key;
+        this.contentType = contentType;
+        this.size = size;
+        this.stagedAt = stagedAt;
+        this.nextAttemptAt = stagedAt;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public long getSequence() {
+        return sequence;
+    }
+
+    public void setSequence(long sequence) {
+        this.sequence = sequence;
+    }
+
+    public String getBucket() {
+        return bucket;
+    }
+
+    public void setBucket(String bucket) {
+        this.bucket = bucket;
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    public void setKey(String key) {
+        this.key = key;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    public void setContentType(String contentType) {
+        this.contentType = contentType;
+    }
+
+    public long getSize() {
+        return size;
+    }
+
+    public void setSize(long size) {
+        this.size = size;
+    }
+
+    public Instant getStagedAt() {
+        return stagedAt;
+    }
+
+    public void setStagedAt(Instant stagedAt) {
+        this.stagedAt = stagedAt;
+    }
+
+    public int getAttempts() {
+        return attempts;
+    }
+
+    public void setAttempts(int attempts) {
+        this.attempts = attempts;
+    }
+
+    public Instant getNextAttemptAt() {
+        return nextAttemptAt;
+    }
+
+    public void setNextAttemptAt(Instant nextAttemptAt) {
+        this.nextAttemptAt = nextAttemptAt;
+    }
+
+    public String getLastError() {
+        return lastError;
+    }
+
+    public void setLastError(String lastError) {
+        this.lastError = lastError;
+    }
+}
@@ -0,0 +1,102 @@
+package com.enterprise.s3browser.model;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Domain model for a page of lines read from a text object.
+ */
+public class TextPage {
+    private String key;
+    private String etag;
+    private long objectSize;
+    private Long startLine;
+    private long startOffset;
+    private long endOffset;
+    private List<String> lines = new ArrayList<>();
+    private Long totalLines;
+    private long indexedLines;
+    private boolean indexComplete;
+
+    public TextPage() {}
+
+    public String getKey() {
+        return key;
+    }
+
+    public void setKey(String key) {
+        this.key = key;
+    }
+
+    public String getEtag() {
+        return etag;
+    }
+
+    public void setEtag(String etag) {
+        this.etag = etag;
+    }
+
+    public long getObjectSize() {
+        return objectSize;
+    }
+
+    public void setObjectSize(long objectSize) {
+        this.objectSize = objectSize;
+    }
+
+    public Long getStartLine() {
+        return startLine;
+    }
+
+    public void setStartLine(Long startLine) {
+        this.startLine = startLine;
+    }
+
+    public long getStartOffset() {
+        return startOffset;
+    }
+
+    public void setStartOffset(long startOffset) {
+        this.startOffset = startOffset;
+    }
+
+    public long getEndOffset() {
+        return endOffset;
+    }
+
+    public void setEndOffset(long endOffset) {
+        this.endOffset = endOffset;
+    }
+
+    public List<String> getLines() {
+        return lines;
+    }
+
+    public void setLines(List<String> lines) {
+        this.lines = lines;
+    }
+
+    public Long getTotalLines() {
+        return totalLines;
+    }
+
+    public void setTotalLines(Long totalLines) {
+        this.totalLines = totalLines;
+    }
+
+    public long getIndexedLines() {
+        return indexedLines;
+    }
+
+    public void setIndexedLines(long indexedLines) {
+        this.indexedLines = indexedLines;
+    }
+
+    public boolean isIndexComplete() {
+        return indexComplete;
+    }
+
+    public void setIndexComplete(boolean indexComplete) {
+        this.indexComplete = indexComplete;
+    }
+}
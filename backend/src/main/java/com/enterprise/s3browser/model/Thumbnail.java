@@ -0,0 +1,62 @@
+package com.enterprise.s3browser.model;
+
+/**
+ * Domain model for a rendered thumbnail of one version of an image object.
+ */
+public class Thumbnail {
+    private String key;
+    private String etag;
+    private ThumbnailSize size;
+    private String contentType;
+    private byte[] data;
+
+    public Thumbnail() {}
+
+    public Thumbnail(String key, String etag, ThumbnailSize size, String contentType, byte[] data) {
+        this.key = key;
+        this.etag = etag;
+        this.size = size;
+        this.contentType = contentType;
+        this.data = data;
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    public void setKey(String key) {
+        this.key = key;
+    }
+
+    public String getEtag() {
+        return etag;
+    }
+
+    public void setEtag(String etag) {
+        this.etag = etag;
+    }
+
+    public ThumbnailSize getSize() {
+        return size;
+    }
+
+    public void setSize(ThumbnailSize size) {
+        this.size = size;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    public void setContentType(String contentType) {
+        this.contentType = contentType;
+    }
+
+    public byte[] getData() {
+        return data;
+    }
+
+    public void setData(byte[] data) {
+        this.data = data;
+    }
+}
@@ -0,0 +1,42 @@
+package com.enterprise.s3browser.model;
+
+/**
+ * Fixed thumbnail renditions. Each is scaled to fit a square box of the given edge length.
+ */
+public enum ThumbnailSize {
+
+    SMALL("small", 64),
+    MEDIUM("medium", 160),
+    LARGE("large", 320);
+
+    private final String name;
+    private final int edge;
+
+    ThumbnailSize(String name, int edge) {
+        this.name = name;
+        this.edge = edge;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getEdge() {
+        return edge;
+    }
+
+    /**
+     * Resolve a size from its name (small, medium or large), case-insensitively.
+     */
+    public static ThumbnailSize fromName(String name) {
+        if (name == null || name.isEmpty()) {
+            return SMALL;
+        }
+        for (ThumbnailSize size : values()) {
+            if (size.name.equalsIgnoreCase(name)) {
+                return size;
+            }
+        }
+        throw new IllegalArgumentException("Unsupported thumbnail size: " + name);
+    }
+}
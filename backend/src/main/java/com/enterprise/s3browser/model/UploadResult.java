@@ -0,0 +1,60 @@
+package com.enterprise.s3browser.model;
+
+/**
+ * Domain model for the outcome of storing one file of a multi-file upload.
+ */
+public class UploadResult {
+    private String key;
+    private long size;
+    private boolean success;
+    private String error;
+
+    public UploadResult() {}
+
+    public UploadResult(String key, long size, boolean success, String error) {
+        this.key = key;
+        this.size = size;
+        this.success = success;
+        this.error = error;
+    }
+
+    public static UploadResult success(String key, long size) {
+        return new UploadResult(key, size, true, null);
+    }
+
+    public static UploadResult failure(String key, long size, String error) {
+        return new UploadResult(key, size, false, error);
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    public void setKey(String key) {
+        this.key = key;
+    }
+
+    public long getSize() {
+        return size;
+    }
+
+    public void setSize(long size) {
+        this.size = size;
+    }
+
+    public boolean isSuccess() {
+        return success;
+    }
+
+    public void setSuccess(boolean success) {
+        this.success = success;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public void setError(String error) {
+        this.error = error;
+    }
+}
@@ -0,0 +1,148 @@
+package com.enterprise.s3browser.model;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeMap;
+
+/**
+ * Domain model for a resumable upload: an S3 multipart upload that receives its chunks
+ * over separate requests, in any order. Chunk n is part n of the multipart upload.
+ * Sessions are persisted as JSON, so everything here is plain bean state.
+ */
+public class UploadSession {
+    private String id;
+    private String key;
+    private String contentType;
+    private String bucket;
+    private String uploadId;
+    private long size;
+    private long chunkSize;
+    private Instant createdAt;
+    private Instant updatedAt;
+    private TreeMap<Integer, String> chunkEtags = new TreeMap<>();
+
+    public UploadSession() {}
+
+    public UploadSession(String id, String key, String contentType, String bucket, String uploadId,
+                         long size, long chunkSize, Instant createdAt) {
+        this.id = id;
+        this.key = key;
+        this.contentType = contentType;
+        this.bucket = bucket;
+        this.uploadId = uploadId;
+        this.size = size;
+        this.chunkSize = chunkSize;
+        this.createdAt = createdAt;
+        this.updatedAt = createdAt;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    public void setKey(String key) {
+        this.key = key;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    public void setContentType(String contentType) {
+        this.contentType = contentType;
+    }
+
+    public String getBucket() {
+        return bucket;
+    }
+
+    public void setBucket(String bucket) {
+        this.bucket = bucket;
+    }
+
+    public String getUploadId() {
+        return uploadId;
+    }
+
+    public void setUploadId(String uploadId) {
+        this.uploadId = uploadId;
+    }
+
+    public long getSize() {
+        return size;
+    }
+
+    public void setSize(long size) {
+        this.size = size;
+    }
+
+    public long getChunkSize() {
+        return chunkSize;
+    }
+
+    public void setChunkSize(long chunkSize) {
+        this.chunkSize = chunkSize;
+    }
+
+    public Instant getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(Instant createdAt) {
+        this.createdAt = createdAt;
+    }
+
+    public Instant getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(Instant updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+
+    /**
+     * ETag of every received chunk, by chunk number.
+     */
+    public TreeMap<Integer, String> getChunkEtags() {
+        return chunkEtags;
+    }
+
+    public void setChunkEtags(TreeMap<Integer, String> chunkEtags) {
+        this.chunkEtags = chunkEtags;
+    }
+
+    /**
+     * Number of chunks the object is split into; an empty object is one empty chunk.
+     */
+    public int chunkCount() {
+        return (int) Math.max(1, (size + chunkSize - 1) / chunkSize);
+    }
+
+    /**
+     * Exact length of a chunk: the chunk size for all but the last one.
+     */
+    public long chunkLength(int chunkNumber) {
+        return Math.min(chunkSize, size - (chunkNumber - 1) * chunkSize);
+    }
+
+    public List<Integer> receivedChunks() {
+        return new ArrayList<>(chunkEtags.keySet());
+    }
+
+    public long receivedBytes() {
+        return chunkEtags.keySet().stream().mapToLong(this::chunkLength).sum();
+    }
+
+    public boolean allChunksReceived() {
+        return chunkEtags.size() == chunkCount();
+    }
+}
@@ -0,0 +1,170 @@
+package com.enterprise.s3browser.service;
+
+import com.enterprise.s3browser.exception.S3ServiceException;
+import com.enterprise.s3browser.model.CompactedObject;
+import com.enterprise.s3browser.model.RequestConditions;
+import com.enterprise.s3browser.model.S3Configuration;
+import com.enterprise.s3browser.model.S3Object;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import software.amazon.awssdk.services.s3.model.CompletedPart;
+import software.amazon.awssdk.services.s3.model.S3Exception;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Service for appending to objects. S3 objects cannot be modified, so an append writes a new
+ * version: the current one is copied on the server side into the leading parts of a multipart
+ * upload and the appended bytes follow as the last part, so an append only sends its own bytes.
+ * Objects below the multipart part minimum cannot be a part of their own and compacted objects
+ * have no key of their own to copy from; both are rewritten whole. Appends to one key are
+ * serialized, and the copy is pinned to the ETag it started from.
+ */
+@Service
+public class AppendService {
+
+    private static final Logger logger = LoggerFactory.getLogger(AppendService.class);
+
+    @Autowired
+    private S3Service s3Service;
+
+    @Autowired
+    private MultipartUploadService multipartUploadService;
+
+    @Autowired
+    private CompactionService compactionService;
+
+    @Value("${s3.upload.append.small-object-size:5242880}")
+    private long smallObjectSize;
+
+    // Appends in progress by bucket and key; entries are removed when their last user is done
+    private final Map<String, KeyLock> locks = new ConcurrentHashMap<>();
+
+    /**
+     * Append content of a known length to an object, creating it with the given content type if it
+     * does not exist. Returns the metadata of the new version.
+     */
+    public S3Object append(String key, InputStream inputStream, long contentLength, String contentType) throws IOException {
+        if (contentLength < 0 || contentLength > MultipartUploadService.MAX_COPY_SIZE) {
+            throw new IllegalArgumentException("Appended content must have a known length of at most 5 GiB");
+        }
+
+        String lockKey = currentBucket() + "/" + key;
+        KeyLock lock = lock(lockKey);
+        try {
+            S3Object current = currentVersion(key);
+            if (current == null) {
+                s3Service.uploadObject(key, inputStream, contentLength, contentType);
+                logger.info("Created object {} by appending {} bytes", key, contentLength);
+            } else if (current.getSize() < Math.max(smallObjectSize, MultipartUploadService.MIN_PART_SIZE)
+                    || isCompacted(key, current)) {
+                rewrite(key, current, inputStream, contentLength);
+            } else {
+                compose(key, current, inputStream, contentLength);
+            }
+            return s3Service.getObjectMetadata(key);
+        } finally {
+            unlock(lockKey, lock);
+        }
+    }
+
+    /**
+     * Write the new version as the current content followed by the appended bytes, streamed through.
+     */
+    private void rewrite(String key, S3Object current, InputStream inputStream, long contentLength) throws IOException {
+        RequestConditions conditions = new RequestConditions();
+        conditions.setIfMatch(current.getEtag());
+        try (InputStream existing = s3Service.downloadObjectStream(key, null, conditions)) {
+            s3Service.uploadObject(key, new SequenceInputStream(existing, inputStream),
+                    current.getSize() + contentLength, current.getContentType());
+        }
+        logger.info("Appended {} bytes to object {} by rewriting its {} bytes", contentLength, key, current.getSize());
+    }
+
+    /**
+     * Compose the new version from server-side copies of the current content and one uploaded part.
+     */
+    private void compose(String key, S3Object current, InputStream inputStream, long contentLength) throws IOException {
+        String uploadId = s3Service.createMultipartUpload(key, current.getContentType());
+        boolean completed = false;
+        try {
+            List<CompletedPart> parts = new ArrayList<>(multipartUploadService.copyParts(
+                    key, current.getEtag(), current.getSize(), key, uploadId, 1));
+            parts.add(s3Service.uploadPartStream(key, uploadId, parts.size() + 1, inputStream, contentLength));
+            s3Service.completeMultipartUpload(key, uploadId, parts);
+            completed = true;
+            logger.info("Appended {} bytes to object {} after copying its {} bytes in {} parts",
+                    contentLength, key, current.getSize(), parts.size() - 1);
+        } finally {
+            if (!completed) {
+                try {
+                    s3Service.abortMultipartUpload(key, uploadId);
+                } catch (S3ServiceException e) {
+                    logger.warn("Failed to abort multipart upload {} of object {}: {}", uploadId, key, e.getMessage());
+                }
+            }
+        }
+    }
+
+    /**
+     * Whether the current version lives in a compaction container, leaving no key to copy parts from.
+     */
+    private boolean isCompacted(String key, S3Object current) {
+        CompactedObject compacted = compactionService.resolve(key);
+        return compacted != null && compacted.getEtag().equals(current.getEtag());
+    }
+
+    private S3Object currentVersion(String key) {
+        try {
+            return s3Service.getObjectMetadata(key);
+        } catch (S3ServiceException e) {
+            // Only a missing object is appended to from nothing; anything else is a real failure
+            if (e.getCause() instanceof S3Exception && ((S3Exception) e.getCause()).statusCode() == 404) {
+                return null;
+            }
+            throw e;
+        }
+    }
+
+    private KeyLock lock(String lockKey) {
+        KeyLock lock = locks.compute(lockKey, (k, existing) -> {
+            KeyLock entry = existing != null ? existing : new KeyLock();
+            entry.users++;
+            return entry;
+        });
+        lock.lock.lock();
+        return lock;
+    }
+
+    private void unlock(String lockKey, KeyLock lock) {
+        lock.lock.unlock();
+        locks.computeIfPresent(lockKey, (k, existing) -> --existing.users == 0 ? null : existing);
+    }
+
+    int lockCount() {
+        return locks.size();
+    }
+
+    private String currentBucket() {
+        S3Configuration config = s3Service.getCurrentConfig();
+        return config != null ? config.getBucket() : null;
+    }
+
+    /**
+     * A lock with the number of appends holding or waiting for it, updated under the map's lock.
+     */
+    private static class KeyLock {
+        private final ReentrantLock lock = new ReentrantLock();
+        private int users;
+    }
+}
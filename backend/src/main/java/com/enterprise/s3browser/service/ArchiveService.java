@@ -0,0 +1,371 @@
+package com.enterprise.s3browser.service;
+
+import com.enterprise.s3browser.exception.S3ServiceException;
+import com.enterprise.s3browser.model.ArchiveFormat;
+import com.enterprise.s3browser.model.S3Object;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+import software.amazon.awssdk.core.ResponseInputStream;
+import software.amazon.awssdk.services.s3.model.GetObjectResponse;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Service for streaming every object under a prefix into a ZIP or tar archive.
+ * The next few objects are opened concurrently and their first bytes read ahead while the
+ * current one is being written, but entries are always written in listing order and
+ * object content beyond the read-ahead is streamed, never held in memory.
+ */
+@Service
+public class ArchiveService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ArchiveService.class);
+
+    @Autowired
+    private S3Service s3Service;
+
+    @Autowired
+    private CompactionService compactionService;
+
+    @Value("${s3.archive.prefetch:4}")
+    private int prefetch;
+
+    @Value("${s3.archive.prefetch-buffer-size:262144}")
+    private int prefetchBufferSize;
+
+    @Value("${s3.archive.max-threads:16}")
+    private int maxThreads;
+
+    @Value("${s3.archive.zip-level:1}")
+    private int zipLevel;
+
+    @Value("${s3.download.buffer-size:65536}")
+    private int bufferSize;
+
+    private ThreadPoolExecutor executor;
+
+    @PostConstruct
+    public void initialize() {
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(maxThreads, maxThreads, 60L, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), new CustomizableThreadFactory("archive-prefetch-"));
+        pool.allowCoreThreadTimeOut(true);
+        this.executor = pool;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Archive file name for a prefix: its last folder name, or the bucket name for the whole bucket.
+     */
+    public String getArchiveName(String prefix, ArchiveFormat format) {
+        String root = trimSlashes(prefix);
+        if (root.isEmpty()) {
+            root = s3Service.getCurrentConfig() != null ? s3Service.getCurrentConfig().getBucket() : "archive";
+        } else if (root.contains("/")) {
+            root = root.substring(root.lastIndexOf('/') + 1);
+        }
+        return root + "." + format.getExtension();
+    }
+
+    /**
+     * Write all objects under the prefix to the output stream as an archive.
+     * Entry names are keys relative to the prefix's parent folder, so the archive
+     * unpacks into a single folder named after the prefix.
+     */
+    public void writeArchive(String prefix, ArchiveFormat format, OutputStream outputStream) throws IOException {
+        Iterator<S3Object> objects = s3Service.listAllObjects(prefix);
+        if (compactionService.isEnabled()) {
+            objects = compactionService.withCompacted(prefix, objects);
+        }
+        int baseLength = baseLength(prefix);
+        ArchiveWriter writer = openWriter(format, outputStream);
+        Deque<Future<PrefetchedObject>> window = new ArrayDeque<>();
+        byte[] buffer = new byte[bufferSize];
+        int entries = 0;
+        boolean completed = false;
+
+        try {
+            while (objects.hasNext() || !window.isEmpty()) {
+                while (objects.hasNext() && window.size() < prefetch) {
+                    S3Object object = objects.next();
+                    window.add(executor.submit(() -> prefetchObject(object)));
+                }
+
+                PrefetchedObject next = awaitObject(window.poll());
+                boolean entryCompleted = false;
+                try {
+                    writer.putEntry(next.key.substring(baseLength), next.length, next.lastModified);
+                    writer.write(next.head, 0, next.headLength);
+                    if (next.remaining != null) {
+                        int read;
+                        while ((read = next.remaining.read(buffer)) != -1) {
+                            writer.write(buffer, 0, read);
+                        }
+                    }
+                    writer.closeEntry();
+                    entryCompleted = true;
+                    entries++;
+                } finally {
+                    // The rest of an entry that failed part way is not going to be read
+                    next.close(!entryCompleted);
+                }
+            }
+
+            writer.finish();
+            completed = true;
+            logger.info("Archived {} objects with prefix: {}", entries, prefix);
+
+        } finally {
+            if (!completed) {
+                logger.warn("Archive of prefix {} did not complete, cancelling {} prefetched objects", prefix, window.size());
+                // Queued fetches are dropped; running ones only read a bounded head, so wait for them and abort their streams
+                for (Future<PrefetchedObject> future : window) {
+                    if (executor.remove((Runnable) future)) {
+                        future.cancel(false);
+                    } else {
+                        abortPrefetched(future);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Open an object and read up to the prefetch buffer size of it.
+     * Objects that fit entirely are closed right away.
+     */
+    private PrefetchedObject prefetchObject(S3Object object) throws IOException {
+        ResponseInputStream<GetObjectResponse> stream = s3Service.downloadObjectStream(object.getKey());
+        long length = stream.response().contentLength() != null ? stream.response().contentLength() : object.getSize();
+        byte[] head = new byte[(int) Math.min(prefetchBufferSize, length)];
+        try {
+            int headLength = stream.readNBytes(head, 0, head.length);
+            if (headLength == length) {
+                stream.close();
+                stream = null;
+            }
+            return new PrefetchedObject(object.getKey(), length, object.getLastModified(), head, headLength, stream);
+        } catch (IOException | RuntimeException e) {
+            stream.abort();
+            stream.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Wait for a fetch that was already running and abort the stream it opened. The wait is not
+     * cut short by an interrupt, since the stream would leak; it is bounded by the head read.
+     */
+    private void abortPrefetched(Future<PrefetchedObject> future) {
+        boolean interrupted = false;
+        try {
+            while (true) {
+                try {
+                    future.get().close(true);
+                    return;
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                } catch (Exception e) {
+                    // The fetch itself failed, so there is nothing to release
+                    return;
+                }
+            }
+        } finally {
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private PrefetchedObject awaitObject(Future<PrefetchedObject> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while building archive", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            throw new S3ServiceException("Failed to archive object: " + cause.getMessage(), cause);
+        }
+    }
+
+    private ArchiveWriter openWriter(ArchiveFormat format, OutputStream outputStream) throws IOException {
+        switch (format) {
+            case TAR:
+                return new TarWriter(new TarArchiveOutputStream(outputStream), null);
+            case TAR_GZ:
+                GZIPOutputStream gzip = new GZIPOutputStream(outputStream, bufferSize);
+                return new TarWriter(new TarArchiveOutputStream(gzip), gzip);
+            default:
+                ZipOutputStream zip = new ZipOutputStream(outputStream);
+                zip.setLevel(zipLevel);
+                return new ZipWriter(zip);
+        }
+    }
+
+    /**
+     * Length of the part of each key that is not part of the archive entry name.
+     */
+    private static int baseLength(String prefix) {
+        String root = trimSlashes(prefix);
+        return root.contains("/") ? root.lastIndexOf('/') + 1 : 0;
+    }
+
+    private static String trimSlashes(String prefix) {
+        String root = prefix != null ? prefix : "";
+        while (root.endsWith("/")) {
+            root = root.substring(0, root.length() - 1);
+        }
+        return root;
+    }
+
+    /**
+     * An opened object: its first bytes, and the open stream for the rest when it did not fit.
+     */
+    private static class PrefetchedObject {
+        private final String key;
+        private final long length;
+        private final Instant lastModified;
+        private final byte[] head;
+        private final int headLength;
+        private final ResponseInputStream<GetObjectResponse> remaining;
+
+        PrefetchedObject(String key, long length, Instant lastModified, byte[] head, int headLength,
+                         ResponseInputStream<GetObjectResponse> remaining) {
+            this.key = key;
+            this.length = length;
+            this.lastModified = lastModified;
+            this.head = head;
+            this.headLength = headLength;
+            this.remaining = remaining;
+        }
+
+        void close(boolean abort) throws IOException {
+            if (remaining != null) {
+                if (abort) {
+                    remaining.abort();
+                }
+                remaining.close();
+            }
+        }
+    }
+
+    /**
+     * The entry operations shared by the ZIP and tar output streams.
+     */
+    private interface ArchiveWriter {
+        void putEntry(String name, long size, Instant lastModified) throws IOException;
+
+        void write(byte[] buffer, int offset, int length) throws IOException;
+
+        void closeEntry() throws IOException;
+
+        void finish() throws IOException;
+    }
+
+    /**
+     * ZIP entries use data descriptors, so sizes and CRCs are written after the content,
+     * and ZIP64 records are added automatically for large entries or archives.
+     */
+    private static class ZipWriter implements ArchiveWriter {
+        private final ZipOutputStream zip;
+
+        ZipWriter(ZipOutputStream zip) {
+            this.zip = zip;
+        }
+
+        @Override
+        public void putEntry(String name, long size, Instant lastModified) throws IOException {
+            ZipEntry entry = new ZipEntry(name);
+            entry.setMethod(size == 0 ? ZipEntry.STORED : ZipEntry.DEFLATED);
+            if (size == 0) {
+                entry.setSize(0);
+                entry.setCompressedSize(0);
+                entry.setCrc(0);
+            }
+            if (lastModified != null) {
+                entry.setLastModifiedTime(FileTime.from(lastModified));
+            }
+            zip.putNextEntry(entry);
+        }
+
+        @Override
+        public void write(byte[] buffer, int offset, int length) throws IOException {
+            zip.write(buffer, offset, length);
+        }
+
+        @Override
+        public void closeEntry() throws IOException {
+            zip.closeEntry();
+        }
+
+        @Override
+        public void finish() throws IOException {
+            zip.finish();
+            zip.flush();
+        }
+    }
+
+    private static class TarWriter implements ArchiveWriter {
+        private final TarArchiveOutputStream tar;
+        private final GZIPOutputStream gzip;
+
+        TarWriter(TarArchiveOutputStream tar, GZIPOutputStream gzip) {
+            this.tar = tar;
+            this.gzip = gzip;
+        }
+
+        @Override
+        public void putEntry(String name, long size, Instant lastModified) throws IOException {
+            tar.putEntry(name, size, lastModified);
+        }
+
+        @Override
+        public void write(byte[] buffer, int offset, int length) throws IOException {
+            tar.write(buffer, offset, length);
+        }
+
+        @Override
+        public void closeEntry() throws IOException {
+            tar.closeEntry();
+        }
+
+        @Override
+        public void finish() throws IOException {
+            tar.finish();
+            if (gzip != null) {
+                gzip.finish();
+                gzip.flush();
+            }
+        }
+    }
+}
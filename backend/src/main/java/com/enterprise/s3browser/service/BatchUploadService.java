@@ -0,0 +1,369 @@
+package com.enterprise.s3browser.service;
+
+import com.enterprise.s3browser.exception.S3ServiceException;
+import com.enterprise.s3browser.model.UploadResult;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.http.MediaTypeFactory;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+/**
+ * Service for uploading many files in one request, sent as an archive: a tar of small files
+ * from the browser, or a ZIP or tar(.gz) archive to be unpacked under a prefix.
+ * The archive is read sequentially while its files are stored concurrently: each file is
+ * buffered and handed to a bounded pool of PUT workers, and reading stops whenever the
+ * buffered files reach the memory budget. Files too large to buffer are streamed from the
+ * archive directly, through the multipart engine when large enough.
+ */
+@Service
+public class BatchUploadService {
+
+    private static final Logger logger = LoggerFactory.getLogger(BatchUploadService.class);
+
+    @Autowired
+    private S3Service s3Service;
+
+    @Autowired
+    private MultipartUploadService multipartUploadService;
+
+    @Value("${s3.upload.batch.concurrency:16}")
+    private int concurrency;
+
+    @Value("${s3.upload.batch.max-memory:67108864}")
+    private long maxMemory;
+
+    @Value("${s3.upload.batch.max-buffered-size:8388608}")
+    private long maxBufferedSize;
+
+    @Value("${s3.upload.batch.max-files:10000}")
+    private int maxFiles;
+
+    @Value("${s3.upload.archive.max-entries:100000}")
+    private int maxArchiveEntries;
+
+    private ExecutorService executor;
+    private Semaphore memoryPermits;
+    private int totalMemoryPermits;
+
+    @PostConstruct
+    public void initialize() {
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(concurrency, concurrency, 60L, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), new CustomizableThreadFactory("batch-upload-"));
+        pool.allowCoreThreadTimeOut(true);
+        this.executor = pool;
+        // Permits are counted in KiB so budgets beyond 2 GiB still fit in an int
+        this.totalMemoryPermits = (int) Math.max(1, Math.min(Integer.MAX_VALUE, maxMemory / 1024));
+        this.memoryPermits = new Semaphore(totalMemoryPermits);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Store every regular file of a tar archive as an object under the prefix, keyed by its path
+     * in the archive. Directories and links are skipped. Returns one result per file, in archive order.
+     */
+    public List<UploadResult> uploadTar(String prefix, InputStream inputStream) throws IOException {
+        return store(prefix, tarEntries(new TarArchiveInputStream(inputStream)), maxFiles, "Batch", result -> {});
+    }
+
+    /**
+     * Unpack a ZIP, tar or gzip-compressed tar archive under the prefix, detecting the format from
+     * its first bytes. The archive is read as it arrives; the listener is told about each entry as
+     * soon as it is stored, possibly from a worker thread. Returns one result per file, in archive order.
+     */
+    public List<UploadResult> expandArchive(String prefix, InputStream inputStream,
+                                            Consumer<UploadResult> listener) throws IOException {
+        BufferedInputStream in = new BufferedInputStream(inputStream);
+        in.mark(4);
+        byte[] magic = in.readNBytes(4);
+        in.reset();
+
+        ArchiveEntries entries;
+        if (magic.length >= 2 && magic[0] == 'P' && magic[1] == 'K') {
+            entries = zipEntries(new ZipInputStream(in));
+        } else if (magic.length >= 2 && (magic[0] & 0xff) == 0x1f && (magic[1] & 0xff) == 0x8b) {
+            entries = tarEntries(new TarArchiveInputStream(new GZIPInputStream(in)));
+        } else {
+            entries = tarEntries(new TarArchiveInputStream(in));
+        }
+        return store(prefix, entries, maxArchiveEntries, "Archive", listener);
+    }
+
+    private List<UploadResult> store(String prefix, ArchiveEntries entries, int maxEntries, String description,
+                                     Consumer<UploadResult> listener) throws IOException {
+        String keyPrefix = normalizePrefix(prefix);
+        List<CompletableFuture<UploadResult>> results = new ArrayList<>();
+        long start = System.nanoTime();
+
+        try {
+            while (entries.next()) {
+                if (results.size() >= maxEntries) {
+                    throw new IllegalArgumentException(description + " contains more than " + maxEntries + " files");
+                }
+                results.add(store(keyPrefix, entries, listener));
+            }
+        } catch (IOException | RuntimeException e) {
+            // Let the entries already handed to workers finish before the caller reports the failure
+            CompletableFuture.allOf(results.toArray(new CompletableFuture[0])).exceptionally(t -> null).join();
+            throw e;
+        }
+
+        List<UploadResult> uploaded = new ArrayList<>(results.size());
+        for (Future<UploadResult> result : results) {
+            uploaded.add(await(result));
+        }
+        logger.info("Uploaded {} of {} files under prefix {} in {} ms", description.toLowerCase(), uploaded.size(),
+                keyPrefix, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        return uploaded;
+    }
+
+    private CompletableFuture<UploadResult> store(String keyPrefix, ArchiveEntries entries,
+                                                  Consumer<UploadResult> listener) throws IOException {
+        String key = objectKey(keyPrefix, entries.name());
+        long size = entries.size();
+        InputStream content = entries.content();
+        if (key == null) {
+            return completed(UploadResult.failure(entries.name(), size, "Invalid file name"), listener);
+        }
+        String contentType = contentType(key);
+
+        if (size > maxBufferedSize) {
+            // Too large to hold in memory: stream it out of the archive on this thread
+            return completed(uploadStream(key, content, size, contentType), listener);
+        }
+
+        // Files of unknown size (streamed ZIP entries) reserve room for the largest buffered file
+        long reserve = size < 0 ? maxBufferedSize + 1 : size;
+        int permits = permits(reserve);
+        acquireMemory(permits);
+        byte[] buffered;
+        try {
+            buffered = content.readNBytes((int) reserve);
+        } catch (IOException e) {
+            memoryPermits.release(permits);
+            throw e;
+        }
+
+        if (buffered.length > maxBufferedSize) {
+            // Turned out too large to buffer: stream what was read followed by the rest of the entry
+            try {
+                // SequenceInputStream closes what it has exhausted, which must not end the whole archive
+                InputStream remainder = new FilterInputStream(content) {
+                    @Override
+                    public void close() {
+                    }
+                };
+                InputStream rest = new SequenceInputStream(new ByteArrayInputStream(buffered), remainder);
+                UploadResult result = uploadStream(key, rest, -1, contentType);
+                result.setSize(entries.size());
+                return completed(result, listener);
+            } finally {
+                memoryPermits.release(permits);
+            }
+        }
+
+        int used = permits(buffered.length);
+        memoryPermits.release(permits - used);
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return upload(key, buffered, contentType);
+            } finally {
+                memoryPermits.release(used);
+            }
+        }, executor).thenApply(result -> {
+            listener.accept(result);
+            return result;
+        });
+    }
+
+    private static CompletableFuture<UploadResult> completed(UploadResult result, Consumer<UploadResult> listener) {
+        listener.accept(result);
+        return CompletableFuture.completedFuture(result);
+    }
+
+    private UploadResult upload(String key, byte[] content, String contentType) {
+        try {
+            s3Service.uploadObject(key, new ByteArrayInputStream(content), content.length, contentType);
+            return UploadResult.success(key, content.length);
+        } catch (S3ServiceException e) {
+            return UploadResult.failure(key, content.length, e.getMessage());
+        }
+    }
+
+    private UploadResult uploadStream(String key, InputStream content, long size, String contentType) throws IOException {
+        try {
+            if (size < 0 && !multipartUploadService.shouldUseMultipart(size)) {
+                return UploadResult.failure(key, size, "File size unknown and multipart uploads are disabled");
+            }
+            if (multipartUploadService.shouldUseMultipart(size)) {
+                multipartUploadService.upload(key, content, size, contentType);
+            } else {
+                s3Service.uploadObject(key, content, size, contentType);
+            }
+            return UploadResult.success(key, size);
+        } catch (S3ServiceException e) {
+            return UploadResult.failure(key, size, e.getMessage());
+        }
+    }
+
+    private UploadResult await(Future<UploadResult> result) throws IOException {
+        try {
+            return result.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while uploading batch", e);
+        } catch (ExecutionException e) {
+            throw new S3ServiceException("Failed to upload files: " + e.getCause().getMessage(), e.getCause());
+        }
+    }
+
+    private int permits(long size) {
+        return (int) Math.max(1, Math.min((size + 1023) / 1024, totalMemoryPermits));
+    }
+
+    private void acquireMemory(int permits) throws IOException {
+        try {
+            memoryPermits.acquire(permits);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for upload memory", e);
+        }
+    }
+
+    private static ArchiveEntries tarEntries(TarArchiveInputStream tar) {
+        return new ArchiveEntries() {
+            private TarArchiveInputStream.Entry entry;
+
+            @Override
+            public boolean next() throws IOException {
+                while ((entry = tar.getNextEntry()) != null) {
+                    if (entry.isFile()) {
+                        return true;
+                    }
+                }
+                return false;
+            }
+
+            @Override
+            public String name() {
+                return entry.getName();
+            }
+
+            @Override
+            public long size() {
+                return entry.getSize();
+            }
+
+            @Override
+            public InputStream content() {
+                return tar;
+            }
+        };
+    }
+
+    private static ArchiveEntries zipEntries(ZipInputStream zip) {
+        return new ArchiveEntries() {
+            private ZipEntry entry;
+
+            @Override
+            public boolean next() throws IOException {
+                while ((entry = zip.getNextEntry()) != null) {
+                    if (!entry.isDirectory()) {
+                        return true;
+                    }
+                }
+                return false;
+            }
+
+            @Override
+            public String name() {
+                return entry.getName();
+            }
+
+            @Override
+            public long size() {
+                // Entries streamed without a size in their header learn it once their content is read
+                return entry.getSize();
+            }
+
+            @Override
+            public InputStream content() {
+                return zip;
+            }
+        };
+    }
+
+    static String normalizePrefix(String prefix) {
+        if (prefix == null || prefix.isEmpty()) {
+            return "";
+        }
+        return prefix.endsWith("/") ? prefix : prefix + "/";
+    }
+
+    /**
+     * Key for an archive path under the prefix, or null if the path is empty or climbs out of it.
+     */
+    static String objectKey(String prefix, String name) {
+        String path = name.replace('\\', '/');
+        while (path.startsWith("./") || path.startsWith("/")) {
+            path = path.substring(path.startsWith("./") ? 2 : 1);
+        }
+        if (path.isEmpty()) {
+            return null;
+        }
+        for (String segment : path.split("/")) {
+            if (segment.equals("..")) {
+                return null;
+            }
+        }
+        return prefix + path;
+    }
+
+    static String contentType(String key) {
+        return MediaTypeFactory.getMediaType(key).orElse(MediaType.APPLICATION_OCTET_STREAM).toString();
+    }
+
+    /**
+     * Sequential view of the regular files of an archive. The size is -1 when the archive does
+     * not record it ahead of the content; {@link #content()} reads the current file.
+     */
+    private interface ArchiveEntries {
+        boolean next() throws IOException;
+
+        String name();
+
+        long size();
+
+        InputStream content();
+    }
+}
@@ -0,0 +1,113 @@
+package com.enterprise.s3browser.service;
+
+import com.enterprise.s3browser.model.BlockSignature;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+
+/**
+ * Input stream computing the signatures of the whole fixed-size blocks of everything read through
+ * it, so an upload leaves the signatures of the new object behind without reading it back.
+ * A short final block is not signed.
+ */
+public class BlockSignatureInputStream extends FilterInputStream {
+
+    private final int blockSize;
+    private final MessageDigest sha256;
+    private final RollingChecksum weak = new RollingChecksum();
+    private final List<BlockSignature> blocks = new ArrayList<>();
+    private long offset;
+    private int blockFill;
+
+    public BlockSignatureInputStream(InputStream in, int blockSize) {
+        super(in);
+        this.blockSize = blockSize;
+        this.sha256 = newDigest();
+    }
+
+    @Override
+    public int read() throws IOException {
+        byte[] single = new byte[1];
+        int read = read(single, 0, 1);
+        return read > 0 ? single[0] & 0xff : -1;
+    }
+
+    @Override
+    public int read(byte[] buffer, int off, int length) throws IOException {
+        int read = in.read(buffer, off, length);
+        int position = off;
+        int remaining = read;
+        while (remaining > 0) {
+            int count = Math.min(remaining, blockSize - blockFill);
+            sha256.update(buffer, position, count);
+            weak.update(buffer, position, count);
+            blockFill += count;
+            position += count;
+            remaining -= count;
+            if (blockFill == blockSize) {
+                blocks.add(new BlockSignature(offset, blockSize, weak.getValue(), HexFormat.of().formatHex(sha256.digest())));
+                offset += blockSize;
+                blockFill = 0;
+                weak.reset();
+            }
+        }
+        return read;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        // Skipped bytes must still be signed
+        byte[] buffer = new byte[(int) Math.min(Math.max(n, 0), 8192)];
+        long skipped = 0;
+        while (skipped < n) {
+            int read = read(buffer, 0, (int) Math.min(buffer.length, n - skipped));
+            if (read < 0) {
+                break;
+            }
+            skipped += read;
+        }
+        return skipped;
+    }
+
+    @Override
+    public boolean markSupported() {
+        return false;
+    }
+
+    @Override
+    public synchronized void mark(int readlimit) {
+    }
+
+    @Override
+    public synchronized void reset() throws IOException {
+        throw new IOException("mark/reset not supported");
+    }
+
+    /**
+     * Number of bytes read so far.
+     */
+    public long getSize() {
+        return offset + blockFill;
+    }
+
+    /**
+     * Signatures of the whole blocks read so far.
+     */
+    public List<BlockSignature> getBlocks() {
+        return blocks;
+    }
+
+    static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
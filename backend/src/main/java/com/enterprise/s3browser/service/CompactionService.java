@@ -0,0 +1,835 @@
+package com.enterprise.s3browser.service;
+
+import com.enterprise.s3browser.exception.CompactionJobNotFoundException;
+import com.enterprise.s3browser.exception.ObjectNotModifiedException;
+import com.enterprise.s3browser.exception.PreconditionFailedException;
+import com.enterprise.s3browser.exception.RangeNotSatisfiableException;
+import com.enterprise.s3browser.exception.S3ServiceException;
+import com.enterprise.s3browser.model.ByteRange;
+import com.enterprise.s3browser.model.CompactedObject;
+import com.enterprise.s3browser.model.CompactionIndex;
+import com.enterprise.s3browser.model.CompactionJob;
+import com.enterprise.s3browser.model.CompactionStatus;
+import com.enterprise.s3browser.model.RequestConditions;
+import com.enterprise.s3browser.model.S3Configuration;
+import com.enterprise.s3browser.model.S3Object;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpRange;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+import software.amazon.awssdk.core.ResponseInputStream;
+import software.amazon.awssdk.http.AbortableInputStream;
+import software.amazon.awssdk.services.s3.model.CompletedPart;
+import software.amazon.awssdk.services.s3.model.GetObjectResponse;
+import software.amazon.awssdk.services.s3.model.S3Exception;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Service for compacting small objects. A compaction job lists a prefix and packs every object
+ * up to a size threshold into large container objects, written as multipart uploads: small
+ * objects are fetched concurrently and concatenated into uploaded parts, while objects large
+ * enough to be a part of their own are copied in on the server side. Once the containers are
+ * complete, an index object records where each packed object now lives and the originals are
+ * deleted. Compacted objects keep showing up in listings and are served with a single ranged
+ * GET of their container. An object stored again under a compacted key takes precedence.
+ */
+@Service
+public class CompactionService {
+
+    private static final Logger logger = LoggerFactory.getLogger(CompactionService.class);
+
+    // Containers and index objects of all jobs live under this prefix, which is never compacted itself
+    static final String COMPACTION_PREFIX = ".s3-browser/compaction/";
+    private static final String INDEX_SUFFIX = ".json";
+    private static final String CONTAINER_CONTENT_TYPE = "application/octet-stream";
+    private static final int MAX_FINISHED_JOBS = 100;
+
+    @Autowired
+    private S3Service s3Service;
+
+    @Value("${s3.compaction.enabled:false}")
+    private boolean enabled;
+
+    @Value("${s3.compaction.max-object-size:65536}")
+    private long maxObjectSize;
+
+    @Value("${s3.compaction.container-size:67108864}")
+    private long containerSize;
+
+    @Value("${s3.compaction.part-size:8388608}")
+    private int partSize;
+
+    @Value("${s3.compaction.concurrency:16}")
+    private int concurrency;
+
+    private Clock clock = Clock.systemUTC();
+
+    private final ObjectMapper objectMapper = JsonMapper.builder()
+            .addModule(new JavaTimeModule())
+            .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
+            .build();
+
+    // Jobs by id, oldest first; guarded by this
+    private final Map<String, CompactionJob> jobs = new LinkedHashMap<>();
+    // Compaction indexes by bucket, loaded from the bucket on first use
+    private final Map<String, BucketIndex> indexes = new ConcurrentHashMap<>();
+
+    private ExecutorService runner;
+    private ExecutorService workers;
+
+    @PostConstruct
+    public void initialize() {
+        if (!enabled) {
+            return;
+        }
+        partSize = (int) Math.max(partSize, MultipartUploadService.MIN_PART_SIZE);
+        // One job at a time; each one fetches and deletes objects on the worker pool
+        runner = new ThreadPoolExecutor(1, 1, 60L, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), new CustomizableThreadFactory("compaction-"));
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(concurrency, concurrency, 60L, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), new CustomizableThreadFactory("compaction-io-"));
+        pool.allowCoreThreadTimeOut(true);
+        workers = pool;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        synchronized (this) {
+            jobs.values().forEach(job -> job.setCancelRequested(true));
+        }
+        if (runner != null) {
+            runner.shutdownNow();
+        }
+        if (workers != null) {
+            workers.shutdownNow();
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Queue a compaction job for the objects under a prefix of the current bucket.
+     */
+    public synchronized CompactionJob start(String prefix) {
+        if (prefix != null && prefix.startsWith(COMPACTION_PREFIX)) {
+            throw new IllegalArgumentException("Compaction containers cannot be compacted: " + prefix);
+        }
+        CompactionJob job = new CompactionJob(UUID.randomUUID().toString(), currentBucket(),
+                prefix != null ? prefix : "", clock.instant());
+        jobs.put(job.getId(), job);
+        forgetFinishedJobs();
+        runner.execute(() -> run(job));
+        logger.info("Queued compaction job {} for prefix '{}'", job.getId(), job.getPrefix());
+        return job;
+    }
+
+    public synchronized CompactionJob getJob(String jobId) {
+        CompactionJob job = jobs.get(jobId);
+        if (job == null) {
+            throw new CompactionJobNotFoundException("Compaction job not found: " + jobId);
+        }
+        return job;
+    }
+
+    public synchronized List<CompactionJob> getJobs() {
+        return new ArrayList<>(jobs.values());
+    }
+
+    /**
+     * Ask a job to stop. A queued job never starts; a running one stops after the object it is
+     * packing, aborts its open container and still indexes the containers it completed.
+     */
+    public synchronized CompactionJob cancel(String jobId) {
+        CompactionJob job = getJob(jobId);
+        job.setCancelRequested(true);
+        if (job.getStatus() == CompactionStatus.QUEUED) {
+            job.setStatus(CompactionStatus.CANCELLED);
+            job.setFinishedAt(clock.instant());
+        }
+        return job;
+    }
+
+    /**
+     * Where a compacted object of the current bucket lives, or null if the key was not compacted.
+     */
+    public CompactedObject resolve(String key) {
+        // Containers and indexes are never compacted, and reading them must not load the index
+        if (!enabled || key.startsWith(COMPACTION_PREFIX)) {
+            return null;
+        }
+        return bucketIndex(currentBucket()).objects.get(key);
+    }
+
+    /**
+     * The metadata of a compacted object, evaluating conditional request validators against it
+     * as S3 would for the original, or null if the key was not compacted.
+     */
+    public S3Object getObjectMetadata(String key, RequestConditions conditions) {
+        CompactedObject compacted = resolve(key);
+        if (compacted == null) {
+            return null;
+        }
+        evaluateConditions(key, compacted, conditions);
+        return toObject(compacted);
+    }
+
+    /**
+     * Open a compacted object, or a single byte range of it, with one ranged GET of its container
+     * pinned to the container's ETag, or return null if the key was not compacted. The response
+     * describes the compacted object as S3 would have described the original.
+     */
+    public ResponseInputStream<GetObjectResponse> downloadObjectStream(String key, String range, RequestConditions conditions) {
+        CompactedObject compacted = resolve(key);
+        if (compacted == null) {
+            return null;
+        }
+        evaluateConditions(key, compacted, conditions);
+        long length = compacted.getLength();
+        HttpRange httpRange = parseRange(range);
+        GetObjectResponse.Builder response = GetObjectResponse.builder()
+                .eTag(compacted.getEtag())
+                .lastModified(compacted.getLastModified())
+                .contentType(compacted.getContentType());
+        if (httpRange == null && length == 0) {
+            return new ResponseInputStream<>(response.contentLength(0L).build(),
+                    AbortableInputStream.create(new ByteArrayInputStream(new byte[0])));
+        }
+        ByteRange bytes = new ByteRange(0, length - 1);
+        if (httpRange != null) {
+            if (length == 0 || httpRange.getRangeStart(length) >= length) {
+                throw new RangeNotSatisfiableException("Requested range " + range + " not satisfiable for object: " + key, length);
+            }
+            bytes = new ByteRange(httpRange.getRangeStart(length), httpRange.getRangeEnd(length));
+            response.contentRange(bytes.toContentRange(length));
+        }
+        response.contentLength(bytes.getLength());
+
+        RequestConditions containerConditions = new RequestConditions();
+        containerConditions.setIfMatch(compacted.getContainerEtag());
+        ResponseInputStream<GetObjectResponse> container = s3Service.downloadObjectStream(compacted.getContainer(),
+                compacted.containerRange(bytes.getStart(), bytes.getEnd()), containerConditions);
+        return new ResponseInputStream<>(response.build(), AbortableInputStream.create(container, container::abort));
+    }
+
+    /**
+     * The compacted objects under a prefix with keys after startAfter (all when null) in key order,
+     * or when not recursive as the objects and folders directly under the prefix. They are read
+     * from the index as the returned iterator advances.
+     */
+    public Iterator<S3Object> compactedObjects(String prefix, String startAfter, boolean recursive) {
+        if (!enabled) {
+            return Collections.emptyIterator();
+        }
+        String listPrefix = prefix != null ? prefix : "";
+        BucketIndex index = bucketIndex(currentBucket());
+        Function<String, Iterator<S3Object>> after = key -> index.under(listPrefix, key).stream()
+                .map(CompactionService::toObject)
+                .iterator();
+        return recursive ? after.apply(startAfter) : UnlistedObjects.delimited(listPrefix, startAfter, after);
+    }
+
+    /**
+     * Merge the compacted objects anywhere under a prefix into a recursive listing of it in key
+     * order, as returned by {@link S3Service#listAllObjects}. Listed objects win over compacted ones
+     * of the same key.
+     */
+    public Iterator<S3Object> withCompacted(String prefix, Iterator<S3Object> objects) {
+        BucketIndex index = bucketIndex(currentBucket());
+        return new MergedListing(objects, index.under(prefix != null ? prefix : "").iterator());
+    }
+
+    /**
+     * Drop a key from the compaction indexes of the current bucket, so that deleting it does not
+     * bring back its compacted content. The bytes stay in their container.
+     */
+    public void forget(String key) {
+        if (!enabled) {
+            return;
+        }
+        BucketIndex index = bucketIndex(currentBucket());
+        synchronized (index) {
+            if (index.objects.remove(key) == null) {
+                return;
+            }
+            for (CompactionIndex jobIndex : index.jobIndexes.values()) {
+                if (jobIndex.getObjects().removeIf(compacted -> compacted.getKey().equals(key))) {
+                    writeIndex(jobIndex);
+                }
+            }
+        }
+        logger.info("Removed compacted object {} from the compaction index", key);
+    }
+
+    void run(CompactionJob job) {
+        synchronized (this) {
+            if (job.getStatus() != CompactionStatus.QUEUED) {
+                return;
+            }
+            job.setStatus(CompactionStatus.RUNNING);
+            job.setStartedAt(clock.instant());
+        }
+        logger.info("Compacting objects under '{}' in bucket {} (job {})", job.getPrefix(), job.getBucket(), job.getId());
+
+        Packer packer = new Packer(job);
+        Exception failure = null;
+        try {
+            pack(job, packer);
+            if (job.isCancelRequested()) {
+                packer.abortContainer();
+            } else {
+                packer.finishContainer();
+            }
+        } catch (Exception e) {
+            failure = e;
+            packer.abortContainer();
+        }
+
+        // Whatever is in completed containers is indexed, even when the job stopped early
+        try {
+            if (!packer.packed.isEmpty()) {
+                CompactionIndex index = new CompactionIndex(job.getId(), job.getPrefix(), clock.instant(), packer.packed);
+                checkBucketSelected(job);
+                writeIndex(index);
+                if (!isBucketSelected(job)) {
+                    // Unclear which bucket the index went to, so every bucket reloads its indexes from S3
+                    indexes.clear();
+                    checkBucketSelected(job);
+                }
+                BucketIndex bucketIndex = indexes.get(job.getBucket());
+                if (bucketIndex != null) {
+                    bucketIndex.add(index);
+                }
+                checkBucketSelected(job);
+                deleteOriginals(job, packer.packed);
+            }
+        } catch (Exception e) {
+            if (failure == null) {
+                failure = e;
+            }
+        }
+
+        synchronized (this) {
+            job.setFinishedAt(clock.instant());
+            if (failure != null) {
+                job.setStatus(CompactionStatus.FAILED);
+                job.setError(failure.getMessage());
+            } else {
+                job.setStatus(job.isCancelRequested() ? CompactionStatus.CANCELLED : CompactionStatus.COMPLETED);
+            }
+        }
+        if (failure != null) {
+            logger.error("Compaction job {} failed after packing {} objects", job.getId(), job.getObjectsPacked(), failure);
+        } else {
+            logger.info("Compaction job {} {}: packed {} of {} objects ({} bytes) into {} containers",
+                    job.getId(), job.getStatus().name().toLowerCase(), job.getObjectsPacked(),
+                    job.getObjectsScanned(), job.getBytesPacked(), job.getContainers());
+        }
+    }
+
+    /**
+     * Feed every small object under the job's prefix to the packer in key order, fetching the
+     * contents of the next few concurrently.
+     */
+    private void pack(CompactionJob job, Packer packer) throws IOException, InterruptedException {
+        checkBucketSelected(job);
+        Iterator<S3Object> objects = s3Service.listAllObjects(job.getPrefix());
+        Deque<Candidate> window = new ArrayDeque<>();
+        try {
+            while (!job.isCancelRequested()) {
+                while (window.size() < concurrency && objects.hasNext()) {
+                    S3Object object = objects.next();
+                    job.setObjectsScanned(job.getObjectsScanned() + 1);
+                    if (object.getSize() > maxObjectSize || object.getKey().startsWith(COMPACTION_PREFIX)) {
+                        continue;
+                    }
+                    // Objects that may be copied as a part are only fetched if the packer cannot copy them
+                    window.add(new Candidate(object, object.getSize() >= MultipartUploadService.MIN_PART_SIZE
+                            ? null : workers.submit(() -> fetch(object))));
+                }
+                Candidate next = window.poll();
+                if (next == null) {
+                    break;
+                }
+                checkBucketSelected(job);
+                packer.add(next.object, next.content != null ? await(next.content) : null);
+            }
+        } finally {
+            window.forEach(candidate -> {
+                if (candidate.content != null) {
+                    candidate.content.cancel(true);
+                }
+            });
+        }
+    }
+
+    /**
+     * Read an object as it was listed, or return null if it has since changed or disappeared.
+     */
+    private Content fetch(S3Object object) throws IOException {
+        RequestConditions conditions = new RequestConditions();
+        conditions.setIfMatch(object.getEtag());
+        try (ResponseInputStream<GetObjectResponse> stream = s3Service.downloadObjectStream(object.getKey(), null, conditions)) {
+            return new Content(stream.readAllBytes(), stream.response().contentType());
+        } catch (PreconditionFailedException e) {
+            logger.debug("Skipping object {} changed since it was listed", object.getKey());
+            return null;
+        } catch (S3ServiceException e) {
+            if (isNotFound(e)) {
+                logger.debug("Skipping object {} deleted since it was listed", object.getKey());
+                return null;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * The metadata of an object if it is still the version with the given ETag, or null.
+     */
+    private S3Object currentVersion(String key, String etag) {
+        try {
+            S3Object current = s3Service.getObjectMetadata(key);
+            return etag.equals(current.getEtag()) ? current : null;
+        } catch (S3ServiceException e) {
+            if (isNotFound(e)) {
+                return null;
+            }
+            throw e;
+        }
+    }
+
+    private Content await(Future<Content> content) throws IOException, InterruptedException {
+        try {
+            return content.get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new S3ServiceException("Failed to read object: " + e.getCause().getMessage(), e.getCause());
+        }
+    }
+
+    /**
+     * Delete the packed originals that are still the version that was packed, concurrently.
+     * An original that fails to delete stays where it is and keeps taking precedence.
+     */
+    private void deleteOriginals(CompactionJob job, List<CompactedObject> packed) throws InterruptedException {
+        List<Future<Boolean>> deletions = new ArrayList<>(packed.size());
+        for (CompactedObject compacted : packed) {
+            deletions.add(workers.submit(() -> {
+                // S3 deletes are unconditional, so this only narrows the window for losing a new version
+                if (!isBucketSelected(job) || currentVersion(compacted.getKey(), compacted.getEtag()) == null) {
+                    return false;
+                }
+                s3Service.deleteObject(compacted.getKey());
+                return true;
+            }));
+        }
+        int deleted = 0;
+        for (Future<Boolean> deletion : deletions) {
+            try {
+                if (deletion.get()) {
+                    deleted++;
+                }
+            } catch (ExecutionException e) {
+                logger.warn("Failed to delete a compacted original of job {}: {}", job.getId(), e.getCause().getMessage());
+            }
+        }
+        logger.info("Deleted {} of {} compacted originals of job {}", deleted, packed.size(), job.getId());
+        checkBucketSelected(job);
+    }
+
+    private void writeIndex(CompactionIndex index) {
+        try {
+            byte[] json = objectMapper.writeValueAsBytes(index);
+            s3Service.uploadObject(indexKey(index.getJobId()), new ByteArrayInputStream(json), json.length, "application/json");
+        } catch (IOException e) {
+            throw new S3ServiceException("Failed to write compaction index: " + e.getMessage(), e);
+        }
+    }
+
+    private BucketIndex bucketIndex(String bucket) {
+        return indexes.computeIfAbsent(bucket, b -> loadIndexes());
+    }
+
+    /**
+     * Read the index objects of every job that compacted objects in the current bucket.
+     */
+    private BucketIndex loadIndexes() {
+        List<CompactionIndex> loaded = new ArrayList<>();
+        Iterator<S3Object> objects = s3Service.listAllObjects(COMPACTION_PREFIX);
+        while (objects.hasNext()) {
+            String key = objects.next().getKey();
+            if (!key.endsWith(INDEX_SUFFIX) || key.indexOf('/', COMPACTION_PREFIX.length()) >= 0) {
+                continue;
+            }
+            try (ResponseInputStream<GetObjectResponse> stream = s3Service.downloadObjectStream(key)) {
+                loaded.add(objectMapper.readValue(stream, CompactionIndex.class));
+            } catch (IOException e) {
+                logger.warn("Skipping unreadable compaction index {}: {}", key, e.getMessage());
+            }
+        }
+        // Later jobs win where one key was compacted more than once
+        loaded.sort(Comparator.comparing(CompactionIndex::getCreatedAt, Comparator.nullsFirst(Comparator.naturalOrder())));
+        BucketIndex index = new BucketIndex();
+        loaded.forEach(index::add);
+        logger.info("Loaded {} compaction indexes with {} objects", loaded.size(), index.objects.size());
+        return index;
+    }
+
+    private synchronized void forgetFinishedJobs() {
+        long finished = jobs.values().stream().filter(job -> job.getStatus().isFinished()).count();
+        Iterator<CompactionJob> iterator = jobs.values().iterator();
+        while (finished > MAX_FINISHED_JOBS && iterator.hasNext()) {
+            if (iterator.next().getStatus().isFinished()) {
+                iterator.remove();
+                finished--;
+            }
+        }
+    }
+
+    /**
+     * Evaluate conditional request validators against a compacted object, as S3 would for the original.
+     */
+    private void evaluateConditions(String key, CompactedObject compacted, RequestConditions conditions) {
+        if (conditions == null) {
+            return;
+        }
+        String etag = compacted.getEtag();
+        // HTTP dates have a resolution of one second
+        Instant lastModified = compacted.getLastModified() != null
+                ? compacted.getLastModified().truncatedTo(ChronoUnit.SECONDS) : null;
+        if (conditions.getIfMatch() != null && !matchesEtag(conditions.getIfMatch(), etag)) {
+            throw new PreconditionFailedException("Precondition failed for object: " + key);
+        }
+        if (conditions.getIfUnmodifiedSince() != null && lastModified != null
+                && lastModified.isAfter(conditions.getIfUnmodifiedSince())) {
+            throw new PreconditionFailedException("Precondition failed for object: " + key);
+        }
+        if (conditions.getIfNoneMatch() != null && matchesEtag(conditions.getIfNoneMatch(), etag)) {
+            throw new ObjectNotModifiedException("Object not modified: " + key, etag, compacted.getLastModified());
+        }
+        if (conditions.getIfModifiedSince() != null && lastModified != null
+                && !lastModified.isAfter(conditions.getIfModifiedSince())) {
+            throw new ObjectNotModifiedException("Object not modified: " + key, etag, compacted.getLastModified());
+        }
+    }
+
+    private static boolean matchesEtag(String header, String etag) {
+        for (String candidate : header.split(",")) {
+            String value = candidate.trim();
+            if (value.startsWith("W/")) {
+                value = value.substring(2);
+            }
+            if (value.equals("*") || value.equals(etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * The single byte range requested, or null for the whole object. Like S3, this ignores
+     * invalid ranges and answers several ranges with the whole object.
+     */
+    private static HttpRange parseRange(String range) {
+        if (range == null || range.isBlank()) {
+            return null;
+        }
+        try {
+            List<HttpRange> ranges = HttpRange.parseRanges(range);
+            return ranges.size() == 1 ? ranges.get(0) : null;
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private static S3Object toObject(CompactedObject compacted) {
+        S3Object object = new S3Object(compacted.getKey(), compacted.getEtag(), compacted.getLength(),
+                compacted.getLastModified(), null, false);
+        object.setContentType(compacted.getContentType());
+        return object;
+    }
+
+    private static String indexKey(String jobId) {
+        return COMPACTION_PREFIX + jobId + INDEX_SUFFIX;
+    }
+
+    private static boolean isNotFound(S3ServiceException e) {
+        return e.getCause() instanceof S3Exception && ((S3Exception) e.getCause()).statusCode() == 404;
+    }
+
+    /**
+     * Whether the job's bucket is still the selected one. S3 calls go to the selected bucket, so a
+     * job must stop rather than pack, index or delete the objects of another one.
+     */
+    private boolean isBucketSelected(CompactionJob job) {
+        return Objects.equals(job.getBucket(), currentBucket());
+    }
+
+    private void checkBucketSelected(CompactionJob job) {
+        if (!isBucketSelected(job)) {
+            throw new IllegalStateException("Bucket " + job.getBucket() + " is no longer selected");
+        }
+    }
+
+    private String currentBucket() {
+        S3Configuration config = s3Service.getCurrentConfig();
+        return config != null ? config.getBucket() : null;
+    }
+
+    /**
+     * Packs objects into one container at a time. Bytes are buffered into parts; an object large
+     * enough to be a part is copied server-side when the buffer can be flushed as a part first.
+     */
+    private class Packer {
+        private final CompactionJob job;
+        private final byte[] buffer = new byte[partSize];
+        private final List<CompletedPart> parts = new ArrayList<>();
+        private final List<CompactedObject> open = new ArrayList<>();
+        private final List<CompactedObject> packed = new ArrayList<>();
+        private String containerKey;
+        private String uploadId;
+        private long containerLength;
+        private int buffered;
+
+        Packer(CompactionJob job) {
+            this.job = job;
+        }
+
+        void add(S3Object object, Content content) throws IOException {
+            if (content == null && object.getSize() < MultipartUploadService.MIN_PART_SIZE) {
+                return;
+            }
+            if (uploadId == null) {
+                containerKey = COMPACTION_PREFIX + job.getId() + "/" + (job.getContainers() + 1) + ".pack";
+                uploadId = s3Service.createMultipartUpload(containerKey, CONTAINER_CONTENT_TYPE);
+            }
+
+            if (content == null && (buffered == 0 || buffered >= MultipartUploadService.MIN_PART_SIZE)) {
+                S3Object current = currentVersion(object.getKey(), object.getEtag());
+                if (current == null) {
+                    return;
+                }
+                flush();
+                parts.add(s3Service.uploadPartCopy(containerKey, uploadId, parts.size() + 1, object.getKey(),
+                        object.getEtag(), 0, object.getSize() - 1));
+                append(object, current.getContentType());
+            } else {
+                if (content == null) {
+                    content = fetch(object);
+                    if (content == null) {
+                        return;
+                    }
+                }
+                int written = 0;
+                while (written < content.bytes.length) {
+                    int count = Math.min(buffer.length - buffered, content.bytes.length - written);
+                    System.arraycopy(content.bytes, written, buffer, buffered, count);
+                    buffered += count;
+                    written += count;
+                    if (buffered == buffer.length) {
+                        flush();
+                    }
+                }
+                append(object, content.contentType);
+            }
+
+            // Leave room for a last buffered part and the next copy
+            if (containerLength >= containerSize || parts.size() >= MultipartUploadService.MAX_PARTS - 2) {
+                finishContainer();
+            }
+        }
+
+        private void append(S3Object object, String contentType) {
+            open.add(new CompactedObject(object.getKey(), object.getEtag(), object.getSize(),
+                    object.getLastModified(), contentType, containerKey, containerLength));
+            containerLength += object.getSize();
+            job.setObjectsPacked(job.getObjectsPacked() + 1);
+            job.setBytesPacked(job.getBytesPacked() + object.getSize());
+            job.setUpdatedAt(clock.instant());
+        }
+
+        private void flush() {
+            if (buffered > 0) {
+                parts.add(s3Service.uploadPart(containerKey, uploadId, parts.size() + 1, buffer, buffered));
+                buffered = 0;
+            }
+        }
+
+        void finishContainer() {
+            if (uploadId == null) {
+                return;
+            }
+            checkBucketSelected(job);
+            if (buffered > 0 || parts.isEmpty()) {
+                parts.add(s3Service.uploadPart(containerKey, uploadId, parts.size() + 1, buffer, buffered));
+                buffered = 0;
+            }
+            s3Service.completeMultipartUpload(containerKey, uploadId, parts);
+            String containerEtag = s3Service.getObjectMetadata(containerKey).getEtag();
+            open.forEach(compacted -> compacted.setContainerEtag(containerEtag));
+            packed.addAll(open);
+            job.setContainers(job.getContainers() + 1);
+            logger.debug("Completed compaction container {} with {} objects ({} bytes)", containerKey, open.size(), containerLength);
+            reset();
+        }
+
+        void abortContainer() {
+            if (uploadId == null) {
+                return;
+            }
+            try {
+                s3Service.abortMultipartUpload(containerKey, uploadId);
+            } catch (S3ServiceException e) {
+                logger.warn("Failed to abort compaction container upload {}: {}", uploadId, e.getMessage());
+            }
+            job.setObjectsPacked(job.getObjectsPacked() - open.size());
+            job.setBytesPacked(job.getBytesPacked() - containerLength);
+            reset();
+        }
+
+        private void reset() {
+            parts.clear();
+            open.clear();
+            containerKey = null;
+            uploadId = null;
+            containerLength = 0;
+            buffered = 0;
+        }
+    }
+
+    /**
+     * The compacted objects of one bucket, by key, and the job indexes they were read from.
+     */
+    private static class BucketIndex {
+        private final Map<String, CompactionIndex> jobIndexes = new ConcurrentHashMap<>();
+        private final ConcurrentSkipListMap<String, CompactedObject> objects = new ConcurrentSkipListMap<>();
+
+        synchronized void add(CompactionIndex index) {
+            jobIndexes.put(index.getJobId(), index);
+            index.getObjects().forEach(compacted -> objects.put(compacted.getKey(), compacted));
+        }
+
+        Collection<CompactedObject> under(String prefix) {
+            return under(prefix, null);
+        }
+
+        /**
+         * The compacted objects under a prefix with keys after startAfter, or all of them when null.
+         */
+        Collection<CompactedObject> under(String prefix, String startAfter) {
+            boolean fromPrefix = startAfter == null || startAfter.compareTo(prefix) < 0;
+            String start = fromPrefix ? prefix : startAfter;
+            if (prefix.isEmpty()) {
+                return (fromPrefix ? objects : objects.tailMap(start, false)).values();
+            }
+            String end = prefix + Character.MAX_VALUE;
+            if (start.compareTo(end) >= 0) {
+                return Collections.emptyList();
+            }
+            return objects.subMap(start, fromPrefix, end, false).values();
+        }
+    }
+
+    /**
+     * Merges two iterators of objects in key order, dropping compacted objects that were also listed.
+     */
+    private static class MergedListing implements Iterator<S3Object> {
+        private final Iterator<S3Object> listed;
+        private final Iterator<CompactedObject> compacted;
+        private S3Object nextListed;
+        private CompactedObject nextCompacted;
+
+        MergedListing(Iterator<S3Object> listed, Iterator<CompactedObject> compacted) {
+            this.listed = listed;
+            this.compacted = compacted;
+            this.nextListed = listed.hasNext() ? listed.next() : null;
+            this.nextCompacted = compacted.hasNext() ? compacted.next() : null;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return nextListed != null || nextCompacted != null;
+        }
+
+        @Override
+        public S3Object next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            int order = nextListed == null ? 1
+                    : nextCompacted == null ? -1 : nextListed.getKey().compareTo(nextCompacted.getKey());
+            if (order >= 0) {
+                CompactedObject object = nextCompacted;
+                nextCompacted = compacted.hasNext() ? compacted.next() : null;
+                if (order > 0) {
+                    return toObject(object);
+                }
+            }
+            S3Object object = nextListed;
+            nextListed = listed.hasNext() ? listed.next() : null;
+            return object;
+        }
+    }
+
+    private static class Candidate {
+        private final S3Object object;
+        private final Future<Content> content;
+
+        Candidate(S3Object object, Future<Content> content) {
+            this.object = object;
+            this.content = content;
+        }
+    }
+
+    private static class Content {
+        private final byte[] bytes;
+        private final String contentType;
+
+        Content(byte[] bytes, String contentType) {
+            this.bytes = bytes;
+            this.contentType = contentType;
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package com.enterprise.s3browser.service;
+
+import com.enterprise.s3browser.model.ContentHash;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.zip.CRC32C;
+
+/**
+ * Input stream computing the SHA-256 digest and CRC32C checksum of everything read through it.
+ * Both run on the JDK's CPU intrinsics where available (SHA extensions, SSE4.2/AVX-512 CRC),
+ * so hashing keeps up with the network while an upload streams through.
+ */
+public class ContentHashingInputStream extends FilterInputStream {
+
+    private final MessageDigest sha256;
+    private final CRC32C crc32c = new CRC32C();
+    private long size;
+
+    public ContentHashingInputStream(InputStream in) {
+        super(in);
+        try {
+            this.sha256 = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    @Override
+    public int read() throws IOException {
+        int b = in.read();
+        if (b >= 0) {
+            sha256.update((byte) b);
+            crc32c.update(b);
+            size++;
+        }
+        return b;
+    }
+
+    @Override
+    public int read(byte[] buffer, int offset, int length) throws IOException {
+        int read = in.read(buffer, offset, length);
+        if (read > 0) {
+            sha256.update(buffer, offset, read);
+            crc32c.update(buffer, offset, read);
+            size += read;
+        }
+        return read;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        // Skipped bytes must still be hashed
+        byte[] buffer = new byte[(int) Math.min(Math.max(n, 0), 8192)];
+        long skipped = 0;
+        while (skipped < n) {
+            int read = read(buffer, 0, (int) Math.min(buffer.length, n - skipped));
+            if (read < 0) {
+                break;
+            }
+            skipped += read;
+        }
+        return skipped;
+    }
+
+    @Override
+    public boolean markSupported() {
+        return false;
+    }
+
+    @Override
+    public synchronized void mark(int readlimit) {
+    }
+
+    @Override
+    public synchronized void reset() throws IOException {
+        throw new IOException("mark/reset not supported");
+    }
+
+    /**
+     * Number of bytes read so far.
+     */
+    public long getSize() {
+        return size;
+    }
+
+    /**
+     * Hash of everything read so far; call once, after the content has been read to the end.
+     */
+    public ContentHash getHash() {
+        return new ContentHash(HexFormat.of().formatHex(sha256.digest()),
+                String.format("%08x", crc32c.getValue()), size);
+    }
+
+    /**
+     * Read a stream to its end and return the hash of its content.
+     */
+    public static ContentHash hash(InputStream inputStream) throws IOException {
+        ContentHashingInputStream hashing = new ContentHashingInputStream(inputStream);
+        byte[] buffer = new byte[65536];
+        while (hashing.read(buffer, 0, buffer.length) >= 0) {
+            // Hashed as it is read
+        }
+        return hashing.getHash();
+    }
+}
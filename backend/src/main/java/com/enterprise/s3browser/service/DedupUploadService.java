@@ -0,0 +1,285 @@
+package com.enterprise.s3browser.service;
+
+import com.enterprise.s3browser.exception.S3ServiceException;
+import com.enterprise.s3browser.model.ContentHash;
+import com.enterprise.s3browser.model.DedupEntry;
+import com.enterprise.s3browser.model.S3Configuration;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.InputStreamSource;
+import org.springframework.stereotype.Service;
+import software.amazon.awssdk.services.s3.model.S3Exception;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.Clock;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+
+/**
+ * Service for content-deduplicated uploads. Uploaded content is fingerprinted with SHA-256 and
+ * CRC32C as it streams through, and a local index maps each fingerprint to an object holding it.
+ * When content is uploaded again, under any key, the new object is created by a server-side copy
+ * of the indexed one instead of sending the bytes again. Clients can also look a hash up before
+ * uploading and skip the transfer altogether. Index entries are checked against the source's
+ * ETag before use, so overwritten or deleted sources are never copied.
+ */
+@Service
+public class DedupUploadService {
+
+    private static final Logger logger = LoggerFactory.getLogger(DedupUploadService.class);
+
+    private static final Pattern SHA256 = Pattern.compile("[0-9a-f]{64}");
+    private static final String ENTRY_SUFFIX = ".json";
+
+    @Autowired
+    private S3Service s3Service;
+
+    @Autowired
+    private MultipartUploadService multipartUploadService;
+
+    @Value("${s3.upload.dedup.enabled:false}")
+    private boolean enabled;
+
+    @Value("${s3.upload.dedup.directory:${java.io.tmpdir}/s3-browser-cache}")
+    private String directory;
+
+    @Value("${s3.upload.dedup.min-size:1048576}")
+    private long minSize;
+
+    private Clock clock = Clock.systemUTC();
+
+    private final ObjectMapper objectMapper = JsonMapper.builder()
+            .addModule(new JavaTimeModule())
+            .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
+            .build();
+
+    // Entries by bucket and SHA-256
+    private final Map<String, DedupEntry> index = new ConcurrentHashMap<>();
+    private Path indexDirectory;
+
+    @PostConstruct
+    public void initialize() {
+        if (!enabled) {
+            return;
+        }
+        indexDirectory = Paths.get(directory, "dedup-index");
+        try {
+            Files.createDirectories(indexDirectory);
+            try (DirectoryStream<Path> files = Files.newDirectoryStream(indexDirectory, "*" + ENTRY_SUFFIX)) {
+                for (Path file : files) {
+                    loadEntry(file);
+                }
+            }
+        } catch (IOException e) {
+            logger.error("Failed to load deduplication index from {}", indexDirectory, e);
+        }
+        logger.info("Loaded {} deduplication index entries", index.size());
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Whether content of this length is worth deduplicating; below the minimum size, the lookup and
+     * copy cost more than sending the bytes.
+     */
+    public boolean shouldDeduplicate(long contentLength) {
+        return enabled && contentLength >= minSize;
+    }
+
+    /**
+     * Upload content that can be read twice, such as a spooled multipart file: it is hashed first,
+     * and stored by copying an existing object with the same content when there is one.
+     */
+    public void upload(String key, InputStreamSource source, long contentLength, String contentType) throws IOException {
+        if (!shouldDeduplicate(contentLength)) {
+            try (InputStream inputStream = source.getInputStream()) {
+                store(key, inputStream, contentLength, contentType);
+            }
+            return;
+        }
+
+        ContentHash hash;
+        try (InputStream inputStream = source.getInputStream()) {
+            hash = ContentHashingInputStream.hash(inputStream);
+        }
+        if (copyExisting(key, hash.getSha256(), hash.getSize(), contentType)) {
+            return;
+        }
+        String etag;
+        try (InputStream inputStream = source.getInputStream()) {
+            etag = store(key, inputStream, contentLength, contentType);
+        }
+        record(key, hash, etag);
+    }
+
+    /**
+     * Upload a stream that can only be read once. It is hashed on the way to S3, so the content is
+     * sent regardless, but indexed for later uploads of the same content.
+     */
+    public void upload(String key, InputStream inputStream, long contentLength, String contentType) throws IOException {
+        if (!enabled || (contentLength >= 0 && contentLength < minSize)) {
+            store(key, inputStream, contentLength, contentType);
+            return;
+        }
+        ContentHashingInputStream hashing = new ContentHashingInputStream(inputStream);
+        String etag = store(key, hashing, contentLength, contentType);
+        if (hashing.read() >= 0) {
+            // The upload stopped short of the end of the stream; its hash would be wrong
+            return;
+        }
+        ContentHash hash = hashing.getHash();
+        if (hash.getSize() >= minSize) {
+            record(key, hash, etag);
+        }
+    }
+
+    /**
+     * The object holding content with this hash and length, if one is indexed and still holds it.
+     */
+    public DedupEntry find(String sha256, long size) {
+        if (!enabled) {
+            return null;
+        }
+        String normalized = normalize(sha256);
+        String bucket = currentBucket();
+        DedupEntry entry = index.get(indexKey(bucket, normalized));
+        if (entry == null || entry.getSize() != size) {
+            return null;
+        }
+        try {
+            String etag = s3Service.getObjectMetadata(entry.getKey()).getEtag();
+            if (etag != null && etag.equals(entry.getEtag())) {
+                return entry;
+            }
+            logger.debug("Object {} no longer holds content {}", entry.getKey(), normalized);
+        } catch (S3ServiceException e) {
+            logger.debug("Indexed object {} is unavailable: {}", entry.getKey(), e.getMessage());
+        }
+        forget(entry);
+        return null;
+    }
+
+    /**
+     * Create the object by a server-side copy of an object holding the same content.
+     * Returns false, leaving nothing changed, when no such object is known. The copy is pinned
+     * to the indexed ETag, so a source overwritten since it was checked is never copied.
+     */
+    public boolean copyExisting(String key, String sha256, long size, String contentType) throws IOException {
+        DedupEntry entry = find(sha256, size);
+        if (entry == null) {
+            return false;
+        }
+        if (!entry.getKey().equals(key)) {
+            try {
+                multipartUploadService.copy(entry.getKey(), entry.getEtag(), key, size, contentType);
+            } catch (S3ServiceException e) {
+                if (!isPreconditionFailed(e)) {
+                    throw e;
+                }
+                logger.debug("Object {} changed before it was copied: {}", entry.getKey(), e.getMessage());
+                forget(entry);
+                return false;
+            }
+        }
+        logger.info("Stored object {} as a copy of {} with the same content ({} bytes not sent)", key, entry.getKey(), size);
+        return true;
+    }
+
+    private String store(String key, InputStream inputStream, long contentLength, String contentType) throws IOException {
+        if (multipartUploadService.shouldUseMultipart(contentLength)) {
+            return multipartUploadService.upload(key, inputStream, contentLength, contentType);
+        }
+        return s3Service.uploadObject(key, inputStream, contentLength, contentType);
+    }
+
+    /**
+     * Index the content under the ETag the upload returned; looking the object up again could
+     * already see a newer upload of the key.
+     */
+    private void record(String key, ContentHash hash, String etag) {
+        if (etag == null) {
+            return;
+        }
+        try {
+            String bucket = currentBucket();
+            DedupEntry entry = new DedupEntry(hash.getSha256(), hash.getCrc32c(), hash.getSize(), bucket, key, etag,
+                    clock.instant());
+            index.put(indexKey(bucket, hash.getSha256()), entry);
+            save(entry);
+        } catch (IOException e) {
+            // The upload itself succeeded; the content is just not available for deduplication
+            logger.warn("Failed to index content of object {}: {}", key, e.getMessage());
+        }
+    }
+
+    private void loadEntry(Path file) {
+        try {
+            DedupEntry entry = objectMapper.readValue(file.toFile(), DedupEntry.class);
+            index.put(indexKey(entry.getBucket(), entry.getSha256()), entry);
+        } catch (IOException e) {
+            logger.warn("Ignoring unreadable deduplication index entry {}: {}", file, e.getMessage());
+        }
+    }
+
+    /**
+     * Write the entry through a temporary file, so a crash never leaves a torn entry behind.
+     */
+    private void save(DedupEntry entry) throws IOException {
+        Path file = entryFile(entry);
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        objectMapper.writeValue(temp.toFile(), entry);
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private void forget(DedupEntry entry) {
+        index.remove(indexKey(entry.getBucket(), entry.getSha256()), entry);
+        try {
+            Files.deleteIfExists(entryFile(entry));
+        } catch (IOException e) {
+            logger.warn("Failed to delete deduplication index entry of {}: {}", entry.getKey(), e.getMessage());
+        }
+    }
+
+    private static boolean isPreconditionFailed(Exception e) {
+        return e.getCause() instanceof S3Exception && ((S3Exception) e.getCause()).statusCode() == 412;
+    }
+
+    private Path entryFile(DedupEntry entry) {
+        // Bucket names cannot contain an underscore
+        return indexDirectory.resolve(entry.getBucket() + "_" + entry.getSha256() + ENTRY_SUFFIX);
+    }
+
+    private static String indexKey(String bucket, String sha256) {
+        return bucket + "/" + sha256;
+    }
+
+    private static String normalize(String sha256) {
+        String normalized = sha256 != null ? sha256.toLowerCase(Locale.ROOT) : "";
+        if (!SHA256.matcher(normalized).matches()) {
+            throw new IllegalArgumentException("SHA-256 must be 64 hex digits");
+        }
+        return normalized;
+    }
+
+    private String currentBucket() {
+        S3Configuration config = s3Service.getCurrentConfig();
+        return config != null ? config.getBucket() : null;
+    }
+}
@@ -0,0 +1,519 @@
+package com.enterprise.s3browser.service;
+
+import com.enterprise.s3browser.exception.S3ServiceException;
+import com.enterprise.s3browser.model.BlockSignature;
+import com.enterprise.s3browser.model.ObjectSignatures;
+import com.enterprise.s3browser.model.RequestConditions;
+import com.enterprise.s3browser.model.S3Configuration;
+import com.enterprise.s3browser.model.S3Object;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+import software.amazon.awssdk.services.s3.model.CompletedPart;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.time.Clock;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Service for delta uploads of new versions of large objects. The current version is described by
+ * fixed-size block signatures, taken from a local cache keyed by ETag or computed with ranged
+ * reads. The new content is scanned with a rolling checksum, so unchanged blocks are found even
+ * when an edit shifts them; they become UploadPartCopy parts of a multipart upload, and only the
+ * bytes in between are sent. Bytes sent and saved are exposed as metrics.
+ */
+@Service
+public class DeltaUploadService {
+
+    private static final Logger logger = LoggerFactory.getLogger(DeltaUploadService.class);
+
+    static final int MIN_PART_SIZE = (int) MultipartUploadService.MIN_PART_SIZE;
+    private static final String SIGNATURES_SUFFIX = ".json";
+
+    @Autowired
+    private S3Service s3Service;
+
+    @Autowired
+    private MultipartUploadService multipartUploadService;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${s3.upload.delta.enabled:false}")
+    private boolean enabled;
+
+    @Value("${s3.upload.delta.directory:${java.io.tmpdir}/s3-browser-cache}")
+    private String directory;
+
+    @Value("${s3.upload.delta.block-size:8388608}")
+    private int blockSize;
+
+    @Value("${s3.upload.delta.min-size:67108864}")
+    private long minSize;
+
+    @Value("${s3.upload.delta.concurrency:8}")
+    private int concurrency;
+
+    @Value("${s3.upload.delta.max-memory:268435456}")
+    private long maxMemory;
+
+    @Value("${s3.upload.delta.part-retries:2}")
+    private int partRetries;
+
+    private Clock clock = Clock.systemUTC();
+
+    private final ObjectMapper objectMapper = JsonMapper.builder()
+            .addModule(new JavaTimeModule())
+            .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
+            .build();
+
+    private ExecutorService executor;
+    private Semaphore memoryPermits;
+    private int totalMemoryPermits;
+    private Path signaturesDirectory;
+    private Counter bytesSent;
+    private Counter bytesSaved;
+
+    @PostConstruct
+    public void initialize() {
+        blockSize = Math.max(blockSize, MIN_PART_SIZE);
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(concurrency, concurrency, 60L, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), new CustomizableThreadFactory("delta-upload-"));
+        pool.allowCoreThreadTimeOut(true);
+        this.executor = pool;
+        // Permits are counted in KiB; each upload holds a window and up to two blocks of unmatched content
+        this.totalMemoryPermits = (int) Math.max(3L * blockSize / 1024, Math.min(Integer.MAX_VALUE, maxMemory / 1024));
+        this.memoryPermits = new Semaphore(totalMemoryPermits);
+        this.bytesSent = meterRegistry.counter("s3browser.upload.delta.bytes.sent");
+        this.bytesSaved = meterRegistry.counter("s3browser.upload.delta.bytes.saved");
+
+        if (enabled) {
+            signaturesDirectory = Paths.get(directory, "delta-signatures");
+            try {
+                Files.createDirectories(signaturesDirectory);
+            } catch (IOException e) {
+                logger.error("Failed to create block signature directory {}", signaturesDirectory, e);
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Whether an upload of this length goes up as a delta against the current version; smaller
+     * uploads, and ones too large to split into blocks within the part limit, are sent whole.
+     */
+    public boolean shouldUseDelta(long contentLength) {
+        return enabled && contentLength >= minSize && contentLength / MIN_PART_SIZE < MultipartUploadService.MAX_PARTS;
+    }
+
+    /**
+     * Upload a new version of an object, copying the blocks it shares with the current version on
+     * the server side and sending only the rest. Objects that do not exist yet are uploaded whole.
+     * Either way, the signatures of the new version are kept for its next upload.
+     * Returns the number of bytes that did not have to be sent.
+     */
+    public long upload(String key, InputStream inputStream, long contentLength, String contentType) throws IOException {
+        ObjectSignatures base = signatures(key);
+        BlockSignatureInputStream signing = new BlockSignatureInputStream(inputStream, blockSize);
+        long saved = 0;
+        String etag;
+        if (base == null || base.getBlocks().isEmpty()) {
+            if (multipartUploadService.shouldUseMultipart(contentLength)) {
+                etag = multipartUploadService.upload(key, signing, contentLength, contentType);
+            } else {
+                etag = s3Service.uploadObject(key, signing, contentLength, contentType);
+            }
+        } else {
+            Delta delta = uploadDelta(key, signing, contentLength, contentType, base);
+            etag = delta.etag;
+            saved = delta.reused;
+        }
+
+        long size = signing.getSize();
+        bytesSent.increment(size - saved);
+        bytesSaved.increment(saved);
+        logger.info("Uploaded object {} ({} bytes, {} reused from the previous version)", key, size, saved);
+        remember(key, etag, size, signing.getBlocks());
+        return saved;
+    }
+
+    /**
+     * Signatures of the current version of an object, from the cache when they match its ETag or
+     * else computed from ranged reads of its blocks. Null when the object does not exist.
+     */
+    ObjectSignatures signatures(String key) throws IOException {
+        S3Object current;
+        try {
+            current = s3Service.getObjectMetadata(key);
+        } catch (S3ServiceException e) {
+            logger.debug("No current version of object {} to upload a delta against: {}", key, e.getMessage());
+            return null;
+        }
+        String bucket = currentBucket();
+        ObjectSignatures cached = load(bucket, key);
+        if (cached != null && cached.getBlockSize() == blockSize && cached.getEtag() != null
+                && cached.getEtag().equals(current.getEtag())) {
+            return cached;
+        }
+
+        long size = current.getSize();
+        int blockCount = (int) (size / blockSize);
+        RequestConditions conditions = new RequestConditions();
+        conditions.setIfMatch(current.getEtag());
+        List<Future<BlockSignature>> futures = new ArrayList<>(blockCount);
+        List<BlockSignature> blocks = new ArrayList<>(blockCount);
+        try {
+            for (int i = 0; i < blockCount; i++) {
+                long offset = (long) i * blockSize;
+                futures.add(executor.submit(() -> signBlock(key, offset, conditions)));
+            }
+            for (Future<BlockSignature> future : futures) {
+                blocks.add(await(key, future));
+            }
+        } finally {
+            futures.forEach(future -> future.cancel(true));
+        }
+
+        ObjectSignatures signatures = new ObjectSignatures(bucket, key, current.getEtag(), size, blockSize, blocks,
+                clock.instant());
+        save(signatures);
+        logger.info("Computed {} block signatures of object {}", blockCount, key);
+        return signatures;
+    }
+
+    private BlockSignature signBlock(String key, long offset, RequestConditions conditions) throws IOException {
+        String range = "bytes=" + offset + "-" + (offset + blockSize - 1);
+        MessageDigest sha256 = BlockSignatureInputStream.newDigest();
+        RollingChecksum weak = new RollingChecksum();
+        byte[] buffer = new byte[65536];
+        long length = 0;
+        try (InputStream in = s3Service.downloadObjectStream(key, range, conditions)) {
+            int read;
+            while ((read = in.read(buffer)) >= 0) {
+                sha256.update(buffer, 0, read);
+                weak.update(buffer, 0, read);
+                length += read;
+            }
+        }
+        if (length != blockSize) {
+            throw new IOException("Block at " + offset + " of object " + key + " has " + length + " bytes");
+        }
+        return new BlockSignature(offset, blockSize, weak.getValue(), HexFormat.of().formatHex(sha256.digest()));
+    }
+
+    /**
+     * Scan the new content with a rolling window of one block. Where the window matches a block of
+     * the current version, the bytes before it are sent as a part and the block is copied as the
+     * next one; runs without a match are sent a block at a time, always keeping a block of them
+     * back, so a match right after is not left with a part below the 5 MiB minimum. Matches that
+     * would leave such a part are passed over.
+     */
+    private Delta uploadDelta(String key, BlockSignatureInputStream in, long contentLength, String contentType,
+                             ObjectSignatures base) throws IOException {
+        Map<Integer, List<BlockSignature>> blocksByWeak = new HashMap<>();
+        boolean[] candidates = new boolean[1 << 16];
+        for (BlockSignature block : base.getBlocks()) {
+            blocksByWeak.computeIfAbsent(block.getWeak(), weak -> new ArrayList<>(1)).add(block);
+            candidates[filterIndex(block.getWeak())] = true;
+        }
+
+        int permits = permits(3L * blockSize);
+        acquireMemory(permits);
+        List<Future<CompletedPart>> parts = new ArrayList<>();
+        Deque<Future<CompletedPart>> copying = new ArrayDeque<>();
+        String uploadId = null;
+        boolean completed = false;
+        long reused = 0;
+
+        try {
+            byte[] data = new byte[3 * blockSize];
+            MessageDigest sha256 = BlockSignatureInputStream.newDigest();
+            RollingChecksum weak = new RollingChecksum();
+            uploadId = s3Service.createMultipartUpload(key, contentType);
+            // data[0, n - blockSize) is unmatched content, data[n - blockSize, n) the window,
+            // and data[n, filled) read but not yet rolled into the window
+            int n = 0;
+            int filled = 0;
+            boolean eof = false;
+
+            while (true) {
+                if (n == 0) {
+                    while (filled < blockSize && !eof) {
+                        int read = in.read(data, filled, data.length - filled);
+                        if (read < 0) {
+                            eof = true;
+                        } else {
+                            filled += read;
+                        }
+                    }
+                    if (filled < blockSize) {
+                        break;
+                    }
+                    n = blockSize;
+                    weak.reset();
+                    weak.update(data, 0, blockSize);
+                }
+
+                int literal = n - blockSize;
+                int value = weak.getValue();
+                BlockSignature match = (literal == 0 || literal >= MIN_PART_SIZE) && candidates[filterIndex(value)]
+                        ? match(blocksByWeak.get(value), data, literal, sha256) : null;
+                if (match != null) {
+                    if (literal > 0) {
+                        parts.add(sendPart(key, uploadId, parts.size() + 1, data, literal));
+                    }
+                    if (copying.size() >= concurrency) {
+                        await(key, copying.poll());
+                    }
+                    Future<CompletedPart> copy = copyPart(key, uploadId, parts.size() + 1, base, match);
+                    parts.add(copy);
+                    copying.add(copy);
+                    reused += match.getLength();
+                    System.arraycopy(data, n, data, 0, filled - n);
+                    filled -= n;
+                    n = 0;
+                    continue;
+                }
+
+                if (n == data.length) {
+                    // Two blocks of unmatched content: send the first and keep the rest
+                    parts.add(sendPart(key, uploadId, parts.size() + 1, data, blockSize));
+                    System.arraycopy(data, blockSize, data, 0, 2 * blockSize);
+                    n = 2 * blockSize;
+                    filled = n;
+                }
+                if (n == filled) {
+                    int read = eof ? -1 : in.read(data, filled, data.length - filled);
+                    if (read < 0) {
+                        eof = true;
+                        break;
+                    }
+                    filled += read;
+                }
+                weak.roll(data[n - blockSize], data[n]);
+                n++;
+            }
+
+            // Whatever is left goes up as the last part, which may be of any size
+            if (filled > 0 || parts.isEmpty()) {
+                parts.add(sendPart(key, uploadId, parts.size() + 1, data, filled));
+            }
+
+            if (contentLength >= 0 && in.getSize() != contentLength) {
+                throw new IOException("Upload of object " + key + " ended after " + in.getSize() + " of " + contentLength + " bytes");
+            }
+            List<CompletedPart> completedParts = new ArrayList<>(parts.size());
+            for (Future<CompletedPart> part : parts) {
+                completedParts.add(await(key, part));
+            }
+
+            String etag = s3Service.completeMultipartUpload(key, uploadId, completedParts);
+            completed = true;
+            logger.info("Uploaded object {} as a delta in {} parts, {} bytes copied from the previous version",
+                    key, completedParts.size(), reused);
+            return new Delta(etag, reused);
+
+        } finally {
+            if (!completed) {
+                parts.forEach(part -> part.cancel(true));
+                if (uploadId != null) {
+                    abort(key, uploadId);
+                }
+            }
+            memoryPermits.release(permits);
+        }
+    }
+
+    private BlockSignature match(List<BlockSignature> blocks, byte[] data, int offset, MessageDigest sha256) {
+        if (blocks == null) {
+            return null;
+        }
+        sha256.update(data, offset, blockSize);
+        String strong = HexFormat.of().formatHex(sha256.digest());
+        for (BlockSignature block : blocks) {
+            if (strong.equals(block.getStrong())) {
+                return block;
+            }
+        }
+        return null;
+    }
+
+    private Future<CompletedPart> sendPart(String key, String uploadId, int partNumber, byte[] data, int length) {
+        // Sent right away, as the buffer is reused for the content that follows
+        return CompletableFuture.completedFuture(withRetries(key, partNumber,
+                () -> s3Service.uploadPart(key, uploadId, partNumber, data, length)));
+    }
+
+    private Future<CompletedPart> copyPart(String key, String uploadId, int partNumber, ObjectSignatures base,
+                                           BlockSignature block) {
+        long lastByte = block.getOffset() + block.getLength() - 1;
+        return executor.submit(() -> withRetries(key, partNumber, () -> s3Service.uploadPartCopy(key, uploadId,
+                partNumber, base.getKey(), base.getEtag(), block.getOffset(), lastByte)));
+    }
+
+    private CompletedPart withRetries(String key, int partNumber, Supplier<CompletedPart> request) {
+        S3ServiceException lastFailure = null;
+        for (int attempt = 0; attempt <= partRetries && !Thread.currentThread().isInterrupted(); attempt++) {
+            try {
+                return request.get();
+            } catch (S3ServiceException e) {
+                lastFailure = e;
+                logger.warn("Failed to store part {} of object {} (attempt {}): {}", partNumber, key, attempt + 1, e.getMessage());
+            }
+        }
+        if (lastFailure == null) {
+            throw new S3ServiceException("Upload of part " + partNumber + " of object " + key + " was interrupted");
+        }
+        throw lastFailure;
+    }
+
+    /**
+     * Keep the signatures under the ETag the upload returned; looking the object up again could
+     * already see a newer upload of the key.
+     */
+    private void remember(String key, String etag, long size, List<BlockSignature> blocks) {
+        if (etag == null) {
+            return;
+        }
+        try {
+            save(new ObjectSignatures(currentBucket(), key, etag, size, blockSize, blocks, clock.instant()));
+        } catch (IOException e) {
+            // The upload itself succeeded; the next one just has to read the blocks back
+            logger.warn("Failed to keep block signatures of object {}: {}", key, e.getMessage());
+        }
+    }
+
+    private ObjectSignatures load(String bucket, String key) {
+        Path file = signaturesFile(bucket, key);
+        if (!Files.exists(file)) {
+            return null;
+        }
+        try {
+            ObjectSignatures signatures = objectMapper.readValue(file.toFile(), ObjectSignatures.class);
+            return key.equals(signatures.getKey()) && bucket.equals(signatures.getBucket()) ? signatures : null;
+        } catch (IOException e) {
+            logger.warn("Ignoring unreadable block signatures {}: {}", file, e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Write the signatures through a temporary file, so a crash never leaves torn signatures behind.
+     */
+    private void save(ObjectSignatures signatures) throws IOException {
+        Path file = signaturesFile(signatures.getBucket(), signatures.getKey());
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        objectMapper.writeValue(temp.toFile(), signatures);
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private Path signaturesFile(String bucket, String key) {
+        // Keys may contain anything, so files are named by a digest of the bucket and key
+        MessageDigest sha256 = BlockSignatureInputStream.newDigest();
+        byte[] digest = sha256.digest((bucket + "/" + key).getBytes(StandardCharsets.UTF_8));
+        return signaturesDirectory.resolve(HexFormat.of().formatHex(digest) + SIGNATURES_SUFFIX);
+    }
+
+    private void abort(String key, String uploadId) {
+        logger.warn("Delta upload {} of object {} did not complete, aborting", uploadId, key);
+        try {
+            s3Service.abortMultipartUpload(key, uploadId);
+        } catch (S3ServiceException e) {
+            logger.warn("Failed to abort multipart upload {} of object {}: {}", uploadId, key, e.getMessage());
+        }
+    }
+
+    private <T> T await(String key, Future<T> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while uploading object " + key, e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            throw new S3ServiceException("Failed to upload object: " + cause.getMessage(), cause);
+        }
+    }
+
+    private int permits(long size) {
+        return (int) Math.max(1, Math.min((size + 1023) / 1024, totalMemoryPermits));
+    }
+
+    private void acquireMemory(int permits) throws IOException {
+        try {
+            memoryPermits.acquire(permits);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for upload memory", e);
+        }
+    }
+
+    private static int filterIndex(int weak) {
+        return (weak ^ (weak >>> 16)) & 0xffff;
+    }
+
+    private String currentBucket() {
+        S3Configuration config = s3Service.getCurrentConfig();
+        return config != null ? config.getBucket() : null;
+    }
+
+    /**
+     * A stored delta upload: the ETag of the new version and the bytes copied from the previous one.
+     */
+    private static class Delta {
+        private final String etag;
+        private final long reused;
+
+        Delta(String etag, long reused) {
+            this.etag = etag;
+            this.reused = reused;
+        }
+    }
+}
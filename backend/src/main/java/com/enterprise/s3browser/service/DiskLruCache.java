@@ -0,0 +1,284 @@
+package com.enterprise.s3browser.service;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Size-bounded, least-recently-used cache of files in a local directory.
+ * Entries are written to a temporary file first and moved into place atomically,
+ * so readers never see partially written content.
+ * Readers that {@link #open} an entry keep reading its content after it is evicted or replaced.
+ */
+public class DiskLruCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(DiskLruCache.class);
+
+    private static final String TEMP_SUFFIX = ".tmp";
+
+    private final Path directory;
+    private final long maxBytes;
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long currentBytes;
+    private Consumer<String> removalListener;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    public DiskLruCache(Path directory, long maxBytes) throws IOException {
+        this.directory = directory;
+        this.maxBytes = maxBytes;
+        Files.createDirectories(directory);
+        loadExistingEntries();
+    }
+
+    /**
+     * Be told the id of every entry that is evicted or removed. Entries loaded from a previous
+     * run have no known id and are not reported.
+     */
+    public synchronized void setRemovalListener(Consumer<String> removalListener) {
+        this.removalListener = removalListener;
+    }
+
+    /**
+     * Look up an entry, returning its file or null on a miss.
+     */
+    public Path get(String id) {
+        String fileName = fileName(id);
+        synchronized (this) {
+            if (entries.get(fileName) != null) {
+                Path file = directory.resolve(fileName);
+                if (Files.exists(file)) {
+                    hits.incrementAndGet();
+                    return file;
+                }
+                dropEntry(fileName);
+            }
+        }
+        misses.incrementAndGet();
+        return null;
+    }
+
+    /**
+     * Look up an entry and open its file for reading, or return null on a miss. The file is
+     * opened while the entry is known to exist, so eviction or replacement cannot delete it
+     * out from under the caller; the open channel keeps reading the same content until closed.
+     */
+    public FileChannel open(String id) throws IOException {
+        String fileName = fileName(id);
+        synchronized (this) {
+            if (entries.get(fileName) != null) {
+                try {
+                    FileChannel channel = FileChannel.open(directory.resolve(fileName), StandardOpenOption.READ);
+                    hits.incrementAndGet();
+                    return channel;
+                } catch (NoSuchFileException e) {
+                    dropEntry(fileName);
+                }
+            }
+        }
+        misses.incrementAndGet();
+        return null;
+    }
+
+    /**
+     * Create a temporary file in the cache directory to be filled and then passed to {@link #put}.
+     */
+    public Path createTempFile() throws IOException {
+        return Files.createTempFile(directory, "fill-", TEMP_SUFFIX);
+    }
+
+    /**
+     * Move a filled temporary file into the cache under the given id, evicting
+     * least recently used entries to stay within the size budget.
+     * Returns the cached file, or null when the entry is larger than the whole cache.
+     */
+    public Path put(String id, Path tempFile) throws IOException {
+        long size = Files.size(tempFile);
+        if (size > maxBytes) {
+            Files.deleteIfExists(tempFile);
+            return null;
+        }
+
+        String fileName = fileName(id);
+        Path file = directory.resolve(fileName);
+        synchronized (this) {
+            Files.move(tempFile, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            Entry previous = entries.put(fileName, new Entry(id, size));
+            currentBytes += size - (previous != null ? previous.size : 0L);
+            evict();
+        }
+        return file;
+    }
+
+    /**
+     * Remove an entry if present.
+     */
+    public void remove(String id) {
+        String fileName = fileName(id);
+        synchronized (this) {
+            if (entries.containsKey(fileName)) {
+                dropEntry(fileName);
+                deleteQuietly(directory.resolve(fileName));
+            }
+        }
+    }
+
+    public synchronized long size() {
+        return currentBytes;
+    }
+
+    public synchronized int entryCount() {
+        return entries.size();
+    }
+
+    public long hitCount() {
+        return hits.get();
+    }
+
+    public long missCount() {
+        return misses.get();
+    }
+
+    public long evictionCount() {
+        return evictions.get();
+    }
+
+    public double hitRatio() {
+        long total = hits.get() + misses.get();
+        return total == 0 ? 0.0 : (double) hits.get() / total;
+    }
+
+    /**
+     * Publish size, hit, miss, eviction and hit ratio meters tagged with the cache name.
+     */
+    public void registerMetrics(MeterRegistry meterRegistry, String cacheName) {
+        Gauge.builder("s3browser.cache.size", this, DiskLruCache::size)
+                .tag("cache", cacheName).baseUnit("bytes").register(meterRegistry);
+        Gauge.builder("s3browser.cache.entries", this, DiskLruCache::entryCount)
+                .tag("cache", cacheName).register(meterRegistry);
+        Gauge.builder("s3browser.cache.hit.ratio", this, DiskLruCache::hitRatio)
+                .tag("cache", cacheName).register(meterRegistry);
+        FunctionCounter.builder("s3browser.cache.requests", this, DiskLruCache::hitCount)
+                .tag("cache", cacheName).tag("result", "hit").register(meterRegistry);
+        FunctionCounter.builder("s3browser.cache.requests", this, DiskLruCache::missCount)
+                .tag("cache", cacheName).tag("result", "miss").register(meterRegistry);
+        FunctionCounter.builder("s3browser.cache.evictions", this, DiskLruCache::evictionCount)
+                .tag("cache", cacheName).register(meterRegistry);
+    }
+
+    private void evict() {
+        Iterator<Map.Entry<String, Entry>> iterator = entries.entrySet().iterator();
+        while (currentBytes > maxBytes && iterator.hasNext()) {
+            Map.Entry<String, Entry> eldest = iterator.next();
+            iterator.remove();
+            currentBytes -= eldest.getValue().size;
+            evictions.incrementAndGet();
+            deleteQuietly(directory.resolve(eldest.getKey()));
+            notifyRemoved(eldest.getValue());
+        }
+    }
+
+    private void dropEntry(String fileName) {
+        Entry entry = entries.remove(fileName);
+        currentBytes -= entry.size;
+        notifyRemoved(entry);
+    }
+
+    private void notifyRemoved(Entry entry) {
+        if (removalListener != null && entry.id != null) {
+            removalListener.accept(entry.id);
+        }
+    }
+
+    /**
+     * Rebuild the index from files left by a previous run, oldest first, and drop unfinished fills.
+     */
+    private void loadExistingEntries() throws IOException {
+        List<Path> files;
+        try (Stream<Path> stream = Files.list(directory)) {
+            files = stream.filter(Files::isRegularFile).collect(Collectors.toList());
+        }
+
+        files.stream()
+                .filter(file -> file.getFileName().toString().endsWith(TEMP_SUFFIX))
+                .forEach(this::deleteQuietly);
+
+        files.stream()
+                .filter(file -> !file.getFileName().toString().endsWith(TEMP_SUFFIX))
+                .sorted(Comparator.comparing(this::lastModified))
+                .forEach(file -> {
+                    try {
+                        long size = Files.size(file);
+                        entries.put(file.getFileName().toString(), new Entry(null, size));
+                        currentBytes += size;
+                    } catch (IOException e) {
+                        deleteQuietly(file);
+                    }
+                });
+
+        evict();
+        logger.info("Disk cache at {} loaded with {} entries ({} bytes)", directory, entries.size(), currentBytes);
+    }
+
+    private FileTime lastModified(Path file) {
+        try {
+            return Files.getLastModifiedTime(file);
+        } catch (IOException e) {
+            return FileTime.fromMillis(0);
+        }
+    }
+
+    private void deleteQuietly(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            logger.warn("Failed to delete cache file {}: {}", file, e.getMessage());
+        }
+    }
+
+    private static class Entry {
+        // Null for entries loaded from a previous run, whose ids were hashed away
+        private final String id;
+        private final long size;
+
+        private Entry(String id, long size) {
+            this.id = id;
+            this.size = size;
+        }
+    }
+
+    private static String fileName(String id) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(id.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
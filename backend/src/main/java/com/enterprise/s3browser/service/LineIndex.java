@@ -0,0 +1,122 @@
+package com.enterprise.s3browser.service;
+
+import java.util.Arrays;
+
+/**
+ * Sparse line-offset index for one version of a text object.
+ * Only the byte offset of every {@code stride}-th line is kept, so the index stays small
+ * for arbitrarily large objects; any line is reached by seeking to the nearest checkpoint
+ * and scanning at most {@code stride} lines forward. The index is filled incrementally
+ * by a background scan and can be queried while it grows.
+ */
+public class LineIndex {
+
+    private final int stride;
+    private long[] checkpoints = new long[16];
+    private int checkpointCount = 1; // line 0 always starts at offset 0
+
+    private long linesScanned;
+    private long bytesScanned;
+    private boolean endsWithNewline = true;
+    private boolean complete;
+    private volatile boolean cancelled;
+
+    public LineIndex(int stride) {
+        this.stride = stride;
+    }
+
+    public int getStride() {
+        return stride;
+    }
+
+    /**
+     * Record scanned content starting at the current scan position.
+     */
+    public synchronized void scan(byte[] buffer, int offset, int length) {
+        for (int i = offset; i < offset + length; i++) {
+            if (buffer[i] == '\n') {
+                linesScanned++;
+                if (linesScanned % stride == 0) {
+                    addCheckpoint(bytesScanned + (i - offset) + 1);
+                }
+            }
+        }
+        if (length > 0) {
+            endsWithNewline = buffer[offset + length - 1] == '\n';
+        }
+        bytesScanned += length;
+    }
+
+    /**
+     * Mark the whole object as scanned.
+     */
+    public synchronized void markComplete() {
+        complete = true;
+    }
+
+    public synchronized boolean isComplete() {
+        return complete;
+    }
+
+    public void cancel() {
+        cancelled = true;
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    public synchronized long getBytesScanned() {
+        return bytesScanned;
+    }
+
+    /**
+     * Number of lines whose start offset is known, i.e. that can be reached through the index.
+     */
+    public synchronized long getIndexedLines() {
+        return linesScanned;
+    }
+
+    /**
+     * Total number of lines, counting a final line without a trailing newline; -1 while scanning.
+     */
+    public synchronized long getTotalLines() {
+        if (!complete) {
+            return -1;
+        }
+        return linesScanned + (bytesScanned > 0 && !endsWithNewline ? 1 : 0);
+    }
+
+    /**
+     * Closest indexed line at or before the requested one: {line, offset}.
+     */
+    public synchronized long[] checkpointFor(long line) {
+        int index = (int) Math.min(line / stride, checkpointCount - 1);
+        return new long[] { (long) index * stride, checkpoints[index] };
+    }
+
+    /**
+     * Closest indexed line starting at or before the byte offset: {line, offset}.
+     */
+    public synchronized long[] checkpointAtOffset(long offset) {
+        int index = Arrays.binarySearch(checkpoints, 0, checkpointCount, offset);
+        if (index < 0) {
+            index = -index - 2;
+        }
+        return new long[] { (long) index * stride, checkpoints[index] };
+    }
+
+    /**
+     * Approximate heap used by the checkpoints.
+     */
+    public synchronized long getMemoryBytes() {
+        return (long) checkpoints.length * Long.BYTES;
+    }
+
+    private void addCheckpoint(long offset) {
+        if (checkpointCount == checkpoints.length) {
+            checkpoints = Arrays.copyOf(checkpoints, checkpoints.length * 2);
+        }
+        checkpoints[checkpointCount++] = offset;
+    }
+}
@@ -0,0 +1,495 @@
+package com.enterprise.s3browser.service;
+
+import com.enterprise.s3browser.model.ObjectListing;
+import com.enterprise.s3browser.model.S3Configuration;
+import com.enterprise.s3browser.model.S3Object;
+import com.enterprise.s3browser.model.S3ObjectChangedEvent;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * In-memory cache of listing pages, keyed by endpoint, bucket, prefix and page position.
+ * Pages are fresh for the TTL; for the stale window after that they are still served while one
+ * background request refreshes them. Writes made through the S3 service drop every cached listing
+ * whose prefix the changed key starts with, i.e. the listings of its folder and of all parent
+ * folders. Least recently used pages are evicted beyond max-size, weighed by an estimate of
+ * their heap footprint.
+ * After serving a page, the listings of its first few folders are loaded into the cache in the
+ * background on a few low-priority threads, so that opening one of them is usually served from
+ * memory. How many folders are prefetched follows how many prefetched pages actually get used.
+ */
+@Service
+public class ListingCacheService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ListingCacheService.class);
+
+    // Rough heap footprint of a cached page and of each entry in it, on top of the key characters
+    private static final long PAGE_WEIGHT = 256;
+    private static final long OBJECT_WEIGHT = 160;
+
+    // Invalidations remembered for loads that were in flight when they happened
+    private static final int MAX_TRACKED_INVALIDATIONS = 1024;
+
+    // How far each used or unused prefetched page moves the prefetch hit rate towards 1 or 0
+    private static final double HIT_RATE_WEIGHT = 0.1;
+
+    @Autowired
+    private S3Service s3Service;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${s3.listing.cache.enabled:true}")
+    private boolean enabled;
+
+    @Value("${s3.listing.cache.ttl-seconds:5}")
+    private long ttlSeconds;
+
+    @Value("${s3.listing.cache.stale-seconds:60}")
+    private long staleSeconds;
+
+    @Value("${s3.listing.cache.max-size:67108864}")
+    private long maxSize;
+
+    @Value("${s3.listing.cache.refresh-threads:4}")
+    private int refreshThreads;
+
+    @Value("${s3.listing.prefetch.enabled:true}")
+    private boolean prefetchEnabled;
+
+    @Value("${s3.listing.prefetch.max-fan-out:8}")
+    private int maxFanOut;
+
+    @Value("${s3.listing.prefetch.threads:2}")
+    private int prefetchThreads;
+
+    @Value("${s3.listing.prefetch.queue-size:64}")
+    private int prefetchQueueSize;
+
+    Clock clock = Clock.systemUTC();
+
+    private ExecutorService refresher;
+    private ExecutorService prefetcher;
+
+    // Access-ordered, so iteration starts at the least recently used page
+    private final LinkedHashMap<String, CachedListing> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private final Deque<Invalidation> invalidations = new ArrayDeque<>();
+    private long version;
+    private long size;
+    private long hits;
+    private long staleHits;
+    private long misses;
+    private long evictions;
+
+    // Prefetched pages in load order, until their stale window has passed and they are judged used or not
+    private final Deque<CachedListing> prefetchedPages = new ArrayDeque<>();
+    private double prefetchHitRate = 1.0;
+    private long prefetchesUsed;
+    private long prefetchesUnused;
+
+    @PostConstruct
+    public void initialize() {
+        if (!enabled) {
+            return;
+        }
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(refreshThreads, refreshThreads, 60L, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), new CustomizableThreadFactory("listing-refresh-"));
+        pool.allowCoreThreadTimeOut(true);
+        this.refresher = pool;
+        if (prefetchEnabled) {
+            CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("folder-prefetch-");
+            // Speculative loads yield to the threads serving requests, and the oldest queued ones are dropped first
+            threadFactory.setThreadPriority(Thread.MIN_PRIORITY);
+            ThreadPoolExecutor prefetchPool = new ThreadPoolExecutor(prefetchThreads, prefetchThreads, 60L, TimeUnit.SECONDS,
+                    new ArrayBlockingQueue<>(prefetchQueueSize), threadFactory, new ThreadPoolExecutor.DiscardOldestPolicy());
+            prefetchPool.allowCoreThreadTimeOut(true);
+            this.prefetcher = prefetchPool;
+        }
+        registerMetrics();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (refresher != null) {
+            refresher.shutdownNow();
+        }
+        if (prefetcher != null) {
+            prefetcher.shutdownNow();
+        }
+    }
+
+    /**
+     * List one page of objects like {@link S3Service#listObjects(String, int, String, String)},
+     * from the cache when possible. Cached pages are shared, so their object lists are read-only.
+     */
+    public ObjectListing listObjects(String prefix, int pageSize, String continuationToken, String startAfter) {
+        S3Configuration config = s3Service.getCurrentConfig();
+        if (!enabled || config == null) {
+            return s3Service.listObjects(prefix, pageSize, continuationToken, startAfter);
+        }
+
+        PageKey key = new PageKey(scope(config.getEndpoint(), config.getBucket()), prefix != null ? prefix : "",
+                pageSize, continuationToken, startAfter);
+        CachedListing cached;
+        boolean refresh = false;
+        synchronized (this) {
+            cached = entries.get(key.id);
+            if (cached != null) {
+                Duration age = Duration.between(cached.loadedAt, clock.instant());
+                if (age.compareTo(Duration.ofSeconds(ttlSeconds)) < 0) {
+                    hits++;
+                } else if (age.compareTo(Duration.ofSeconds(ttlSeconds + staleSeconds)) < 0) {
+                    staleHits++;
+                    refresh = !cached.refreshing;
+                    cached.refreshing = true;
+                } else {
+                    cached = null;
+                }
+            }
+            if (cached == null) {
+                misses++;
+            } else if (cached.prefetched && !cached.used) {
+                cached.used = true;
+                judgePrefetch(true);
+            }
+        }
+
+        ObjectListing listing;
+        if (cached == null) {
+            listing = load(key, false);
+        } else {
+            if (refresh) {
+                refresher.execute(() -> refresh(key));
+            }
+            listing = cached.listing;
+        }
+        prefetchFolders(key, listing);
+        return listing;
+    }
+
+    /**
+     * Drop the cached listings a changed object shows up in.
+     */
+    @EventListener
+    public void onObjectChanged(S3ObjectChangedEvent event) {
+        if (!enabled) {
+            return;
+        }
+        String scope = scope(event.getEndpoint(), event.getBucket());
+        synchronized (this) {
+            version++;
+            invalidations.addLast(new Invalidation(version, scope, event.getKey()));
+            if (invalidations.size() > MAX_TRACKED_INVALIDATIONS) {
+                invalidations.removeFirst();
+            }
+            Iterator<CachedListing> iterator = entries.values().iterator();
+            while (iterator.hasNext()) {
+                CachedListing cached = iterator.next();
+                if (cached.key.scope.equals(scope) && event.getKey().startsWith(cached.key.prefix)) {
+                    iterator.remove();
+                    size -= cached.weight;
+                }
+            }
+        }
+        logger.debug("Invalidated cached listings for object: {}", event.getKey());
+    }
+
+    /**
+     * Queue loads of the first folders of a page that are not cached yet, as many as the
+     * current fan-out allows, with the page size of the listing that showed them.
+     */
+    private void prefetchFolders(PageKey parent, ObjectListing listing) {
+        if (prefetcher == null) {
+            return;
+        }
+        int remaining = fanOut();
+        for (S3Object object : listing.getObjects()) {
+            if (remaining == 0) {
+                break;
+            }
+            if (!object.isDirectory()) {
+                continue;
+            }
+            remaining--;
+            PageKey folder = new PageKey(parent.scope, object.getKey(), parent.pageSize, null, null);
+            if (!isFresh(folder)) {
+                prefetcher.execute(() -> prefetch(folder));
+            }
+        }
+    }
+
+    private void prefetch(PageKey key) {
+        // A request for the folder may have loaded it while this was queued, or another bucket been selected
+        if (isFresh(key) || !inScope(key)) {
+            return;
+        }
+        try {
+            load(key, true);
+        } catch (Exception e) {
+            logger.debug("Failed to prefetch listing of prefix {}: {}", key.prefix, e.getMessage());
+        }
+    }
+
+    private synchronized boolean isFresh(PageKey key) {
+        CachedListing cached = entries.get(key.id);
+        return cached != null && Duration.between(cached.loadedAt, clock.instant()).compareTo(Duration.ofSeconds(ttlSeconds)) < 0;
+    }
+
+    /**
+     * Number of folders to prefetch per page: the maximum scaled by the prefetch hit rate, but
+     * always at least one so that the hit rate can recover.
+     */
+    synchronized int fanOut() {
+        Instant judged = clock.instant().minusSeconds(ttlSeconds + staleSeconds);
+        while (!prefetchedPages.isEmpty() && !prefetchedPages.peekFirst().loadedAt.isAfter(judged)) {
+            CachedListing page = prefetchedPages.removeFirst();
+            if (!page.used) {
+                judgePrefetch(false);
+            }
+        }
+        return Math.max(1, (int) Math.round(maxFanOut * prefetchHitRate));
+    }
+
+    private void judgePrefetch(boolean used) {
+        prefetchHitRate += HIT_RATE_WEIGHT * ((used ? 1.0 : 0.0) - prefetchHitRate);
+        if (used) {
+            prefetchesUsed++;
+        } else {
+            prefetchesUnused++;
+        }
+    }
+
+    private ObjectListing load(PageKey key, boolean prefetched) {
+        long loadVersion;
+        synchronized (this) {
+            loadVersion = version;
+        }
+        ObjectListing listing = s3Service.listObjects(key.prefix.isEmpty() ? null : key.prefix, key.pageSize,
+                key.continuationToken, key.startAfter);
+        store(key, listing, loadVersion, prefetched);
+        return listing;
+    }
+
+    private void refresh(PageKey key) {
+        try {
+            // Listing goes to the selected bucket, which may no longer be the one of this page
+            if (inScope(key)) {
+                load(key, false);
+            }
+        } catch (Exception e) {
+            logger.warn("Failed to refresh cached listing of prefix {}: {}", key.prefix, e.getMessage());
+        } finally {
+            // Unless a new page replaced it, keep serving the stale one; the next request after the TTL tries again
+            synchronized (this) {
+                CachedListing cached = entries.get(key.id);
+                if (cached != null) {
+                    cached.refreshing = false;
+                }
+            }
+        }
+    }
+
+    private synchronized void store(PageKey key, ObjectListing listing, long loadVersion, boolean prefetched) {
+        if (invalidatedSince(loadVersion, key)) {
+            // The page may predate a write it should show; leave it to the next request
+            return;
+        }
+        if (!inScope(key)) {
+            // Another bucket was selected while the page was loading, so it may have been listed from that one
+            return;
+        }
+        ObjectListing shared = new ObjectListing(Collections.unmodifiableList(listing.getObjects()),
+                listing.getStartAfter(), listing.getLastKey(), listing.getNextContinuationToken());
+        CachedListing cached = new CachedListing(key, shared, clock.instant(), weigh(key, listing), prefetched);
+        if (cached.weight > maxSize) {
+            return;
+        }
+        CachedListing previous = entries.put(key.id, cached);
+        if (previous != null) {
+            size -= previous.weight;
+        }
+        size += cached.weight;
+        if (prefetched) {
+            prefetchedPages.addLast(cached);
+        }
+        evict();
+    }
+
+    private boolean invalidatedSince(long loadVersion, PageKey key) {
+        if (version == loadVersion) {
+            return false;
+        }
+        if (invalidations.isEmpty() || invalidations.peekFirst().version > loadVersion + 1) {
+            // Some of the invalidations since the load started are no longer tracked
+            return true;
+        }
+        for (Invalidation invalidation : invalidations) {
+            if (invalidation.version > loadVersion && invalidation.scope.equals(key.scope)
+                    && invalidation.key.startsWith(key.prefix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void evict() {
+        Iterator<CachedListing> iterator = entries.values().iterator();
+        while (size > maxSize && iterator.hasNext()) {
+            CachedListing eldest = iterator.next();
+            iterator.remove();
+            size -= eldest.weight;
+            evictions++;
+        }
+    }
+
+    /**
+     * Whether a page belongs to the endpoint and bucket the S3 service currently lists.
+     */
+    private boolean inScope(PageKey key) {
+        S3Configuration config = s3Service.getCurrentConfig();
+        return config != null && scope(config.getEndpoint(), config.getBucket()).equals(key.scope);
+    }
+
+    private static long weigh(PageKey key, ObjectListing listing) {
+        long weight = PAGE_WEIGHT + 2L * key.id.length();
+        for (S3Object object : listing.getObjects()) {
+            weight += OBJECT_WEIGHT + 2L * object.getKey().length();
+        }
+        return weight;
+    }
+
+    private static String scope(String endpoint, String bucket) {
+        return (endpoint != null ? endpoint : "") + "\n" + bucket;
+    }
+
+    private void registerMetrics() {
+        Gauge.builder("s3browser.cache.size", this, ListingCacheService::weight)
+                .tag("cache", "listings").baseUnit("bytes").register(meterRegistry);
+        Gauge.builder("s3browser.cache.entries", this, ListingCacheService::size)
+                .tag("cache", "listings").register(meterRegistry);
+        FunctionCounter.builder("s3browser.cache.requests", this, ListingCacheService::hitCount)
+                .tag("cache", "listings").tag("result", "hit").register(meterRegistry);
+        FunctionCounter.builder("s3browser.cache.requests", this, ListingCacheService::staleHitCount)
+                .tag("cache", "listings").tag("result", "stale").register(meterRegistry);
+        FunctionCounter.builder("s3browser.cache.requests", this, ListingCacheService::missCount)
+                .tag("cache", "listings").tag("result", "miss").register(meterRegistry);
+        FunctionCounter.builder("s3browser.cache.evictions", this, ListingCacheService::evictionCount)
+                .tag("cache", "listings").register(meterRegistry);
+        if (prefetchEnabled) {
+            Gauge.builder("s3browser.listing.prefetch.fanout", this, ListingCacheService::fanOut)
+                    .register(meterRegistry);
+            FunctionCounter.builder("s3browser.listing.prefetches", this, ListingCacheService::prefetchUsedCount)
+                    .tag("result", "used").register(meterRegistry);
+            FunctionCounter.builder("s3browser.listing.prefetches", this, ListingCacheService::prefetchUnusedCount)
+                    .tag("result", "unused").register(meterRegistry);
+        }
+    }
+
+    synchronized int size() {
+        return entries.size();
+    }
+
+    synchronized long weight() {
+        return size;
+    }
+
+    synchronized long hitCount() {
+        return hits;
+    }
+
+    synchronized long staleHitCount() {
+        return staleHits;
+    }
+
+    synchronized long missCount() {
+        return misses;
+    }
+
+    synchronized long evictionCount() {
+        return evictions;
+    }
+
+    synchronized long prefetchUsedCount() {
+        return prefetchesUsed;
+    }
+
+    synchronized long prefetchUnusedCount() {
+        return prefetchesUnused;
+    }
+
+    /**
+     * Identity of a listing page. The scope is the endpoint and bucket; the prefix is never null.
+     */
+    private static class PageKey {
+        private final String scope;
+        private final String prefix;
+        private final int pageSize;
+        private final String continuationToken;
+        private final String startAfter;
+        private final String id;
+
+        PageKey(String scope, String prefix, int pageSize, String continuationToken, String startAfter) {
+            this.scope = scope;
+            this.prefix = prefix;
+            this.pageSize = pageSize;
+            this.continuationToken = continuationToken;
+            this.startAfter = startAfter;
+            this.id = scope + "\n" + prefix + "\n" + pageSize + "\n"
+                    + (continuationToken != null ? continuationToken : "") + "\n" + (startAfter != null ? startAfter : "");
+        }
+    }
+
+    private static class CachedListing {
+        private final PageKey key;
+        private final ObjectListing listing;
+        private final Instant loadedAt;
+        private final long weight;
+        private final boolean prefetched;
+        private boolean refreshing;
+        private boolean used;
+
+        CachedListing(PageKey key, ObjectListing listing, Instant loadedAt, long weight, boolean prefetched) {
+            this.key = key;
+            this.listing = listing;
+            this.loadedAt = loadedAt;
+            this.weight = weight;
+            this.prefetched = prefetched;
+        }
+    }
+
+    private static class Invalidation {
+        private final long version;
+        private final String scope;
+        private final String key;
+
+        Invalidation(long version, String scope, String key) {
+            this.version = version;
+            this.scope = scope;
+            this.key = key;
+        }
+    }
+}
@@ -0,0 +1,152 @@
+package com.enterprise.s3browser.service;
+
+import com.enterprise.s3browser.exception.S3ServiceException;
+import com.enterprise.s3browser.model.S3Object;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Service for streaming the full listing of a prefix, however large, page by page.
+ * The next page is requested from S3 while the current one is being written, and only
+ * those two pages are ever held in memory. Pending write-behind uploads and compacted
+ * objects, which S3 does not list, are read in key order alongside the listing and merged
+ * in as it reaches their keys.
+ */
+@Service
+public class ListingStreamService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ListingStreamService.class);
+
+    @Autowired
+    private S3Service s3Service;
+
+    @Autowired
+    private WriteBehindUploadService writeBehindUploadService;
+
+    @Autowired
+    private CompactionService compactionService;
+
+    @Value("${s3.listing.stream.max-threads:16}")
+    private int maxThreads;
+
+    private ExecutorService executor;
+
+    @PostConstruct
+    public void initialize() {
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(maxThreads, maxThreads, 60L, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), new CustomizableThreadFactory("listing-prefetch-"));
+        pool.allowCoreThreadTimeOut(true);
+        this.executor = pool;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Hand every page of the listing to the writer, in key order, and return the number of
+     * entries written. Not recursive lists the objects and folders directly under the prefix.
+     */
+    public long streamListing(String prefix, boolean recursive, PageWriter writer) throws IOException {
+        Iterator<List<S3Object>> pages = s3Service.listObjectPages(prefix, recursive);
+        UnlistedObjects unlisted = new UnlistedObjects(
+                writeBehindUploadService.pendingObjects(prefix, null, recursive),
+                compactionService.compactedObjects(prefix, null, recursive));
+        // The page iterator is only ever advanced by one fetch at a time, each submitted after the previous one completed
+        Future<List<S3Object>> next = executor.submit(() -> nextPage(pages));
+        long entries = 0;
+        boolean completed = false;
+
+        try {
+            List<S3Object> page;
+            while ((page = awaitPage(next)) != null) {
+                next = executor.submit(() -> nextPage(pages));
+                // Later pages only hold keys after this one's, so anything unlisted up to here belongs in it
+                entries += write(unlisted.mergeWith(page, lastKey(page)), writer);
+            }
+            entries += write(unlisted.remaining(), writer);
+
+            completed = true;
+            logger.info("Streamed listing of {} entries with prefix: {}", entries, prefix);
+            return entries;
+
+        } finally {
+            if (!completed) {
+                logger.warn("Listing of prefix {} did not complete after {} entries", prefix, entries);
+                next.cancel(true);
+            }
+        }
+    }
+
+    /**
+     * Write the entries in pages of at most an S3 page each, so however many unlisted entries fall
+     * between two listed keys, only one page of them is held at a time.
+     */
+    private static long write(Iterator<S3Object> entries, PageWriter writer) throws IOException {
+        long written = 0;
+        while (entries.hasNext()) {
+            List<S3Object> page = new ArrayList<>();
+            while (entries.hasNext() && page.size() < S3Service.MAX_PAGE_SIZE) {
+                page.add(entries.next());
+            }
+            writer.write(page);
+            written += page.size();
+        }
+        return written;
+    }
+
+    private static String lastKey(List<S3Object> page) {
+        String last = "";
+        for (S3Object object : page) {
+            if (object.getKey().compareTo(last) > 0) {
+                last = object.getKey();
+            }
+        }
+        return last;
+    }
+
+    private static List<S3Object> nextPage(Iterator<List<S3Object>> pages) {
+        return pages.hasNext() ? pages.next() : null;
+    }
+
+    private static List<S3Object> awaitPage(Future<List<S3Object>> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while listing objects", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof S3ServiceException) {
+                throw (S3ServiceException) cause;
+            }
+            throw new S3ServiceException("Failed to list objects: " + cause.getMessage(), cause);
+        }
+    }
+
+    /**
+     * Receives the listing one page at a time.
+     */
+    @FunctionalInterface
+    public interface PageWriter {
+        void write(List<S3Object> page) throws IOException;
+    }
+}
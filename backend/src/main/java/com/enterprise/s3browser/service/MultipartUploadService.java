@@ -0,0 +1,397 @@
+package com.enterprise.s3browser.service;
+
+import com.enterprise.s3browser.exception.S3ServiceException;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+import software.amazon.awssdk.services.s3.model.CompletedPart;
+import software.amazon.awssdk.services.s3.model.S3Exception;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Service for uploading large objects as S3 multipart uploads.
+ * The source stream is read into reusable part buffers which are uploaded concurrently,
+ * so memory per upload is bounded by parallelism x part size, and the total across
+ * all uploads by the configured memory budget. A failed upload is aborted so S3 does
+ * not keep its parts.
+ */
+@Service
+public class MultipartUploadService {
+
+    private static final Logger logger = LoggerFactory.getLogger(MultipartUploadService.class);
+
+    /** S3 limits: at most 10000 parts, each but the last at least 5 MiB. */
+    static final int MAX_PARTS = 10000;
+    static final long MIN_PART_SIZE = 5L * 1024 * 1024;
+
+    /** S3 limit for a single CopyObject and for one part. */
+    static final long MAX_COPY_SIZE = 5L * 1024 * 1024 * 1024;
+
+    private static final long MIB = 1024 * 1024;
+    private static final double THROUGHPUT_SMOOTHING = 0.3;
+
+    @Autowired
+    private S3Service s3Service;
+
+    @Value("${s3.upload.multipart.enabled:true}")
+    private boolean enabled;
+
+    @Value("${s3.upload.multipart.threshold:67108864}")
+    private long threshold;
+
+    @Value("${s3.upload.multipart.min-part-size:8388608}")
+    private long minPartSize;
+
+    @Value("${s3.upload.multipart.max-part-size:134217728}")
+    private long maxPartSize;
+
+    @Value("${s3.upload.multipart.unknown-length-part-size:16777216}")
+    private long unknownLengthPartSize;
+
+    @Value("${s3.upload.multipart.target-part-seconds:2}")
+    private double targetPartSeconds;
+
+    @Value("${s3.upload.multipart.parallelism:4}")
+    private int parallelism;
+
+    @Value("${s3.upload.multipart.max-threads:32}")
+    private int maxThreads;
+
+    @Value("${s3.upload.multipart.max-memory:268435456}")
+    private long maxMemory;
+
+    @Value("${s3.upload.multipart.part-retries:2}")
+    private int partRetries;
+
+    @Value("${s3.upload.multipart.copy-part-size:536870912}")
+    private long copyPartSize;
+
+    private ExecutorService executor;
+    private Semaphore memoryPermits;
+    private int totalMemoryPermits;
+
+    // Smoothed bytes per second of a single part upload; 0 until the first part completes
+    private volatile double throughput;
+
+    @PostConstruct
+    public void initialize() {
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(maxThreads, maxThreads, 60L, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), new CustomizableThreadFactory("multipart-upload-"));
+        pool.allowCoreThreadTimeOut(true);
+        this.executor = pool;
+        // Permits are counted in KiB so budgets beyond 2 GiB still fit in an int
+        this.totalMemoryPermits = (int) Math.max(1, Math.min(Integer.MAX_VALUE, maxMemory / 1024));
+        this.memoryPermits = new Semaphore(totalMemoryPermits);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Check if an upload should go through the multipart engine: it is large or of unknown length.
+     */
+    public boolean shouldUseMultipart(long contentLength) {
+        return enabled && (contentLength < 0 || contentLength >= threshold);
+    }
+
+    /**
+     * Smoothed throughput of one part upload in bytes per second, or 0 before any part was measured.
+     */
+    public double getThroughput() {
+        return throughput;
+    }
+
+    /**
+     * Pick the part size for an upload of the given length (-1 if unknown).
+     * Parts are sized to take about target-part-seconds at the measured throughput, within the
+     * configured bounds, but always large enough to fit the object into the S3 part limit.
+     */
+    public long choosePartSize(long contentLength) {
+        long partSize = minPartSize;
+        double measured = throughput;
+        if (measured > 0) {
+            partSize = (long) (measured * targetPartSeconds);
+        }
+        partSize = Math.min(Math.max(partSize, Math.max(minPartSize, MIN_PART_SIZE)), maxPartSize);
+
+        if (contentLength < 0) {
+            partSize = Math.max(partSize, unknownLengthPartSize);
+        } else {
+            partSize = Math.max(partSize, (contentLength + MAX_PARTS - 1) / MAX_PARTS);
+            // No buffer bigger than the object itself
+            partSize = Math.min(partSize, Math.max(contentLength, MIN_PART_SIZE));
+        }
+
+        partSize = (partSize + MIB - 1) / MIB * MIB;
+        return Math.min(partSize, Integer.MAX_VALUE - 8);
+    }
+
+    /**
+     * Upload a stream of the given length (-1 if unknown) as an object and return its ETag.
+     * A stream that ends within the first part is uploaded with a single PUT instead.
+     */
+    public String upload(String key, InputStream inputStream, long contentLength, String contentType) throws IOException {
+        int partSize = (int) choosePartSize(contentLength);
+        int concurrency = Math.max(1, parallelism);
+        // A part larger than the whole budget may still run, alone
+        int permitsPerBuffer = Math.max(1, Math.min((partSize + 1023) / 1024, totalMemoryPermits));
+
+        Deque<byte[]> freeBuffers = new ArrayDeque<>();
+        Deque<Future<Part>> inFlight = new ArrayDeque<>();
+        List<CompletedPart> completedParts = new ArrayList<>();
+        int buffersAllocated = 0;
+        String uploadId = null;
+        boolean completed = false;
+
+        try {
+            // The first buffer may wait for memory; later ones are only taken if immediately available,
+            // so an upload that holds a buffer can always make progress by reusing it.
+            acquireMemory(permitsPerBuffer);
+            buffersAllocated++;
+            byte[] first = new byte[partSize];
+            int read = inputStream.readNBytes(first, 0, partSize);
+            if (read < partSize) {
+                String etag = s3Service.uploadObject(key, new ByteArrayInputStream(first, 0, read), read, contentType);
+                completed = true;
+                return etag;
+            }
+
+            uploadId = s3Service.createMultipartUpload(key, contentType);
+            logger.debug("Uploading object {} as multipart upload {}: part size {}, parallelism {}",
+                    key, uploadId, partSize, concurrency);
+
+            String id = uploadId;
+            int partNumber = 1;
+            inFlight.add(executor.submit(() -> uploadPart(key, id, 1, first, partSize)));
+            boolean endOfStream = false;
+
+            while (!endOfStream || !inFlight.isEmpty()) {
+                while (!endOfStream && inFlight.size() < concurrency) {
+                    if (freeBuffers.isEmpty()) {
+                        if (!memoryPermits.tryAcquire(permitsPerBuffer)) {
+                            break;
+                        }
+                        buffersAllocated++;
+                        freeBuffers.push(new byte[partSize]);
+                    }
+                    byte[] buffer = freeBuffers.pop();
+                    int length = inputStream.readNBytes(buffer, 0, partSize);
+                    if (length < partSize) {
+                        endOfStream = true;
+                    }
+                    if (length == 0) {
+                        freeBuffers.push(buffer);
+                        break;
+                    }
+                    if (++partNumber > MAX_PARTS) {
+                        throw new S3ServiceException("Object " + key + " does not fit into " + MAX_PARTS
+                                + " parts of " + partSize + " bytes");
+                    }
+                    int number = partNumber;
+                    inFlight.add(executor.submit(() -> uploadPart(key, id, number, buffer, length)));
+                }
+
+                if (!inFlight.isEmpty()) {
+                    Part part = await(key, inFlight.poll());
+                    completedParts.add(part.completedPart);
+                    freeBuffers.push(part.buffer);
+                }
+            }
+
+            String etag = s3Service.completeMultipartUpload(key, uploadId, completedParts);
+            completed = true;
+            return etag;
+
+        } finally {
+            if (!completed) {
+                inFlight.forEach(future -> future.cancel(true));
+                if (uploadId != null) {
+                    abort(key, uploadId);
+                }
+            }
+            memoryPermits.release(buffersAllocated * permitsPerBuffer);
+        }
+    }
+
+    /**
+     * Copy an object within the bucket on the server side, without its content passing through here.
+     * Objects beyond the 5 GiB CopyObject limit are copied as a multipart upload of concurrent
+     * UploadPartCopy ranges. A non-null ETag makes the copy fail if the source changes.
+     */
+    public void copy(String sourceKey, String sourceEtag, String key, long size, String contentType) throws IOException {
+        if (size <= MAX_COPY_SIZE) {
+            s3Service.copyObject(sourceKey, sourceEtag, key, contentType);
+            return;
+        }
+
+        String uploadId = s3Service.createMultipartUpload(key, contentType);
+        boolean completed = false;
+        try {
+            List<CompletedPart> parts = copyParts(sourceKey, sourceEtag, size, key, uploadId, 1);
+            s3Service.completeMultipartUpload(key, uploadId, parts);
+            completed = true;
+            logger.info("Copied object {} to {} in {} parts", sourceKey, key, parts.size());
+        } finally {
+            if (!completed) {
+                abort(key, uploadId);
+            }
+        }
+    }
+
+    /**
+     * Copy a whole object into consecutive parts of a multipart upload, starting at the given part
+     * number, with concurrent UploadPartCopy requests. Parts are of even size, so none falls below
+     * the part minimum unless the object does. A non-null ETag makes the copy fail if the source changes.
+     */
+    public List<CompletedPart> copyParts(String sourceKey, String sourceEtag, long size, String key, String uploadId,
+                                         int firstPartNumber) throws IOException {
+        long maxPartSize = Math.min(Math.max(copyPartSize, (size + MAX_PARTS - 1) / MAX_PARTS), MAX_COPY_SIZE);
+        int partCount = (int) Math.max(1, (size + maxPartSize - 1) / maxPartSize);
+        long partSize = (size + partCount - 1) / partCount;
+        int concurrency = Math.max(1, parallelism);
+        Deque<Future<CompletedPart>> inFlight = new ArrayDeque<>();
+        List<CompletedPart> completedParts = new ArrayList<>(partCount);
+        boolean completed = false;
+
+        try {
+            for (int i = 0; i < partCount; i++) {
+                if (inFlight.size() >= concurrency) {
+                    completedParts.add(await(key, inFlight.poll()));
+                }
+                int partNumber = firstPartNumber + i;
+                long firstByte = i * partSize;
+                long lastByte = Math.min(firstByte + partSize, size) - 1;
+                inFlight.add(executor.submit(() -> copyPart(key, uploadId, partNumber, sourceKey, sourceEtag, firstByte, lastByte)));
+            }
+            while (!inFlight.isEmpty()) {
+                completedParts.add(await(key, inFlight.poll()));
+            }
+            completed = true;
+            return completedParts;
+        } finally {
+            if (!completed) {
+                inFlight.forEach(future -> future.cancel(true));
+            }
+        }
+    }
+
+    private CompletedPart copyPart(String key, String uploadId, int partNumber, String sourceKey, String sourceEtag,
+                                   long firstByte, long lastByte) {
+        S3ServiceException lastFailure = null;
+        for (int attempt = 0; attempt <= partRetries && !Thread.currentThread().isInterrupted(); attempt++) {
+            try {
+                return s3Service.uploadPartCopy(key, uploadId, partNumber, sourceKey, sourceEtag, firstByte, lastByte);
+            } catch (S3ServiceException e) {
+                if (isPreconditionFailed(e)) {
+                    // The source changed; copying it again cannot succeed
+                    throw e;
+                }
+                lastFailure = e;
+                logger.warn("Failed to copy part {} of object {} (attempt {}): {}", partNumber, key, attempt + 1, e.getMessage());
+            }
+        }
+        if (lastFailure == null) {
+            throw new S3ServiceException("Copy of part " + partNumber + " of object " + key + " was interrupted");
+        }
+        throw lastFailure;
+    }
+
+    private static boolean isPreconditionFailed(Exception e) {
+        return e.getCause() instanceof S3Exception && ((S3Exception) e.getCause()).statusCode() == 412;
+    }
+
+    private Part uploadPart(String key, String uploadId, int partNumber, byte[] buffer, int length) {
+        S3ServiceException lastFailure = null;
+        for (int attempt = 0; attempt <= partRetries && !Thread.currentThread().isInterrupted(); attempt++) {
+            try {
+                long start = System.nanoTime();
+                CompletedPart completedPart = s3Service.uploadPart(key, uploadId, partNumber, buffer, length);
+                recordThroughput(length, System.nanoTime() - start);
+                return new Part(buffer, completedPart);
+            } catch (S3ServiceException e) {
+                lastFailure = e;
+                logger.warn("Failed to upload part {} of object {} (attempt {}): {}", partNumber, key, attempt + 1, e.getMessage());
+            }
+        }
+        if (lastFailure == null) {
+            throw new S3ServiceException("Upload of part " + partNumber + " of object " + key + " was interrupted");
+        }
+        throw lastFailure;
+    }
+
+    private void recordThroughput(long bytes, long elapsedNanos) {
+        if (bytes < MIB || elapsedNanos <= 0) {
+            return;
+        }
+        double sample = bytes * 1e9 / elapsedNanos;
+        double previous = throughput;
+        throughput = previous > 0 ? previous + THROUGHPUT_SMOOTHING * (sample - previous) : sample;
+    }
+
+    private void abort(String key, String uploadId) {
+        logger.warn("Multipart upload {} of object {} did not complete, aborting", uploadId, key);
+        try {
+            s3Service.abortMultipartUpload(key, uploadId);
+        } catch (S3ServiceException e) {
+            logger.warn("Failed to abort multipart upload {} of object {}: {}", uploadId, key, e.getMessage());
+        }
+    }
+
+    private <T> T await(String key, Future<T> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while uploading object " + key, e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new S3ServiceException("Failed to upload object: " + cause.getMessage(), cause);
+        }
+    }
+
+    private void acquireMemory(int permits) throws IOException {
+        try {
+            memoryPermits.acquire(permits);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for upload memory", e);
+        }
+    }
+
+    /**
+     * An uploaded part: the buffer it was sent from, free for reuse, and its ETag.
+     */
+    private static class Part {
+        private final byte[] buffer;
+        private final CompletedPart completedPart;
+
+        Part(byte[] buffer, CompletedPart completedPart) {
+            this.buffer = buffer;
+            this.completedPart = completedPart;
+        }
+    }
+}
@@ -0,0 +1,221 @@
+package com.enterprise.s3browser.service;
+
+import com.enterprise.s3browser.model.S3Configuration;
+import com.enterprise.s3browser.model.S3Object;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Read-through disk cache for object content.
+ * Entries are keyed by endpoint, bucket, key and ETag, so a changed object (new ETag
+ * from HeadObject) simply misses and its previous version is dropped when the new one lands.
+ */
+@Service
+public class ObjectCacheService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ObjectCacheService.class);
+
+    @Autowired
+    private S3Service s3Service;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${s3.cache.enabled:false}")
+    private boolean enabled;
+
+    @Value("${s3.cache.directory:${java.io.tmpdir}/s3-browser-cache}")
+    private String directory;
+
+    @Value("${s3.cache.max-size:10737418240}")
+    private long maxSize;
+
+    @Value("${s3.cache.max-entry-size:268435456}")
+    private long maxEntrySize;
+
+    private DiskLruCache cache;
+
+    // Latest cached version per object, so older versions can be dropped eagerly
+    private final Map<String, String> currentVersions = new ConcurrentHashMap<>();
+    private final Set<String> fillsInProgress = ConcurrentHashMap.newKeySet();
+
+    @PostConstruct
+    public void initialize() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            cache = new DiskLruCache(Paths.get(directory, "objects"), maxSize);
+            cache.registerMetrics(meterRegistry, "objects");
+            cache.setRemovalListener(this::forgetVersion);
+        } catch (IOException e) {
+            logger.error("Failed to initialize object cache in {}, caching disabled", directory, e);
+            enabled = false;
+        }
+    }
+
+    /**
+     * Check if the cache is enabled. Callers only need object metadata when it is.
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Check if an object may be cached: it needs an ETag and must fit the per-entry limit.
+     */
+    public boolean isCacheable(S3Object metadata) {
+        return enabled && metadata.getEtag() != null && !metadata.isDirectory() && metadata.getSize() <= maxEntrySize;
+    }
+
+    /**
+     * Open the cached content of the object version described by fresh HeadObject metadata.
+     * The caller owns the returned channel, which stays readable if the entry is evicted meanwhile.
+     */
+    public FileChannel lookup(S3Object metadata) {
+        if (!isCacheable(metadata)) {
+            return null;
+        }
+        try {
+            return cache.open(cacheId(metadata));
+        } catch (IOException e) {
+            logger.warn("Failed to open cached object {}: {}", metadata.getKey(), e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Start filling the cache with an object version while it is streamed elsewhere.
+     * Returns null when the object is not cacheable or another request is already filling it.
+     */
+    public CacheFill startFill(S3Object metadata) {
+        if (!isCacheable(metadata)) {
+            return null;
+        }
+        String cacheId = cacheId(metadata);
+        if (!fillsInProgress.add(cacheId)) {
+            return null;
+        }
+        try {
+            return new CacheFill(metadata, cacheId, cache.createTempFile());
+        } catch (IOException e) {
+            fillsInProgress.remove(cacheId);
+            logger.warn("Failed to start cache fill for object {}: {}", metadata.getKey(), e.getMessage());
+            return null;
+        }
+    }
+
+    private String cacheId(S3Object metadata) {
+        return objectId(metadata.getKey()) + "\n" + metadata.getEtag();
+    }
+
+    /**
+     * Drop the latest-version mapping of an object once that version leaves the cache.
+     */
+    private void forgetVersion(String cacheId) {
+        currentVersions.remove(cacheId.substring(0, cacheId.lastIndexOf('\n')), cacheId);
+    }
+
+    private String objectId(String key) {
+        S3Configuration config = s3Service.getCurrentConfig();
+        String endpoint = config != null ? config.getEndpoint() : "";
+        String bucket = config != null ? config.getBucket() : "";
+        return endpoint + "\n" + bucket + "\n" + key;
+    }
+
+    /**
+     * An in-progress cache entry. Content is appended as it streams past; the entry only becomes
+     * visible on {@link #commit()} with the expected length, and any failure simply discards it.
+     */
+    public class CacheFill implements Closeable {
+
+        private final S3Object metadata;
+        private final String cacheId;
+        private final Path tempFile;
+        private FileChannel channel;
+        private long written;
+        private boolean failed;
+        private boolean committed;
+
+        private CacheFill(S3Object metadata, String cacheId, Path tempFile) throws IOException {
+            this.metadata = metadata;
+            this.cacheId = cacheId;
+            this.tempFile = tempFile;
+            this.channel = FileChannel.open(tempFile, StandardOpenOption.WRITE);
+        }
+
+        /**
+         * Append content. Write errors abandon the fill without affecting the caller.
+         */
+        public void write(byte[] buffer, int offset, int length) {
+            if (failed) {
+                return;
+            }
+            try {
+                ByteBuffer source = ByteBuffer.wrap(buffer, offset, length);
+                while (source.hasRemaining()) {
+                    channel.write(source);
+                }
+                written += length;
+            } catch (IOException e) {
+                logger.warn("Failed to write cache fill for object {}: {}", metadata.getKey(), e.getMessage());
+                failed = true;
+            }
+        }
+
+        /**
+         * Publish the entry if the full object was written.
+         */
+        public void commit() {
+            if (failed || written != metadata.getSize()) {
+                return;
+            }
+            try {
+                channel.close();
+                if (cache.put(cacheId, tempFile) != null) {
+                    committed = true;
+                    String previous = currentVersions.put(objectId(metadata.getKey()), cacheId);
+                    if (previous != null && !previous.equals(cacheId)) {
+                        cache.remove(previous);
+                    }
+                    logger.debug("Cached object {} ({} bytes)", metadata.getKey(), written);
+                }
+            } catch (IOException e) {
+                logger.warn("Failed to commit cache fill for object {}: {}", metadata.getKey(), e.getMessage());
+            }
+        }
+
+        @Override
+        public void close() {
+            try {
+                if (channel.isOpen()) {
+                    channel.close();
+                }
+                if (!committed) {
+                    Files.deleteIfExists(tempFile);
+                }
+            } catch (IOException e) {
+                logger.warn("Failed to clean up cache fill for object {}: {}", metadata.getKey(), e.getMessage());
+            } finally {
+                fillsInProgress.remove(cacheId);
+            }
+        }
+    }
+}
@@ -0,0 +1,276 @@
+package com.enterprise.s3browser.service;
+
+import com.enterprise.s3browser.exception.S3ServiceException;
+import com.enterprise.s3browser.model.ByteRange;
+import com.enterprise.s3browser.model.RequestConditions;
+import com.enterprise.s3browser.model.S3Object;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.env.Environment;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+import software.amazon.awssdk.core.ResponseInputStream;
+import software.amazon.awssdk.services.s3.model.GetObjectResponse;
+import software.amazon.awssdk.services.s3.model.S3Exception;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Service for downloading large objects as several concurrent ranged GETs.
+ * Parts are fetched into reusable buffers and written to the output strictly in order,
+ * so memory per download is bounded by parallelism x part size, and the total across
+ * all downloads by the configured memory budget.
+ */
+@Service
+public class ParallelDownloadService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ParallelDownloadService.class);
+
+    private static final String BUCKET_PROPERTY_PREFIX = "s3.download.parallel.buckets.";
+
+    @Autowired
+    private S3Service s3Service;
+
+    @Autowired
+    private Environment environment;
+
+    @Value("${s3.download.parallel.enabled:true}")
+    private boolean enabled;
+
+    @Value("${s3.download.parallel.threshold:67108864}")
+    private long threshold;
+
+    @Value("${s3.download.parallel.part-size:8388608}")
+    private long defaultPartSize;
+
+    @Value("${s3.download.parallel.parallelism:4}")
+    private int defaultParallelism;
+
+    @Value("${s3.download.parallel.max-threads:32}")
+    private int maxThreads;
+
+    @Value("${s3.download.parallel.max-memory:268435456}")
+    private long maxMemory;
+
+    @Value("${s3.download.parallel.part-retries:2}")
+    private int partRetries;
+
+    private ExecutorService executor;
+    private Semaphore memoryPermits;
+    private int totalMemoryPermits;
+
+    @PostConstruct
+    public void initialize() {
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(maxThreads, maxThreads, 60L, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), new CustomizableThreadFactory("parallel-download-"));
+        pool.allowCoreThreadTimeOut(true);
+        this.executor = pool;
+        // Permits are counted in KiB so budgets beyond 2 GiB still fit in an int
+        this.totalMemoryPermits = (int) Math.max(1, Math.min(Integer.MAX_VALUE, maxMemory / 1024));
+        this.memoryPermits = new Semaphore(totalMemoryPermits);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Check if parallel downloads are enabled at all. Callers only need object metadata when they are.
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Check if an object is large enough to be worth downloading in parallel.
+     */
+    public boolean shouldDownloadInParallel(S3Object metadata) {
+        return enabled && metadata.getSize() >= threshold
+                && metadata.getSize() > getPartSize(currentBucket());
+    }
+
+    /**
+     * Part size for a bucket, from s3.download.parallel.buckets.&lt;bucket&gt;.part-size or the default.
+     */
+    public long getPartSize(String bucket) {
+        long partSize = environment.getProperty(BUCKET_PROPERTY_PREFIX + bucket + ".part-size", Long.class, defaultPartSize);
+        return Math.max(1, Math.min(partSize, Integer.MAX_VALUE - 8));
+    }
+
+    /**
+     * Parallelism for a bucket, from s3.download.parallel.buckets.&lt;bucket&gt;.parallelism or the default.
+     */
+    public int getParallelism(String bucket) {
+        int parallelism = environment.getProperty(BUCKET_PROPERTY_PREFIX + bucket + ".parallelism", Integer.class, defaultParallelism);
+        return Math.max(1, parallelism);
+    }
+
+    /**
+     * Download a whole object to the output stream using concurrent ranged GETs.
+     * Every part is pinned to the metadata ETag so the parts come from one object version.
+     * When a cache fill is given the content is also written to it, and committed only on completion;
+     * the fill is closed either way.
+     */
+    public void download(String key, S3Object metadata, OutputStream outputStream,
+                         ObjectCacheService.CacheFill cacheFill) throws IOException {
+        String bucket = currentBucket();
+        long objectLength = metadata.getSize();
+        int partSize = (int) getPartSize(bucket);
+        int parallelism = getParallelism(bucket);
+        // A part larger than the whole budget may still run, alone
+        int permitsPerBuffer = Math.max(1, Math.min((partSize + 1023) / 1024, totalMemoryPermits));
+
+        RequestConditions conditions = new RequestConditions();
+        conditions.setIfMatch(metadata.getEtag());
+
+        Deque<byte[]> freeBuffers = new ArrayDeque<>();
+        Deque<Future<Part>> inFlight = new ArrayDeque<>();
+        int buffersAllocated = 0;
+        long nextOffset = 0;
+        boolean completed = false;
+
+        logger.debug("Downloading object {} ({} bytes) in parallel: part size {}, parallelism {}",
+                key, objectLength, partSize, parallelism);
+
+        try {
+            // The first buffer may wait for memory; later ones are only taken if immediately available,
+            // so a download that holds a buffer can always make progress by reusing it.
+            acquireMemory(permitsPerBuffer);
+            buffersAllocated++;
+            freeBuffers.push(new byte[partSize]);
+
+            while (nextOffset < objectLength || !inFlight.isEmpty()) {
+                while (nextOffset < objectLength && inFlight.size() < parallelism) {
+                    if (freeBuffers.isEmpty()) {
+                        if (!memoryPermits.tryAcquire(permitsPerBuffer)) {
+                            break;
+                        }
+                        buffersAllocated++;
+                        freeBuffers.push(new byte[partSize]);
+                    }
+                    ByteRange range = new ByteRange(nextOffset, Math.min(nextOffset + partSize, objectLength) - 1);
+                    byte[] buffer = freeBuffers.pop();
+                    inFlight.add(executor.submit(() -> fetchPart(key, range, conditions, buffer)));
+                    nextOffset = range.getEnd() + 1;
+                }
+
+                Part part = awaitPart(key, inFlight.poll());
+                outputStream.write(part.buffer, 0, part.length);
+                if (cacheFill != null) {
+                    cacheFill.write(part.buffer, 0, part.length);
+                }
+                freeBuffers.push(part.buffer);
+            }
+
+            outputStream.flush();
+            completed = true;
+            if (cacheFill != null) {
+                cacheFill.commit();
+            }
+
+        } finally {
+            if (!completed) {
+                logger.warn("Parallel download of object {} did not complete, cancelling {} in-flight parts", key, inFlight.size());
+                inFlight.forEach(future -> future.cancel(true));
+            }
+            memoryPermits.release(buffersAllocated * permitsPerBuffer);
+            if (cacheFill != null) {
+                cacheFill.close();
+            }
+        }
+    }
+
+    /**
+     * Fetch one part, retrying failed reads and S3 errors. A 412 (the object changed) or 404 (it was
+     * deleted) will not go away by retrying, so those fail the download right away.
+     */
+    private Part fetchPart(String key, ByteRange range, RequestConditions conditions, byte[] buffer) throws IOException {
+        Exception lastFailure = null;
+        for (int attempt = 0; attempt <= partRetries && !Thread.currentThread().isInterrupted(); attempt++) {
+            try (ResponseInputStream<GetObjectResponse> stream =
+                         s3Service.downloadObjectStream(key, range.toRangeHeader(), conditions)) {
+                int read = stream.readNBytes(buffer, 0, (int) range.getLength());
+                if (read != range.getLength()) {
+                    throw new IOException("Short read for range " + range + " of object " + key + ": " + read + " bytes");
+                }
+                return new Part(buffer, read);
+            } catch (IOException | S3ServiceException e) {
+                if (isNotFound(e)) {
+                    throw e;
+                }
+                lastFailure = e;
+                logger.warn("Failed to fetch range {} of object {} (attempt {}): {}", range, key, attempt + 1, e.getMessage());
+            }
+        }
+        if (lastFailure == null) {
+            throw new IOException("Interrupted while downloading object " + key);
+        }
+        if (lastFailure instanceof IOException) {
+            throw (IOException) lastFailure;
+        }
+        throw (S3ServiceException) lastFailure;
+    }
+
+    private static boolean isNotFound(Exception e) {
+        return e.getCause() instanceof S3Exception && ((S3Exception) e.getCause()).statusCode() == 404;
+    }
+
+    private Part awaitPart(String key, Future<Part> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while downloading object " + key, e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            throw new S3ServiceException("Failed to download object: " + cause.getMessage(), cause);
+        }
+    }
+
+    private void acquireMemory(int permits) throws IOException {
+        try {
+            memoryPermits.acquire(permits);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for download memory", e);
+        }
+    }
+
+    private String currentBucket() {
+        return s3Service.getCurrentConfig() != null ? s3Service.getCurrentConfig().getBucket() : "";
+    }
+
+    /**
+     * A fetched part: the buffer it was read into and how many bytes of it are valid.
+     */
+    private static class Part {
+        private final byte[] buffer;
+        private final int length;
+
+        Part(byte[] buffer, int length) {
+            this.buffer = buffer;
+            this.length = length;
+        }
+    }
+}
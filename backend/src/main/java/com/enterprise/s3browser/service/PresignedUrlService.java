@@ -0,0 +1,123 @@
+package com.enterprise.s3browser.service;
+
+import com.enterprise.s3browser.model.PresignedUrl;
+import com.enterprise.s3browser.model.S3Configuration;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Service handing out presigned URLs so clients can transfer object content directly
+ * against the S3 endpoint instead of through this application.
+ * Download URLs are cached per object and reused until shortly before they expire.
+ */
+@Service
+public class PresignedUrlService {
+
+    private static final Logger logger = LoggerFactory.getLogger(PresignedUrlService.class);
+
+    @Autowired
+    private S3Service s3Service;
+
+    @Value("${s3.presign.enabled:false}")
+    private boolean enabled;
+
+    @Value("${s3.presign.redirect-downloads:false}")
+    private boolean redirectDownloads;
+
+    @Value("${s3.presign.expiration-seconds:900}")
+    private long expirationSeconds;
+
+    @Value("${s3.presign.refresh-margin-seconds:60}")
+    private long refreshMarginSeconds;
+
+    @Value("${s3.presign.max-cached-urls:10000}")
+    private int maxCachedUrls;
+
+    private Clock clock = Clock.systemUTC();
+
+    private final Map<String, PresignedUrl> downloadUrls = new ConcurrentHashMap<>();
+
+    /**
+     * Check if presigned URL mode is enabled.
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Check if plain downloads should be answered with a redirect to a presigned URL by default.
+     */
+    public boolean isRedirectDownloads() {
+        return enabled && redirectDownloads;
+    }
+
+    /**
+     * Get a presigned GET for an object, reusing a cached one while it has more than the refresh margin left.
+     */
+    public PresignedUrl getDownloadUrl(String key) {
+        Instant now = clock.instant();
+        String cacheKey = cacheKey(key);
+        PresignedUrl cached = downloadUrls.get(cacheKey);
+        if (cached != null && cached.isValidFor(refreshMarginSeconds, now)) {
+            return cached;
+        }
+
+        PresignedUrl presigned = s3Service.presignGetObject(key, contentDisposition(key), expiration());
+        if (downloadUrls.size() >= maxCachedUrls) {
+            evictExpired(now);
+        }
+        downloadUrls.put(cacheKey, presigned);
+        logger.debug("Presigned download of object {} until {}", key, presigned.getExpiration());
+        return presigned;
+    }
+
+    /**
+     * Get a presigned PUT for an object. Upload URLs are single use in practice and are not cached.
+     */
+    public PresignedUrl getUploadUrl(String key, String contentType) {
+        PresignedUrl presigned = s3Service.presignPutObject(key, contentType, expiration());
+        logger.debug("Presigned upload of object {} until {}", key, presigned.getExpiration());
+        return presigned;
+    }
+
+    private Duration expiration() {
+        return Duration.ofSeconds(expirationSeconds);
+    }
+
+    /**
+     * Remove URLs that are due for refresh; if that frees nothing, start over with an empty cache.
+     */
+    private void evictExpired(Instant now) {
+        downloadUrls.values().removeIf(url -> !url.isValidFor(refreshMarginSeconds, now));
+        if (downloadUrls.size() >= maxCachedUrls) {
+            downloadUrls.clear();
+        }
+    }
+
+    /**
+     * URLs are bound to the endpoint, bucket and credentials they were signed with.
+     */
+    private String cacheKey(String key) {
+        S3Configuration config = s3Service.getCurrentConfig();
+        if (config == null) {
+            return key;
+        }
+        return config.getEndpoint() + "\n" + config.getBucket() + "\n" + config.getAccessKey() + "\n" + key;
+    }
+
+    private static String contentDisposition(String key) {
+        String fileName = key.contains("/") ? key.substring(key.lastIndexOf('/') + 1) : key;
+        return "attachment; filename=\"" + URLEncoder.encode(fileName, StandardCharsets.UTF_8) + "\"";
+    }
+}
@@ -0,0 +1,292 @@
+package com.enterprise.s3browser.service;
+
+import com.enterprise.s3browser.exception.S3ServiceException;
+import com.enterprise.s3browser.exception.UploadSessionNotFoundException;
+import com.enterprise.s3browser.model.S3Configuration;
+import com.enterprise.s3browser.model.UploadSession;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import software.amazon.awssdk.services.s3.model.CompletedPart;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * Service for resumable uploads. Each session is an S3 multipart upload whose parts arrive
+ * as separately uploaded chunks, so a client can send chunks in parallel, retry any of them,
+ * and pick up after a dropped connection by asking which chunks already arrived.
+ * Session state is kept in one JSON file per session and reloaded on startup.
+ */
+@Service
+public class ResumableUploadService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ResumableUploadService.class);
+
+    /** S3 maximum part size. */
+    private static final long MAX_CHUNK_SIZE = 5L * 1024 * 1024 * 1024;
+
+    private static final String SESSION_SUFFIX = ".json";
+
+    @Autowired
+    private S3Service s3Service;
+
+    @Autowired
+    private MultipartUploadService multipartUploadService;
+
+    @Value("${s3.upload.sessions.directory:${java.io.tmpdir}/s3-browser-cache}")
+    private String directory;
+
+    @Value("${s3.upload.sessions.expiration-hours:24}")
+    private long expirationHours;
+
+    private Clock clock = Clock.systemUTC();
+
+    private final ObjectMapper objectMapper = JsonMapper.builder()
+            .addModule(new JavaTimeModule())
+            .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
+            .build();
+
+    private final Map<String, UploadSession> sessions = new ConcurrentHashMap<>();
+    private Path sessionDirectory;
+
+    @PostConstruct
+    public void initialize() {
+        sessionDirectory = Paths.get(directory, "upload-sessions");
+        try {
+            Files.createDirectories(sessionDirectory);
+            try (DirectoryStream<Path> files = Files.newDirectoryStream(sessionDirectory, "*" + SESSION_SUFFIX)) {
+                for (Path file : files) {
+                    loadSession(file);
+                }
+            }
+        } catch (IOException e) {
+            logger.error("Failed to load upload sessions from {}", sessionDirectory, e);
+        }
+        logger.info("Loaded {} resumable upload sessions", sessions.size());
+    }
+
+    /**
+     * Start a resumable upload of an object of known size.
+     * The chunk size is the requested one, or the multipart engine's part size for the object,
+     * raised as needed to S3's minimum part size and 10000 part limit.
+     */
+    public UploadSession createSession(String key, String contentType, long size, Long requestedChunkSize) {
+        removeExpired();
+
+        long chunkSize = requestedChunkSize != null && requestedChunkSize > 0
+                ? requestedChunkSize : multipartUploadService.choosePartSize(size);
+        chunkSize = Math.max(chunkSize, MultipartUploadService.MIN_PART_SIZE);
+        chunkSize = Math.max(chunkSize, (size + MultipartUploadService.MAX_PARTS - 1) / MultipartUploadService.MAX_PARTS);
+        if (chunkSize > MAX_CHUNK_SIZE) {
+            throw new IllegalArgumentException("Object of " + size + " bytes is too large to upload");
+        }
+
+        String uploadId = s3Service.createMultipartUpload(key, contentType);
+        UploadSession session = new UploadSession(UUID.randomUUID().toString(), key, contentType, currentBucket(),
+                uploadId, size, chunkSize, clock.instant());
+        save(session);
+        sessions.put(session.getId(), session);
+
+        logger.info("Created upload session {} for object {} ({} bytes in {} chunks)",
+                session.getId(), key, size, session.chunkCount());
+        return session;
+    }
+
+    /**
+     * Copy of the session as it is now. Chunks of the session may arrive concurrently,
+     * so callers never get the live session to read from.
+     */
+    public UploadSession getSession(String sessionId) {
+        UploadSession session = findSession(sessionId);
+        synchronized (session) {
+            UploadSession copy = new UploadSession(session.getId(), session.getKey(), session.getContentType(),
+                    session.getBucket(), session.getUploadId(), session.getSize(), session.getChunkSize(),
+                    session.getCreatedAt());
+            copy.setUpdatedAt(session.getUpdatedAt());
+            copy.setChunkEtags(new TreeMap<>(session.getChunkEtags()));
+            return copy;
+        }
+    }
+
+    /**
+     * Upload one chunk straight from the request stream. Chunks may arrive in any order and
+     * concurrently; uploading a chunk again replaces it.
+     */
+    public UploadSession uploadChunk(String sessionId, int chunkNumber, InputStream inputStream, long contentLength) {
+        UploadSession session = findSession(sessionId);
+        checkBucket(session);
+
+        if (chunkNumber < 1 || chunkNumber > session.chunkCount()) {
+            throw new IllegalArgumentException("Chunk number must be between 1 and " + session.chunkCount());
+        }
+        long expectedLength = session.chunkLength(chunkNumber);
+        if (contentLength != expectedLength) {
+            throw new IllegalArgumentException("Chunk " + chunkNumber + " must be " + expectedLength
+                    + " bytes, got " + contentLength);
+        }
+
+        CompletedPart part = s3Service.uploadPartStream(session.getKey(), session.getUploadId(), chunkNumber,
+                inputStream, expectedLength);
+
+        synchronized (session) {
+            checkActive(session);
+            session.getChunkEtags().put(chunkNumber, part.eTag());
+            session.setUpdatedAt(clock.instant());
+            save(session);
+        }
+        logger.debug("Received chunk {} of {} for upload session {}", chunkNumber, session.chunkCount(), sessionId);
+        return session;
+    }
+
+    /**
+     * Assemble the received chunks into the object. Every chunk must have arrived.
+     */
+    public UploadSession commit(String sessionId) {
+        UploadSession session = findSession(sessionId);
+        checkBucket(session);
+
+        synchronized (session) {
+            checkActive(session);
+            if (!session.allChunksReceived()) {
+                throw new IllegalArgumentException("Upload is incomplete: received " + session.getChunkEtags().size()
+                        + " of " + session.chunkCount() + " chunks");
+            }
+
+            List<CompletedPart> parts = session.getChunkEtags().entrySet().stream()
+                    .map(entry -> CompletedPart.builder().partNumber(entry.getKey()).eTag(entry.getValue()).build())
+                    .collect(Collectors.toList());
+            s3Service.completeMultipartUpload(session.getKey(), session.getUploadId(), parts);
+            forget(session);
+        }
+        logger.info("Committed upload session {} for object {}", sessionId, session.getKey());
+        return session;
+    }
+
+    /**
+     * Abandon an upload and have S3 discard the chunks received so far.
+     */
+    public void abort(String sessionId) {
+        UploadSession session = findSession(sessionId);
+        checkBucket(session);
+
+        synchronized (session) {
+            checkActive(session);
+            s3Service.abortMultipartUpload(session.getKey(), session.getUploadId());
+            forget(session);
+        }
+        logger.info("Aborted upload session {} for object {}", sessionId, session.getKey());
+    }
+
+    /**
+     * Abort sessions that have not received a chunk within the expiration time.
+     * A session whose abort fails is kept and tried again on the next sweep.
+     */
+    public void removeExpired() {
+        Instant cutoff = clock.instant().minus(Duration.ofHours(expirationHours));
+        for (UploadSession session : sessions.values()) {
+            synchronized (session) {
+                if (sessions.get(session.getId()) != session || !session.getUpdatedAt().isBefore(cutoff)) {
+                    continue;
+                }
+                try {
+                    s3Service.abortMultipartUpload(session.getKey(), session.getUploadId());
+                    forget(session);
+                    logger.info("Expired upload session {} for object {}", session.getId(), session.getKey());
+                } catch (S3ServiceException e) {
+                    logger.warn("Failed to abort expired upload session {}: {}", session.getId(), e.getMessage());
+                }
+            }
+        }
+    }
+
+    private UploadSession findSession(String sessionId) {
+        UploadSession session = sessions.get(sessionId);
+        if (session == null) {
+            throw new UploadSessionNotFoundException("Upload session not found: " + sessionId);
+        }
+        return session;
+    }
+
+    private void loadSession(Path file) {
+        try {
+            UploadSession session = objectMapper.readValue(file.toFile(), UploadSession.class);
+            sessions.put(session.getId(), session);
+        } catch (IOException e) {
+            logger.warn("Ignoring unreadable upload session {}: {}", file, e.getMessage());
+        }
+    }
+
+    /**
+     * Write the session through a temporary file, so a crash never leaves a torn session behind.
+     */
+    private void save(UploadSession session) {
+        Path file = sessionFile(session.getId());
+        Path temp = file.resolveSibling(session.getId() + ".tmp");
+        try {
+            objectMapper.writeValue(temp.toFile(), session);
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            logger.error("Failed to save upload session {}", session.getId(), e);
+            throw new S3ServiceException("Failed to save upload session: " + e.getMessage(), e);
+        }
+    }
+
+    private void forget(UploadSession session) {
+        sessions.remove(session.getId(), session);
+        try {
+            Files.deleteIfExists(sessionFile(session.getId()));
+        } catch (IOException e) {
+            logger.warn("Failed to delete upload session file of {}: {}", session.getId(), e.getMessage());
+        }
+    }
+
+    /**
+     * Fail if the session was committed or aborted while the caller waited for it.
+     */
+    private void checkActive(UploadSession session) {
+        if (sessions.get(session.getId()) != session) {
+            throw new UploadSessionNotFoundException("Upload session not found: " + session.getId());
+        }
+    }
+
+    /**
+     * Multipart uploads live in one bucket; the configuration may have been switched since.
+     */
+    private void checkBucket(UploadSession session) {
+        if (!Objects.equals(session.getBucket(), currentBucket())) {
+            throw new IllegalArgumentException("Upload session belongs to bucket " + session.getBucket());
+        }
+    }
+
+    private Path sessionFile(String sessionId) {
+        return sessionDirectory.resolve(sessionId + SESSION_SUFFIX);
+    }
+
+    private String currentBucket() {
+        S3Configuration config = s3Service.getCurrentConfig();
+        return config != null ? config.getBucket() : null;
+    }
+}
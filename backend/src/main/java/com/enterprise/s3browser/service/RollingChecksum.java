@@ -0,0 +1,59 @@
+package com.enterprise.s3browser.service;
+
+/**
+ * The rsync weak checksum of a window of bytes: two 16-bit sums that can be rolled forward one
+ * byte at a time in constant time, so a window can be checked against block signatures at
+ * every offset of a stream. The sums wrap, so int overflow along the way is harmless.
+ */
+public class RollingChecksum {
+
+    private int a;
+    private int b;
+    private int length;
+
+    /**
+     * Start over with an empty window.
+     */
+    public void reset() {
+        a = 0;
+        b = 0;
+        length = 0;
+    }
+
+    /**
+     * Extend the window with more bytes.
+     */
+    public void update(byte[] buffer, int offset, int count) {
+        int sumA = a;
+        int sumB = b;
+        for (int i = offset; i < offset + count; i++) {
+            sumA += buffer[i] & 0xff;
+            sumB += sumA;
+        }
+        a = sumA & 0xffff;
+        b = sumB & 0xffff;
+        length += count;
+    }
+
+    /**
+     * Slide the window one byte forward, dropping the byte at its start and appending the next one.
+     */
+    public void roll(byte removed, byte added) {
+        int out = removed & 0xff;
+        a = (a - out + (added & 0xff)) & 0xffff;
+        b = (b - length * out + a) & 0xffff;
+    }
+
+    public int getValue() {
+        return (b << 16) | a;
+    }
+
+    /**
+     * The checksum of a whole window at once.
+     */
+    public static int of(byte[] buffer, int offset, int length) {
+        RollingChecksum checksum = new RollingChecksum();
+        checksum.update(buffer, offset, length);
+        return checksum.getValue();
+    }
+}
@@ -1,25 +1,53 @@
 package com.enterprise.s3browser.service;
 
+import com.enterprise.s3browser.exception.ObjectNotModifiedException;
+import com.enterprise.s3browser.exception.PreconditionFailedException;
+import com.enterprise.s3browser.exception.RangeNotSatisfiableException;
 import com.enterprise.s3browser.exception.S3ServiceException;
+import com.enterprise.s3browser.model.ObjectListing;
+import com.enterprise.s3browser.model.PresignedUrl;
 import com.enterprise.s3browser.model.S3Configuration;
+import com.enterprise.s3browser.model.RequestConditions;
 import com.enterprise.s3browser.model.S3Object;
+import com.enterprise.s3browser.model.S3ObjectChangedEvent;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.annotation.Lazy;
 import org.springframework.stereotype.Service;
 import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
 import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
-import software.amazon.awssdk.core.ResponseBytes;
+import software.amazon.awssdk.awscore.presigner.PresignedRequest;
+import software.amazon.awssdk.core.ResponseInputStream;
 import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.http.SdkHttpResponse;
 import software.amazon.awssdk.http.urlconnection.UrlConnectionHttpClient;
 import software.amazon.awssdk.regions.Region;
 import software.amazon.awssdk.services.s3.S3Client;
 import software.amazon.awssdk.services.s3.S3ClientBuilder;
 import software.amazon.awssdk.services.s3.model.*;
+import software.amazon.awssdk.services.s3.presigner.S3Presigner;
+import software.amazon.awssdk.services.s3.presigner.model.GetObjectPresignRequest;
+import software.amazon.awssdk.services.s3.presigner.model.PutObjectPresignRequest;
 
+import java.io.ByteArrayInputStream;
 import java.io.InputStream;
 import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.stream.Collectors;
 
 /**
@@ -30,9 +58,29 @@ import java.util.stream.Collectors;
 public class S3Service {
 
     private static final Logger logger = LoggerFactory.getLogger(S3Service.class);
+
+    /** Largest page a single ListObjectsV2 call returns. */
+    public static final int MAX_PAGE_SIZE = 1000;
+
+    private static final String LIST_OBJECTS = "listObjects";
+    private static final String GET_OBJECT_METADATA = "getObjectMetadata";
+    private static final String LIST_BUCKETS = "listBuckets";
+
     private S3Client s3Client;
+    private S3Presigner s3Presigner;
     private S3Configuration currentConfig;
 
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    // Compaction reads containers through this service, hence the lazy reference back
+    @Autowired
+    @Lazy
+    private CompactionService compactionService;
+
+    // Identical concurrent reads share one S3 request
+    private final SingleFlight inFlight = new SingleFlight();
+
     /**
      * Initialize S3 client with given configuration.
      */
@@ -60,6 +108,7 @@ public class S3Service {
 
             this.s3Client = builder.build();
             this.currentConfig = config;
+            this.s3Presigner = buildPresigner(config, credentials);
             
             testConnection();
             logger.info("S3 client initialized successfully");
@@ -89,9 +138,30 @@ public class S3Service {
     }
 
     /**
-     * List objects in the configured bucket with optional prefix.
+     * List the first page of objects in the configured bucket with optional prefix.
      */
     public List<S3Object> listObjects(String prefix) {
+        return listObjects(prefix, MAX_PAGE_SIZE, null, null).getObjects();
+    }
+
+    /**
+     * List one page of objects in the configured bucket with optional prefix. A page resumes
+     * after the one that returned the continuation token, or lists keys after startAfter when
+     * there is no token. The returned token is opaque: it wraps the S3 token together with the
+     * last key of the page, so the page's key range can be recovered from it. A token made by
+     * {@link #continuationTokenAfter} resumes after its key instead.
+     */
+    public ObjectListing listObjects(String prefix, int pageSize, String continuationToken, String startAfter) {
+        if (pageSize < 1 || pageSize > MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("Page size must be between 1 and " + MAX_PAGE_SIZE);
+        }
+        String[] token = continuationToken != null ? decodeContinuationToken(continuationToken) : null;
+
+        return inFlight.execute(flightKey(LIST_OBJECTS, prefix, pageSize, continuationToken, startAfter),
+            () -> fetchObjectListing(prefix, pageSize, token, startAfter));
+    }
+
+    private ObjectListing fetchObjectListing(String prefix, int pageSize, String[] token, String startAfter) {
         try {
             if (s3Client == null || currentConfig == null) {
                 throw new S3ServiceException("S3 client not initialized");
@@ -99,48 +169,46 @@ public class S3Service {
 
             ListObjectsV2Request.Builder requestBuilder = ListObjectsV2Request.builder()
                 .bucket(currentConfig.getBucket())
-                .delimiter("/");
+                .delimiter("/")
+                .maxKeys(pageSize);
 
             if (prefix != null && !prefix.isEmpty()) {
                 requestBuilder.prefix(prefix);
             }
+            if (token != null && token[0] != null) {
+                requestBuilder.continuationToken(token[0]);
+            } else if (token != null) {
+                if (token[1] != null) {
+                    requestBuilder.startAfter(token[1]);
+                }
+            } else if (startAfter != null && !startAfter.isEmpty()) {
+                requestBuilder.startAfter(startAfter);
+            }
 
             ListObjectsV2Response response = s3Client.listObjectsV2(requestBuilder.build());
             
-            List<S3Object> objects = new ArrayList<>();
-            
-            // Add directories (common prefixes)
+            List<S3Object> objects = toObjects(response, prefix);
+            String lastKey = null;
             if (response.commonPrefixes() != null) {
-                objects.addAll(response.commonPrefixes().stream()
-                    .map(cp -> new S3Object(
-                        cp.prefix(),
-                        null,
-                        0,
-                        null,
-                        null,
-                        true
-                    ))
-                    .collect(Collectors.toList()));
+                for (CommonPrefix cp : response.commonPrefixes()) {
+                    lastKey = laterKey(lastKey, cp.prefix());
+                }
             }
-            
-            // Add files (excluding folder markers and objects that match prefix exactly)
             if (response.contents() != null) {
-                objects.addAll(response.contents().stream()
-                    .filter(obj -> !obj.key().endsWith("/")) // Exclude folder markers
-                    .filter(obj -> prefix == null || !obj.key().equals(prefix)) // Exclude exact prefix match
-                    .map(obj -> new S3Object(
-                        obj.key(),
-                        obj.eTag(),
-                        obj.size(),
-                        obj.lastModified(),
-                        obj.storageClassAsString(),
-                        false
-                    ))
-                    .collect(Collectors.toList()));
-            }
-
-            logger.info("Listed {} objects with prefix: {}", objects.size(), prefix);
-            return objects;
+                for (software.amazon.awssdk.services.s3.model.S3Object obj : response.contents()) {
+                    lastKey = laterKey(lastKey, obj.key());
+                }
+            }
+
+            // The page's key range starts where the previous page ended, and folder markers
+            // still count towards its end
+            String pageStart = token != null ? token[1] : (startAfter != null && !startAfter.isEmpty() ? startAfter : null);
+            String nextToken = Boolean.TRUE.equals(response.isTruncated()) && response.nextContinuationToken() != null
+                ? encodeContinuationToken(response.nextContinuationToken(), lastKey != null ? lastKey : pageStart)
+                : null;
+
+            logger.info("Listed {} objects with prefix: {}{}", objects.size(), prefix, nextToken != null ? " (truncated)" : "");
+            return new ObjectListing(objects, pageStart, lastKey, nextToken);
             
         } catch (Exception e) {
             logger.error("Failed to list objects with prefix: {}", prefix, e);
@@ -148,23 +216,202 @@ public class S3Service {
         }
     }
 
+    /**
+     * Pages of the objects under a prefix, either every object below it or, when not recursive,
+     * the objects and folders directly under it. Each page is requested from S3 only when the
+     * returned iterator advances to it.
+     */
+    public Iterator<List<S3Object>> listObjectPages(String prefix, boolean recursive) {
+        try {
+            if (s3Client == null || currentConfig == null) {
+                throw new S3ServiceException("S3 client not initialized");
+            }
+
+            ListObjectsV2Request.Builder requestBuilder = ListObjectsV2Request.builder()
+                .bucket(currentConfig.getBucket());
+
+            if (!recursive) {
+                requestBuilder.delimiter("/");
+            }
+            if (prefix != null && !prefix.isEmpty()) {
+                requestBuilder.prefix(prefix);
+            }
+
+            return s3Client.listObjectsV2Paginator(requestBuilder.build()).stream()
+                .map(response -> toObjects(response, prefix))
+                .iterator();
+
+        } catch (Exception e) {
+            logger.error("Failed to list object pages with prefix: {}", prefix, e);
+            throw new S3ServiceException("Failed to list objects: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * The folders (common prefixes) and files of one listing page, excluding folder markers
+     * and an object whose key is the prefix itself.
+     */
+    private List<S3Object> toObjects(ListObjectsV2Response response, String prefix) {
+        List<S3Object> objects = new ArrayList<>();
+        
+        // Add directories (common prefixes)
+        if (response.commonPrefixes() != null) {
+            objects.addAll(response.commonPrefixes().stream()
+                .map(cp -> new S3Object(
+                    cp.prefix(),
+                    null,
+                    0,
+                    null,
+                    null,
+                    true
+                ))
+                .collect(Collectors.toList()));
+        }
+        
+        // Add files (excluding folder markers and objects that match prefix exactly)
+        if (response.contents() != null) {
+            objects.addAll(response.contents().stream()
+                .filter(obj -> !obj.key().endsWith("/")) // Exclude folder markers
+                .filter(obj -> prefix == null || !obj.key().equals(prefix)) // Exclude exact prefix match
+                .map(obj -> new S3Object(
+                    obj.key(),
+                    obj.eTag(),
+                    obj.size(),
+                    obj.lastModified(),
+                    obj.storageClassAsString(),
+                    false
+                ))
+                .collect(Collectors.toList()));
+        }
+        return objects;
+    }
+
+    /**
+     * Identity of a read for coalescing: the client configuration it runs against, the operation
+     * and its arguments.
+     */
+    private List<Object> flightKey(String operation, Object... arguments) {
+        List<Object> key = new ArrayList<>(arguments.length + 2);
+        key.add(currentConfig);
+        key.add(operation);
+        key.addAll(Arrays.asList(arguments));
+        return key;
+    }
+
+    private static String laterKey(String current, String key) {
+        return current == null || key.compareTo(current) > 0 ? key : current;
+    }
+
+    /**
+     * A continuation token that resumes a listing after a key rather than after a page S3 returned,
+     * for listings that end a page part way through what S3 listed.
+     */
+    public static String continuationTokenAfter(String key) {
+        return encodeContinuationToken(null, key);
+    }
+
+    static String encodeContinuationToken(String s3Token, String lastKey) {
+        Base64.Encoder encoder = Base64.getUrlEncoder().withoutPadding();
+        return encoder.encodeToString((s3Token != null ? s3Token : "").getBytes(StandardCharsets.UTF_8)) + "."
+            + encoder.encodeToString((lastKey != null ? lastKey : "").getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Split a continuation token into the S3 token, null when it resumes after its key, and the
+     * last key of the page that returned it.
+     */
+    static String[] decodeContinuationToken(String token) {
+        int dot = token.indexOf('.');
+        if (dot < 0 || dot != token.lastIndexOf('.')) {
+            throw new IllegalArgumentException("Malformed continuation token");
+        }
+        try {
+            Base64.Decoder decoder = Base64.getUrlDecoder();
+            String s3Token = new String(decoder.decode(token.substring(0, dot)), StandardCharsets.UTF_8);
+            String lastKey = new String(decoder.decode(token.substring(dot + 1)), StandardCharsets.UTF_8);
+            if (s3Token.isEmpty() && lastKey.isEmpty()) {
+                throw new IllegalArgumentException("Malformed continuation token");
+            }
+            return new String[] { s3Token.isEmpty() ? null : s3Token, lastKey.isEmpty() ? null : lastKey };
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Malformed continuation token", e);
+        }
+    }
+
+    /**
+     * List every object under a prefix, recursively and in key order.
+     * Pages are requested lazily as the returned iterator advances.
+     */
+    public Iterator<S3Object> listAllObjects(String prefix) {
+        try {
+            if (s3Client == null || currentConfig == null) {
+                throw new S3ServiceException("S3 client not initialized");
+            }
+
+            ListObjectsV2Request.Builder requestBuilder = ListObjectsV2Request.builder()
+                .bucket(currentConfig.getBucket());
+
+            if (prefix != null && !prefix.isEmpty()) {
+                requestBuilder.prefix(prefix);
+            }
+
+            return s3Client.listObjectsV2Paginator(requestBuilder.build()).contents().stream()
+                .filter(obj -> !obj.key().endsWith("/")) // Exclude folder markers
+                .map(obj -> new S3Object(
+                    obj.key(),
+                    obj.eTag(),
+                    obj.size(),
+                    obj.lastModified(),
+                    obj.storageClassAsString(),
+                    false
+                ))
+                .iterator();
+
+        } catch (Exception e) {
+            logger.error("Failed to list all objects with prefix: {}", prefix, e);
+            throw new S3ServiceException("Failed to list objects: " + e.getMessage(), e);
+        }
+    }
+
     /**
      * Get object metadata.
      */
     public S3Object getObjectMetadata(String key) {
+        return getObjectMetadata(key, null);
+    }
+
+    /**
+     * Get object metadata, forwarding conditional request validators to S3.
+     * A key that S3 reports missing is looked up among the compacted objects.
+     */
+    public S3Object getObjectMetadata(String key, RequestConditions conditions) {
+        List<Object> flightKey = conditions != null
+            ? flightKey(GET_OBJECT_METADATA, key, conditions.getIfMatch(), conditions.getIfNoneMatch(),
+                conditions.getIfModifiedSince(), conditions.getIfUnmodifiedSince())
+            : flightKey(GET_OBJECT_METADATA, key);
+        return inFlight.execute(flightKey, () -> fetchObjectMetadata(key, conditions));
+    }
+
+    private S3Object fetchObjectMetadata(String key, RequestConditions conditions) {
         try {
             if (s3Client == null || currentConfig == null) {
                 throw new S3ServiceException("S3 client not initialized");
             }
 
-            HeadObjectRequest request = HeadObjectRequest.builder()
+            HeadObjectRequest.Builder requestBuilder = HeadObjectRequest.builder()
                 .bucket(currentConfig.getBucket())
-                .key(key)
-                .build();
+                .key(key);
+
+            if (conditions != null) {
+                requestBuilder.ifMatch(conditions.getIfMatch())
+                    .ifNoneMatch(conditions.getIfNoneMatch())
+                    .ifModifiedSince(conditions.getIfModifiedSince())
+                    .ifUnmodifiedSince(conditions.getIfUnmodifiedSince());
+            }
 
-            HeadObjectResponse response = s3Client.headObject(request);
+            HeadObjectResponse response = s3Client.headObject(requestBuilder.build());
             
-            return new S3Object(
+            S3Object object = new S3Object(
                 key,
                 response.eTag(),
                 response.contentLength(),
@@ -172,7 +419,17 @@ public class S3Service {
                 response.storageClassAsString(),
                 false
             );
+            object.setContentType(response.contentType());
+            return object;
             
+        } catch (S3Exception e) {
+            S3Object compacted = e.statusCode() == 404 ? compactionService.getObjectMetadata(key, conditions) : null;
+            if (compacted != null) {
+                return compacted;
+            }
+            throwIfConditionNotMet(e, key);
+            logger.error("Failed to get metadata for object: {}", key, e);
+            throw new S3ServiceException("Failed to get object metadata: " + e.getMessage(), e);
         } catch (Exception e) {
             logger.error("Failed to get metadata for object: {}", key, e);
             throw new S3ServiceException("Failed to get object metadata: " + e.getMessage(), e);
@@ -180,34 +437,74 @@ public class S3Service {
     }
 
     /**
-     * Download object content.
+     * Open a streaming download of object content.
+     * The caller owns the returned stream and must close it, or abort it when
+     * the remaining content is not going to be read.
+     */
+    public ResponseInputStream<GetObjectResponse> downloadObjectStream(String key) {
+        return downloadObjectStream(key, null, null);
+    }
+
+    /**
+     * Open a streaming download of a single byte range of an object.
+     * The range uses HTTP Range header syntax, e.g. "bytes=0-1023" or "bytes=-500".
+     */
+    public ResponseInputStream<GetObjectResponse> downloadObjectStream(String key, String range) {
+        return downloadObjectStream(key, range, null);
+    }
+
+    /**
+     * Open a streaming download of an object or a single byte range of it,
+     * forwarding conditional request validators to S3. A null range downloads the whole object.
+     * A key that S3 reports missing is served from its compaction container, if it was compacted.
      */
-    public ResponseBytes<GetObjectResponse> downloadObject(String key) {
+    public ResponseInputStream<GetObjectResponse> downloadObjectStream(String key, String range, RequestConditions conditions) {
         try {
             if (s3Client == null || currentConfig == null) {
                 throw new S3ServiceException("S3 client not initialized");
             }
 
-            GetObjectRequest request = GetObjectRequest.builder()
+            GetObjectRequest.Builder requestBuilder = GetObjectRequest.builder()
                 .bucket(currentConfig.getBucket())
                 .key(key)
-                .build();
+                .range(range);
+
+            if (conditions != null) {
+                requestBuilder.ifMatch(conditions.getIfMatch())
+                    .ifNoneMatch(conditions.getIfNoneMatch())
+                    .ifModifiedSince(conditions.getIfModifiedSince())
+                    .ifUnmodifiedSince(conditions.getIfUnmodifiedSince());
+            }
 
-            ResponseBytes<GetObjectResponse> response = s3Client.getObjectAsBytes(request);
+            ResponseInputStream<GetObjectResponse> stream = s3Client.getObject(requestBuilder.build());
             
-            logger.debug("Downloaded object: {} ({} bytes)", key, response.asByteArray().length);
-            return response;
+            logger.debug("Opened download stream for object: {} ({} bytes, range: {})", 
+                key, stream.response().contentLength(), stream.response().contentRange());
+            return stream;
             
+        } catch (S3Exception e) {
+            ResponseInputStream<GetObjectResponse> compacted = e.statusCode() == 404
+                ? compactionService.downloadObjectStream(key, range, conditions) : null;
+            if (compacted != null) {
+                logger.debug("Serving compacted object: {} (range: {})", key, range);
+                return compacted;
+            }
+            if (e.statusCode() == 416) {
+                throw new RangeNotSatisfiableException("Requested range " + range + " not satisfiable for object: " + key);
+            }
+            throwIfConditionNotMet(e, key);
+            logger.error("Failed to download object: {} (range: {})", key, range, e);
+            throw new S3ServiceException("Failed to download object: " + e.getMessage(), e);
         } catch (Exception e) {
-            logger.error("Failed to download object: {}", key, e);
+            logger.error("Failed to download object: {} (range: {})", key, range, e);
             throw new S3ServiceException("Failed to download object: " + e.getMessage(), e);
         }
     }
 
     /**
-     * Upload object to S3.
+     * Upload object to S3 and return the ETag of the stored object.
      */
-    public void uploadObject(String key, InputStream inputStream, long contentLength, String contentType) {
+    public String uploadObject(String key, InputStream inputStream, long contentLength, String contentType) {
         try {
             if (s3Client == null || currentConfig == null) {
                 throw new S3ServiceException("S3 client not initialized");
@@ -224,9 +521,11 @@ public class S3Service {
             PutObjectRequest request = requestBuilder.build();
             RequestBody requestBody = RequestBody.fromInputStream(inputStream, contentLength);
 
-            s3Client.putObject(request, requestBody);
+            PutObjectResponse response = s3Client.putObject(request, requestBody);
+            objectChanged(key);
             
             logger.info("Successfully uploaded object: {}", key);
+            return response.eTag();
             
         } catch (Exception e) {
             logger.error("Failed to upload object: {}", key, e);
@@ -234,6 +533,212 @@ public class S3Service {
         }
     }
 
+    /**
+     * Start a multipart upload and return its upload id.
+     */
+    public String createMultipartUpload(String key, String contentType) {
+        try {
+            if (s3Client == null || currentConfig == null) {
+                throw new S3ServiceException("S3 client not initialized");
+            }
+
+            CreateMultipartUploadRequest.Builder requestBuilder = CreateMultipartUploadRequest.builder()
+                .bucket(currentConfig.getBucket())
+                .key(key);
+
+            if (contentType != null && !contentType.isEmpty()) {
+                requestBuilder.contentType(contentType);
+            }
+
+            String uploadId = s3Client.createMultipartUpload(requestBuilder.build()).uploadId();
+            logger.debug("Started multipart upload {} for object: {}", uploadId, key);
+            return uploadId;
+
+        } catch (Exception e) {
+            logger.error("Failed to start multipart upload: {}", key, e);
+            throw new S3ServiceException("Failed to start multipart upload: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Upload one part of a multipart upload from the first {@code length} bytes of a buffer.
+     * The buffer is streamed, not copied, so it must not change until this returns.
+     */
+    public CompletedPart uploadPart(String key, String uploadId, int partNumber, byte[] data, int length) {
+        return uploadPart(key, uploadId, partNumber, length, RequestBody.fromContentProvider(
+            () -> new ByteArrayInputStream(data, 0, length), length, "application/octet-stream"));
+    }
+
+    /**
+     * Upload one part of a multipart upload straight from a stream of the given length.
+     */
+    public CompletedPart uploadPartStream(String key, String uploadId, int partNumber, InputStream inputStream, long length) {
+        return uploadPart(key, uploadId, partNumber, length, RequestBody.fromInputStream(inputStream, length));
+    }
+
+    private CompletedPart uploadPart(String key, String uploadId, int partNumber, long length, RequestBody requestBody) {
+        try {
+            if (s3Client == null || currentConfig == null) {
+                throw new S3ServiceException("S3 client not initialized");
+            }
+
+            UploadPartRequest request = UploadPartRequest.builder()
+                .bucket(currentConfig.getBucket())
+                .key(key)
+                .uploadId(uploadId)
+                .partNumber(partNumber)
+                .contentLength(length)
+                .build();
+
+            UploadPartResponse response = s3Client.uploadPart(request, requestBody);
+            return CompletedPart.builder()
+                .partNumber(partNumber)
+                .eTag(response.eTag())
+                .build();
+
+        } catch (Exception e) {
+            logger.debug("Failed to upload part {} of object: {}", partNumber, key, e);
+            throw new S3ServiceException("Failed to upload part " + partNumber + ": " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Copy one byte range of an existing object into a part of a multipart upload, on the server side.
+     */
+    public CompletedPart uploadPartCopy(String key, String uploadId, int partNumber, String sourceKey,
+                                        long firstByte, long lastByte) {
+        return uploadPartCopy(key, uploadId, partNumber, sourceKey, null, firstByte, lastByte);
+    }
+
+    /**
+     * Copy one byte range of an existing object into a part of a multipart upload, failing unless
+     * the source still has the given ETag. A null ETag copies whatever the source holds.
+     */
+    public CompletedPart uploadPartCopy(String key, String uploadId, int partNumber, String sourceKey,
+                                        String sourceEtag, long firstByte, long lastByte) {
+        try {
+            if (s3Client == null || currentConfig == null) {
+                throw new S3ServiceException("S3 client not initialized");
+            }
+
+            UploadPartCopyRequest request = UploadPartCopyRequest.builder()
+                .sourceBucket(currentConfig.getBucket())
+                .sourceKey(sourceKey)
+                .destinationBucket(currentConfig.getBucket())
+                .destinationKey(key)
+                .uploadId(uploadId)
+                .partNumber(partNumber)
+                .copySourceRange("bytes=" + firstByte + "-" + lastByte)
+                .copySourceIfMatch(sourceEtag)
+                .build();
+
+            UploadPartCopyResponse response = s3Client.uploadPartCopy(request);
+            return CompletedPart.builder()
+                .partNumber(partNumber)
+                .eTag(response.copyPartResult().eTag())
+                .build();
+
+        } catch (Exception e) {
+            logger.debug("Failed to copy part {} of object: {}", partNumber, key, e);
+            throw new S3ServiceException("Failed to copy part " + partNumber + ": " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Complete a multipart upload from its parts, which must be in ascending part number order,
+     * and return the ETag of the assembled object.
+     */
+    public String completeMultipartUpload(String key, String uploadId, List<CompletedPart> parts) {
+        try {
+            if (s3Client == null || currentConfig == null) {
+                throw new S3ServiceException("S3 client not initialized");
+            }
+
+            CompleteMultipartUploadRequest request = CompleteMultipartUploadRequest.builder()
+                .bucket(currentConfig.getBucket())
+                .key(key)
+                .uploadId(uploadId)
+                .multipartUpload(CompletedMultipartUpload.builder().parts(parts).build())
+                .build();
+
+            CompleteMultipartUploadResponse response = s3Client.completeMultipartUpload(request);
+            objectChanged(key);
+
+            logger.info("Successfully uploaded object: {} ({} parts)", key, parts.size());
+            return response.eTag();
+
+        } catch (Exception e) {
+            logger.error("Failed to complete multipart upload: {}", key, e);
+            throw new S3ServiceException("Failed to complete multipart upload: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Abort a multipart upload so S3 discards the parts uploaded so far.
+     */
+    public void abortMultipartUpload(String key, String uploadId) {
+        try {
+            if (s3Client == null || currentConfig == null) {
+                throw new S3ServiceException("S3 client not initialized");
+            }
+
+            AbortMultipartUploadRequest request = AbortMultipartUploadRequest.builder()
+                .bucket(currentConfig.getBucket())
+                .key(key)
+                .uploadId(uploadId)
+                .build();
+
+            s3Client.abortMultipartUpload(request);
+
+            logger.info("Aborted multipart upload {} for object: {}", uploadId, key);
+
+        } catch (Exception e) {
+            logger.error("Failed to abort multipart upload: {}", key, e);
+            throw new S3ServiceException("Failed to abort multipart upload: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Copy an object of at most 5 GiB within the bucket, on the server side.
+     * The copy keeps the source's metadata unless a content type is given to replace it.
+     */
+    public void copyObject(String sourceKey, String key, String contentType) {
+        copyObject(sourceKey, null, key, contentType);
+    }
+
+    /**
+     * Copy an object of at most 5 GiB within the bucket, failing unless the source still has the
+     * given ETag. A null ETag copies whatever the source holds.
+     */
+    public void copyObject(String sourceKey, String sourceEtag, String key, String contentType) {
+        try {
+            if (s3Client == null || currentConfig == null) {
+                throw new S3ServiceException("S3 client not initialized");
+            }
+
+            CopyObjectRequest.Builder requestBuilder = CopyObjectRequest.builder()
+                .sourceBucket(currentConfig.getBucket())
+                .sourceKey(sourceKey)
+                .copySourceIfMatch(sourceEtag)
+                .destinationBucket(currentConfig.getBucket())
+                .destinationKey(key);
+
+            if (contentType != null && !contentType.isEmpty()) {
+                requestBuilder.metadataDirective(MetadataDirective.REPLACE)
+                    .contentType(contentType);
+            }
+
+            s3Client.copyObject(requestBuilder.build());
+            objectChanged(key);
+
+            logger.info("Successfully copied object {} to {}", sourceKey, key);
+
+        } catch (Exception e) {
+            logger.error("Failed to copy object {} to {}", sourceKey, key, e);
+            throw new S3ServiceException("Failed to copy object: " + e.getMessage(), e);
+        }
+    }
+
     /**
      * Delete object from S3.
      */
@@ -249,6 +754,7 @@ public class S3Service {
                 .build();
 
             s3Client.deleteObject(request);
+            objectChanged(key);
             
             logger.info("Successfully deleted object: {}", key);
             
@@ -262,6 +768,10 @@ public class S3Service {
      * List all buckets.
      */
     public List<String> listBuckets() {
+        return inFlight.execute(flightKey(LIST_BUCKETS), this::fetchBuckets);
+    }
+
+    private List<String> fetchBuckets() {
         try {
             if (s3Client == null) {
                 throw new S3ServiceException("S3 client not initialized");
@@ -279,6 +789,14 @@ public class S3Service {
         }
     }
 
+    private void objectChanged(String key) {
+        // Reads already on their way may predate the change, so later callers must not join them
+        inFlight.forget(flight -> LIST_OBJECTS.equals(flight.get(1))
+            ? key.startsWith(Objects.toString(flight.get(2), ""))
+            : GET_OBJECT_METADATA.equals(flight.get(1)) && key.equals(flight.get(2)));
+        eventPublisher.publishEvent(new S3ObjectChangedEvent(currentConfig.getEndpoint(), currentConfig.getBucket(), key));
+    }
+
     /**
      * Get current S3 configuration.
      */
@@ -305,6 +823,7 @@ public class S3Service {
                 .build();
             
             s3Client.putObject(request, RequestBody.empty());
+            objectChanged(folderKey);
             
             logger.info("Successfully created folder: {}", folderKey);
             
@@ -314,6 +833,131 @@ public class S3Service {
         }
     }
 
+    /**
+     * Presign a GET for an object. The response is served as an attachment with the given file name.
+     */
+    public PresignedUrl presignGetObject(String key, String contentDisposition, Duration expiration) {
+        try {
+            if (s3Presigner == null || currentConfig == null) {
+                throw new S3ServiceException("S3 client not initialized");
+            }
+
+            GetObjectRequest.Builder requestBuilder = GetObjectRequest.builder()
+                .bucket(currentConfig.getBucket())
+                .key(key);
+
+            if (contentDisposition != null) {
+                requestBuilder.responseContentDisposition(contentDisposition);
+            }
+
+            GetObjectPresignRequest presignRequest = GetObjectPresignRequest.builder()
+                .signatureDuration(expiration)
+                .getObjectRequest(requestBuilder.build())
+                .build();
+
+            return toPresignedUrl(s3Presigner.presignGetObject(presignRequest));
+
+        } catch (Exception e) {
+            logger.error("Failed to presign download of object: {}", key, e);
+            throw new S3ServiceException("Failed to presign download: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Presign a PUT for an object. The client must send the returned signed headers unchanged.
+     */
+    public PresignedUrl presignPutObject(String key, String contentType, Duration expiration) {
+        try {
+            if (s3Presigner == null || currentConfig == null) {
+                throw new S3ServiceException("S3 client not initialized");
+            }
+
+            PutObjectRequest.Builder requestBuilder = PutObjectRequest.builder()
+                .bucket(currentConfig.getBucket())
+                .key(key);
+
+            if (contentType != null && !contentType.isEmpty()) {
+                requestBuilder.contentType(contentType);
+            }
+
+            PutObjectPresignRequest presignRequest = PutObjectPresignRequest.builder()
+                .signatureDuration(expiration)
+                .putObjectRequest(requestBuilder.build())
+                .build();
+
+            return toPresignedUrl(s3Presigner.presignPutObject(presignRequest));
+
+        } catch (Exception e) {
+            logger.error("Failed to presign upload of object: {}", key, e);
+            throw new S3ServiceException("Failed to presign upload: " + e.getMessage(), e);
+        }
+    }
+
+    private S3Presigner buildPresigner(S3Configuration config, AwsBasicCredentials credentials) {
+        if (s3Presigner != null) {
+            s3Presigner.close();
+        }
+
+        S3Presigner.Builder builder = S3Presigner.builder()
+            .credentialsProvider(StaticCredentialsProvider.create(credentials))
+            .region(Region.of(config.getRegion()))
+            .serviceConfiguration(software.amazon.awssdk.services.s3.S3Configuration.builder()
+                .pathStyleAccessEnabled(config.isPathStyleAccess())
+                .build());
+
+        if (config.getEndpoint() != null && !config.getEndpoint().isEmpty()) {
+            builder.endpointOverride(URI.create(config.getEndpoint()));
+        }
+
+        return builder.build();
+    }
+
+    private PresignedUrl toPresignedUrl(PresignedRequest presigned) {
+        // The browser sets Host itself; every other signed header must be sent as given
+        Map<String, String> headers = new LinkedHashMap<>();
+        presigned.signedHeaders().forEach((name, values) -> {
+            if (!"host".equalsIgnoreCase(name)) {
+                headers.put(name, String.join(",", values));
+            }
+        });
+        return new PresignedUrl(
+            presigned.url().toString(),
+            presigned.httpRequest().method().name(),
+            presigned.expiration(),
+            headers
+        );
+    }
+
+    /**
+     * Translate S3's answers to conditional requests (304 and 412) into their dedicated exceptions.
+     */
+    private void throwIfConditionNotMet(S3Exception e, String key) {
+        if (e.statusCode() == 304) {
+            SdkHttpResponse httpResponse = e.awsErrorDetails() != null ? e.awsErrorDetails().sdkHttpResponse() : null;
+            String etag = null;
+            Instant lastModified = null;
+            if (httpResponse != null) {
+                etag = httpResponse.firstMatchingHeader("ETag").orElse(null);
+                lastModified = httpResponse.firstMatchingHeader("Last-Modified")
+                    .map(this::parseHttpDate)
+                    .orElse(null);
+            }
+            logger.debug("Object not modified: {}", key);
+            throw new ObjectNotModifiedException("Object not modified: " + key, etag, lastModified);
+        }
+        if (e.statusCode() == 412) {
+            throw new PreconditionFailedException("Precondition failed for object: " + key, e);
+        }
+    }
+
+    private Instant parseHttpDate(String value) {
+        try {
+            return ZonedDateTime.parse(value, DateTimeFormatter.RFC_1123_DATE_TIME).toInstant();
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+
     /**
      * Check if S3 client is initialized.
      */
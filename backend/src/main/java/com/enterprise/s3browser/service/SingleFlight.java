@@ -0,0 +1,101 @@
+package com.enterprise.s3browser.service;
+
+import com.enterprise.s3browser.exception.S3ServiceException;
+import software.amazon.awssdk.core.exception.AbortedException;
+
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * Coalesces concurrent identical calls. The first caller of a key runs the call on its own thread;
+ * callers arriving while it runs wait for it and get the same result, or the same exception.
+ * Results are shared between callers, so they must not be modified.
+ * Callers stop waiting when interrupted without affecting the others. If the caller running the
+ * call is interrupted, the waiting callers do not inherit that: one of them runs the call again.
+ */
+public class SingleFlight {
+
+    private final ConcurrentHashMap<List<Object>, CompletableFuture<Object>> flights = new ConcurrentHashMap<>();
+
+    /**
+     * Run the call, or join the identical one already running. Keys compare by their elements.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T execute(List<Object> key, Supplier<T> call) {
+        while (true) {
+            CompletableFuture<Object> flight = new CompletableFuture<>();
+            CompletableFuture<Object> running = flights.putIfAbsent(key, flight);
+            if (running == null) {
+                return lead(key, flight, call);
+            }
+            try {
+                return (T) running.get();
+            } catch (CancellationException e) {
+                // The caller running it was interrupted; try again, most likely as the one running it
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause();
+                if (cause instanceof RuntimeException) {
+                    throw (RuntimeException) cause;
+                }
+                if (cause instanceof Error) {
+                    throw (Error) cause;
+                }
+                throw new S3ServiceException(cause.getMessage(), cause);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new S3ServiceException("Interrupted while waiting for a shared S3 request", e);
+            }
+        }
+    }
+
+    /**
+     * Stop callers from joining the running calls whose key matches; they start a call of their own.
+     * Used when a write makes the result of reads already on their way out of date.
+     */
+    public void forget(Predicate<List<Object>> matching) {
+        flights.keySet().removeIf(matching);
+    }
+
+    /**
+     * Number of running calls that new callers can still join.
+     */
+    public int size() {
+        return flights.size();
+    }
+
+    private <T> T lead(List<Object> key, CompletableFuture<Object> flight, Supplier<T> call) {
+        T result;
+        try {
+            result = call.get();
+        } catch (RuntimeException | Error e) {
+            // Leave the map first, so nobody arriving from now on joins a finished call
+            flights.remove(key, flight);
+            if (wasInterrupted(e)) {
+                flight.cancel(false);
+            } else {
+                flight.completeExceptionally(e);
+            }
+            throw e;
+        }
+        flights.remove(key, flight);
+        flight.complete(result);
+        return result;
+    }
+
+    private static boolean wasInterrupted(Throwable e) {
+        if (Thread.currentThread().isInterrupted()) {
+            return true;
+        }
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof AbortedException || cause instanceof InterruptedException) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,291 @@
+package com.enterprise.s3browser.service;
+
+import java.io.EOFException;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Minimal streaming reader for tar archives: ustar, with PAX extended headers and GNU long names.
+ * After {@link #getNextEntry()} the stream reads the content of that entry and then reports
+ * end of file; moving to the next entry skips whatever was left unread.
+ */
+public class TarArchiveInputStream extends FilterInputStream {
+
+    private static final int BLOCK_SIZE = 512;
+    private static final int MAX_METADATA_SIZE = 1024 * 1024;
+
+    private final byte[] header = new byte[BLOCK_SIZE];
+    private long entryRemaining;
+    private long entryPadding;
+    private boolean endOfArchive;
+
+    public TarArchiveInputStream(InputStream in) {
+        super(in);
+    }
+
+    /**
+     * Advance to the next entry, or return null at the end of the archive.
+     */
+    public Entry getNextEntry() throws IOException {
+        if (endOfArchive) {
+            return null;
+        }
+        in.skipNBytes(entryRemaining + entryPadding);
+        entryRemaining = 0;
+        entryPadding = 0;
+
+        String longName = null;
+        Long longSize = null;
+        while (true) {
+            if (!readHeader()) {
+                endOfArchive = true;
+                return null;
+            }
+            byte type = header[156];
+            long size = parseNumber(124, 12);
+
+            if (type == 'x' || type == 'g') {
+                Map<String, String> records = parsePax(readMetadata(size));
+                // Global headers are skipped; only the per-entry path and size are honoured
+                if (type == 'x') {
+                    longName = records.getOrDefault("path", longName);
+                    longSize = records.containsKey("size") ? Long.valueOf(records.get("size")) : longSize;
+                }
+                continue;
+            }
+            if (type == 'L') {
+                longName = cString(readMetadata(size), 0, (int) size);
+                continue;
+            }
+
+            long entrySize = longSize != null ? longSize : size;
+            String name = longName != null ? longName : headerName();
+            Instant lastModified = Instant.ofEpochSecond(parseNumber(136, 12));
+            entryRemaining = type == '5' ? 0 : entrySize;
+            entryPadding = padding(entryRemaining);
+            return new Entry(name, entrySize, lastModified, (char) type);
+        }
+    }
+
+    @Override
+    public int read() throws IOException {
+        if (entryRemaining <= 0) {
+            return -1;
+        }
+        int b = in.read();
+        if (b < 0) {
+            throw new EOFException("Truncated tar entry");
+        }
+        entryRemaining--;
+        return b;
+    }
+
+    @Override
+    public int read(byte[] buffer, int offset, int length) throws IOException {
+        if (length == 0) {
+            return 0;
+        }
+        if (entryRemaining <= 0) {
+            return -1;
+        }
+        int read = in.read(buffer, offset, (int) Math.min(length, entryRemaining));
+        if (read < 0) {
+            throw new EOFException("Truncated tar entry");
+        }
+        entryRemaining -= read;
+        return read;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        long skipped = in.skip(Math.min(Math.max(n, 0), entryRemaining));
+        entryRemaining -= skipped;
+        return skipped;
+    }
+
+    @Override
+    public int available() throws IOException {
+        return (int) Math.min(in.available(), entryRemaining);
+    }
+
+    @Override
+    public boolean markSupported() {
+        return false;
+    }
+
+    @Override
+    public synchronized void mark(int readlimit) {
+    }
+
+    @Override
+    public synchronized void reset() throws IOException {
+        throw new IOException("mark/reset not supported");
+    }
+
+    /**
+     * Read the next header block; false at the end-of-archive marker or a clean end of input.
+     */
+    private boolean readHeader() throws IOException {
+        int read = in.readNBytes(header, 0, BLOCK_SIZE);
+        if (read == 0) {
+            return false;
+        }
+        if (read < BLOCK_SIZE) {
+            throw new EOFException("Truncated tar header");
+        }
+
+        long sum = 0;
+        boolean zero = true;
+        for (int i = 0; i < BLOCK_SIZE; i++) {
+            // The checksum field itself counts as spaces
+            int value = i >= 148 && i < 156 ? ' ' : header[i] & 0xff;
+            sum += value;
+            zero &= header[i] == 0;
+        }
+        if (zero) {
+            return false;
+        }
+        if (sum != parseNumber(148, 8)) {
+            throw new IOException("Invalid tar header checksum");
+        }
+        return true;
+    }
+
+    private byte[] readMetadata(long size) throws IOException {
+        if (size < 0 || size > MAX_METADATA_SIZE) {
+            throw new IOException("Tar extended header too large: " + size + " bytes");
+        }
+        byte[] data = in.readNBytes((int) size);
+        if (data.length < size) {
+            throw new EOFException("Truncated tar extended header");
+        }
+        in.skipNBytes(padding(size));
+        return data;
+    }
+
+    private String headerName() {
+        String name = cString(header, 0, 100);
+        boolean ustar = header[257] == 'u' && header[258] == 's' && header[259] == 't'
+                && header[260] == 'a' && header[261] == 'r';
+        String prefix = ustar ? cString(header, 345, 155) : "";
+        return prefix.isEmpty() ? name : prefix + "/" + name;
+    }
+
+    /**
+     * Parse a numeric field: octal digits, or big-endian base-256 when the high bit of the first byte is set.
+     */
+    private long parseNumber(int offset, int length) throws IOException {
+        if ((header[offset] & 0x80) != 0) {
+            long value = header[offset] & 0x7f;
+            for (int i = offset + 1; i < offset + length; i++) {
+                value = (value << 8) | (header[i] & 0xff);
+            }
+            return value;
+        }
+        long value = 0;
+        for (int i = offset; i < offset + length; i++) {
+            byte b = header[i];
+            if (b == 0 || (b == ' ' && value > 0)) {
+                break;
+            }
+            if (b == ' ') {
+                continue;
+            }
+            if (b < '0' || b > '7') {
+                throw new IOException("Invalid number in tar header");
+            }
+            value = value * 8 + (b - '0');
+        }
+        return value;
+    }
+
+    /**
+     * Parse PAX records of the form "&lt;length&gt; &lt;key&gt;=&lt;value&gt;\n".
+     */
+    private static Map<String, String> parsePax(byte[] data) throws IOException {
+        Map<String, String> records = new HashMap<>();
+        int position = 0;
+        while (position < data.length) {
+            int space = position;
+            while (space < data.length && data[space] != ' ') {
+                space++;
+            }
+            int length;
+            try {
+                length = Integer.parseInt(new String(data, position, space - position, StandardCharsets.US_ASCII));
+            } catch (NumberFormatException e) {
+                throw new IOException("Invalid PAX record", e);
+            }
+            int end = position + length;
+            if (length <= 0 || end > data.length || data[end - 1] != '\n') {
+                throw new IOException("Invalid PAX record");
+            }
+            String record = new String(data, space + 1, end - space - 2, StandardCharsets.UTF_8);
+            int equals = record.indexOf('=');
+            if (equals > 0) {
+                records.put(record.substring(0, equals), record.substring(equals + 1));
+            }
+            position = end;
+        }
+        return records;
+    }
+
+    private static String cString(byte[] bytes, int offset, int length) {
+        int end = offset;
+        while (end < offset + length && bytes[end] != 0) {
+            end++;
+        }
+        return new String(bytes, offset, end - offset, StandardCharsets.UTF_8);
+    }
+
+    private static long padding(long size) {
+        return (BLOCK_SIZE - size % BLOCK_SIZE) % BLOCK_SIZE;
+    }
+
+    /**
+     * A tar entry header. Only regular files carry content worth storing; directories,
+     * links and special files are reported so callers can skip them.
+     */
+    public static class Entry {
+        private final String name;
+        private final long size;
+        private final Instant lastModified;
+        private final char type;
+
+        Entry(String name, long size, Instant lastModified, char type) {
+            this.name = name;
+            this.size = size;
+            this.lastModified = lastModified;
+            this.type = type;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public long getSize() {
+            return size;
+        }
+
+        public Instant getLastModified() {
+            return lastModified;
+        }
+
+        public boolean isDirectory() {
+            return type == '5' || (isRegularType() && name.endsWith("/"));
+        }
+
+        public boolean isFile() {
+            return isRegularType() && !name.endsWith("/");
+        }
+
+        private boolean isRegularType() {
+            return type == '0' || type == 0 || type == '7';
+        }
+    }
+}
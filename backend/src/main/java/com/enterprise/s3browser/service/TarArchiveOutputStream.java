@@ -0,0 +1,180 @@
+package com.enterprise.s3browser.service;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+
+/**
+ * Minimal streaming writer for POSIX (ustar) tar archives.
+ * Names longer than the ustar field or not plain ASCII, and entries of 8 GiB or more,
+ * are described with a PAX extended header, so any key and object size can be stored.
+ */
+public class TarArchiveOutputStream extends FilterOutputStream {
+
+    private static final int BLOCK_SIZE = 512;
+    private static final int NAME_LENGTH = 100;
+    private static final long MAX_OCTAL_SIZE = 077777777777L;
+
+    private long entryRemaining = -1;
+    private long entrySize;
+    private boolean finished;
+
+    public TarArchiveOutputStream(OutputStream out) {
+        super(out);
+    }
+
+    /**
+     * Begin a regular file entry. Exactly {@code size} bytes must be written before {@link #closeEntry()}.
+     */
+    public void putEntry(String name, long size, Instant lastModified) throws IOException {
+        if (entryRemaining >= 0) {
+            throw new IOException("Previous entry was not closed");
+        }
+        long mtime = lastModified != null ? lastModified.getEpochSecond() : 0L;
+        byte[] nameBytes = name.getBytes(StandardCharsets.UTF_8);
+        boolean longName = nameBytes.length > NAME_LENGTH || nameBytes.length != name.length();
+        boolean largeSize = size > MAX_OCTAL_SIZE;
+
+        if (longName || largeSize) {
+            StringBuilder records = new StringBuilder();
+            if (longName) {
+                records.append(paxRecord("path", name));
+            }
+            if (largeSize) {
+                records.append(paxRecord("size", Long.toString(size)));
+            }
+            byte[] pax = records.toString().getBytes(StandardCharsets.UTF_8);
+            out.write(header("PaxHeader", pax.length, mtime, (byte) 'x'));
+            out.write(pax);
+            pad(pax.length);
+        }
+
+        String headerName = longName ? asciiTruncated(name) : name;
+        out.write(header(headerName, largeSize ? 0L : size, mtime, (byte) '0'));
+        entrySize = size;
+        entryRemaining = size;
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        write(new byte[] { (byte) b }, 0, 1);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        if (len > entryRemaining) {
+            throw new IOException("Entry content exceeds declared size of " + entrySize + " bytes");
+        }
+        out.write(b, off, len);
+        entryRemaining -= len;
+    }
+
+    /**
+     * Finish the current entry, padding its content to a whole block.
+     */
+    public void closeEntry() throws IOException {
+        if (entryRemaining != 0) {
+            throw new IOException("Entry content is " + entryRemaining + " bytes short of its declared size");
+        }
+        pad(entrySize);
+        entryRemaining = -1;
+    }
+
+    /**
+     * Write the end-of-archive marker without closing the underlying stream.
+     */
+    public void finish() throws IOException {
+        if (finished) {
+            return;
+        }
+        if (entryRemaining >= 0) {
+            throw new IOException("Last entry was not closed");
+        }
+        out.write(new byte[BLOCK_SIZE * 2]);
+        out.flush();
+        finished = true;
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            finish();
+        } finally {
+            out.close();
+        }
+    }
+
+    private void pad(long length) throws IOException {
+        int remainder = (int) (length % BLOCK_SIZE);
+        if (remainder != 0) {
+            out.write(new byte[BLOCK_SIZE - remainder]);
+        }
+    }
+
+    private static byte[] header(String name, long size, long mtime, byte type) {
+        byte[] header = new byte[BLOCK_SIZE];
+        putString(header, 0, NAME_LENGTH, name);
+        putOctal(header, 100, 8, 0644);
+        putOctal(header, 108, 8, 0);
+        putOctal(header, 116, 8, 0);
+        putOctal(header, 124, 12, size);
+        putOctal(header, 136, 12, mtime);
+        header[156] = type;
+        putString(header, 257, 6, "ustar");
+        putString(header, 263, 2, "00");
+
+        // The checksum is computed with its own field filled with spaces
+        for (int i = 148; i < 156; i++) {
+            header[i] = ' ';
+        }
+        long checksum = 0;
+        for (byte b : header) {
+            checksum += b & 0xff;
+        }
+        putOctal(header, 148, 7, checksum);
+        header[155] = ' ';
+        return header;
+    }
+
+    private static void putString(byte[] header, int offset, int length, String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.US_ASCII);
+        System.arraycopy(bytes, 0, header, offset, Math.min(bytes.length, length));
+    }
+
+    /**
+     * Zero-padded octal digits followed by a NUL, filling the field.
+     */
+    private static void putOctal(byte[] header, int offset, int length, long value) {
+        String octal = Long.toOctalString(value);
+        StringBuilder field = new StringBuilder();
+        for (int i = octal.length(); i < length - 1; i++) {
+            field.append('0');
+        }
+        field.append(octal);
+        putString(header, offset, length - 1, field.toString());
+        header[offset + length - 1] = 0;
+    }
+
+    /**
+     * A PAX record is "length key=value\n", where length counts the whole record including itself.
+     */
+    private static String paxRecord(String key, String value) {
+        int payload = key.getBytes(StandardCharsets.UTF_8).length + value.getBytes(StandardCharsets.UTF_8).length + 3;
+        int length = payload + Integer.toString(payload).length();
+        if (Integer.toString(length).length() != Integer.toString(payload).length()) {
+            length++;
+        }
+        return length + " " + key + "=" + value + "\n";
+    }
+
+    private static String asciiTruncated(String name) {
+        StringBuilder ascii = new StringBuilder();
+        for (int i = 0; i < name.length() && ascii.length() < NAME_LENGTH; i++) {
+            char c = name.charAt(i);
+            ascii.append(c < 0x80 ? c : '_');
+        }
+        return ascii.toString();
+    }
+}
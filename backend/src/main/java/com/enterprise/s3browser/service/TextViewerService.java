@@ -0,0 +1,418 @@
+package com.enterprise.s3browser.service;
+
+import com.enterprise.s3browser.exception.TextIndexNotReadyException;
+import com.enterprise.s3browser.model.ByteRange;
+import com.enterprise.s3browser.model.RequestConditions;
+import com.enterprise.s3browser.model.S3Configuration;
+import com.enterprise.s3browser.model.S3Object;
+import com.enterprise.s3browser.model.TextPage;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+import software.amazon.awssdk.core.ResponseInputStream;
+import software.amazon.awssdk.services.s3.model.GetObjectResponse;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Service for paging through large text objects without downloading them.
+ * Every page is read with a few small ranged GETs. A sparse line index per object
+ * version is built in the background with sequential ranged reads, so line numbers
+ * can be resolved to byte offsets by scanning at most one index stride.
+ */
+@Service
+public class TextViewerService {
+
+    private static final Logger logger = LoggerFactory.getLogger(TextViewerService.class);
+
+    @Autowired
+    private S3Service s3Service;
+
+    @Value("${s3.text-viewer.index-stride:1000}")
+    private int indexStride;
+
+    @Value("${s3.text-viewer.index-chunk-size:8388608}")
+    private long indexChunkSize;
+
+    @Value("${s3.text-viewer.index-threads:2}")
+    private int indexThreads;
+
+    @Value("${s3.text-viewer.max-indexes:64}")
+    private int maxIndexes;
+
+    @Value("${s3.text-viewer.read-size:65536}")
+    private int readSize;
+
+    @Value("${s3.text-viewer.max-scan-bytes:16777216}")
+    private long maxScanBytes;
+
+    @Value("${s3.text-viewer.max-lines:1000}")
+    private int maxLines;
+
+    @Value("${s3.text-viewer.max-line-length:16384}")
+    private int maxLineLength;
+
+    private ExecutorService indexExecutor;
+
+    // Least recently used indexes are dropped, and their scans stopped, beyond max-indexes
+    private final Map<String, LineIndex> indexes = new LinkedHashMap<>(16, 0.75f, true);
+
+    @PostConstruct
+    public void initialize() {
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(indexThreads, indexThreads, 60L, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), new CustomizableThreadFactory("text-index-"));
+        pool.allowCoreThreadTimeOut(true);
+        this.indexExecutor = pool;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        indexExecutor.shutdownNow();
+    }
+
+    /**
+     * Read lines starting at a zero-based line number.
+     * Lines beyond the index are reached by scanning forward from the last checkpoint,
+     * up to max-scan-bytes; further than that the caller has to wait for the index.
+     * Every scan of a request, including reading the page itself, reads at most max-scan-bytes,
+     * so a line longer than that is returned truncated.
+     */
+    public TextPage readLines(String key, long fromLine, int count) {
+        S3Object metadata = s3Service.getObjectMetadata(key);
+        LineIndex index = indexFor(key, metadata);
+        long[] checkpoint = index.checkpointFor(fromLine);
+        LineScanner scanner = new LineScanner(key, metadata, checkpoint[1]);
+
+        long line = checkpoint[0];
+        while (line < fromLine && scanner.skipLine()) {
+            line++;
+        }
+        if (line < fromLine && scanner.isExhausted()) {
+            throw new TextIndexNotReadyException("Line " + fromLine + " of " + key + " is not indexed yet",
+                    index.getIndexedLines());
+        }
+
+        TextPage page = readPage(scanner, metadata, index, count);
+        page.setStartLine(line);
+        return page;
+    }
+
+    /**
+     * Read the last lines of an object by scanning backwards from its end.
+     */
+    public TextPage readTail(String key, int count) {
+        S3Object metadata = s3Service.getObjectMetadata(key);
+        LineIndex index = indexFor(key, metadata);
+        int lines = limit(count);
+        long size = metadata.getSize();
+        RequestConditions conditions = pinned(metadata);
+
+        // Find the newline ending the line before the first wanted one; a newline ending the object does not count
+        long start = -1;
+        int newlines = 0;
+        long position = size;
+        byte[] buffer = new byte[readSize];
+        search:
+        while (position > 0 && size - position < maxScanBytes) {
+            long blockStart = Math.max(0, position - readSize);
+            int length = (int) (position - blockStart);
+            readFully(key, new ByteRange(blockStart, position - 1), conditions, buffer, length);
+            for (int i = length - 1; i >= 0; i--) {
+                long offset = blockStart + i;
+                if (buffer[i] == '\n' && offset != size - 1 && ++newlines == lines) {
+                    start = offset + 1;
+                    break search;
+                }
+            }
+            position = blockStart;
+        }
+
+        LineScanner scanner;
+        if (start >= 0 || position == 0) {
+            scanner = new LineScanner(key, metadata, Math.max(start, 0));
+        } else {
+            // Gave up scanning backwards inside a very long line; start at the next line boundary,
+            // or where the forward scan gives up too
+            scanner = new LineScanner(key, metadata, position - 1);
+            scanner.skipLine();
+        }
+
+        TextPage page = readPage(scanner, metadata, index, lines);
+        if (index.isComplete()) {
+            page.setStartLine(index.getTotalLines() - page.getLines().size());
+        }
+        return page;
+    }
+
+    /**
+     * Read lines starting at the first line that begins at or after a byte offset.
+     */
+    public TextPage readFromOffset(String key, long offset, int count) {
+        S3Object metadata = s3Service.getObjectMetadata(key);
+        LineIndex index = indexFor(key, metadata);
+        long start = Math.max(0, Math.min(offset, metadata.getSize()));
+
+        LineScanner scanner;
+        if (start == 0) {
+            scanner = new LineScanner(key, metadata, 0);
+        } else {
+            // Starting one byte early tells whether the offset is already at a line start; inside a line
+            // longer than max-scan-bytes the page starts where the scan gives up
+            scanner = new LineScanner(key, metadata, start - 1);
+            scanner.skipLine();
+        }
+
+        TextPage page = readPage(scanner, metadata, index, count);
+        page.setStartLine(lineNumberAt(key, metadata, index, page.getStartOffset()));
+        return page;
+    }
+
+    private TextPage readPage(LineScanner scanner, S3Object metadata, LineIndex index, int count) {
+        TextPage page = new TextPage();
+        page.setKey(metadata.getKey());
+        page.setEtag(metadata.getEtag());
+        page.setObjectSize(metadata.getSize());
+        page.setStartOffset(scanner.getPosition());
+        scanner.limitScan(maxScanBytes);
+
+        List<String> lines = new ArrayList<>();
+        String line;
+        int limit = limit(count);
+        while (lines.size() < limit && (line = scanner.readLine()) != null) {
+            lines.add(line);
+        }
+
+        page.setLines(lines);
+        page.setEndOffset(scanner.getPosition());
+        page.setIndexedLines(index.getIndexedLines());
+        page.setIndexComplete(index.isComplete());
+        if (index.isComplete()) {
+            page.setTotalLines(index.getTotalLines());
+        }
+        return page;
+    }
+
+    /**
+     * Line number of the line starting at an offset, if the index has reached it; scans at most one stride,
+     * and gives up beyond max-scan-bytes.
+     */
+    private Long lineNumberAt(String key, S3Object metadata, LineIndex index, long offset) {
+        if (index.getBytesScanned() < offset) {
+            return null;
+        }
+        long[] checkpoint = index.checkpointAtOffset(offset);
+        LineScanner scanner = new LineScanner(key, metadata, checkpoint[1]);
+        long line = checkpoint[0];
+        while (scanner.getPosition() < offset && scanner.skipLine()) {
+            line++;
+        }
+        return scanner.isExhausted() ? null : line;
+    }
+
+    /**
+     * Get the index for an object version, starting a background scan when there is none yet.
+     */
+    private LineIndex indexFor(String key, S3Object metadata) {
+        String indexKey = indexKey(key, metadata.getEtag());
+        LineIndex index;
+        synchronized (indexes) {
+            index = indexes.get(indexKey);
+            if (index != null) {
+                return index;
+            }
+            index = new LineIndex(indexStride);
+            indexes.put(indexKey, index);
+            if (indexes.size() > maxIndexes) {
+                Map.Entry<String, LineIndex> eldest = indexes.entrySet().iterator().next();
+                eldest.getValue().cancel();
+                indexes.remove(eldest.getKey());
+            }
+        }
+
+        LineIndex newIndex = index;
+        indexExecutor.execute(() -> buildIndex(indexKey, key, metadata, newIndex));
+        return index;
+    }
+
+    /**
+     * Scan the whole object in ranged chunks, resuming each chunk where the previous one stopped.
+     */
+    private void buildIndex(String indexKey, String key, S3Object metadata, LineIndex index) {
+        RequestConditions conditions = pinned(metadata);
+        byte[] buffer = new byte[readSize];
+        try {
+            while (!index.isCancelled() && index.getBytesScanned() < metadata.getSize()) {
+                long start = index.getBytesScanned();
+                ByteRange range = new ByteRange(start, Math.min(start + indexChunkSize, metadata.getSize()) - 1);
+                try (ResponseInputStream<GetObjectResponse> stream =
+                             s3Service.downloadObjectStream(key, range.toRangeHeader(), conditions)) {
+                    int read;
+                    while ((read = stream.read(buffer)) != -1) {
+                        index.scan(buffer, 0, read);
+                        if (index.isCancelled()) {
+                            stream.abort();
+                            return;
+                        }
+                    }
+                }
+            }
+            index.markComplete();
+            logger.info("Indexed {} lines of object {} ({} bytes, {} bytes of index)",
+                    index.getTotalLines(), key, metadata.getSize(), index.getMemoryBytes());
+        } catch (Exception e) {
+            logger.warn("Failed to index object {}: {}", key, e.getMessage());
+            // Forget the partial index so the next request starts a fresh scan
+            synchronized (indexes) {
+                indexes.remove(indexKey, index);
+            }
+        }
+    }
+
+    private void readFully(String key, ByteRange range, RequestConditions conditions, byte[] buffer, int length) {
+        try (ResponseInputStream<GetObjectResponse> stream =
+                     s3Service.downloadObjectStream(key, range.toRangeHeader(), conditions)) {
+            int read = stream.readNBytes(buffer, 0, length);
+            if (read != length) {
+                throw new IOException("Short read for range " + range + " of object " + key + ": " + read + " bytes");
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private int limit(int count) {
+        return Math.max(1, Math.min(count, maxLines));
+    }
+
+    private String indexKey(String key, String etag) {
+        S3Configuration config = s3Service.getCurrentConfig();
+        String bucket = config != null ? config.getEndpoint() + "\n" + config.getBucket() : "";
+        return bucket + "\n" + key + "\n" + etag;
+    }
+
+    private static RequestConditions pinned(S3Object metadata) {
+        RequestConditions conditions = new RequestConditions();
+        conditions.setIfMatch(metadata.getEtag());
+        return conditions;
+    }
+
+    /**
+     * Forward line reader over an object, fetching one read-size block per ranged GET.
+     * Reads stop at the scan limit as if the object ended there, and the scanner reports itself exhausted.
+     */
+    private class LineScanner {
+        private final String key;
+        private final long objectSize;
+        private final RequestConditions conditions;
+        private final byte[] buffer = new byte[readSize];
+        private long bufferStart;
+        private int bufferLength;
+        private int bufferPosition;
+        private long bytesRead;
+        private long scanLimit = maxScanBytes;
+        private boolean exhausted;
+
+        LineScanner(String key, S3Object metadata, long offset) {
+            this.key = key;
+            this.objectSize = metadata.getSize();
+            this.conditions = pinned(metadata);
+            this.bufferStart = offset;
+        }
+
+        /**
+         * Allow reading up to this many more bytes from here on.
+         */
+        void limitScan(long maxBytes) {
+            scanLimit = bytesRead + maxBytes;
+            exhausted = false;
+        }
+
+        /**
+         * Check if the last read stopped at the scan limit rather than at the end of the object.
+         */
+        boolean isExhausted() {
+            return exhausted;
+        }
+
+        long getPosition() {
+            return bufferStart + bufferPosition;
+        }
+
+        /**
+         * Move past the next line terminator. Returns false at the end of the object, or when the
+         * scan limit is reached before the end of the line.
+         */
+        boolean skipLine() {
+            boolean consumed = false;
+            while (ensureBuffer()) {
+                consumed = true;
+                byte b = buffer[bufferPosition++];
+                if (b == '\n') {
+                    return true;
+                }
+            }
+            return consumed && !exhausted;
+        }
+
+        /**
+         * Read the next line without its terminator, truncated to max-line-length or where the scan
+         * limit is reached, or null at the end.
+         */
+        String readLine() {
+            ByteArrayOutputStream line = new ByteArrayOutputStream();
+            boolean consumed = false;
+            while (ensureBuffer()) {
+                consumed = true;
+                byte b = buffer[bufferPosition++];
+                if (b == '\n') {
+                    break;
+                }
+                if (line.size() < maxLineLength) {
+                    line.write(b);
+                }
+            }
+            if (!consumed) {
+                return null;
+            }
+            String text = line.toString(StandardCharsets.UTF_8);
+            return text.endsWith("\r") ? text.substring(0, text.length() - 1) : text;
+        }
+
+        private boolean ensureBuffer() {
+            if (bufferPosition < bufferLength) {
+                return true;
+            }
+            long next = bufferStart + bufferLength;
+            if (next >= objectSize) {
+                return false;
+            }
+            if (bytesRead >= scanLimit) {
+                exhausted = true;
+                return false;
+            }
+            int length = (int) Math.min(readSize, objectSize - next);
+            readFully(key, new ByteRange(next, next + length - 1), conditions, buffer, length);
+            bufferStart = next;
+            bufferLength = length;
+            bufferPosition = 0;
+            bytesRead += length;
+            return true;
+        }
+    }
+}
@@ -0,0 +1,361 @@
+package com.enterprise.s3browser.service;
+
+import com.enterprise.s3browser.model.RequestConditions;
+import com.enterprise.s3browser.model.S3Configuration;
+import com.enterprise.s3browser.model.S3Object;
+import com.enterprise.s3browser.model.Thumbnail;
+import com.enterprise.s3browser.model.ThumbnailSize;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+import software.amazon.awssdk.core.ResponseInputStream;
+import software.amazon.awssdk.services.s3.model.GetObjectResponse;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Service rendering thumbnails of image objects.
+ * Images are decoded on a bounded worker pool, subsampled while decoding so huge images
+ * never have to be held at full resolution. One decode renders every fixed size, and the
+ * renditions are cached on disk by key, ETag and size.
+ */
+@Service
+public class ThumbnailService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ThumbnailService.class);
+
+    private static final String CONTENT_TYPE = "image/jpeg";
+
+    // Decode at no less than twice the largest edge so the final downscale stays sharp
+    private static final int DECODE_EDGE = ThumbnailSize.LARGE.getEdge() * 2;
+
+    @Autowired
+    private S3Service s3Service;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${s3.thumbnail.enabled:true}")
+    private boolean enabled;
+
+    @Value("${s3.thumbnail.directory:${java.io.tmpdir}/s3-browser-cache}")
+    private String directory;
+
+    @Value("${s3.thumbnail.max-size:536870912}")
+    private long maxSize;
+
+    @Value("${s3.thumbnail.threads:4}")
+    private int threads;
+
+    @Value("${s3.thumbnail.queue-capacity:256}")
+    private int queueCapacity;
+
+    @Value("${s3.thumbnail.max-source-size:52428800}")
+    private long maxSourceSize;
+
+    @Value("${s3.thumbnail.max-batch-size:200}")
+    private int maxBatchSize;
+
+    @Value("${s3.thumbnail.quality:0.8}")
+    private float quality;
+
+    private ExecutorService executor;
+    private DiskLruCache cache;
+    private Set<String> imageSuffixes;
+    private Timer renderTimer;
+
+    // Renders in progress per object version, so concurrent requests for different sizes decode once
+    private final Map<String, CompletableFuture<Map<ThumbnailSize, byte[]>>> renders = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void initialize() {
+        // Decode straight from the network stream instead of spooling every image to a temp file
+        ImageIO.setUseCache(false);
+        imageSuffixes = Arrays.stream(ImageIO.getReaderFileSuffixes())
+                .map(suffix -> suffix.toLowerCase(Locale.ROOT))
+                .collect(Collectors.toSet());
+
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(threads, threads, 60L, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(queueCapacity), new CustomizableThreadFactory("thumbnail-"));
+        pool.allowCoreThreadTimeOut(true);
+        this.executor = pool;
+        this.renderTimer = meterRegistry.timer("s3browser.thumbnail.render");
+
+        if (!enabled) {
+            return;
+        }
+        try {
+            cache = new DiskLruCache(Paths.get(directory, "thumbnails"), maxSize);
+            cache.registerMetrics(meterRegistry, "thumbnails");
+        } catch (IOException e) {
+            logger.error("Failed to initialize thumbnail cache in {}, thumbnails will not be cached", directory, e);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Check if thumbnails are enabled.
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Check if a key looks like an image the installed decoders can read.
+     */
+    public boolean isImage(String key) {
+        int dot = key.lastIndexOf('.');
+        return dot >= 0 && dot > key.lastIndexOf('/') && imageSuffixes.contains(key.substring(dot + 1).toLowerCase(Locale.ROOT));
+    }
+
+    /**
+     * Get the thumbnail of an object. Completes with null when the object is not a renderable image,
+     * and fails with {@link RejectedExecutionException} when the worker queue is full.
+     */
+    public CompletableFuture<Thumbnail> getThumbnail(String key, ThumbnailSize size) {
+        if (!enabled || !isImage(key)) {
+            return CompletableFuture.completedFuture(null);
+        }
+        try {
+            return CompletableFuture.supplyAsync(() -> loadThumbnail(key, size), executor);
+        } catch (RejectedExecutionException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    /**
+     * Get thumbnails of several objects at once. Objects without a thumbnail, or whose
+     * thumbnail failed, are left out of the result. When the worker queue fills up part way,
+     * the whole batch fails with {@link RejectedExecutionException}, so the client can tell
+     * an overload from objects that have no thumbnail and retry.
+     */
+    public CompletableFuture<List<Thumbnail>> getThumbnails(List<String> keys, ThumbnailSize size) {
+        if (keys.size() > maxBatchSize) {
+            throw new IllegalArgumentException("At most " + maxBatchSize + " thumbnails can be requested at once");
+        }
+        List<CompletableFuture<Thumbnail>> futures = new ArrayList<>();
+        for (String key : keys.stream().distinct().collect(Collectors.toList())) {
+            CompletableFuture<Thumbnail> thumbnail = getThumbnail(key, size);
+            if (thumbnail.isCompletedExceptionally()) {
+                // Only a rejection fails right away; thumbnails queued so far are cached when the client retries
+                return thumbnail.thenApply(rejected -> null);
+            }
+            futures.add(thumbnail.exceptionally(e -> {
+                logger.debug("No thumbnail for object {}: {}", key, e.getMessage());
+                return null;
+            }));
+        }
+        return CompletableFuture.allOf(futures.toArray(new CompletableFuture[0]))
+                .thenApply(done -> futures.stream()
+                        .map(CompletableFuture::join)
+                        .filter(Objects::nonNull)
+                        .collect(Collectors.toList()));
+    }
+
+    private Thumbnail loadThumbnail(String key, ThumbnailSize size) {
+        S3Object metadata = s3Service.getObjectMetadata(key);
+        if (metadata.getEtag() == null || metadata.getSize() > maxSourceSize) {
+            return null;
+        }
+
+        byte[] data = readCached(key, metadata.getEtag(), size);
+        if (data == null) {
+            Map<ThumbnailSize, byte[]> renditions = renderOnce(key, metadata);
+            data = renditions != null ? renditions.get(size) : null;
+        }
+        return data != null ? new Thumbnail(key, metadata.getEtag(), size, CONTENT_TYPE, data) : null;
+    }
+
+    private byte[] readCached(String key, String etag, ThumbnailSize size) {
+        if (cache == null) {
+            return null;
+        }
+        Path path = cache.get(cacheId(key, etag, size));
+        if (path == null) {
+            return null;
+        }
+        try {
+            return Files.readAllBytes(path);
+        } catch (IOException e) {
+            // Evicted between lookup and read; render again
+            return null;
+        }
+    }
+
+    /**
+     * Render all sizes of an object version, joining a render already in progress for it.
+     * The caller that starts a render runs it on its own worker thread, so waiting never
+     * depends on a queued task.
+     */
+    private Map<ThumbnailSize, byte[]> renderOnce(String key, S3Object metadata) {
+        String renderId = objectId(key) + "\n" + metadata.getEtag();
+        CompletableFuture<Map<ThumbnailSize, byte[]>> render = new CompletableFuture<>();
+        CompletableFuture<Map<ThumbnailSize, byte[]>> existing = renders.putIfAbsent(renderId, render);
+        if (existing != null) {
+            return existing.join();
+        }
+
+        try {
+            Map<ThumbnailSize, byte[]> renditions = renderTimer.record(() -> render(key, metadata));
+            if (renditions != null) {
+                storeCached(key, metadata.getEtag(), renditions);
+            }
+            render.complete(renditions);
+            return renditions;
+        } catch (RuntimeException e) {
+            render.completeExceptionally(e);
+            throw e;
+        } finally {
+            renders.remove(renderId, render);
+        }
+    }
+
+    private Map<ThumbnailSize, byte[]> render(String key, S3Object metadata) {
+        RequestConditions conditions = new RequestConditions();
+        conditions.setIfMatch(metadata.getEtag());
+
+        try (ResponseInputStream<GetObjectResponse> stream = s3Service.downloadObjectStream(key, null, conditions);
+             ImageInputStream input = ImageIO.createImageInputStream(stream)) {
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(input);
+            if (!readers.hasNext()) {
+                logger.debug("No image decoder for object {}", key);
+                return null;
+            }
+
+            ImageReader reader = readers.next();
+            BufferedImage image;
+            try {
+                reader.setInput(input, true, true);
+                int width = reader.getWidth(0);
+                int height = reader.getHeight(0);
+                int subsampling = Math.max(1, Math.max(width, height) / DECODE_EDGE);
+                ImageReadParam param = reader.getDefaultReadParam();
+                param.setSourceSubsampling(subsampling, subsampling, 0, 0);
+                image = reader.read(0, param);
+                logger.debug("Decoded object {} ({}x{}) at 1/{} as {}x{}",
+                        key, width, height, subsampling, image.getWidth(), image.getHeight());
+            } finally {
+                reader.dispose();
+            }
+
+            Map<ThumbnailSize, byte[]> renditions = new EnumMap<>(ThumbnailSize.class);
+            for (ThumbnailSize size : ThumbnailSize.values()) {
+                renditions.put(size, encode(scale(image, size.getEdge())));
+            }
+            return renditions;
+        } catch (IOException e) {
+            logger.warn("Failed to render thumbnail of object {}: {}", key, e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Scale an image to fit a square box, never enlarging it, onto an opaque white background.
+     */
+    private static BufferedImage scale(BufferedImage image, int edge) {
+        double factor = Math.min(1.0, (double) edge / Math.max(image.getWidth(), image.getHeight()));
+        int width = Math.max(1, (int) Math.round(image.getWidth() * factor));
+        int height = Math.max(1, (int) Math.round(image.getHeight() * factor));
+
+        BufferedImage scaled = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = scaled.createGraphics();
+        try {
+            graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            graphics.setColor(Color.WHITE);
+            graphics.fillRect(0, 0, width, height);
+            graphics.drawImage(image, 0, 0, width, height, null);
+        } finally {
+            graphics.dispose();
+        }
+        return scaled;
+    }
+
+    private byte[] encode(BufferedImage image) throws IOException {
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ImageOutputStream output = ImageIO.createImageOutputStream(bytes)) {
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(quality);
+            writer.setOutput(output);
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+        return bytes.toByteArray();
+    }
+
+    private void storeCached(String key, String etag, Map<ThumbnailSize, byte[]> renditions) {
+        if (cache == null) {
+            return;
+        }
+        for (Map.Entry<ThumbnailSize, byte[]> rendition : renditions.entrySet()) {
+            try {
+                Path tempFile = cache.createTempFile();
+                try (OutputStream out = Files.newOutputStream(tempFile)) {
+                    out.write(rendition.getValue());
+                }
+                cache.put(cacheId(key, etag, rendition.getKey()), tempFile);
+            } catch (IOException e) {
+                logger.warn("Failed to cache thumbnail of object {}: {}", key, e.getMessage());
+            }
+        }
+    }
+
+    private String cacheId(String key, String etag, ThumbnailSize size) {
+        return objectId(key) + "\n" + etag + "\n" + size.getName();
+    }
+
+    private String objectId(String key) {
+        S3Configuration config = s3Service.getCurrentConfig();
+        String endpoint = config != null ? config.getEndpoint() : "";
+        String bucket = config != null ? config.getBucket() : "";
+        return endpoint + "\n" + bucket + "\n" + key;
+    }
+}
@@ -0,0 +1,163 @@
+package com.enterprise.s3browser.service;
+
+import com.enterprise.s3browser.model.S3Object;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.function.Function;
+
+/**
+ * The objects under a prefix that S3 does not list: pending write-behind uploads and compacted
+ * objects, in key order. Both are read lazily as the listing they are merged into advances, so
+ * a prefix with millions of them costs no more than the entries actually listed. A pending upload
+ * wins over a compacted object of the same key.
+ */
+public class UnlistedObjects {
+
+    private final Iterator<S3Object> pending;
+    private final Iterator<S3Object> compacted;
+    private S3Object nextPending;
+    private S3Object nextCompacted;
+
+    public UnlistedObjects(Iterator<S3Object> pending, Iterator<S3Object> compacted) {
+        this.pending = pending;
+        this.compacted = compacted;
+        this.nextPending = pending.hasNext() ? pending.next() : null;
+        this.nextCompacted = compacted.hasNext() ? compacted.next() : null;
+    }
+
+    /**
+     * Merge a page of listed objects, in any order, with the unlisted objects up to and including
+     * a key, or all of them when the key is null. The returned iterator yields them in key order
+     * and takes the unlisted ones out as it reaches them. Pending uploads replace listed objects;
+     * anything else listed wins, so folders are not repeated.
+     */
+    public Iterator<S3Object> mergeWith(List<S3Object> page, String upTo) {
+        List<S3Object> listed = new ArrayList<>(page);
+        listed.sort(Comparator.comparing(S3Object::getKey));
+        return new Iterator<S3Object>() {
+            private int index;
+
+            @Override
+            public boolean hasNext() {
+                return index < listed.size() || nextUpTo(upTo) != null;
+            }
+
+            @Override
+            public S3Object next() {
+                S3Object unlisted = nextUpTo(upTo);
+                S3Object object = index < listed.size() ? listed.get(index) : null;
+                if (unlisted == null && object == null) {
+                    throw new NoSuchElementException();
+                }
+                if (object == null) {
+                    return take();
+                }
+                if (unlisted == null) {
+                    return listed.get(index++);
+                }
+                int order = unlisted.getKey().compareTo(object.getKey());
+                if (order < 0) {
+                    return take();
+                }
+                index++;
+                if (order > 0) {
+                    return object;
+                }
+                take();
+                return unlisted.isPending() ? unlisted : object;
+            }
+        };
+    }
+
+    /**
+     * The unlisted objects not merged into a page yet, in key order.
+     */
+    public Iterator<S3Object> remaining() {
+        return mergeWith(List.of(), null);
+    }
+
+    private S3Object nextUpTo(String upTo) {
+        S3Object next = peek();
+        return next != null && (upTo == null || next.getKey().compareTo(upTo) <= 0) ? next : null;
+    }
+
+    private S3Object peek() {
+        if (nextPending == null) {
+            return nextCompacted;
+        }
+        return nextCompacted == null || nextPending.getKey().compareTo(nextCompacted.getKey()) <= 0 ? nextPending : nextCompacted;
+    }
+
+    private S3Object take() {
+        S3Object next = peek();
+        if (next == nextPending) {
+            if (nextCompacted != null && nextCompacted.getKey().equals(next.getKey())) {
+                nextCompacted = compacted.hasNext() ? compacted.next() : null;
+            }
+            nextPending = pending.hasNext() ? pending.next() : null;
+        } else {
+            nextCompacted = compacted.hasNext() ? compacted.next() : null;
+        }
+        return next;
+    }
+
+    /**
+     * The entries directly under a prefix, with keys after startAfter, of objects anywhere below it:
+     * objects further down show up once as the folder directly under the prefix. The objects are
+     * read from {@code after}, which returns those with keys after the given one (from the start
+     * when null) in key order; it is asked again past each folder, so the folder's own objects are
+     * skipped rather than read.
+     */
+    static Iterator<S3Object> delimited(String prefix, String startAfter, Function<String, Iterator<S3Object>> after) {
+        String listPrefix = prefix != null ? prefix : "";
+        return new Iterator<S3Object>() {
+            private Iterator<S3Object> objects = after.apply(startAfter);
+            private S3Object next = advance();
+
+            @Override
+            public boolean hasNext() {
+                return next != null;
+            }
+
+            @Override
+            public S3Object next() {
+                if (next == null) {
+                    throw new NoSuchElementException();
+                }
+                S3Object current = next;
+                if (current.isDirectory()) {
+                    // Every key starting with the folder sorts before this one
+                    objects = after.apply(current.getKey() + Character.MAX_VALUE);
+                }
+                next = advance();
+                return current;
+            }
+
+            private S3Object advance() {
+                while (objects.hasNext()) {
+                    S3Object object = objects.next();
+                    String rest = object.getKey().substring(listPrefix.length());
+                    int slash = rest.indexOf('/');
+                    if (rest.isEmpty()) {
+                        continue;
+                    }
+                    if (slash < 0) {
+                        return object;
+                    }
+                    String folder = listPrefix + rest.substring(0, slash + 1);
+                    if (startAfter != null && folder.compareTo(startAfter) <= 0) {
+                        // The folder itself was listed before; go on past its objects
+                        objects = after.apply(folder + Character.MAX_VALUE);
+                        continue;
+                    }
+                    return new S3Object(folder, null, 0, null, null, true);
+                }
+                return null;
+            }
+        };
+    }
+}
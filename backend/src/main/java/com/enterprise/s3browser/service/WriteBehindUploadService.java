@@ -0,0 +1,547 @@
+package com.enterprise.s3browser.service;
+
+import com.enterprise.s3browser.model.S3Configuration;
+import com.enterprise.s3browser.model.S3Object;
+import com.enterprise.s3browser.model.StagedUpload;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Service for write-behind uploads. When enabled, an upload is written to a local staging
+ * directory and synced to disk before it is acknowledged; background workers then store it
+ * in S3, retrying with backoff while the backend is slow or unavailable. Uploads of the same
+ * key reach S3 in the order they were accepted, and a staged upload superseded by a newer one
+ * of the same key before it started is dropped. Staged uploads survive restarts.
+ */
+@Service
+public class WriteBehindUploadService {
+
+    private static final Logger logger = LoggerFactory.getLogger(WriteBehindUploadService.class);
+
+    private static final String METADATA_SUFFIX = ".json";
+    private static final String DATA_SUFFIX = ".data";
+    private static final String TEMP_SUFFIX = ".tmp";
+
+    @Autowired
+    private S3Service s3Service;
+
+    @Autowired
+    private MultipartUploadService multipartUploadService;
+
+    @Value("${s3.upload.write-behind.enabled:false}")
+    private boolean enabled;
+
+    @Value("${s3.upload.write-behind.directory:${java.io.tmpdir}/s3-browser-cache}")
+    private String directory;
+
+    @Value("${s3.upload.write-behind.concurrency:4}")
+    private int concurrency;
+
+    @Value("${s3.upload.write-behind.max-staged-size:1073741824}")
+    private long maxStagedSize;
+
+    @Value("${s3.upload.write-behind.retry-initial-delay-seconds:1}")
+    private long retryInitialDelaySeconds;
+
+    @Value("${s3.upload.write-behind.retry-max-delay-seconds:60}")
+    private long retryMaxDelaySeconds;
+
+    private Clock clock = Clock.systemUTC();
+
+    private final ObjectMapper objectMapper = JsonMapper.builder()
+            .addModule(new JavaTimeModule())
+            .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
+            .build();
+
+    // Staged uploads per bucket and key, oldest first; guarded by this
+    private final Map<String, Deque<StagedUpload>> queues = new LinkedHashMap<>();
+    // Id of the upload being stored per bucket and key; guarded by this
+    private final Map<String, String> inFlight = new HashMap<>();
+    // Uploads being stored while their key was deleted; guarded by this
+    private final Set<String> discarded = new HashSet<>();
+    private final AtomicLong sequence = new AtomicLong();
+    private final AtomicLong stagedBytes = new AtomicLong();
+
+    private Path stagingDirectory;
+    private ExecutorService workers;
+    private ScheduledExecutorService scheduler;
+
+    @PostConstruct
+    public void initialize() {
+        if (!enabled) {
+            return;
+        }
+        stagingDirectory = Paths.get(directory, "write-behind");
+        try {
+            Files.createDirectories(stagingDirectory);
+            recover();
+        } catch (IOException e) {
+            logger.error("Failed to recover staged uploads from {}", stagingDirectory, e);
+        }
+
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(concurrency, concurrency, 60L, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), new CustomizableThreadFactory("write-behind-"));
+        pool.allowCoreThreadTimeOut(true);
+        this.workers = pool;
+        ScheduledThreadPoolExecutor timer = new ScheduledThreadPoolExecutor(1, new CustomizableThreadFactory("write-behind-scheduler-"));
+        timer.setRemoveOnCancelPolicy(true);
+        this.scheduler = timer;
+        // Picks up retries once their backoff has passed, and uploads waiting for their bucket to be selected again
+        scheduler.scheduleWithFixedDelay(this::pump, 1, 1, TimeUnit.SECONDS);
+
+        logger.info("Write-behind uploads enabled with {} staged uploads ({} bytes) pending",
+                pendingCount(), stagedBytes.get());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+        if (workers != null) {
+            // Interrupted uploads stay staged and are retried after the restart
+            workers.shutdownNow();
+            try {
+                // Let workers finish recording the outcome of their last attempt
+                workers.awaitTermination(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Stage an upload of known length and queue it for storing in S3. Returns null, leaving the
+     * stream unread, when write-behind is disabled, the length is unknown or the staging
+     * directory has no room for it; the caller should then upload directly.
+     */
+    public StagedUpload tryStage(String key, InputStream inputStream, long contentLength, String contentType) throws IOException {
+        if (!enabled || contentLength < 0) {
+            return null;
+        }
+        String bucket = currentBucket();
+        if (bucket == null) {
+            return null;
+        }
+        if (stagedBytes.addAndGet(contentLength) > maxStagedSize) {
+            stagedBytes.addAndGet(-contentLength);
+            logger.debug("Staging directory full, uploading {} directly", key);
+            return null;
+        }
+
+        long number = sequence.incrementAndGet();
+        StagedUpload upload = new StagedUpload(String.format("%019d", number), number, bucket, key,
+                contentType, contentLength, clock.instant());
+        try {
+            writeData(upload, inputStream);
+            save(upload);
+            sync(stagingDirectory);
+        } catch (IOException | RuntimeException e) {
+            stagedBytes.addAndGet(-contentLength);
+            delete(upload);
+            throw e;
+        }
+
+        synchronized (this) {
+            queues.computeIfAbsent(queueKey(upload), k -> new ArrayDeque<>()).addLast(upload);
+        }
+        logger.info("Staged upload of object {} ({} bytes) as {}", key, contentLength, upload.getId());
+        pump();
+        return upload;
+    }
+
+    /**
+     * The latest staged upload of every key under the prefix in the current bucket, oldest first.
+     */
+    public synchronized List<StagedUpload> getPending(String prefix) {
+        String bucket = currentBucket();
+        List<StagedUpload> pending = new ArrayList<>();
+        for (Deque<StagedUpload> queue : queues.values()) {
+            StagedUpload latest = queue.peekLast();
+            if (latest != null && !discarded.contains(latest.getId()) && latest.getBucket() != null && latest.getBucket().equals(bucket)
+                    && (prefix == null || latest.getKey().startsWith(prefix))) {
+                pending.add(latest);
+            }
+        }
+        pending.sort(Comparator.comparingLong(StagedUpload::getSequence));
+        return pending;
+    }
+
+    /**
+     * The latest staged upload of the key in the current bucket, or null when none is pending.
+     */
+    public synchronized StagedUpload getPendingUpload(String key) {
+        Deque<StagedUpload> queue = queues.get(queueKey(currentBucket(), key));
+        StagedUpload latest = queue != null ? queue.peekLast() : null;
+        return latest != null && !discarded.contains(latest.getId()) ? latest : null;
+    }
+
+    /**
+     * Open the content of a staged upload, or return null when it has been stored in S3 meanwhile.
+     */
+    public synchronized InputStream openPending(StagedUpload upload) throws IOException {
+        try {
+            return Files.newInputStream(dataFile(upload.getId()));
+        } catch (NoSuchFileException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Drop the staged uploads of a key that is being deleted, so none of them writes the object
+     * back. An upload already being stored cannot be stopped; the object is deleted again once
+     * it is stored.
+     */
+    public void discardPending(String key) {
+        String bucket = currentBucket();
+        if (!enabled || bucket == null) {
+            return;
+        }
+        String queueKey = queueKey(bucket, key);
+        synchronized (this) {
+            Deque<StagedUpload> queue = queues.get(queueKey);
+            if (queue == null) {
+                return;
+            }
+            String storing = inFlight.get(queueKey);
+            Iterator<StagedUpload> iterator = queue.iterator();
+            while (iterator.hasNext()) {
+                StagedUpload upload = iterator.next();
+                if (upload.getId().equals(storing)) {
+                    discarded.add(storing);
+                    continue;
+                }
+                iterator.remove();
+                logger.info("Dropping staged upload {} of deleted object {}", upload.getId(), key);
+                discard(upload);
+            }
+            if (queue.isEmpty()) {
+                queues.remove(queueKey);
+            }
+        }
+    }
+
+    /**
+     * The staged uploads under the prefix with keys after startAfter (all when null) as pending
+     * objects in key order, or when not recursive as the objects and folders directly under the
+     * prefix. Staged uploads are bounded by the staging budget, so they are sorted up front.
+     */
+    public Iterator<S3Object> pendingObjects(String prefix, String startAfter, boolean recursive) {
+        if (!enabled) {
+            return Collections.emptyIterator();
+        }
+        NavigableMap<String, S3Object> sorted = new TreeMap<>();
+        for (StagedUpload upload : getPending(prefix)) {
+            sorted.put(upload.getKey(), toObject(upload));
+        }
+        Function<String, Iterator<S3Object>> after = key -> (key != null ? sorted.tailMap(key, false) : sorted).values().iterator();
+        return recursive ? after.apply(startAfter) : UnlistedObjects.delimited(prefix, startAfter, after);
+    }
+
+    private static S3Object toObject(StagedUpload upload) {
+        S3Object object = new S3Object(upload.getKey(), null, upload.getSize(), upload.getStagedAt(), null, false);
+        object.setContentType(upload.getContentType());
+        object.setPending(true);
+        return object;
+    }
+
+    public synchronized int pendingCount() {
+        return queues.values().stream().mapToInt(Deque::size).sum();
+    }
+
+    /**
+     * Hand the next upload of every idle key to a worker, as far as the concurrency limit allows.
+     */
+    synchronized void pump() {
+        if (workers == null || workers.isShutdown()) {
+            return;
+        }
+        Instant now = clock.instant();
+        String bucket = currentBucket();
+        Iterator<Map.Entry<String, Deque<StagedUpload>>> iterator = queues.entrySet().iterator();
+        while (iterator.hasNext() && inFlight.size() < concurrency) {
+            Map.Entry<String, Deque<StagedUpload>> entry = iterator.next();
+            String queueKey = entry.getKey();
+            Deque<StagedUpload> queue = entry.getValue();
+            if (inFlight.containsKey(queueKey)) {
+                continue;
+            }
+            while (queue.size() > 1) {
+                // Only the newest content of a key needs to reach S3
+                StagedUpload superseded = queue.removeFirst();
+                logger.debug("Dropping staged upload {} of {}, superseded by a newer one", superseded.getId(), superseded.getKey());
+                discard(superseded);
+            }
+            StagedUpload next = queue.peekFirst();
+            if (next == null) {
+                iterator.remove();
+                continue;
+            }
+            // Uploads go to the current bucket, so those of another bucket wait until it is selected again
+            if (!next.getBucket().equals(bucket) || next.getNextAttemptAt().isAfter(now)) {
+                continue;
+            }
+            inFlight.put(queueKey, next.getId());
+            try {
+                workers.execute(() -> push(queueKey, next));
+            } catch (RejectedExecutionException e) {
+                inFlight.remove(queueKey);
+                return;
+            }
+        }
+    }
+
+    private void push(String queueKey, StagedUpload upload) {
+        boolean done = false;
+        boolean deleted = false;
+        try (InputStream content = Files.newInputStream(dataFile(upload.getId()))) {
+            if (multipartUploadService.shouldUseMultipart(upload.getSize())) {
+                multipartUploadService.upload(upload.getKey(), content, upload.getSize(), upload.getContentType());
+            } else {
+                s3Service.uploadObject(upload.getKey(), content, upload.getSize(), upload.getContentType());
+            }
+            done = true;
+            logger.info("Stored staged upload {} of object {} after {} failed attempts",
+                    upload.getId(), upload.getKey(), upload.getAttempts());
+        } catch (NoSuchFileException e) {
+            done = true;
+            logger.error("Content of staged upload {} of object {} is missing; dropping it", upload.getId(), upload.getKey());
+        } catch (IOException | RuntimeException e) {
+            retryLater(upload, e);
+        } finally {
+            synchronized (this) {
+                deleted = discarded.remove(upload.getId());
+                if (!done || !deleted) {
+                    inFlight.remove(queueKey);
+                }
+                if (done || deleted) {
+                    Deque<StagedUpload> queue = queues.get(queueKey);
+                    if (queue != null) {
+                        queue.remove(upload);
+                        if (queue.isEmpty()) {
+                            queues.remove(queueKey);
+                        }
+                    }
+                    discard(upload);
+                }
+            }
+        }
+        if (done && deleted) {
+            // The key stays in flight until the object is deleted, so a newer upload of it is not stored first
+            deleteStored(upload);
+            synchronized (this) {
+                inFlight.remove(queueKey);
+            }
+        }
+        pump();
+    }
+
+    /**
+     * Delete an object again after a staged upload of it was stored while it was being deleted.
+     */
+    private void deleteStored(StagedUpload upload) {
+        try {
+            s3Service.deleteObject(upload.getKey());
+            logger.info("Deleted object {} stored by staged upload {} after it was deleted", upload.getKey(), upload.getId());
+        } catch (RuntimeException e) {
+            logger.warn("Failed to delete object {} stored by staged upload {}: {}", upload.getKey(), upload.getId(), e.getMessage());
+        }
+    }
+
+    private void retryLater(StagedUpload upload, Exception e) {
+        int attempts = upload.getAttempts() + 1;
+        long delay = Math.max(1, retryInitialDelaySeconds) << Math.min(attempts - 1, 20);
+        upload.setLastError(e.getMessage());
+        upload.setNextAttemptAt(clock.instant().plus(Duration.ofSeconds(Math.min(delay, retryMaxDelaySeconds))));
+        upload.setAttempts(attempts);
+        logger.warn("Failed to store staged upload {} of object {} (attempt {}), retrying at {}: {}",
+                upload.getId(), upload.getKey(), attempts, upload.getNextAttemptAt(), e.getMessage());
+        try {
+            save(upload);
+        } catch (IOException saveError) {
+            logger.warn("Failed to record attempt of staged upload {}: {}", upload.getId(), saveError.getMessage());
+        }
+    }
+
+    /**
+     * Reload staged uploads in the order they were accepted and clean up after interrupted staging.
+     */
+    private void recover() throws IOException {
+        List<StagedUpload> recovered = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(stagingDirectory)) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                if (name.endsWith(TEMP_SUFFIX)) {
+                    Files.deleteIfExists(file);
+                } else if (name.endsWith(METADATA_SUFFIX)) {
+                    try {
+                        recovered.add(objectMapper.readValue(file.toFile(), StagedUpload.class));
+                    } catch (IOException e) {
+                        logger.warn("Ignoring unreadable staged upload {}: {}", file, e.getMessage());
+                    }
+                }
+            }
+        }
+        recovered.sort(Comparator.comparingLong(StagedUpload::getSequence));
+        Set<String> ids = new HashSet<>();
+        synchronized (this) {
+            for (StagedUpload upload : recovered) {
+                if (!Files.exists(dataFile(upload.getId()))) {
+                    logger.warn("Dropping staged upload {} of object {} without content", upload.getId(), upload.getKey());
+                    Files.deleteIfExists(metadataFile(upload.getId()));
+                    continue;
+                }
+                ids.add(upload.getId());
+                upload.setNextAttemptAt(clock.instant());
+                queues.computeIfAbsent(queueKey(upload), k -> new ArrayDeque<>()).addLast(upload);
+                stagedBytes.addAndGet(upload.getSize());
+                sequence.accumulateAndGet(upload.getSequence(), Math::max);
+            }
+        }
+        // Content whose metadata was never written belongs to an upload that was not acknowledged
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(stagingDirectory, "*" + DATA_SUFFIX)) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                if (!ids.contains(name.substring(0, name.length() - DATA_SUFFIX.length()))) {
+                    Files.deleteIfExists(file);
+                }
+            }
+        }
+    }
+
+    /**
+     * Copy the content to its staging file and sync it to disk; it must have exactly the announced length.
+     */
+    private void writeData(StagedUpload upload, InputStream inputStream) throws IOException {
+        Path file = dataFile(upload.getId());
+        Path temp = file.resolveSibling(file.getFileName() + TEMP_SUFFIX);
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+            OutputStream out = Channels.newOutputStream(channel);
+            long written = inputStream.transferTo(out);
+            if (written != upload.getSize()) {
+                throw new IOException("Upload of " + upload.getKey() + " ended after " + written
+                        + " of " + upload.getSize() + " bytes");
+            }
+            channel.force(true);
+        } catch (IOException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+        Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Write the metadata through a synced temporary file; once it is in place the upload is durable.
+     */
+    private void save(StagedUpload upload) throws IOException {
+        Path file = metadataFile(upload.getId());
+        Path temp = file.resolveSibling(file.getFileName() + TEMP_SUFFIX);
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.WRITE)) {
+            Channels.newOutputStream(channel).write(objectMapper.writeValueAsBytes(upload));
+            channel.force(true);
+        }
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private void discard(StagedUpload upload) {
+        stagedBytes.addAndGet(-upload.getSize());
+        delete(upload);
+    }
+
+    private void delete(StagedUpload upload) {
+        try {
+            // Metadata first: content without metadata is cleaned up on the next start
+            Files.deleteIfExists(metadataFile(upload.getId()));
+            Files.deleteIfExists(dataFile(upload.getId()));
+        } catch (IOException e) {
+            logger.warn("Failed to delete staged upload {}: {}", upload.getId(), e.getMessage());
+        }
+    }
+
+    /**
+     * Sync a directory so renames in it survive a crash; not every platform supports this.
+     */
+    private static void sync(Path directory) {
+        try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException e) {
+            logger.trace("Cannot sync directory {}: {}", directory, e.getMessage());
+        }
+    }
+
+    private Path metadataFile(String id) {
+        return stagingDirectory.resolve(id + METADATA_SUFFIX);
+    }
+
+    private Path dataFile(String id) {
+        return stagingDirectory.resolve(id + DATA_SUFFIX);
+    }
+
+    private static String queueKey(StagedUpload upload) {
+        return queueKey(upload.getBucket(), upload.getKey());
+    }
+
+    private static String queueKey(String bucket, String key) {
+        // Bucket names cannot contain a slash
+        return bucket + "/" + key;
+    }
+
+    private String currentBucket() {
+        S3Configuration config = s3Service.getCurrentConfig();
+        return config != null ? config.getBucket() : null;
+    }
+}
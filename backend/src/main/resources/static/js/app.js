@@ -4,6 +4,26 @@ class S3Browser {
         this.token = localStorage.getItem('authToken');
         this.currentPath = '';
         this.uploadQueue = [];
+        // Presigned URLs let transfers go straight to the S3 endpoint; cleared once the server reports them disabled
+        this.presignAvailable = true;
+        // Cleared once the server reports thumbnails disabled
+        this.thumbnailsAvailable = true;
+        // Files this large go up as resumable chunked uploads, several chunks at a time
+        this.resumableThreshold = 32 * 1024 * 1024;
+        this.uploadConcurrency = 4;
+        this.chunkRetries = 3;
+        // Files up to this size are sent together as tar archives, one request per batch
+        this.batchFileLimit = 1024 * 1024;
+        this.batchMaxFiles = 1000;
+        this.batchMaxBytes = 32 * 1024 * 1024;
+        // Files in this range are hashed first, so content already in the bucket is copied instead of sent
+        this.dedupMinSize = 1024 * 1024;
+        this.dedupMaxSize = 64 * 1024 * 1024;
+        // Listings arrive a page at a time; the next page is fetched as the end of the table scrolls into view
+        this.pageSize = 500;
+        this.nextPageToken = null;
+        this.loadingPage = false;
+        this.listingGeneration = 0;
         
         this.init();
     }
@@ -50,6 +70,9 @@ class S3Browser {
             this.handleFileSelect(e.dataTransfer.files);
         });
         
+        // Infinite scroll
+        window.addEventListener('scroll', () => this.fillViewport());
+        
         // Search
         document.getElementById('searchInput').addEventListener('keypress', (e) => {
             if (e.key === 'Enter') {
@@ -142,24 +165,23 @@ class S3Browser {
     
     async loadFiles(prefix = '') {
         this.showLoading(true);
+        // Any page still in flight belongs to the previous listing
+        const generation = ++this.listingGeneration;
+        this.nextPageToken = null;
         
         try {
-            const url = new URL(`${window.location.origin}${this.baseUrl}/s3/objects`);
-            if (prefix) {
-                url.searchParams.append('prefix', prefix);
+            const response = await this.fetchPage(prefix);
+            if (generation !== this.listingGeneration) {
+                return;
             }
             
-            const response = await fetch(url, {
-                headers: {
-                    'Authorization': `Bearer ${this.token}`
-                }
-            });
-            
             if (response.ok) {
                 const files = await response.json();
                 this.renderFiles(files);
                 this.updateBreadcrumb(prefix);
                 this.currentPath = prefix;
+                this.nextPageToken = response.headers.get('X-Continuation-Token');
+                this.fillViewport();
             } else {
                 this.showError('filesError', 'Failed to load files');
             }
@@ -170,13 +192,70 @@ class S3Browser {
         }
     }
     
-    renderFiles(files) {
+    async loadMoreFiles() {
+        if (!this.nextPageToken || this.loadingPage) {
+            return;
+        }
+        
+        this.loadingPage = true;
+        const generation = this.listingGeneration;
+        
+        try {
+            const response = await this.fetchPage(this.currentPath, this.nextPageToken);
+            if (generation !== this.listingGeneration) {
+                return;
+            }
+            
+            if (response.ok) {
+                const files = await response.json();
+                this.renderFiles(files, true);
+                this.nextPageToken = response.headers.get('X-Continuation-Token');
+            } else {
+                this.nextPageToken = null;
+                this.showError('filesError', 'Failed to load more files');
+            }
+        } catch (error) {
+            this.showError('filesError', 'Connection error: ' + error.message);
+        } finally {
+            this.loadingPage = false;
+        }
+        
+        this.fillViewport();
+    }
+    
+    fetchPage(prefix, continuationToken = null) {
+        const url = new URL(`${window.location.origin}${this.baseUrl}/s3/objects`);
+        if (prefix) {
+            url.searchParams.append('prefix', prefix);
+        }
+        url.searchParams.append('pageSize', this.pageSize);
+        if (continuationToken) {
+            url.searchParams.append('continuationToken', continuationToken);
+        }
+        
+        return fetch(url, {
+            headers: {
+                'Authorization': `Bearer ${this.token}`
+            }
+        });
+    }
+    
+    // Load the next page while the end of the table is within a screen of the viewport
+    fillViewport() {
+        if (this.nextPageToken && window.innerHeight + window.scrollY >= document.body.offsetHeight - window.innerHeight) {
+            this.loadMoreFiles();
+        }
+    }
+    
+    renderFiles(files, append = false) {
         const tbody = document.getElementById('filesTableBody');
         const emptyState = document.getElementById('emptyState');
         
         if (files.length === 0) {
-            tbody.innerHTML = '';
-            emptyState.classList.remove('d-none');
+            if (!append) {
+                tbody.innerHTML = '';
+                emptyState.classList.remove('d-none');
+            }
             return;
         }
         
@@ -190,7 +269,7 @@ class S3Browser {
             return a.key.localeCompare(b.key);
         });
         
-        tbody.innerHTML = files.map(file => {
+        const rows = files.map(file => {
             const icon = file.directory ? 
                 '<i class="bi bi-folder-fill folder-icon"></i>' : 
                 this.getFileIcon(file.key);
@@ -200,20 +279,27 @@ class S3Browser {
                 new Date(file.lastModified).toLocaleString() : '-';
             
             const fileName = this.getFileName(file.key);
+            const pendingBadge = file.pending ?
+                '<span class="badge bg-secondary ms-2" title="Accepted, not yet stored in S3">pending</span>' : '';
             const clickableFileName = file.directory ? 
                 `<a href="#" class="text-decoration-none file-name-link" onclick="app.openFolder('${file.key}'); return false;">
                     <span class="file-icon">${icon}</span>
                     ${fileName}
                 </a>` :
                 `<a href="#" class="text-decoration-none file-name-link" onclick="app.downloadFile('${file.key}'); return false;">
-                    <span class="file-icon">${icon}</span>
-                    ${fileName}
+                    <span class="file-icon" data-thumbnail-key="${encodeURIComponent(file.key)}">${icon}</span>
+                    ${fileName}${pendingBadge}
                 </a>`;
             
             const actions = file.directory ? 
-                `<button class="btn btn-sm btn-outline-primary" onclick="app.openFolder('${file.key}')">
-                    <i class="bi bi-folder-open"></i>
-                </button>` :
+                `<div class="btn-group" role="group">
+                    <button class="btn btn-sm btn-outline-primary" onclick="app.openFolder('${file.key}')">
+                        <i class="bi bi-folder-open"></i>
+                    </button>
+                    <button class="btn btn-sm btn-outline-success" onclick="app.downloadFolder('${file.key}')" title="Download as ZIP">
+                        <i class="bi bi-file-earmark-zip"></i>
+                    </button>
+                </div>` :
                 `<div class="btn-group" role="group">
                     <button class="btn btn-sm btn-outline-success" onclick="app.downloadFile('${file.key}')" title="Download">
                         <i class="bi bi-download"></i>
@@ -234,6 +320,56 @@ class S3Browser {
                 </tr>
             `;
         }).join('');
+        
+        if (append) {
+            tbody.insertAdjacentHTML('beforeend', rows);
+        } else {
+            tbody.innerHTML = rows;
+        }
+        
+        this.loadThumbnails(files.filter(file => !file.directory && this.isImageFile(file.key)));
+    }
+    
+    isImageFile(filename) {
+        const ext = filename.split('.').pop().toLowerCase();
+        return ['jpg', 'jpeg', 'png', 'gif', 'bmp'].includes(ext);
+    }
+    
+    async loadThumbnails(files) {
+        if (!this.thumbnailsAvailable || files.length === 0) {
+            return;
+        }
+        
+        try {
+            // One batched request per page of results instead of one per image
+            const response = await fetch(`${this.baseUrl}/s3/objects/thumbnails`, {
+                method: 'POST',
+                headers: {
+                    'Authorization': `Bearer ${this.token}`,
+                    'Content-Type': 'application/json'
+                },
+                body: JSON.stringify({ keys: files.map(file => file.key), size: 'small' })
+            });
+            
+            if (response.status === 404) {
+                this.thumbnailsAvailable = false;
+                return;
+            }
+            if (!response.ok) {
+                return;
+            }
+            
+            const thumbnails = await response.json();
+            thumbnails.forEach(thumbnail => {
+                const icon = document.querySelector(`[data-thumbnail-key="${encodeURIComponent(thumbnail.key)}"]`);
+                if (icon) {
+                    icon.innerHTML = `<img class="file-thumbnail" src="data:${thumbnail.contentType};base64,${thumbnail.data}" alt="">`;
+                }
+            });
+        } catch (error) {
+            // Thumbnails are cosmetic; keep the plain icons
+            console.warn('Failed to load thumbnails:', error);
+        }
     }
     
     getFileIcon(filename) {
@@ -376,9 +512,120 @@ class S3Browser {
     }
     
     handleFileSelect(files) {
+        const smallFiles = [];
         Array.from(files).forEach(file => {
-            this.uploadFile(file);
+            if (file.size <= this.batchFileLimit) {
+                smallFiles.push(file);
+            } else {
+                this.uploadFile(file);
+            }
+        });
+        
+        if (smallFiles.length === 1) {
+            this.uploadFile(smallFiles[0]);
+            return;
+        }
+        
+        let next = 0;
+        while (next < smallFiles.length) {
+            const batch = [];
+            let batchBytes = 0;
+            while (next < smallFiles.length && batch.length < this.batchMaxFiles
+                    && (batch.length === 0 || batchBytes + smallFiles[next].size <= this.batchMaxBytes)) {
+                batchBytes += smallFiles[next].size;
+                batch.push(smallFiles[next++]);
+            }
+            this.uploadBatch(batch);
+        }
+    }
+    
+    async uploadBatch(files) {
+        const progressContainer = this.createProgressIndicator(`${files.length} files`);
+        
+        try {
+            const archive = this.buildTar(files);
+            const results = await new Promise((resolve, reject) => {
+                const xhr = new XMLHttpRequest();
+                xhr.open('POST', `${this.baseUrl}/s3/objects/batch?prefix=${encodeURIComponent(this.currentPath)}`);
+                xhr.setRequestHeader('Authorization', `Bearer ${this.token}`);
+                xhr.setRequestHeader('Content-Type', 'application/x-tar');
+                xhr.upload.onprogress = (event) => {
+                    if (event.lengthComputable) {
+                        const percent = Math.round((event.loaded / event.total) * 100);
+                        this.updateProgress(progressContainer, percent, `Uploading... ${percent}%`);
+                    }
+                };
+                xhr.onload = () => {
+                    if (xhr.status >= 200 && xhr.status < 300) {
+                        resolve(JSON.parse(xhr.responseText));
+                    } else {
+                        reject(new Error(`status ${xhr.status}`));
+                    }
+                };
+                xhr.onerror = () => reject(new Error('Network error'));
+                xhr.send(archive);
+            });
+            
+            const failed = results.filter(result => !result.success);
+            if (failed.length === 0) {
+                this.updateProgress(progressContainer, 100, 'Upload complete');
+                setTimeout(() => {
+                    progressContainer.remove();
+                    this.refresh();
+                }, 2000);
+            } else {
+                failed.forEach(result => console.warn(`Failed to upload ${result.key}: ${result.error}`));
+                this.updateProgress(progressContainer, 100, `${failed.length} of ${results.length} files failed`, true);
+                this.refresh();
+            }
+        } catch (error) {
+            this.updateProgress(progressContainer, 0, 'Upload error: ' + error.message, true);
+        }
+    }
+    
+    buildTar(files) {
+        // ustar archive assembled from the File objects themselves, so contents are never read into memory here
+        const encoder = new TextEncoder();
+        const header = (name, size, type, mtime) => {
+            const block = new Uint8Array(512);
+            const writeString = (value, offset, length) => block.set(encoder.encode(value).subarray(0, length), offset);
+            const writeOctal = (value, offset, length) => writeString(value.toString(8).padStart(length - 1, '0'), offset, length - 1);
+            writeString(name, 0, 100);
+            writeOctal(0o644, 100, 8);
+            writeOctal(0, 108, 8);
+            writeOctal(0, 116, 8);
+            writeOctal(size, 124, 12);
+            writeOctal(mtime, 136, 12);
+            block.fill(32, 148, 156);
+            block[156] = type.charCodeAt(0);
+            writeString('ustar\0', 257, 6);
+            writeString('00', 263, 2);
+            const checksum = block.reduce((sum, value) => sum + value, 0);
+            writeString(checksum.toString(8).padStart(6, '0') + '\0 ', 148, 8);
+            return block;
+        };
+        const padding = (size) => new Uint8Array((512 - size % 512) % 512);
+        
+        const parts = [];
+        files.forEach(file => {
+            const mtime = Math.floor(file.lastModified / 1000);
+            const nameBytes = encoder.encode(file.name);
+            if (nameBytes.length > 100 || nameBytes.length !== file.name.length) {
+                // Names that do not fit the ASCII header field go in a PAX extended header
+                const body = ` path=${file.name}\n`;
+                const bodyLength = encoder.encode(body).length;
+                let recordLength = bodyLength + 1;
+                while (String(recordLength).length + bodyLength > recordLength) {
+                    recordLength++;
+                }
+                const record = encoder.encode(recordLength + body);
+                parts.push(header('PaxHeader', record.length, 'x', mtime), record, padding(record.length));
+            }
+            parts.push(header(file.name, file.size, '0', mtime), file, padding(file.size));
         });
+        parts.push(new Uint8Array(1024));
+        
+        return new Blob(parts, { type: 'application/x-tar' });
     }
     
     async uploadFile(file) {
@@ -386,20 +633,22 @@ class S3Browser {
         const progressContainer = this.createProgressIndicator(file.name);
         
         try {
-            const formData = new FormData();
-            formData.append('file', file);
-            
-            formData.append('key', key);
+            if (await this.uploadFileByHash(file, key) || await this.uploadFileDirect(file, key)) {
+                this.updateProgress(progressContainer, 100, 'Upload complete');
+                setTimeout(() => {
+                    progressContainer.remove();
+                    this.refresh();
+                }, 2000);
+                return;
+            }
             
-            const response = await fetch(`${this.baseUrl}/s3/objects`, {
-                method: 'POST',
-                headers: {
-                    'Authorization': `Bearer ${this.token}`
-                },
-                body: formData
-            });
+            // Stream the file as the raw request body so the server can pipe it to S3 without spooling;
+            // large files go in resumable chunks so a dropped connection only costs the chunks in flight
+            const ok = file.size >= this.resumableThreshold
+                ? await this.uploadFileResumable(file, key, progressContainer)
+                : await this.uploadFileStream(file, key, progressContainer);
             
-            if (response.ok) {
+            if (ok) {
                 this.updateProgress(progressContainer, 100, 'Upload complete');
                 setTimeout(() => {
                     progressContainer.remove();
@@ -413,6 +662,140 @@ class S3Browser {
         }
     }
     
+    uploadFileStream(file, key, progressContainer) {
+        // XMLHttpRequest rather than fetch, because only it reports upload progress
+        return new Promise((resolve, reject) => {
+            const xhr = new XMLHttpRequest();
+            xhr.open('PUT', `${this.baseUrl}/s3/objects?key=${encodeURIComponent(key)}`);
+            xhr.setRequestHeader('Authorization', `Bearer ${this.token}`);
+            xhr.setRequestHeader('Content-Type', file.type || 'application/octet-stream');
+            xhr.upload.onprogress = (event) => {
+                if (event.lengthComputable) {
+                    const percent = Math.round((event.loaded / event.total) * 100);
+                    this.updateProgress(progressContainer, percent, `Uploading... ${percent}%`);
+                }
+            };
+            xhr.onload = () => resolve(xhr.status >= 200 && xhr.status < 300);
+            xhr.onerror = () => reject(new Error('Network error'));
+            xhr.send(file);
+        });
+    }
+    
+    async uploadFileResumable(file, key, progressContainer) {
+        // Remember the session per file, so selecting the same file again resumes where it stopped
+        const resumeKey = `upload:${key}:${file.size}:${file.lastModified}`;
+        let session = null;
+        
+        const savedId = localStorage.getItem(resumeKey);
+        if (savedId) {
+            const response = await fetch(`${this.baseUrl}/s3/uploads/${encodeURIComponent(savedId)}`, {
+                headers: {
+                    'Authorization': `Bearer ${this.token}`
+                }
+            });
+            if (response.ok) {
+                session = await response.json();
+            }
+        }
+        
+        if (!session) {
+            const response = await fetch(`${this.baseUrl}/s3/uploads`, {
+                method: 'POST',
+                headers: {
+                    'Authorization': `Bearer ${this.token}`,
+                    'Content-Type': 'application/json'
+                },
+                body: JSON.stringify({ key: key, size: file.size, contentType: file.type || 'application/octet-stream' })
+            });
+            if (!response.ok) {
+                return false;
+            }
+            session = await response.json();
+            localStorage.setItem(resumeKey, session.id);
+        }
+        
+        const received = new Set(session.receivedChunks);
+        const pending = [];
+        for (let chunkNumber = 1; chunkNumber <= session.chunkCount; chunkNumber++) {
+            if (!received.has(chunkNumber)) {
+                pending.push(chunkNumber);
+            }
+        }
+        
+        // Progress counts completed chunks plus the bytes sent so far of those in flight
+        let completedBytes = session.receivedBytes;
+        const inFlightBytes = new Map();
+        const reportProgress = () => {
+            let loaded = completedBytes;
+            inFlightBytes.forEach(bytes => loaded += bytes);
+            const percent = file.size > 0 ? Math.floor((loaded / file.size) * 100) : 100;
+            this.updateProgress(progressContainer, percent, `Uploading... ${percent}%`);
+        };
+        
+        const uploadNextChunks = async () => {
+            while (pending.length > 0) {
+                const chunkNumber = pending.shift();
+                const start = (chunkNumber - 1) * session.chunkSize;
+                const chunk = file.slice(start, Math.min(start + session.chunkSize, file.size));
+                
+                for (let attempt = 0; ; attempt++) {
+                    try {
+                        await this.uploadChunk(session.id, chunkNumber, chunk, loaded => {
+                            inFlightBytes.set(chunkNumber, loaded);
+                            reportProgress();
+                        });
+                        break;
+                    } catch (error) {
+                        inFlightBytes.delete(chunkNumber);
+                        if (attempt >= this.chunkRetries) {
+                            throw error;
+                        }
+                    }
+                }
+                
+                inFlightBytes.delete(chunkNumber);
+                completedBytes += chunk.size;
+                reportProgress();
+            }
+        };
+        
+        reportProgress();
+        const workers = Math.min(this.uploadConcurrency, pending.length);
+        await Promise.all(Array.from({ length: workers }, () => uploadNextChunks()));
+        
+        const response = await fetch(`${this.baseUrl}/s3/uploads/${encodeURIComponent(session.id)}/commit`, {
+            method: 'POST',
+            headers: {
+                'Authorization': `Bearer ${this.token}`
+            }
+        });
+        if (!response.ok) {
+            return false;
+        }
+        
+        localStorage.removeItem(resumeKey);
+        return true;
+    }
+    
+    uploadChunk(sessionId, chunkNumber, chunk, onProgress) {
+        return new Promise((resolve, reject) => {
+            const xhr = new XMLHttpRequest();
+            xhr.open('PUT', `${this.baseUrl}/s3/uploads/${encodeURIComponent(sessionId)}/chunks/${chunkNumber}`);
+            xhr.setRequestHeader('Authorization', `Bearer ${this.token}`);
+            xhr.setRequestHeader('Content-Type', 'application/octet-stream');
+            xhr.upload.onprogress = (event) => onProgress(event.loaded);
+            xhr.onload = () => {
+                if (xhr.status >= 200 && xhr.status < 300) {
+                    resolve();
+                } else {
+                    reject(new Error(`Chunk ${chunkNumber} failed with status ${xhr.status}`));
+                }
+            };
+            xhr.onerror = () => reject(new Error('Network error'));
+            xhr.send(chunk);
+        });
+    }
+    
     createProgressIndicator(filename) {
         let container = document.querySelector('.progress-container');
         if (!container) {
@@ -447,6 +830,17 @@ class S3Browser {
     
     async downloadFile(key) {
         try {
+            const presigned = await this.getPresignedUrl(`/s3/objects/presigned-url?key=${encodeURIComponent(key)}`);
+            if (presigned) {
+                // The presigned URL serves the object as an attachment, so the browser downloads it directly
+                const a = document.createElement('a');
+                a.href = presigned.url;
+                document.body.appendChild(a);
+                a.click();
+                document.body.removeChild(a);
+                return;
+            }
+            
             const response = await fetch(`${this.baseUrl}/s3/objects/download?key=${encodeURIComponent(key)}`, {
                 headers: {
                     'Authorization': `Bearer ${this.token}`
@@ -471,6 +865,98 @@ class S3Browser {
         }
     }
     
+    async getPresignedUrl(path) {
+        if (!this.presignAvailable) {
+            return null;
+        }
+        
+        try {
+            const response = await fetch(`${this.baseUrl}${path}`, {
+                headers: {
+                    'Authorization': `Bearer ${this.token}`
+                }
+            });
+            
+            if (response.status === 404) {
+                this.presignAvailable = false;
+                return null;
+            }
+            return response.ok ? await response.json() : null;
+        } catch (error) {
+            return null;
+        }
+    }
+    
+    async uploadFileByHash(file, key) {
+        if (file.size < this.dedupMinSize || file.size > this.dedupMaxSize || !window.crypto || !crypto.subtle) {
+            return false;
+        }
+        
+        try {
+            const digest = await crypto.subtle.digest('SHA-256', await file.arrayBuffer());
+            const sha256 = Array.from(new Uint8Array(digest), b => b.toString(16).padStart(2, '0')).join('');
+            const contentType = file.type || 'application/octet-stream';
+            const response = await fetch(`${this.baseUrl}/s3/objects/dedup?key=${encodeURIComponent(key)}&sha256=${sha256}&size=${file.size}&contentType=${encodeURIComponent(contentType)}`, {
+                method: 'POST',
+                headers: {
+                    'Authorization': `Bearer ${this.token}`
+                }
+            });
+            // 404 means the content is not in the bucket yet, or deduplication is disabled
+            return response.status === 201;
+        } catch (error) {
+            return false;
+        }
+    }
+    
+    async uploadFileDirect(file, key) {
+        const contentType = file.type || 'application/octet-stream';
+        const presigned = await this.getPresignedUrl(
+            `/s3/objects/presigned-upload-url?key=${encodeURIComponent(key)}&contentType=${encodeURIComponent(contentType)}`);
+        if (!presigned) {
+            return false;
+        }
+        
+        try {
+            const response = await fetch(presigned.url, {
+                method: presigned.method,
+                headers: presigned.headers,
+                body: file
+            });
+            return response.ok;
+        } catch (error) {
+            // Typically the S3 endpoint does not allow cross-origin uploads; fall back to uploading through the server
+            console.warn('Direct upload failed, uploading through server:', error);
+            return false;
+        }
+    }
+    
+    async downloadFolder(prefix) {
+        try {
+            const response = await fetch(`${this.baseUrl}/s3/objects/archive?prefix=${encodeURIComponent(prefix)}&format=zip`, {
+                headers: {
+                    'Authorization': `Bearer ${this.token}`
+                }
+            });
+            
+            if (response.ok) {
+                const blob = await response.blob();
+                const url = window.URL.createObjectURL(blob);
+                const a = document.createElement('a');
+                a.href = url;
+                a.download = this.getFileName(prefix.replace(/\/+$/, '')) + '.zip';
+                document.body.appendChild(a);
+                a.click();
+                document.body.removeChild(a);
+                window.URL.revokeObjectURL(url);
+            } else {
+                this.showError('filesError', 'Failed to download folder');
+            }
+        } catch (error) {
+            this.showError('filesError', 'Download error: ' + error.message);
+        }
+    }
+    
     async deleteFile(key) {
         if (!confirm(`Are you sure you want to delete "${this.getFileName(key)}"?`)) {
             return;
@@ -0,0 +1,226 @@
+package com.enterprise.s3browser.config;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.http.HttpServletResponse;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CompressionFilterTest {
+
+    private static final byte[] LARGE_JSON = ("[" + "{\"key\":\"logs/app.log\",\"size\":1024},".repeat(200) + "{}]")
+            .getBytes(StandardCharsets.UTF_8);
+
+    private CompressionFilter filter;
+    private SimpleMeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        filter = new CompressionFilter();
+        ReflectionTestUtils.setField(filter, "meterRegistry", meterRegistry);
+        ReflectionTestUtils.setField(filter, "enabled", true);
+        ReflectionTestUtils.setField(filter, "minSize", 1024);
+        ReflectionTestUtils.setField(filter, "level", 5);
+        ReflectionTestUtils.setField(filter, "bufferSize", 512);
+        ReflectionTestUtils.setField(filter, "maxPooledDeflaters", 4);
+        ReflectionTestUtils.setField(filter, "mimeTypes", "text/*,application/json,application/*+json");
+        filter.initialize();
+    }
+
+    @AfterEach
+    void tearDown() {
+        filter.shutdown();
+    }
+
+    @Test
+    void compressesLargeJson() throws Exception {
+        MockHttpServletResponse response = perform(gzipRequest(), (req, res) -> {
+            res.setContentType("application/json");
+            res.getOutputStream().write(LARGE_JSON, 0, 100);
+            res.getOutputStream().write(LARGE_JSON, 100, LARGE_JSON.length - 100);
+        });
+
+        assertEquals("gzip", response.getHeader("Content-Encoding"));
+        assertEquals("Accept-Encoding", response.getHeader("Vary"));
+        assertArrayEquals(LARGE_JSON, gunzip(response.getContentAsByteArray()));
+        assertEquals(LARGE_JSON.length, meterRegistry.get("s3browser.compression.bytes.in").counter().count());
+        assertEquals(response.getContentAsByteArray().length, meterRegistry.get("s3browser.compression.bytes.out").counter().count());
+        assertTrue(meterRegistry.get("s3browser.compression.bytes.saved").counter().count() > 0);
+        assertEquals(1L, meterRegistry.get("s3browser.compression.cpu").timer().count());
+    }
+
+    @Test
+    void compressesKnownLengthAndDropsContentLength() throws Exception {
+        MockHttpServletResponse response = perform(gzipRequest(), (req, res) -> {
+            res.setContentType("text/plain");
+            res.setContentLengthLong(LARGE_JSON.length);
+            ((HttpServletResponse) res).setHeader("ETag", "\"etag1\"");
+            res.getOutputStream().write(LARGE_JSON);
+        });
+
+        assertEquals("gzip", response.getHeader("Content-Encoding"));
+        assertNull(response.getHeader("Content-Length"));
+        assertEquals("W/\"etag1\"", response.getHeader("ETag"));
+        assertArrayEquals(LARGE_JSON, gunzip(response.getContentAsByteArray()));
+    }
+
+    @Test
+    void smallBodyIsSentAsIs() throws Exception {
+        byte[] body = "{\"status\":\"ok\"}".getBytes(StandardCharsets.UTF_8);
+
+        MockHttpServletResponse response = perform(gzipRequest(), (req, res) -> {
+            res.setContentType("application/json");
+            res.getOutputStream().write(body);
+            res.getOutputStream().flush();
+        });
+
+        assertNull(response.getHeader("Content-Encoding"));
+        assertEquals(body.length, response.getContentLength());
+        assertArrayEquals(body, response.getContentAsByteArray());
+    }
+
+    @Test
+    void smallKnownLengthIsSentAsIs() throws Exception {
+        MockHttpServletResponse response = perform(gzipRequest(), (req, res) -> {
+            res.setContentType("text/plain");
+            res.setContentLength(5);
+            res.getOutputStream().write("hello".getBytes(StandardCharsets.UTF_8));
+        });
+
+        assertNull(response.getHeader("Content-Encoding"));
+        assertEquals(5, response.getContentLength());
+    }
+
+    @Test
+    void incompressibleTypeIsSentAsIs() throws Exception {
+        MockHttpServletResponse response = perform(gzipRequest(), (req, res) -> {
+            res.setContentType("image/jpeg");
+            res.setContentLengthLong(LARGE_JSON.length);
+            res.getOutputStream().write(LARGE_JSON);
+        });
+
+        assertNull(response.getHeader("Content-Encoding"));
+        assertEquals(LARGE_JSON.length, response.getContentLength());
+        assertArrayEquals(LARGE_JSON, response.getContentAsByteArray());
+    }
+
+    @Test
+    void partialContentIsSentAsIs() throws Exception {
+        MockHttpServletResponse response = perform(gzipRequest(), (req, res) -> {
+            ((HttpServletResponse) res).setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+            res.setContentType("text/plain");
+            res.getOutputStream().write(LARGE_JSON);
+        });
+
+        assertNull(response.getHeader("Content-Encoding"));
+        assertArrayEquals(LARGE_JSON, response.getContentAsByteArray());
+    }
+
+    @Test
+    void rangeRequestIsNotWrapped() throws Exception {
+        MockHttpServletRequest request = gzipRequest();
+        request.addHeader("Range", "bytes=0-99");
+
+        MockHttpServletResponse response = perform(request, (req, res) -> {
+            assertTrue(res instanceof MockHttpServletResponse);
+            res.setContentType("text/plain");
+            res.getOutputStream().write(LARGE_JSON);
+        });
+
+        assertNull(response.getHeader("Content-Encoding"));
+    }
+
+    @Test
+    void withoutAcceptEncodingIsSentAsIs() throws Exception {
+        MockHttpServletResponse response = perform(new MockHttpServletRequest("GET", "/api/s3/objects"), (req, res) -> {
+            res.setContentType("application/json");
+            res.getOutputStream().write(LARGE_JSON);
+        });
+
+        assertNull(response.getHeader("Content-Encoding"));
+        assertArrayEquals(LARGE_JSON, response.getContentAsByteArray());
+    }
+
+    @Test
+    void noTransformIsRespected() throws Exception {
+        MockHttpServletResponse response = perform(gzipRequest(), (req, res) -> {
+            res.setContentType("application/json");
+            ((HttpServletResponse) res).setHeader("Cache-Control", "private, no-transform");
+            res.getOutputStream().write(LARGE_JSON);
+        });
+
+        assertNull(response.getHeader("Content-Encoding"));
+    }
+
+    @Test
+    void flushBeforeBodyIsNeverCompressed() throws Exception {
+        MockHttpServletResponse response = perform(gzipRequest(), (req, res) -> {
+            // Like a sendfile response: headers committed, body supplied by the container
+            res.setContentType("text/plain");
+            res.setContentLengthLong(LARGE_JSON.length);
+            res.flushBuffer();
+        });
+
+        assertNull(response.getHeader("Content-Encoding"));
+        assertEquals(LARGE_JSON.length, response.getContentLength());
+    }
+
+    @Test
+    void writerIsCompressed() throws Exception {
+        String text = new String(LARGE_JSON, StandardCharsets.UTF_8);
+
+        MockHttpServletResponse response = perform(gzipRequest(), (req, res) -> {
+            res.setContentType("text/plain");
+            res.setCharacterEncoding("UTF-8");
+            res.getWriter().write(text);
+        });
+
+        assertEquals("gzip", response.getHeader("Content-Encoding"));
+        assertEquals(text, new String(gunzip(response.getContentAsByteArray()), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void acceptsGzip() {
+        assertTrue(CompressionFilter.acceptsGzip(requestAccepting("gzip, deflate, br")));
+        assertTrue(CompressionFilter.acceptsGzip(requestAccepting("br;q=1.0, gzip;q=0.8")));
+        assertTrue(CompressionFilter.acceptsGzip(requestAccepting("*")));
+        assertFalse(CompressionFilter.acceptsGzip(requestAccepting("gzip;q=0")));
+        assertFalse(CompressionFilter.acceptsGzip(requestAccepting("*, gzip;q=0")));
+        assertFalse(CompressionFilter.acceptsGzip(requestAccepting("identity")));
+        assertFalse(CompressionFilter.acceptsGzip(new MockHttpServletRequest()));
+    }
+
+    private MockHttpServletResponse perform(MockHttpServletRequest request, FilterChain chain) throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, chain);
+        return response;
+    }
+
+    private static MockHttpServletRequest gzipRequest() {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/s3/objects");
+        request.addHeader("Accept-Encoding", "gzip, deflate");
+        return request;
+    }
+
+    private static MockHttpServletRequest requestAccepting(String acceptEncoding) {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.addHeader("Accept-Encoding", acceptEncoding);
+        return request;
+    }
+
+    private static byte[] gunzip(byte[] compressed) throws IOException {
+        return new GZIPInputStream(new ByteArrayInputStream(compressed)).readAllBytes();
+    }
+}
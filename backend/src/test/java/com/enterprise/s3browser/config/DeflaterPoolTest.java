@@ -0,0 +1,59 @@
+package com.enterprise.s3browser.config;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.zip.Deflater;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DeflaterPoolTest {
+
+    @Test
+    void borrow_ReusesReleasedDeflater() {
+        DeflaterPool pool = new DeflaterPool(5, 2);
+
+        Deflater first = pool.borrow();
+        pool.release(first);
+        Deflater second = pool.borrow();
+
+        assertSame(first, second);
+        assertEquals(1L, pool.getCreatedCount());
+    }
+
+    @Test
+    void release_ResetsDeflater() {
+        DeflaterPool pool = new DeflaterPool(5, 2);
+        Deflater deflater = pool.borrow();
+        deflater.setInput(new byte[] {1, 2, 3});
+        deflater.finish();
+        deflater.deflate(new byte[64]);
+
+        pool.release(deflater);
+
+        assertFalse(deflater.finished());
+        assertEquals(0L, deflater.getBytesRead());
+    }
+
+    @Test
+    void release_BeyondMaxIdleIsNotPooled() {
+        DeflaterPool pool = new DeflaterPool(5, 1);
+        Deflater first = pool.borrow();
+        Deflater second = pool.borrow();
+
+        pool.release(first);
+        pool.release(second);
+
+        assertEquals(1, pool.getIdleCount());
+        assertEquals(2L, pool.getCreatedCount());
+    }
+
+    @Test
+    void close_EmptiesPool() {
+        DeflaterPool pool = new DeflaterPool(5, 2);
+        pool.release(pool.borrow());
+
+        pool.close();
+
+        assertEquals(0, pool.getIdleCount());
+    }
+}
@@ -0,0 +1,75 @@
+package com.enterprise.s3browser.config;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GzipOutputStreamTest {
+
+    @Test
+    void output_IsReadableGzip() throws IOException {
+        byte[] content = "timestamp,level,message\n".repeat(1000).getBytes(StandardCharsets.UTF_8);
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        Deflater deflater = new Deflater(5, true);
+
+        GzipOutputStream gzip = new GzipOutputStream(compressed, deflater, 512);
+        gzip.write(content, 0, 100);
+        gzip.write(content, 100, content.length - 100);
+        gzip.finish();
+
+        assertArrayEquals(content, new GZIPInputStream(new ByteArrayInputStream(compressed.toByteArray())).readAllBytes());
+        assertEquals(content.length, gzip.getBytesIn());
+        assertEquals(compressed.size(), gzip.getBytesOut());
+        assertTrue(compressed.size() < content.length / 10);
+        deflater.end();
+    }
+
+    @Test
+    void emptyBody() throws IOException {
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        Deflater deflater = new Deflater(5, true);
+
+        GzipOutputStream gzip = new GzipOutputStream(compressed, deflater, 512);
+        gzip.finish();
+
+        assertEquals(0, new GZIPInputStream(new ByteArrayInputStream(compressed.toByteArray())).readAllBytes().length);
+        deflater.end();
+    }
+
+    @Test
+    void pooledDeflaterCanBeReused() throws IOException {
+        DeflaterPool pool = new DeflaterPool(5, 1);
+        for (String text : new String[] {"first body", "second body"}) {
+            ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+            Deflater deflater = pool.borrow();
+            GzipOutputStream gzip = new GzipOutputStream(compressed, deflater, 512);
+            gzip.write(text.getBytes(StandardCharsets.UTF_8));
+            gzip.finish();
+            pool.release(deflater);
+
+            assertEquals(text, new String(new GZIPInputStream(new ByteArrayInputStream(compressed.toByteArray())).readAllBytes(),
+                    StandardCharsets.UTF_8));
+        }
+        assertEquals(1L, pool.getCreatedCount());
+    }
+
+    @Test
+    void close_DoesNotEndDeflater() throws IOException {
+        Deflater deflater = new Deflater(5, true);
+        GzipOutputStream gzip = new GzipOutputStream(new ByteArrayOutputStream(), deflater, 512);
+        gzip.close();
+
+        deflater.reset();
+        deflater.setInput(new byte[] {1});
+        deflater.finish();
+        assertTrue(deflater.deflate(new byte[64]) > 0);
+        deflater.end();
+    }
+}
@@ -2,37 +2,95 @@ package com.enterprise.s3browser.controller;
 
 import com.enterprise.s3browser.config.SecurityConfig;
 import com.enterprise.s3browser.dto.S3ObjectDto;
+import com.enterprise.s3browser.exception.CompactionJobNotFoundException;
+import com.enterprise.s3browser.exception.ObjectNotModifiedException;
+import com.enterprise.s3browser.exception.PreconditionFailedException;
+import com.enterprise.s3browser.exception.RangeNotSatisfiableException;
+import com.enterprise.s3browser.exception.S3ServiceException;
+import com.enterprise.s3browser.exception.TextIndexNotReadyException;
+import com.enterprise.s3browser.exception.UploadSessionNotFoundException;
+import com.enterprise.s3browser.model.ArchiveFormat;
+import com.enterprise.s3browser.model.CompactedObject;
+import com.enterprise.s3browser.model.CompactionJob;
+import com.enterprise.s3browser.model.DedupEntry;
+import com.enterprise.s3browser.model.ObjectListing;
+import com.enterprise.s3browser.model.PresignedUrl;
+import com.enterprise.s3browser.model.RequestConditions;
 import com.enterprise.s3browser.model.S3Object;
+import com.enterprise.s3browser.model.StagedUpload;
+import com.enterprise.s3browser.model.TextPage;
+import com.enterprise.s3browser.model.Thumbnail;
+import com.enterprise.s3browser.model.ThumbnailSize;
+import com.enterprise.s3browser.model.UploadResult;
+import com.enterprise.s3browser.model.UploadSession;
 import com.enterprise.s3browser.security.CustomUserDetailsService;
 import com.enterprise.s3browser.security.JwtTokenProvider;
+import com.enterprise.s3browser.service.AppendService;
+import com.enterprise.s3browser.service.ArchiveService;
+import com.enterprise.s3browser.service.BatchUploadService;
+import com.enterprise.s3browser.service.CompactionService;
+import com.enterprise.s3browser.service.DedupUploadService;
+import com.enterprise.s3browser.service.DeltaUploadService;
+import com.enterprise.s3browser.service.ListingCacheService;
+import com.enterprise.s3browser.service.ListingStreamService;
+import com.enterprise.s3browser.service.MultipartUploadService;
+import com.enterprise.s3browser.service.ObjectCacheService;
+import com.enterprise.s3browser.service.ParallelDownloadService;
+import com.enterprise.s3browser.service.PresignedUrlService;
+import com.enterprise.s3browser.service.ResumableUploadService;
 import com.enterprise.s3browser.service.S3Service;
+import com.enterprise.s3browser.service.TextViewerService;
+import com.enterprise.s3browser.service.ThumbnailService;
+import com.enterprise.s3browser.service.WriteBehindUploadService;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.context.annotation.Import;
-import org.springframework.core.io.ByteArrayResource;
 import org.springframework.http.MediaType;
 import org.springframework.mock.web.MockMultipartFile;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.web.servlet.MockMvc;
-import software.amazon.awssdk.core.ResponseBytes;
+import org.springframework.test.web.servlet.MvcResult;
+import software.amazon.awssdk.core.ResponseInputStream;
+import software.amazon.awssdk.http.AbortableInputStream;
 import software.amazon.awssdk.services.s3.model.GetObjectResponse;
 
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.time.Instant;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Consumer;
+import java.util.zip.GZIPInputStream;
 
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.Mockito.when;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.doAnswer;
 import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.matchesPattern;
 
+@Import(SimpleMeterRegistry.class)
 @WebMvcTest(controllers = S3Controller.class, excludeAutoConfiguration = {
     org.springframework.boot.autoconfigure.security.servlet.SecurityAutoConfiguration.class,
     org.springframework.boot.autoconfigure.security.servlet.SecurityFilterAutoConfiguration.class
@@ -45,6 +103,60 @@ class S3ControllerTest {
     @MockBean
     private S3Service s3Service;
 
+    @MockBean
+    private ParallelDownloadService parallelDownloadService;
+
+    @MockBean
+    private ObjectCacheService objectCacheService;
+
+    @MockBean
+    private ArchiveService archiveService;
+
+    @MockBean
+    private PresignedUrlService presignedUrlService;
+
+    @MockBean
+    private TextViewerService textViewerService;
+
+    @MockBean
+    private ThumbnailService thumbnailService;
+
+    @MockBean
+    private MultipartUploadService multipartUploadService;
+
+    @MockBean
+    private ResumableUploadService resumableUploadService;
+
+    @MockBean
+    private BatchUploadService batchUploadService;
+
+    @MockBean
+    private WriteBehindUploadService writeBehindUploadService;
+
+    @MockBean
+    private DedupUploadService dedupUploadService;
+
+    @MockBean
+    private DeltaUploadService deltaUploadService;
+
+    @MockBean
+    private AppendService appendService;
+
+    @MockBean
+    private CompactionService compactionService;
+
+    @MockBean
+    private ListingStreamService listingStreamService;
+
+    @MockBean
+    private ListingCacheService listingCacheService;
+
+    @MockBean
+    private JwtTokenProvider jwtTokenProvider;
+
+    @MockBean
+    private CustomUserDetailsService customUserDetailsService;
+
     @Autowired
     private ObjectMapper objectMapper;
 
@@ -76,7 +188,7 @@ class S3ControllerTest {
 
     @Test
     void listObjects_Success() throws Exception {
-        when(s3Service.listObjects("test-prefix")).thenReturn(testObjects);
+        when(listingCacheService.listObjects("test-prefix", 1000, null, null)).thenReturn(new ObjectListing(testObjects, null, null, null));
 
         mockMvc.perform(get("/api/s3/objects")
                         .param("prefix", "test-prefix")
@@ -88,35 +200,208 @@ class S3ControllerTest {
                 .andExpect(jsonPath("$[1].key").value("test-folder/"))
                 .andExpect(jsonPath("$[1].directory").value(true));
 
-        verify(s3Service).listObjects("test-prefix");
+        verify(listingCacheService).listObjects("test-prefix", 1000, null, null);
     }
 
     @Test
     void listObjects_WithoutPrefix() throws Exception {
-        when(s3Service.listObjects(null)).thenReturn(testObjects);
+        when(listingCacheService.listObjects(null, 1000, null, null)).thenReturn(new ObjectListing(testObjects, null, null, null));
 
         mockMvc.perform(get("/api/s3/objects")
                         .contentType(MediaType.APPLICATION_JSON))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.length()").value(2));
 
-        verify(s3Service).listObjects(null);
+        verify(listingCacheService).listObjects(null, 1000, null, null);
+    }
+
+    @Test
+    void listObjects_IncludesPendingUploads() throws Exception {
+        S3Object pending = new S3Object("test-prefix/new.txt", null, 3L, Instant.now(), null, false);
+        pending.setPending(true);
+        when(listingCacheService.listObjects("test-prefix/", 1000, null, null)).thenReturn(new ObjectListing(testObjects, null, null, null));
+        when(writeBehindUploadService.isEnabled()).thenReturn(true);
+        when(writeBehindUploadService.pendingObjects("test-prefix/", null, false)).thenReturn(List.of(pending).iterator());
+        when(compactionService.compactedObjects("test-prefix/", null, false)).thenReturn(Collections.emptyIterator());
+
+        mockMvc.perform(get("/api/s3/objects")
+                        .param("prefix", "test-prefix/"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(3))
+                .andExpect(jsonPath("$[2].key").value("test-prefix/new.txt"))
+                .andExpect(jsonPath("$[2].pending").value(true));
     }
 
+    @Test
+    void listObjects_IncludesCompactedObjects() throws Exception {
+        S3Object compacted = new S3Object("test-prefix/small.txt", "\"small\"", 5L, Instant.now(), null, false);
+        when(listingCacheService.listObjects("test-prefix/", 1000, null, null)).thenReturn(new ObjectListing(testObjects, null, null, null));
+        when(compactionService.isEnabled()).thenReturn(true);
+        when(writeBehindUploadService.pendingObjects("test-prefix/", null, false)).thenReturn(Collections.emptyIterator());
+        when(compactionService.compactedObjects("test-prefix/", null, false)).thenReturn(List.of(compacted).iterator());
+
+        mockMvc.perform(get("/api/s3/objects")
+                        .param("prefix", "test-prefix/"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(3))
+                .andExpect(jsonPath("$[2].key").value("test-prefix/small.txt"));
+    }
+
+    @Test
+    void listObjects_ReturnsContinuationTokenHeader() throws Exception {
+        when(listingCacheService.listObjects("test-prefix/", 2, "prev-token", null))
+                .thenReturn(new ObjectListing(testObjects, "test-file.txt", "test-folder/", "next-token"));
+
+        mockMvc.perform(get("/api/s3/objects")
+                        .param("prefix", "test-prefix/")
+                        .param("pageSize", "2")
+                        .param("continuationToken", "prev-token"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("X-Continuation-Token", "next-token"))
+                .andExpect(jsonPath("$.length()").value(1))
+                .andExpect(jsonPath("$[0].key").value("test-folder/"));
+    }
+
+    @Test
+    void listObjects_LastPageHasNoContinuationToken() throws Exception {
+        when(listingCacheService.listObjects(null, 1000, null, "test-a")).thenReturn(new ObjectListing(testObjects, "test-a", "test-folder/", null));
+
+        mockMvc.perform(get("/api/s3/objects")
+                        .param("startAfter", "test-a"))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist("X-Continuation-Token"))
+                .andExpect(jsonPath("$.length()").value(2));
+    }
+
+    @Test
+    void listObjects_PendingUploadsListedOnCoveringPage() throws Exception {
+        S3Object inRange = new S3Object("test-prefix/b.txt", null, 3L, Instant.now(), null, false);
+        S3Object laterPage = new S3Object("test-prefix/z.txt", null, 3L, Instant.now(), null, false);
+        List<S3Object> page = List.of(new S3Object("test-prefix/c.txt", "\"c\"", 1L, Instant.now(), null, false));
+        when(listingCacheService.listObjects("test-prefix/", 1000, null, null))
+                .thenReturn(new ObjectListing(page, null, "test-prefix/c.txt", "next-token"));
+        when(writeBehindUploadService.isEnabled()).thenReturn(true);
+        when(writeBehindUploadService.pendingObjects("test-prefix/", null, false)).thenReturn(List.of(inRange, laterPage).iterator());
+        when(compactionService.compactedObjects("test-prefix/", null, false)).thenReturn(Collections.emptyIterator());
+
+        mockMvc.perform(get("/api/s3/objects")
+                        .param("prefix", "test-prefix/"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("X-Continuation-Token", "next-token"))
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(jsonPath("$[0].key").value("test-prefix/b.txt"))
+                .andExpect(jsonPath("$[1].key").value("test-prefix/c.txt"));
+    }
+
+    @Test
+    void listObjects_FullyCompactedPrefixIsPaged() throws Exception {
+        List<S3Object> compacted = List.of(
+                new S3Object("logs/a.log", "\"a\"", 1L, Instant.now(), null, false),
+                new S3Object("logs/b.log", "\"b\"", 1L, Instant.now(), null, false),
+                new S3Object("logs/c.log", "\"c\"", 1L, Instant.now(), null, false));
+        String token = S3Service.continuationTokenAfter("logs/b.log");
+        when(compactionService.isEnabled()).thenReturn(true);
+        when(writeBehindUploadService.pendingObjects(eq("logs/"), any(), eq(false))).thenAnswer(invocation -> Collections.emptyIterator());
+        // The originals are gone, so S3 lists nothing on either page
+        when(listingCacheService.listObjects("logs/", 2, null, null)).thenReturn(new ObjectListing(List.of(), null, null, null));
+        when(listingCacheService.listObjects("logs/", 2, token, null)).thenReturn(new ObjectListing(List.of(), "logs/b.log", null, null));
+        when(compactionService.compactedObjects("logs/", null, false)).thenReturn(compacted.iterator());
+        when(compactionService.compactedObjects("logs/", "logs/b.log", false)).thenReturn(compacted.subList(2, 3).iterator());
+
+        mockMvc.perform(get("/api/s3/objects")
+                        .param("prefix", "logs/")
+                        .param("pageSize", "2"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("X-Continuation-Token", token))
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(jsonPath("$[0].key").value("logs/a.log"))
+                .andExpect(jsonPath("$[1].key").value("logs/b.log"));
+
+        mockMvc.perform(get("/api/s3/objects")
+                        .param("prefix", "logs/")
+                        .param("pageSize", "2")
+                        .param("continuationToken", token))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist("X-Continuation-Token"))
+                .andExpect(jsonPath("$.length()").value(1))
+                .andExpect(jsonPath("$[0].key").value("logs/c.log"));
+    }
+
+    @Test
+    void listObjects_PageCutByMergedEntriesResumesAfterLastEntry() throws Exception {
+        List<S3Object> page = List.of(
+                new S3Object("docs/b.txt", "\"b\"", 1L, Instant.now(), null, false),
+                new S3Object("docs/d.txt", "\"d\"", 1L, Instant.now(), null, false));
+        S3Object pending = new S3Object("docs/a.txt", null, 1L, Instant.now(), null, false);
+        pending.setPending(true);
+        S3Object compacted = new S3Object("docs/c.txt", "\"c\"", 1L, Instant.now(), null, false);
+        when(listingCacheService.listObjects("docs/", 2, null, null)).thenReturn(new ObjectListing(page, null, "docs/d.txt", "next-token"));
+        when(writeBehindUploadService.isEnabled()).thenReturn(true);
+        when(compactionService.isEnabled()).thenReturn(true);
+        when(writeBehindUploadService.pendingObjects("docs/", null, false)).thenReturn(List.of(pending).iterator());
+        when(compactionService.compactedObjects("docs/", null, false)).thenReturn(List.of(compacted).iterator());
+
+        mockMvc.perform(get("/api/s3/objects")
+                        .param("prefix", "docs/")
+                        .param("pageSize", "2"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("X-Continuation-Token", S3Service.continuationTokenAfter("docs/b.txt")))
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(jsonPath("$[0].key").value("docs/a.txt"))
+                .andExpect(jsonPath("$[1].key").value("docs/b.txt"));
+    }
+
+    @Test
+    void listObjects_InvalidPageSize() throws Exception {
+        when(listingCacheService.listObjects(null, 0, null, null)).thenThrow(new IllegalArgumentException("Page size must be between 1 and 1000"));
+
+        mockMvc.perform(get("/api/s3/objects")
+                        .param("pageSize", "0"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void streamObjects_WritesOneLinePerObject() throws Exception {
+        doAnswer(invocation -> {
+            ListingStreamService.PageWriter writer = invocation.getArgument(2);
+            writer.write(List.of(testObjects.get(0)));
+            writer.write(List.of(testObjects.get(1)));
+            return 2L;
+        }).when(listingStreamService).streamListing(eq("test-prefix/"), eq(false), any());
+
+        MvcResult result = mockMvc.perform(get("/api/s3/objects/stream")
+                        .param("prefix", "test-prefix/")
+                        .param("recursive", "false"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        String body = mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Type", "application/x-ndjson"))
+                .andExpect(header().string("Cache-Control", "no-transform"))
+                .andReturn().getResponse().getContentAsString();
+
+        String[] lines = body.split("\n");
+        assertEquals(2, lines.length);
+        assertTrue(lines[0].contains("\"key\":\"test-file.txt\""));
+        assertTrue(lines[1].contains("\"key\":\"test-folder/\""));
+    }
 
     @Test
     void getObjectMetadata_Success() throws Exception {
-        when(s3Service.getObjectMetadata("test-file.txt")).thenReturn(testObject);
+        when(s3Service.getObjectMetadata("test-file.txt", null)).thenReturn(testObject);
 
         mockMvc.perform(get("/api/s3/objects/test-file.txt/metadata")
                         .contentType(MediaType.APPLICATION_JSON))
                 .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"etag123\""))
+                .andExpect(header().exists("Last-Modified"))
                 .andExpect(jsonPath("$.key").value("test-file.txt"))
                 .andExpect(jsonPath("$.etag").value("etag123"))
                 .andExpect(jsonPath("$.size").value(1024))
                 .andExpect(jsonPath("$.directory").value(false));
 
-        verify(s3Service).getObjectMetadata("test-file.txt");
+        verify(s3Service).getObjectMetadata("test-file.txt", null);
     }
 
     @Test
@@ -124,19 +409,682 @@ class S3ControllerTest {
         byte[] content = "test file content".getBytes();
         GetObjectResponse getObjectResponse = GetObjectResponse.builder()
                 .contentType("text/plain")
+                .contentLength((long) content.length)
                 .build();
-        ResponseBytes<GetObjectResponse> responseBytes = ResponseBytes.fromByteArray(getObjectResponse, content);
+        ResponseInputStream<GetObjectResponse> stream = new ResponseInputStream<>(
+                getObjectResponse, AbortableInputStream.create(new ByteArrayInputStream(content)));
 
-        when(s3Service.downloadObject("test-file.txt")).thenReturn(responseBytes);
+        when(s3Service.downloadObjectStream("test-file.txt", null, null)).thenReturn(stream);
 
-        mockMvc.perform(get("/api/s3/objects/download")
+        MvcResult result = mockMvc.perform(get("/api/s3/objects/download")
                         .param("key", "test-file.txt"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
                 .andExpect(status().isOk())
                 .andExpect(header().string("Content-Disposition", containsString("attachment")))
                 .andExpect(header().string("Content-Type", "text/plain"))
+                .andExpect(header().longValue("Content-Length", content.length))
+                .andExpect(content().bytes(content));
+
+        verify(s3Service).downloadObjectStream("test-file.txt", null, null);
+    }
+
+    @Test
+    void downloadObject_SingleRange() throws Exception {
+        byte[] content = "file".getBytes();
+        GetObjectResponse getObjectResponse = GetObjectResponse.builder()
+                .contentType("text/plain")
+                .contentLength((long) content.length)
+                .contentRange("bytes 5-8/17")
+                .build();
+
+        when(s3Service.downloadObjectStream("test-file.txt", "bytes=5-8", null))
+                .thenReturn(objectStream(getObjectResponse, content));
+
+        MvcResult result = mockMvc.perform(get("/api/s3/objects/download")
+                        .param("key", "test-file.txt")
+                        .header("Range", "bytes=5-8"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isPartialContent())
+                .andExpect(header().string("Content-Range", "bytes 5-8/17"))
+                .andExpect(header().string("Accept-Ranges", "bytes"))
+                .andExpect(header().longValue("Content-Length", content.length))
+                .andExpect(content().bytes(content));
+    }
+
+    @Test
+    void downloadObject_MultipleRanges() throws Exception {
+        S3Object metadata = new S3Object("test-file.txt", "etag123", 17L, Instant.now(), "STANDARD", false);
+        metadata.setContentType("text/plain");
+        when(s3Service.getObjectMetadata("test-file.txt", null)).thenReturn(metadata);
+        GetObjectResponse getObjectResponse = GetObjectResponse.builder().contentType("text/plain").build();
+        when(s3Service.downloadObjectStream(eq("test-file.txt"), eq("bytes=0-3"), any(RequestConditions.class)))
+                .thenReturn(objectStream(getObjectResponse, "test".getBytes()));
+        when(s3Service.downloadObjectStream(eq("test-file.txt"), eq("bytes=13-16"), any(RequestConditions.class)))
+                .thenReturn(objectStream(getObjectResponse, "tent".getBytes()));
+
+        MvcResult result = mockMvc.perform(get("/api/s3/objects/download")
+                        .param("key", "test-file.txt")
+                        .header("Range", "bytes=-4, 0-1, 2-3"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isPartialContent())
+                .andExpect(header().string("Content-Type", containsString("multipart/byteranges; boundary=")))
+                .andExpect(header().string("ETag", "\"etag123\""))
+                .andExpect(content().string(containsString("Content-Type: text/plain")))
+                .andExpect(content().string(containsString("Content-Range: bytes 0-3/17\r\n\r\ntest\r\n--")))
+                .andExpect(content().string(containsString("Content-Range: bytes 13-16/17\r\n\r\ntent\r\n--")));
+    }
+
+    @Test
+    void downloadObject_RangeNotSatisfiable() throws Exception {
+        when(s3Service.downloadObjectStream("test-file.txt", "bytes=100-", null))
+                .thenThrow(new RangeNotSatisfiableException("Requested range not satisfiable"));
+        when(s3Service.getObjectMetadata("test-file.txt")).thenReturn(testObject);
+
+        mockMvc.perform(get("/api/s3/objects/download")
+                        .param("key", "test-file.txt")
+                        .header("Range", "bytes=100-"))
+                .andExpect(status().isRequestedRangeNotSatisfiable())
+                .andExpect(header().string("Content-Range", "bytes */1024"));
+    }
+
+    @Test
+    void downloadObject_MultipleRangesNotSatisfiable() throws Exception {
+        when(s3Service.getObjectMetadata("test-file.txt", null)).thenReturn(testObject);
+
+        mockMvc.perform(get("/api/s3/objects/download")
+                        .param("key", "test-file.txt")
+                        .header("Range", "bytes=2000-2001, 3000-"))
+                .andExpect(status().isRequestedRangeNotSatisfiable())
+                .andExpect(header().string("Content-Range", "bytes */1024"));
+    }
+
+    @Test
+    void downloadObject_InvalidRangeServesWholeObject() throws Exception {
+        byte[] content = "test file content".getBytes();
+        GetObjectResponse getObjectResponse = GetObjectResponse.builder()
+                .contentLength((long) content.length)
+                .build();
+
+        when(s3Service.downloadObjectStream("test-file.txt", null, null)).thenReturn(objectStream(getObjectResponse, content));
+
+        MvcResult result = mockMvc.perform(get("/api/s3/objects/download")
+                        .param("key", "test-file.txt")
+                        .header("Range", "lines=1-2"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Accept-Ranges", "bytes"))
+                .andExpect(content().bytes(content));
+    }
+
+    @Test
+    void downloadObject_NotModified() throws Exception {
+        when(s3Service.downloadObjectStream(eq("test-file.txt"), isNull(),
+                argThat(c -> "\"etag123\"".equals(c.getIfNoneMatch()) && c.getIfModifiedSince() == null)))
+                .thenThrow(new ObjectNotModifiedException("Object not modified", "\"etag123\"", null));
+
+        mockMvc.perform(get("/api/s3/objects/download")
+                        .param("key", "test-file.txt")
+                        .header("If-None-Match", "\"etag123\"")
+                        .header("If-Modified-Since", "Wed, 21 Oct 2015 07:28:00 GMT"))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string("ETag", "\"etag123\""))
+                .andExpect(content().bytes(new byte[0]));
+    }
+
+    @Test
+    void downloadObject_PendingServedFromStagingFile() throws Exception {
+        StagedUpload upload = new StagedUpload("0000000000000000001", 1, "test-bucket", "docs/a.txt", "text/plain", 5,
+                Instant.parse("2015-10-21T07:28:00Z"));
+        when(writeBehindUploadService.isEnabled()).thenReturn(true);
+        when(writeBehindUploadService.getPendingUpload("docs/a.txt")).thenReturn(upload);
+        when(writeBehindUploadService.openPending(upload)).thenReturn(new ByteArrayInputStream("hello".getBytes()));
+
+        MvcResult result = mockMvc.perform(get("/api/s3/objects/download")
+                        .param("key", "docs/a.txt")
+                        .header("Range", "bytes=0-1"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Type", "text/plain"))
+                .andExpect(header().string("Last-Modified", "Wed, 21 Oct 2015 07:28:00 GMT"))
+                .andExpect(header().doesNotExist("ETag"))
+                .andExpect(content().string("hello"));
+        verify(s3Service, never()).downloadObjectStream(any(), any(), any());
+    }
+
+    @Test
+    void downloadObject_WeakEtagsAreSentStrong() throws Exception {
+        when(s3Service.downloadObjectStream(eq("test-file.txt"), isNull(),
+                argThat(c -> "\"etag123\", \"etag456\"".equals(c.getIfNoneMatch()))))
+                .thenThrow(new ObjectNotModifiedException("Object not modified", "\"etag123\"", null));
+
+        mockMvc.perform(get("/api/s3/objects/download")
+                        .param("key", "test-file.txt")
+                        .header("If-None-Match", "W/\"etag123\", \"etag456\""))
+                .andExpect(status().isNotModified());
+    }
+
+    @Test
+    void downloadObject_ValidatorHeaders() throws Exception {
+        byte[] content = "test file content".getBytes();
+        Instant lastModified = Instant.parse("2015-10-21T07:28:00Z");
+        GetObjectResponse getObjectResponse = GetObjectResponse.builder()
+                .eTag("\"etag123\"")
+                .lastModified(lastModified)
+                .build();
+
+        when(s3Service.downloadObjectStream(eq("test-file.txt"), isNull(),
+                argThat(c -> lastModified.equals(c.getIfModifiedSince()))))
+                .thenReturn(objectStream(getObjectResponse, content));
+
+        MvcResult result = mockMvc.perform(get("/api/s3/objects/download")
+                        .param("key", "test-file.txt")
+                        .header("If-Modified-Since", "Wed, 21 Oct 2015 07:28:00 GMT"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"etag123\""))
+                .andExpect(header().string("Last-Modified", "Wed, 21 Oct 2015 07:28:00 GMT"))
+                .andExpect(header().string("Cache-Control", containsString("no-cache")));
+    }
+
+    @Test
+    void downloadObject_PreconditionFailed() throws Exception {
+        when(s3Service.downloadObjectStream(eq("test-file.txt"), isNull(),
+                argThat(c -> "\"other\"".equals(c.getIfMatch()))))
+                .thenThrow(new PreconditionFailedException("Precondition failed"));
+
+        mockMvc.perform(get("/api/s3/objects/download")
+                        .param("key", "test-file.txt")
+                        .header("If-Match", "\"other\""))
+                .andExpect(status().isPreconditionFailed());
+    }
+
+    @Test
+    void getObjectMetadata_NotModified() throws Exception {
+        when(s3Service.getObjectMetadata(eq("test-file.txt"), argThat(c -> "\"etag123\"".equals(c.getIfNoneMatch()))))
+                .thenThrow(new ObjectNotModifiedException("Object not modified", "\"etag123\"", null));
+
+        mockMvc.perform(get("/api/s3/objects/test-file.txt/metadata")
+                        .header("If-None-Match", "\"etag123\""))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string("ETag", "\"etag123\""));
+    }
+
+    @Test
+    void headObject_Success() throws Exception {
+        testObject.setContentType("text/plain");
+        when(s3Service.getObjectMetadata("test-file.txt", null)).thenReturn(testObject);
+
+        mockMvc.perform(head("/api/s3/objects/download")
+                        .param("key", "test-file.txt"))
+                .andExpect(status().isOk())
+                .andExpect(header().longValue("Content-Length", 1024L))
+                .andExpect(header().string("Content-Type", "text/plain"))
+                .andExpect(header().string("ETag", "\"etag123\""))
+                .andExpect(header().string("Accept-Ranges", "bytes"));
+
+        verify(s3Service, never()).downloadObjectStream(any(), any(), any());
+    }
+
+    @Test
+    void downloadObject_Parallel() throws Exception {
+        byte[] content = "large file content".getBytes();
+        S3Object metadata = new S3Object("test-file.txt", "\"etag123\"", content.length, Instant.now(), "STANDARD", false);
+        when(parallelDownloadService.isEnabled()).thenReturn(true);
+        when(s3Service.getObjectMetadata("test-file.txt", null)).thenReturn(metadata);
+        when(parallelDownloadService.shouldDownloadInParallel(metadata)).thenReturn(true);
+        doAnswer(invocation -> {
+            invocation.getArgument(2, java.io.OutputStream.class).write(content);
+            return null;
+        }).when(parallelDownloadService).download(eq("test-file.txt"), eq(metadata), any(), any());
+
+        MvcResult result = mockMvc.perform(get("/api/s3/objects/download")
+                        .param("key", "test-file.txt"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(header().longValue("Content-Length", content.length))
+                .andExpect(header().string("ETag", "\"etag123\""))
                 .andExpect(content().bytes(content));
 
-        verify(s3Service).downloadObject("test-file.txt");
+        verify(s3Service, never()).downloadObjectStream(any(), any(), any());
+    }
+
+    @Test
+    void downloadObject_ParallelFillsCache() throws Exception {
+        S3Object metadata = new S3Object("test-file.txt", "\"etag123\"", 100L, Instant.now(), "STANDARD", false);
+        ObjectCacheService.CacheFill cacheFill = org.mockito.Mockito.mock(ObjectCacheService.CacheFill.class);
+        when(parallelDownloadService.isEnabled()).thenReturn(true);
+        when(s3Service.getObjectMetadata("test-file.txt", null)).thenReturn(metadata);
+        when(parallelDownloadService.shouldDownloadInParallel(metadata)).thenReturn(true);
+        when(objectCacheService.startFill(metadata)).thenReturn(cacheFill);
+
+        MvcResult result = mockMvc.perform(get("/api/s3/objects/download")
+                        .param("key", "test-file.txt"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk());
+
+        verify(parallelDownloadService).download(eq("test-file.txt"), eq(metadata), any(), same(cacheFill));
+    }
+
+    @Test
+    void downloadObject_BelowParallelThreshold() throws Exception {
+        byte[] content = "small".getBytes();
+        S3Object metadata = new S3Object("test-file.txt", "\"etag123\"", content.length, Instant.now(), "STANDARD", false);
+        when(parallelDownloadService.isEnabled()).thenReturn(true);
+        when(s3Service.getObjectMetadata("test-file.txt", null)).thenReturn(metadata);
+        when(s3Service.downloadObjectStream("test-file.txt", null, null))
+                .thenReturn(objectStream(GetObjectResponse.builder().build(), content));
+
+        MvcResult result = mockMvc.perform(get("/api/s3/objects/download")
+                        .param("key", "test-file.txt"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().bytes(content));
+
+        verify(parallelDownloadService, never()).download(any(), any(), any(), any());
+    }
+
+    @Test
+    void downloadObject_CompressedForGzipClients() throws Exception {
+        byte[] content = "timestamp,level,message\n".repeat(500).getBytes();
+        GetObjectResponse getObjectResponse = GetObjectResponse.builder()
+                .contentType("text/csv")
+                .contentLength((long) content.length)
+                .eTag("\"etag123\"")
+                .build();
+        when(s3Service.downloadObjectStream("logs/app.csv", null, null)).thenReturn(objectStream(getObjectResponse, content));
+
+        MvcResult result = mockMvc.perform(get("/api/s3/objects/download")
+                        .param("key", "logs/app.csv")
+                        .header("Accept-Encoding", "gzip"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        MvcResult dispatched = mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Encoding", "gzip"))
+                .andExpect(header().doesNotExist("Content-Length"))
+                .andReturn();
+
+        byte[] compressed = dispatched.getResponse().getContentAsByteArray();
+        assertTrue(compressed.length < content.length);
+        assertArrayEquals(content, new GZIPInputStream(new ByteArrayInputStream(compressed)).readAllBytes());
+    }
+
+    @Test
+    void downloadObject_CacheHit(@TempDir Path tempDir) throws Exception {
+        byte[] content = "cached content".getBytes();
+        Path cachedFile = Files.write(tempDir.resolve("cached"), content);
+        S3Object metadata = new S3Object("test-file.txt", "\"etag123\"", content.length, Instant.now(), "STANDARD", false);
+        FileChannel channel = FileChannel.open(cachedFile);
+        when(objectCacheService.isEnabled()).thenReturn(true);
+        when(s3Service.getObjectMetadata("test-file.txt", null)).thenReturn(metadata);
+        when(objectCacheService.lookup(metadata)).thenReturn(channel);
+
+        MvcResult result = mockMvc.perform(get("/api/s3/objects/download")
+                        .param("key", "test-file.txt"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(header().longValue("Content-Length", content.length))
+                .andExpect(header().string("ETag", "\"etag123\""))
+                .andExpect(content().bytes(content));
+
+        assertFalse(channel.isOpen());
+        verify(s3Service, never()).downloadObjectStream(any(), any(), any());
+    }
+
+    @Test
+    void downloadObject_CacheHitServedAfterEntryIsEvicted(@TempDir Path tempDir) throws Exception {
+        byte[] content = "cached content".getBytes();
+        Path cachedFile = Files.write(tempDir.resolve("cached"), content);
+        S3Object metadata = new S3Object("test-file.txt", "\"etag123\"", content.length, Instant.now(), "STANDARD", false);
+        when(objectCacheService.isEnabled()).thenReturn(true);
+        when(s3Service.getObjectMetadata("test-file.txt", null)).thenReturn(metadata);
+        when(objectCacheService.lookup(metadata)).thenAnswer(invocation -> {
+            FileChannel channel = FileChannel.open(cachedFile);
+            // Evicted right after it was opened
+            Files.delete(cachedFile);
+            return channel;
+        });
+
+        MvcResult result = mockMvc.perform(get("/api/s3/objects/download")
+                        .param("key", "test-file.txt"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().bytes(content));
+    }
+
+    @Test
+    void downloadObject_CacheMissFillsCache() throws Exception {
+        byte[] content = "fresh content".getBytes();
+        S3Object metadata = new S3Object("test-file.txt", "\"etag123\"", content.length, Instant.now(), "STANDARD", false);
+        ObjectCacheService.CacheFill cacheFill = org.mockito.Mockito.mock(ObjectCacheService.CacheFill.class);
+        when(objectCacheService.isEnabled()).thenReturn(true);
+        when(s3Service.getObjectMetadata("test-file.txt", null)).thenReturn(metadata);
+        when(objectCacheService.startFill(metadata)).thenReturn(cacheFill);
+        when(s3Service.downloadObjectStream(eq("test-file.txt"), isNull(),
+                argThat(conditions -> conditions != null && "\"etag123\"".equals(conditions.getIfMatch()))))
+                .thenReturn(objectStream(GetObjectResponse.builder().build(), content));
+
+        MvcResult result = mockMvc.perform(get("/api/s3/objects/download")
+                        .param("key", "test-file.txt"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().bytes(content));
+
+        verify(cacheFill).write(any(byte[].class), eq(0), eq(content.length));
+        verify(cacheFill).commit();
+        verify(cacheFill).close();
+    }
+
+    @Test
+    void downloadArchive_Success() throws Exception {
+        when(archiveService.getArchiveName("docs/", ArchiveFormat.TAR_GZ)).thenReturn("docs.tar.gz");
+        doAnswer(invocation -> {
+            invocation.getArgument(2, java.io.OutputStream.class).write("archive".getBytes());
+            return null;
+        }).when(archiveService).writeArchive(eq("docs/"), eq(ArchiveFormat.TAR_GZ), any());
+
+        MvcResult result = mockMvc.perform(get("/api/s3/objects/archive")
+                        .param("prefix", "docs/")
+                        .param("format", "tar.gz"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Type", "application/gzip"))
+                .andExpect(header().string("Content-Disposition", containsString("docs.tar.gz")))
+                .andExpect(content().bytes("archive".getBytes()));
+    }
+
+    @Test
+    void downloadArchive_UnsupportedFormat() throws Exception {
+        mockMvc.perform(get("/api/s3/objects/archive")
+                        .param("prefix", "docs/")
+                        .param("format", "rar"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void downloadObject_RedirectsToPresignedUrl() throws Exception {
+        when(presignedUrlService.isEnabled()).thenReturn(true);
+        when(presignedUrlService.getDownloadUrl("test-file.txt")).thenReturn(
+                new PresignedUrl("http://localhost:9000/bucket/test-file.txt?X-Amz-Signature=abc", "GET", Instant.now(), java.util.Map.of()));
+
+        mockMvc.perform(get("/api/s3/objects/download")
+                        .param("key", "test-file.txt")
+                        .param("redirect", "true"))
+                .andExpect(status().isFound())
+                .andExpect(header().string("Location", "http://localhost:9000/bucket/test-file.txt?X-Amz-Signature=abc"))
+                .andExpect(header().string("Cache-Control", "no-store"));
+
+        verify(s3Service, never()).downloadObjectStream(any(), any(), any());
+    }
+
+    @Test
+    void downloadObject_RedirectByDefaultCanBeDeclined() throws Exception {
+        when(presignedUrlService.isEnabled()).thenReturn(true);
+        when(presignedUrlService.isRedirectDownloads()).thenReturn(true);
+        when(s3Service.downloadObjectStream("test-file.txt", null, null))
+                .thenReturn(objectStream(GetObjectResponse.builder().build(), "content".getBytes()));
+
+        MvcResult result = mockMvc.perform(get("/api/s3/objects/download")
+                        .param("key", "test-file.txt")
+                        .param("redirect", "false"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk());
+
+        verify(presignedUrlService, never()).getDownloadUrl(any());
+    }
+
+    @Test
+    void downloadObject_CompactedObjectIsNotRedirected() throws Exception {
+        when(presignedUrlService.isEnabled()).thenReturn(true);
+        when(presignedUrlService.isRedirectDownloads()).thenReturn(true);
+        when(compactionService.resolve("logs/small.txt")).thenReturn(compacted("logs/small.txt", 100L, 5L));
+        when(s3Service.downloadObjectStream("logs/small.txt", null, null))
+                .thenReturn(objectStream(GetObjectResponse.builder().contentType("text/plain").build(), "small".getBytes()));
+
+        MvcResult result = mockMvc.perform(get("/api/s3/objects/download")
+                        .param("key", "logs/small.txt"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().bytes("small".getBytes()));
+
+        verify(presignedUrlService, never()).getDownloadUrl(any());
+    }
+
+    @Test
+    void getPresignedDownloadUrl_Success() throws Exception {
+        Instant expiration = Instant.parse("2024-01-15T10:15:00Z");
+        when(presignedUrlService.isEnabled()).thenReturn(true);
+        when(presignedUrlService.getDownloadUrl("test-file.txt")).thenReturn(
+                new PresignedUrl("http://localhost:9000/bucket/test-file.txt?X-Amz-Signature=abc", "GET", expiration, java.util.Map.of()));
+
+        mockMvc.perform(get("/api/s3/objects/presigned-url")
+                        .param("key", "test-file.txt"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.url").value("http://localhost:9000/bucket/test-file.txt?X-Amz-Signature=abc"))
+                .andExpect(jsonPath("$.method").value("GET"));
+    }
+
+    @Test
+    void getPresignedUploadUrl_Success() throws Exception {
+        when(presignedUrlService.isEnabled()).thenReturn(true);
+        when(presignedUrlService.getUploadUrl("test-file.txt", "text/plain")).thenReturn(
+                new PresignedUrl("http://localhost:9000/bucket/test-file.txt?X-Amz-Signature=abc", "PUT", Instant.now(),
+                        java.util.Map.of("content-type", "text/plain")));
+
+        mockMvc.perform(get("/api/s3/objects/presigned-upload-url")
+                        .param("key", "test-file.txt")
+                        .param("contentType", "text/plain"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.method").value("PUT"))
+                .andExpect(jsonPath("$.headers.content-type").value("text/plain"));
+    }
+
+    @Test
+    void getPresignedDownloadUrl_Disabled() throws Exception {
+        mockMvc.perform(get("/api/s3/objects/presigned-url")
+                        .param("key", "test-file.txt"))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void viewTextObject_ByLine() throws Exception {
+        when(textViewerService.readLines("logs/app.log", 40, 2)).thenReturn(textPage(40L, Arrays.asList("line40", "line41")));
+
+        mockMvc.perform(get("/api/s3/objects/text")
+                        .param("key", "logs/app.log")
+                        .param("line", "40")
+                        .param("count", "2"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Cache-Control", containsString("no-cache")))
+                .andExpect(jsonPath("$.startLine").value(40))
+                .andExpect(jsonPath("$.lines[1]").value("line41"))
+                .andExpect(jsonPath("$.indexComplete").value(false))
+                .andExpect(jsonPath("$.indexedLines").value(100));
+    }
+
+    @Test
+    void viewTextObject_Tail() throws Exception {
+        when(textViewerService.readTail("logs/app.log", 100)).thenReturn(textPage(null, Arrays.asList("last")));
+
+        mockMvc.perform(get("/api/s3/objects/text")
+                        .param("key", "logs/app.log")
+                        .param("tail", "true"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.lines[0]").value("last"));
+    }
+
+    @Test
+    void viewTextObject_FromOffset() throws Exception {
+        when(textViewerService.readFromOffset("logs/app.log", 4096, 100)).thenReturn(textPage(null, Arrays.asList("middle")));
+
+        mockMvc.perform(get("/api/s3/objects/text")
+                        .param("key", "logs/app.log")
+                        .param("offset", "4096"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.lines[0]").value("middle"));
+        verify(textViewerService, never()).readLines(anyString(), anyLong(), anyInt());
+    }
+
+    @Test
+    void viewTextObject_IndexNotReady() throws Exception {
+        when(textViewerService.readLines("logs/app.log", 5000000, 100))
+                .thenThrow(new TextIndexNotReadyException("Line 5000000 of logs/app.log is not indexed yet", 1000));
+
+        mockMvc.perform(get("/api/s3/objects/text")
+                        .param("key", "logs/app.log")
+                        .param("line", "5000000"))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(header().string("Retry-After", "1"));
+    }
+
+    @Test
+    void getThumbnail_Success() throws Exception {
+        byte[] data = {(byte) 0xFF, (byte) 0xD8, (byte) 0xFF};
+        when(thumbnailService.isEnabled()).thenReturn(true);
+        when(thumbnailService.getThumbnail("photos/cat.jpg", ThumbnailSize.MEDIUM)).thenReturn(CompletableFuture.completedFuture(
+                new Thumbnail("photos/cat.jpg", "\"etag1\"", ThumbnailSize.MEDIUM, "image/jpeg", data)));
+
+        MvcResult result = mockMvc.perform(get("/api/s3/objects/thumbnail")
+                        .param("key", "photos/cat.jpg")
+                        .param("size", "medium"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Type", "image/jpeg"))
+                .andExpect(content().bytes(data));
+    }
+
+    @Test
+    void getThumbnail_NotAnImage() throws Exception {
+        when(thumbnailService.isEnabled()).thenReturn(true);
+        when(thumbnailService.getThumbnail("docs/report.pdf", ThumbnailSize.SMALL)).thenReturn(CompletableFuture.completedFuture(null));
+
+        MvcResult result = mockMvc.perform(get("/api/s3/objects/thumbnail")
+                        .param("key", "docs/report.pdf"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void getThumbnail_Busy() throws Exception {
+        when(thumbnailService.isEnabled()).thenReturn(true);
+        when(thumbnailService.getThumbnail("photos/cat.jpg", ThumbnailSize.SMALL))
+                .thenReturn(CompletableFuture.failedFuture(new RejectedExecutionException("full")));
+
+        MvcResult result = mockMvc.perform(get("/api/s3/objects/thumbnail")
+                        .param("key", "photos/cat.jpg"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isServiceUnavailable());
+    }
+
+    @Test
+    void getThumbnail_UnsupportedSize() throws Exception {
+        mockMvc.perform(get("/api/s3/objects/thumbnail")
+                        .param("key", "photos/cat.jpg")
+                        .param("size", "huge"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void getThumbnails_Batch() throws Exception {
+        when(thumbnailService.isEnabled()).thenReturn(true);
+        when(thumbnailService.getThumbnails(Arrays.asList("photos/cat.jpg", "docs/report.pdf"), ThumbnailSize.SMALL))
+                .thenReturn(CompletableFuture.completedFuture(Arrays.asList(
+                        new Thumbnail("photos/cat.jpg", "\"etag1\"", ThumbnailSize.SMALL, "image/jpeg", new byte[] {1, 2, 3}))));
+
+        MvcResult result = mockMvc.perform(post("/api/s3/objects/thumbnails")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"keys\":[\"photos/cat.jpg\",\"docs/report.pdf\"],\"size\":\"small\"}"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(1))
+                .andExpect(jsonPath("$[0].key").value("photos/cat.jpg"))
+                .andExpect(jsonPath("$[0].size").value("small"))
+                .andExpect(jsonPath("$[0].data").value("AQID"));
+    }
+
+    @Test
+    void getThumbnails_Busy() throws Exception {
+        when(thumbnailService.isEnabled()).thenReturn(true);
+        when(thumbnailService.getThumbnails(Arrays.asList("photos/cat.jpg"), ThumbnailSize.SMALL))
+                .thenReturn(CompletableFuture.failedFuture(new RejectedExecutionException("full")));
+
+        MvcResult result = mockMvc.perform(post("/api/s3/objects/thumbnails")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"keys\":[\"photos/cat.jpg\"],\"size\":\"small\"}"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isServiceUnavailable());
+    }
+
+    @Test
+    void getThumbnails_Disabled() throws Exception {
+        MvcResult result = mockMvc.perform(post("/api/s3/objects/thumbnails")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"keys\":[\"photos/cat.jpg\"]}"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isNotFound());
     }
 
     @Test
@@ -158,6 +1106,346 @@ class S3ControllerTest {
         verify(s3Service).uploadObject(eq("test-key"), any(), eq(12L), eq("text/plain"));
     }
 
+    @Test
+    void uploadObjectStream_Success() throws Exception {
+        byte[] content = "streamed content".getBytes();
+        doAnswer(invocation -> {
+            assertArrayEquals(content, invocation.getArgument(1, InputStream.class).readAllBytes());
+            return null;
+        }).when(s3Service).uploadObject(eq("folder/data.gz"), any(), eq((long) content.length), startsWith("application/gzip"));
+
+        mockMvc.perform(put("/api/s3/objects")
+                        .param("key", "folder/data.gz")
+                        .contentType("application/gzip")
+                        .content(content))
+                .andExpect(status().isCreated())
+                .andExpect(content().string(containsString("Object uploaded successfully")));
+
+        verify(s3Service).uploadObject(eq("folder/data.gz"), any(), eq((long) content.length), startsWith("application/gzip"));
+    }
+
+    @Test
+    void uploadObjectStream_StagedInWriteBehindMode() throws Exception {
+        byte[] content = "streamed content".getBytes();
+        when(writeBehindUploadService.tryStage(eq("folder/data.txt"), any(), eq((long) content.length), startsWith("text/plain")))
+                .thenReturn(new StagedUpload("1", 1L, "bucket", "folder/data.txt", "text/plain", content.length, Instant.now()));
+
+        mockMvc.perform(put("/api/s3/objects")
+                        .param("key", "folder/data.txt")
+                        .contentType("text/plain")
+                        .content(content))
+                .andExpect(status().isAccepted())
+                .andExpect(content().string(containsString("Object queued for upload")));
+
+        verify(s3Service, never()).uploadObject(any(), any(), anyLong(), any());
+        verify(multipartUploadService, never()).upload(any(), any(), anyLong(), any());
+    }
+
+    @Test
+    void uploadObjectStream_IndexedWhenDedupEnabled() throws Exception {
+        byte[] content = "streamed content".getBytes();
+        when(dedupUploadService.isEnabled()).thenReturn(true);
+
+        mockMvc.perform(put("/api/s3/objects")
+                        .param("key", "folder/data.bin")
+                        .contentType("application/octet-stream")
+                        .content(content))
+                .andExpect(status().isCreated());
+
+        verify(dedupUploadService).upload(eq("folder/data.bin"), any(InputStream.class), eq((long) content.length), startsWith("application/octet-stream"));
+        verify(s3Service, never()).uploadObject(any(), any(), anyLong(), any());
+    }
+
+    @Test
+    void uploadObjectStream_DeltaForLargeUploads() throws Exception {
+        byte[] content = "new version".getBytes();
+        when(deltaUploadService.shouldUseDelta(content.length)).thenReturn(true);
+        when(dedupUploadService.isEnabled()).thenReturn(true);
+
+        mockMvc.perform(put("/api/s3/objects")
+                        .param("key", "folder/big.bin")
+                        .contentType("application/octet-stream")
+                        .content(content))
+                .andExpect(status().isCreated());
+
+        verify(deltaUploadService).upload(eq("folder/big.bin"), any(InputStream.class), eq((long) content.length), startsWith("application/octet-stream"));
+        verify(dedupUploadService, never()).upload(any(), any(InputStream.class), anyLong(), any());
+        verify(s3Service, never()).uploadObject(any(), any(), anyLong(), any());
+    }
+
+    @Test
+    void appendObject_ReturnsNewVersion() throws Exception {
+        byte[] content = "line2\n".getBytes();
+        S3Object appended = new S3Object("logs/app.log", "\"v2\"", 12L, Instant.now(), "STANDARD", false);
+        when(appendService.append(eq("logs/app.log"), any(), eq((long) content.length), startsWith("text/plain")))
+                .thenReturn(appended);
+
+        mockMvc.perform(post("/api/s3/objects/append")
+                        .param("key", "logs/app.log")
+                        .contentType("text/plain")
+                        .content(content))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.key").value("logs/app.log"))
+                .andExpect(jsonPath("$.size").value(12));
+    }
+
+    @Test
+    void appendObject_LengthRequired() throws Exception {
+        mockMvc.perform(post("/api/s3/objects/append")
+                        .param("key", "logs/app.log")
+                        .contentType("text/plain"))
+                .andExpect(status().isLengthRequired());
+
+        verify(appendService, never()).append(any(), any(), anyLong(), any());
+    }
+
+    @Test
+    void findContent_Found() throws Exception {
+        String sha256 = "ab".repeat(32);
+        when(dedupUploadService.find(sha256, 9L))
+                .thenReturn(new DedupEntry(sha256, "e3069283", 9L, "bucket", "a.bin", "\"etag\"", Instant.now()));
+
+        mockMvc.perform(get("/api/s3/objects/dedup")
+                        .param("sha256", sha256)
+                        .param("size", "9"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.key").value("a.bin"))
+                .andExpect(jsonPath("$.crc32c").value("e3069283"));
+    }
+
+    @Test
+    void findContent_NotFound() throws Exception {
+        mockMvc.perform(get("/api/s3/objects/dedup")
+                        .param("sha256", "ab".repeat(32))
+                        .param("size", "9"))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void uploadObjectByHash_CopiesKnownContent() throws Exception {
+        String sha256 = "ab".repeat(32);
+        when(dedupUploadService.copyExisting("b.bin", sha256, 9L, "text/plain")).thenReturn(true);
+
+        mockMvc.perform(post("/api/s3/objects/dedup")
+                        .param("key", "b.bin")
+                        .param("sha256", sha256)
+                        .param("size", "9")
+                        .param("contentType", "text/plain"))
+                .andExpect(status().isCreated())
+                .andExpect(content().string(containsString("Object uploaded successfully")));
+    }
+
+    @Test
+    void uploadObjectByHash_UnknownContent() throws Exception {
+        mockMvc.perform(post("/api/s3/objects/dedup")
+                        .param("key", "b.bin")
+                        .param("sha256", "ab".repeat(32))
+                        .param("size", "9"))
+                .andExpect(status().isNotFound())
+                .andExpect(content().string(containsString("Content not found")));
+    }
+
+    @Test
+    void uploadObjectByHash_InvalidHash() throws Exception {
+        when(dedupUploadService.copyExisting(any(), eq("xyz"), anyLong(), any()))
+                .thenThrow(new IllegalArgumentException("SHA-256 must be 64 hex digits"));
+
+        mockMvc.perform(post("/api/s3/objects/dedup")
+                        .param("key", "b.bin")
+                        .param("sha256", "xyz")
+                        .param("size", "9"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void uploadObjectStream_LengthRequired() throws Exception {
+        mockMvc.perform(put("/api/s3/objects")
+                        .param("key", "folder/data.csv")
+                        .contentType("text/csv"))
+                .andExpect(status().isLengthRequired());
+
+        verify(s3Service, never()).uploadObject(any(), any(), anyLong(), any());
+    }
+
+    @Test
+    void uploadObjectStream_UnknownLengthUsesMultipart() throws Exception {
+        when(multipartUploadService.shouldUseMultipart(-1L)).thenReturn(true);
+
+        mockMvc.perform(put("/api/s3/objects")
+                        .param("key", "folder/data.csv")
+                        .contentType("text/csv"))
+                .andExpect(status().isCreated())
+                .andExpect(content().string(containsString("Object uploaded successfully")));
+
+        verify(multipartUploadService).upload(eq("folder/data.csv"), any(), eq(-1L), startsWith("text/csv"));
+        verify(s3Service, never()).uploadObject(any(), any(), anyLong(), any());
+    }
+
+    @Test
+    void uploadObjectStream_LargeBodyUsesMultipart() throws Exception {
+        byte[] content = "large content".getBytes();
+        when(multipartUploadService.shouldUseMultipart(content.length)).thenReturn(true);
+
+        mockMvc.perform(put("/api/s3/objects")
+                        .param("key", "folder/large.bin")
+                        .contentType("application/octet-stream")
+                        .content(content))
+                .andExpect(status().isCreated());
+
+        verify(multipartUploadService).upload(eq("folder/large.bin"), any(), eq((long) content.length), startsWith("application/octet-stream"));
+        verify(s3Service, never()).uploadObject(any(), any(), anyLong(), any());
+    }
+
+    @Test
+    void uploadBatch_ReturnsPerFileResults() throws Exception {
+        byte[] archive = new byte[1024];
+        when(batchUploadService.uploadTar(eq("photos/"), any())).thenReturn(Arrays.asList(
+                UploadResult.success("photos/a.jpg", 10L),
+                UploadResult.failure("photos/b.jpg", 20L, "Access Denied")));
+
+        mockMvc.perform(post("/api/s3/objects/batch")
+                        .param("prefix", "photos/")
+                        .contentType("application/x-tar")
+                        .content(archive))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(jsonPath("$[0].key").value("photos/a.jpg"))
+                .andExpect(jsonPath("$[0].success").value(true))
+                .andExpect(jsonPath("$[1].success").value(false))
+                .andExpect(jsonPath("$[1].error").value("Access Denied"));
+    }
+
+    @Test
+    void expandArchive_StreamsResultLines() throws Exception {
+        when(batchUploadService.expandArchive(eq("site/"), any(), any())).thenAnswer(invocation -> {
+            Consumer<UploadResult> listener = invocation.getArgument(2);
+            listener.accept(UploadResult.success("site/index.html", 10L));
+            listener.accept(UploadResult.failure("site/app.js", 20L, "Access Denied"));
+            return List.of();
+        });
+
+        MvcResult result = mockMvc.perform(post("/api/s3/objects/expand")
+                        .param("prefix", "site/")
+                        .contentType("application/zip")
+                        .content(new byte[16]))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Type", containsString("application/x-ndjson")))
+                .andExpect(header().string("Cache-Control", containsString("no-transform")))
+                .andExpect(content().string(matchesPattern(
+                        "(?s)\\{[^\n]*\"key\":\"site/index.html\"[^\n]*\\}\n\\{[^\n]*\"error\":\"Access Denied\"[^\n]*\\}\n")));
+    }
+
+    @Test
+    void expandArchive_ReportsArchiveFailure() throws Exception {
+        when(batchUploadService.expandArchive(eq(""), any(), any())).thenThrow(new IOException("Invalid tar header checksum"));
+
+        MvcResult result = mockMvc.perform(post("/api/s3/objects/expand")
+                        .content(new byte[16]))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().string(containsString("\"success\":false")))
+                .andExpect(content().string(containsString("Failed to expand archive: Invalid tar header checksum")));
+    }
+
+    @Test
+    void createUploadSession_Success() throws Exception {
+        UploadSession session = uploadSession();
+        when(resumableUploadService.createSession("videos/a.mp4", "video/mp4", 25L, null)).thenReturn(session);
+
+        mockMvc.perform(post("/api/s3/uploads")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"key\":\"videos/a.mp4\",\"size\":25,\"contentType\":\"video/mp4\"}"))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.id").value("session-1"))
+                .andExpect(jsonPath("$.chunkSize").value(10))
+                .andExpect(jsonPath("$.chunkCount").value(3))
+                .andExpect(jsonPath("$.receivedChunks.length()").value(0));
+    }
+
+    @Test
+    void createUploadSession_InvalidRequest() throws Exception {
+        mockMvc.perform(post("/api/s3/uploads")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"key\":\"videos/a.mp4\"}"))
+                .andExpect(status().isBadRequest());
+
+        verify(resumableUploadService, never()).createSession(any(), any(), anyLong(), any());
+    }
+
+    @Test
+    void getUploadSession_ReportsReceivedChunks() throws Exception {
+        UploadSession session = uploadSession();
+        session.getChunkEtags().put(1, "a");
+        session.getChunkEtags().put(3, "c");
+        when(resumableUploadService.getSession("session-1")).thenReturn(session);
+
+        mockMvc.perform(get("/api/s3/uploads/session-1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.receivedChunks[0]").value(1))
+                .andExpect(jsonPath("$.receivedChunks[1]").value(3))
+                .andExpect(jsonPath("$.receivedBytes").value(15));
+    }
+
+    @Test
+    void getUploadSession_NotFound() throws Exception {
+        when(resumableUploadService.getSession("missing"))
+                .thenThrow(new UploadSessionNotFoundException("Upload session not found: missing"));
+
+        mockMvc.perform(get("/api/s3/uploads/missing"))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void uploadChunk_Success() throws Exception {
+        byte[] chunk = "0123456789".getBytes();
+        doAnswer(invocation -> {
+            assertArrayEquals(chunk, invocation.getArgument(2, InputStream.class).readAllBytes());
+            return uploadSession();
+        }).when(resumableUploadService).uploadChunk(eq("session-1"), eq(2), any(), eq((long) chunk.length));
+
+        mockMvc.perform(put("/api/s3/uploads/session-1/chunks/2")
+                        .contentType(MediaType.APPLICATION_OCTET_STREAM)
+                        .content(chunk))
+                .andExpect(status().isNoContent());
+
+        verify(resumableUploadService).uploadChunk(eq("session-1"), eq(2), any(), eq((long) chunk.length));
+    }
+
+    @Test
+    void uploadChunk_WrongLength() throws Exception {
+        when(resumableUploadService.uploadChunk(eq("session-1"), eq(1), any(), anyLong()))
+                .thenThrow(new IllegalArgumentException("Chunk 1 must be 10 bytes, got 3"));
+
+        mockMvc.perform(put("/api/s3/uploads/session-1/chunks/1")
+                        .contentType(MediaType.APPLICATION_OCTET_STREAM)
+                        .content("abc".getBytes()))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void commitUploadSession_Success() throws Exception {
+        when(resumableUploadService.commit("session-1")).thenReturn(uploadSession());
+
+        mockMvc.perform(post("/api/s3/uploads/session-1/commit"))
+                .andExpect(status().isCreated())
+                .andExpect(content().string(containsString("Object uploaded successfully: videos/a.mp4")));
+    }
+
+    @Test
+    void abortUploadSession_Success() throws Exception {
+        mockMvc.perform(delete("/api/s3/uploads/session-1"))
+                .andExpect(status().isNoContent());
+
+        verify(resumableUploadService).abort("session-1");
+    }
+
     @Test
     void deleteObject_Success() throws Exception {
         mockMvc.perform(delete("/api/s3/objects")
@@ -165,7 +1453,70 @@ class S3ControllerTest {
 )
                 .andExpect(status().isNoContent());
 
+        verify(writeBehindUploadService).discardPending("test-key");
         verify(s3Service).deleteObject("test-key");
+        verify(compactionService).forget("test-key");
+    }
+
+    @Test
+    void startCompaction_Queued() throws Exception {
+        CompactionJob job = new CompactionJob("job-1", "bucket", "logs/", Instant.now());
+        when(compactionService.isEnabled()).thenReturn(true);
+        when(compactionService.start("logs/")).thenReturn(job);
+
+        mockMvc.perform(post("/api/s3/compactions")
+                        .param("prefix", "logs/"))
+                .andExpect(status().isAccepted())
+                .andExpect(jsonPath("$.id").value("job-1"))
+                .andExpect(jsonPath("$.prefix").value("logs/"))
+                .andExpect(jsonPath("$.status").value("QUEUED"));
+    }
+
+    @Test
+    void startCompaction_Disabled() throws Exception {
+        mockMvc.perform(post("/api/s3/compactions")
+                        .param("prefix", "logs/"))
+                .andExpect(status().isNotFound());
+
+        verify(compactionService, never()).start(any());
+    }
+
+    @Test
+    void getCompaction_Progress() throws Exception {
+        Instant started = Instant.parse("2024-01-01T10:00:00Z");
+        CompactionJob job = new CompactionJob("job-1", "bucket", "logs/", started);
+        job.setStartedAt(started);
+        job.setUpdatedAt(started.plusSeconds(2));
+        job.setObjectsPacked(10L);
+        job.setBytesPacked(4096L);
+        when(compactionService.getJob("job-1")).thenReturn(job);
+
+        mockMvc.perform(get("/api/s3/compactions/job-1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.objectsPacked").value(10))
+                .andExpect(jsonPath("$.bytesPacked").value(4096))
+                .andExpect(jsonPath("$.bytesPerSecond").value(2048));
+    }
+
+    @Test
+    void getCompaction_NotFound() throws Exception {
+        when(compactionService.getJob("missing")).thenThrow(new CompactionJobNotFoundException("Compaction job not found: missing"));
+
+        mockMvc.perform(get("/api/s3/compactions/missing"))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void cancelCompaction_Success() throws Exception {
+        CompactionJob job = new CompactionJob("job-1", "bucket", "logs/", Instant.now());
+        job.setCancelRequested(true);
+        when(compactionService.cancel("job-1")).thenReturn(job);
+
+        mockMvc.perform(delete("/api/s3/compactions/job-1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.id").value("job-1"));
+
+        verify(compactionService).cancel("job-1");
     }
 
     @Test
@@ -202,4 +1553,31 @@ class S3ControllerTest {
 
         verify(s3Service).testConnection();
     }
-}
\ No newline at end of file
+
+    private static CompactedObject compacted(String key, long offset, long length) {
+        CompactedObject compacted = new CompactedObject(key, "\"small\"", length, Instant.parse("2024-01-01T10:00:00Z"),
+                "text/plain", "container.pack", offset);
+        compacted.setContainerEtag("\"container\"");
+        return compacted;
+    }
+
+    private ResponseInputStream<GetObjectResponse> objectStream(GetObjectResponse response, byte[] content) {
+        return new ResponseInputStream<>(response, AbortableInputStream.create(new ByteArrayInputStream(content)));
+    }
+
+    private TextPage textPage(Long startLine, List<String> lines) {
+        TextPage page = new TextPage();
+        page.setKey("logs/app.log");
+        page.setEtag("\"etag1\"");
+        page.setObjectSize(1000000L);
+        page.setStartLine(startLine);
+        page.setLines(lines);
+        page.setIndexedLines(100L);
+        return page;
+    }
+
+    private UploadSession uploadSession() {
+        return new UploadSession("session-1", "videos/a.mp4", "video/mp4", "test-bucket", "upload-1",
+                25L, 10L, Instant.parse("2024-01-01T10:00:00Z"));
+    }
+}
@@ -0,0 +1,40 @@
+package com.enterprise.s3browser.dto;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CompactionJobDtoTest {
+
+    private static final Instant CREATED = Instant.parse("2024-01-01T10:00:00Z");
+
+    @Test
+    void testDefaultConstructor() {
+        CompactionJobDto dto = new CompactionJobDto();
+
+        assertNull(dto.getId());
+        assertNull(dto.getStatus());
+        assertEquals(0L, dto.getBytesPacked());
+        assertNull(dto.getError());
+    }
+
+    @Test
+    void testParameterizedConstructor() {
+        CompactionJobDto dto = new CompactionJobDto("job", "logs/", "RUNNING", 100L, 90L, 9000L, 1, 4500L,
+                CREATED, CREATED.plusSeconds(1), null, null);
+
+        assertEquals("job", dto.getId());
+        assertEquals("logs/", dto.getPrefix());
+        assertEquals("RUNNING", dto.getStatus());
+        assertEquals(100L, dto.getObjectsScanned());
+        assertEquals(90L, dto.getObjectsPacked());
+        assertEquals(9000L, dto.getBytesPacked());
+        assertEquals(1, dto.getContainers());
+        assertEquals(4500L, dto.getBytesPerSecond());
+        assertEquals(CREATED, dto.getCreatedAt());
+        assertEquals(CREATED.plusSeconds(1), dto.getStartedAt());
+        assertNull(dto.getFinishedAt());
+    }
+}
@@ -0,0 +1,28 @@
+package com.enterprise.s3browser.dto;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DedupMatchDtoTest {
+
+    @Test
+    void testDefaultConstructor() {
+        DedupMatchDto dto = new DedupMatchDto();
+
+        assertNull(dto.getSha256());
+        assertNull(dto.getCrc32c());
+        assertEquals(0L, dto.getSize());
+        assertNull(dto.getKey());
+    }
+
+    @Test
+    void testParameterizedConstructor() {
+        DedupMatchDto dto = new DedupMatchDto("ab".repeat(32), "e3069283", 9L, "a.bin");
+
+        assertEquals("ab".repeat(32), dto.getSha256());
+        assertEquals("e3069283", dto.getCrc32c());
+        assertEquals(9L, dto.getSize());
+        assertEquals("a.bin", dto.getKey());
+    }
+}
@@ -0,0 +1,37 @@
+package com.enterprise.s3browser.dto;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PresignedUrlDtoTest {
+
+    @Test
+    void testDefaultConstructor() {
+        PresignedUrlDto dto = new PresignedUrlDto();
+
+        assertNull(dto.getUrl());
+        assertNull(dto.getMethod());
+        assertNull(dto.getExpiresAt());
+        assertNull(dto.getHeaders());
+    }
+
+    @Test
+    void testSettersAndGetters() {
+        PresignedUrlDto dto = new PresignedUrlDto();
+        Instant expiresAt = Instant.now();
+
+        dto.setUrl("http://localhost:9000/bucket/key");
+        dto.setMethod("GET");
+        dto.setExpiresAt(expiresAt);
+        dto.setHeaders(Map.of());
+
+        assertEquals("http://localhost:9000/bucket/key", dto.getUrl());
+        assertEquals("GET", dto.getMethod());
+        assertEquals(expiresAt, dto.getExpiresAt());
+        assertTrue(dto.getHeaders().isEmpty());
+    }
+}
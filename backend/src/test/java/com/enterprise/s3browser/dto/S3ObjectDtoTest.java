@@ -31,6 +31,8 @@ class S3ObjectDtoTest {
         dto.setLastModified(now);
         dto.setStorageClass("STANDARD");
         dto.setDirectory(true);
+        dto.setContentType("text/plain");
+        dto.setPending(true);
         
         assertEquals("test-key", dto.getKey());
         assertEquals("etag123", dto.getEtag());
@@ -38,6 +40,8 @@ class S3ObjectDtoTest {
         assertEquals(now, dto.getLastModified());
         assertEquals("STANDARD", dto.getStorageClass());
         assertTrue(dto.isDirectory());
+        assertEquals("text/plain", dto.getContentType());
+        assertTrue(dto.isPending());
     }
 
     @Test
@@ -0,0 +1,48 @@
+package com.enterprise.s3browser.dto;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TextPageDtoTest {
+
+    @Test
+    void testDefaultConstructor() {
+        TextPageDto dto = new TextPageDto();
+
+        assertNull(dto.getKey());
+        assertNull(dto.getStartLine());
+        assertNull(dto.getLines());
+        assertNull(dto.getTotalLines());
+        assertFalse(dto.isIndexComplete());
+    }
+
+    @Test
+    void testSettersAndGetters() {
+        TextPageDto dto = new TextPageDto();
+
+        dto.setKey("logs/app.log");
+        dto.setEtag("\"etag1\"");
+        dto.setObjectSize(1024L);
+        dto.setStartLine(10L);
+        dto.setStartOffset(60L);
+        dto.setEndOffset(72L);
+        dto.setLines(Arrays.asList("line10", "line11"));
+        dto.setTotalLines(170L);
+        dto.setIndexedLines(170L);
+        dto.setIndexComplete(true);
+
+        assertEquals("logs/app.log", dto.getKey());
+        assertEquals("\"etag1\"", dto.getEtag());
+        assertEquals(1024L, dto.getObjectSize());
+        assertEquals(10L, dto.getStartLine());
+        assertEquals(60L, dto.getStartOffset());
+        assertEquals(72L, dto.getEndOffset());
+        assertEquals(Arrays.asList("line10", "line11"), dto.getLines());
+        assertEquals(170L, dto.getTotalLines());
+        assertEquals(170L, dto.getIndexedLines());
+        assertTrue(dto.isIndexComplete());
+    }
+}
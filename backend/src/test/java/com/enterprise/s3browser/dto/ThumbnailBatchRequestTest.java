@@ -0,0 +1,35 @@
+package com.enterprise.s3browser.dto;
+
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validation;
+import jakarta.validation.Validator;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ThumbnailBatchRequestTest {
+
+    private final Validator validator = Validation.buildDefaultValidatorFactory().getValidator();
+
+    @Test
+    void testParameterizedConstructor() {
+        ThumbnailBatchRequest request = new ThumbnailBatchRequest(Arrays.asList("a.png", "b.jpg"), "medium");
+
+        assertEquals(Arrays.asList("a.png", "b.jpg"), request.getKeys());
+        assertEquals("medium", request.getSize());
+    }
+
+    @Test
+    void testValidation_EmptyKeys() {
+        ThumbnailBatchRequest request = new ThumbnailBatchRequest(Collections.emptyList(), "small");
+
+        Set<ConstraintViolation<ThumbnailBatchRequest>> violations = validator.validate(request);
+
+        assertEquals(1, violations.size());
+        assertEquals("Keys cannot be empty", violations.iterator().next().getMessage());
+    }
+}
@@ -0,0 +1,36 @@
+package com.enterprise.s3browser.dto;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ThumbnailDtoTest {
+
+    @Test
+    void testSettersAndGetters() {
+        ThumbnailDto dto = new ThumbnailDto();
+        byte[] data = {1, 2, 3};
+
+        dto.setKey("photos/cat.jpg");
+        dto.setEtag("\"etag1\"");
+        dto.setSize("small");
+        dto.setContentType("image/jpeg");
+        dto.setData(data);
+
+        assertEquals("photos/cat.jpg", dto.getKey());
+        assertEquals("\"etag1\"", dto.getEtag());
+        assertEquals("small", dto.getSize());
+        assertEquals("image/jpeg", dto.getContentType());
+        assertArrayEquals(data, dto.getData());
+    }
+
+    @Test
+    void testDataSerializedAsBase64() throws Exception {
+        ThumbnailDto dto = new ThumbnailDto("photos/cat.jpg", "\"etag1\"", "small", "image/jpeg", new byte[] {1, 2, 3});
+
+        String json = new ObjectMapper().writeValueAsString(dto);
+
+        assertTrue(json.contains("\"data\":\"AQID\""));
+    }
+}
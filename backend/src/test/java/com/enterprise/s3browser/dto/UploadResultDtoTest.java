@@ -0,0 +1,28 @@
+package com.enterprise.s3browser.dto;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UploadResultDtoTest {
+
+    @Test
+    void testDefaultConstructor() {
+        UploadResultDto dto = new UploadResultDto();
+
+        assertNull(dto.getKey());
+        assertEquals(0L, dto.getSize());
+        assertFalse(dto.isSuccess());
+        assertNull(dto.getError());
+    }
+
+    @Test
+    void testParameterizedConstructor() {
+        UploadResultDto dto = new UploadResultDto("a.txt", 5L, false, "Access Denied");
+
+        assertEquals("a.txt", dto.getKey());
+        assertEquals(5L, dto.getSize());
+        assertFalse(dto.isSuccess());
+        assertEquals("Access Denied", dto.getError());
+    }
+}
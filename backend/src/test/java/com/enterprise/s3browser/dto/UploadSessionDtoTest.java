@@ -0,0 +1,41 @@
+package com.enterprise.s3browser.dto;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UploadSessionDtoTest {
+
+    @Test
+    void testDefaultConstructor() {
+        UploadSessionDto dto = new UploadSessionDto();
+
+        assertNull(dto.getId());
+        assertNull(dto.getKey());
+        assertNull(dto.getReceivedChunks());
+        assertNull(dto.getCreatedAt());
+        assertEquals(0, dto.getChunkCount());
+    }
+
+    @Test
+    void testParameterizedConstructor() {
+        Instant createdAt = Instant.parse("2024-01-01T10:00:00Z");
+        Instant updatedAt = Instant.parse("2024-01-01T10:05:00Z");
+
+        UploadSessionDto dto = new UploadSessionDto("id-1", "videos/a.mp4", 25L, 10L, 3,
+                Arrays.asList(1, 3), 15L, createdAt, updatedAt);
+
+        assertEquals("id-1", dto.getId());
+        assertEquals("videos/a.mp4", dto.getKey());
+        assertEquals(25L, dto.getSize());
+        assertEquals(10L, dto.getChunkSize());
+        assertEquals(3, dto.getChunkCount());
+        assertEquals(Arrays.asList(1, 3), dto.getReceivedChunks());
+        assertEquals(15L, dto.getReceivedBytes());
+        assertEquals(createdAt, dto.getCreatedAt());
+        assertEquals(updatedAt, dto.getUpdatedAt());
+    }
+}
@@ -0,0 +1,46 @@
+package com.enterprise.s3browser.dto;
+
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validation;
+import jakarta.validation.Validator;
+import org.junit.jupiter.api.Test;
+
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UploadSessionRequestTest {
+
+    private final Validator validator = Validation.buildDefaultValidatorFactory().getValidator();
+
+    @Test
+    void testParameterizedConstructor() {
+        UploadSessionRequest request = new UploadSessionRequest("videos/a.mp4", 100L, "video/mp4", 16777216L);
+
+        assertEquals("videos/a.mp4", request.getKey());
+        assertEquals(100L, request.getSize());
+        assertEquals("video/mp4", request.getContentType());
+        assertEquals(16777216L, request.getChunkSize());
+        assertTrue(validator.validate(request).isEmpty());
+    }
+
+    @Test
+    void testValidation_MissingKey() {
+        UploadSessionRequest request = new UploadSessionRequest("", 100L, null, null);
+
+        Set<ConstraintViolation<UploadSessionRequest>> violations = validator.validate(request);
+
+        assertEquals(1, violations.size());
+        assertEquals("Key is required", violations.iterator().next().getMessage());
+    }
+
+    @Test
+    void testValidation_NegativeSize() {
+        UploadSessionRequest request = new UploadSessionRequest("a.bin", -1L, null, null);
+
+        Set<ConstraintViolation<UploadSessionRequest>> violations = validator.validate(request);
+
+        assertEquals(1, violations.size());
+        assertEquals("Size cannot be negative", violations.iterator().next().getMessage());
+    }
+}
@@ -0,0 +1,17 @@
+package com.enterprise.s3browser.exception;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CompactionJobNotFoundExceptionTest {
+
+    @Test
+    void testMessageConstructor() {
+        CompactionJobNotFoundException exception = new CompactionJobNotFoundException("Compaction job not found: abc");
+        
+        assertEquals("Compaction job not found: abc", exception.getMessage());
+        assertNull(exception.getCause());
+        assertTrue(exception instanceof RuntimeException);
+    }
+}
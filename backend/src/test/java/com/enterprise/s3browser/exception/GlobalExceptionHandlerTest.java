@@ -12,6 +12,7 @@ import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.context.request.WebRequest;
 
 import java.util.Arrays;
+import java.util.concurrent.RejectedExecutionException;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -47,6 +48,18 @@ class GlobalExceptionHandlerTest {
         assertNotNull(response.getBody().getTimestamp());
     }
 
+    @Test
+    void testHandleIllegalArgumentException() {
+        IllegalArgumentException exception = new IllegalArgumentException("Unsupported archive format: rar");
+        
+        ResponseEntity<GlobalExceptionHandler.ErrorResponse> response = 
+            globalExceptionHandler.handleIllegalArgumentException(exception, webRequest);
+        
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+        assertEquals("Unsupported archive format: rar", response.getBody().getMessage());
+        assertEquals("Bad Request", response.getBody().getError());
+    }
+
     @Test
     void testHandleS3ServiceExceptionWithNullMessage() {
         S3ServiceException exception = new S3ServiceException(null);
@@ -58,6 +71,102 @@ class GlobalExceptionHandlerTest {
         assertNull(response.getBody().getMessage());
     }
 
+    @Test
+    void testHandleObjectNotModifiedException() {
+        java.time.Instant lastModified = java.time.Instant.parse("2015-10-21T07:28:00Z");
+        ObjectNotModifiedException exception = new ObjectNotModifiedException("Not modified", "\"etag1\"", lastModified);
+        
+        ResponseEntity<Void> response = globalExceptionHandler.handleObjectNotModifiedException(exception, webRequest);
+        
+        assertEquals(HttpStatus.NOT_MODIFIED, response.getStatusCode());
+        assertEquals("\"etag1\"", response.getHeaders().getETag());
+        assertEquals(lastModified.toEpochMilli(), response.getHeaders().getLastModified());
+        assertNull(response.getBody());
+    }
+
+    @Test
+    void testHandlePreconditionFailedException() {
+        PreconditionFailedException exception = new PreconditionFailedException("Precondition failed");
+        
+        ResponseEntity<GlobalExceptionHandler.ErrorResponse> response = 
+            globalExceptionHandler.handlePreconditionFailedException(exception, webRequest);
+        
+        assertEquals(HttpStatus.PRECONDITION_FAILED, response.getStatusCode());
+        assertEquals("Precondition Failed", response.getBody().getError());
+        assertEquals(412, response.getBody().getStatus());
+    }
+
+    @Test
+    void testHandleTextIndexNotReadyException() {
+        TextIndexNotReadyException exception = new TextIndexNotReadyException("Line 5000000 is not indexed yet", 1000L);
+        
+        ResponseEntity<GlobalExceptionHandler.ErrorResponse> response = 
+            globalExceptionHandler.handleTextIndexNotReadyException(exception, webRequest);
+        
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, response.getStatusCode());
+        assertEquals("1", response.getHeaders().getFirst("Retry-After"));
+        assertEquals("Index Not Ready", response.getBody().getError());
+    }
+
+    @Test
+    void testHandleUploadSessionNotFoundException() {
+        UploadSessionNotFoundException exception = new UploadSessionNotFoundException("Upload session not found: abc");
+        
+        ResponseEntity<GlobalExceptionHandler.ErrorResponse> response = 
+            globalExceptionHandler.handleUploadSessionNotFoundException(exception, webRequest);
+        
+        assertEquals(HttpStatus.NOT_FOUND, response.getStatusCode());
+        assertEquals("Not Found", response.getBody().getError());
+        assertEquals("Upload session not found: abc", response.getBody().getMessage());
+    }
+
+    @Test
+    void testHandleCompactionJobNotFoundException() {
+        CompactionJobNotFoundException exception = new CompactionJobNotFoundException("Compaction job not found: abc");
+        
+        ResponseEntity<GlobalExceptionHandler.ErrorResponse> response = 
+            globalExceptionHandler.handleCompactionJobNotFoundException(exception, webRequest);
+        
+        assertEquals(HttpStatus.NOT_FOUND, response.getStatusCode());
+        assertEquals("Not Found", response.getBody().getError());
+        assertEquals("Compaction job not found: abc", response.getBody().getMessage());
+    }
+
+    @Test
+    void testHandleRejectedExecutionException() {
+        RejectedExecutionException exception = new RejectedExecutionException("Task rejected");
+        
+        ResponseEntity<GlobalExceptionHandler.ErrorResponse> response = 
+            globalExceptionHandler.handleRejectedExecutionException(exception, webRequest);
+        
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, response.getStatusCode());
+        assertEquals("1", response.getHeaders().getFirst("Retry-After"));
+        assertEquals("Service Busy", response.getBody().getError());
+    }
+
+    @Test
+    void testHandleRangeNotSatisfiableException() {
+        RangeNotSatisfiableException exception = new RangeNotSatisfiableException("Range not satisfiable", 1024L);
+        
+        ResponseEntity<GlobalExceptionHandler.ErrorResponse> response = 
+            globalExceptionHandler.handleRangeNotSatisfiableException(exception, webRequest);
+        
+        assertEquals(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE, response.getStatusCode());
+        assertEquals("bytes */1024", response.getHeaders().getFirst("Content-Range"));
+        assertEquals(416, response.getBody().getStatus());
+    }
+
+    @Test
+    void testHandleRangeNotSatisfiableExceptionWithUnknownLength() {
+        RangeNotSatisfiableException exception = new RangeNotSatisfiableException("Range not satisfiable");
+        
+        ResponseEntity<GlobalExceptionHandler.ErrorResponse> response = 
+            globalExceptionHandler.handleRangeNotSatisfiableException(exception, webRequest);
+        
+        assertEquals(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE, response.getStatusCode());
+        assertNull(response.getHeaders().getFirst("Content-Range"));
+    }
+
     @Test
     void testHandleAuthenticationException() {
         String errorMessage = "Authentication failed";
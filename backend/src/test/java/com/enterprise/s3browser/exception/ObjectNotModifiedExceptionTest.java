@@ -0,0 +1,29 @@
+package com.enterprise.s3browser.exception;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ObjectNotModifiedExceptionTest {
+
+    @Test
+    void testConstructor() {
+        Instant lastModified = Instant.now();
+        ObjectNotModifiedException exception = new ObjectNotModifiedException("Not modified", "\"etag\"", lastModified);
+        
+        assertEquals("Not modified", exception.getMessage());
+        assertEquals("\"etag\"", exception.getEtag());
+        assertEquals(lastModified, exception.getLastModified());
+    }
+
+    @Test
+    void testNullValidators() {
+        ObjectNotModifiedException exception = new ObjectNotModifiedException("Not modified", null, null);
+        
+        assertNull(exception.getEtag());
+        assertNull(exception.getLastModified());
+        assertTrue(exception instanceof RuntimeException);
+    }
+}
@@ -0,0 +1,26 @@
+package com.enterprise.s3browser.exception;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PreconditionFailedExceptionTest {
+
+    @Test
+    void testMessageConstructor() {
+        PreconditionFailedException exception = new PreconditionFailedException("Precondition failed");
+        
+        assertEquals("Precondition failed", exception.getMessage());
+        assertNull(exception.getCause());
+    }
+
+    @Test
+    void testMessageAndCauseConstructor() {
+        RuntimeException cause = new RuntimeException("Cause message");
+        PreconditionFailedException exception = new PreconditionFailedException("Precondition failed", cause);
+        
+        assertEquals("Precondition failed", exception.getMessage());
+        assertEquals(cause, exception.getCause());
+        assertTrue(exception instanceof RuntimeException);
+    }
+}
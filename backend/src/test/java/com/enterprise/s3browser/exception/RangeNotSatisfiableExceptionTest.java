@@ -0,0 +1,31 @@
+package com.enterprise.s3browser.exception;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RangeNotSatisfiableExceptionTest {
+
+    @Test
+    void testMessageConstructor() {
+        RangeNotSatisfiableException exception = new RangeNotSatisfiableException("Range not satisfiable");
+        
+        assertEquals("Range not satisfiable", exception.getMessage());
+        assertEquals(-1L, exception.getObjectLength());
+    }
+
+    @Test
+    void testObjectLengthConstructor() {
+        RangeNotSatisfiableException exception = new RangeNotSatisfiableException("Range not satisfiable", 2048L);
+        
+        assertEquals("Range not satisfiable", exception.getMessage());
+        assertEquals(2048L, exception.getObjectLength());
+    }
+
+    @Test
+    void testExceptionInheritance() {
+        RangeNotSatisfiableException exception = new RangeNotSatisfiableException("Test message");
+        
+        assertTrue(exception instanceof RuntimeException);
+    }
+}
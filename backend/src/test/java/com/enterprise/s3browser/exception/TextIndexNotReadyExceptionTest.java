@@ -0,0 +1,17 @@
+package com.enterprise.s3browser.exception;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TextIndexNotReadyExceptionTest {
+
+    @Test
+    void testConstructor() {
+        TextIndexNotReadyException exception = new TextIndexNotReadyException("Not indexed yet", 42L);
+        
+        assertEquals("Not indexed yet", exception.getMessage());
+        assertEquals(42L, exception.getIndexedLines());
+        assertTrue(exception instanceof RuntimeException);
+    }
+}
@@ -0,0 +1,17 @@
+package com.enterprise.s3browser.exception;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UploadSessionNotFoundExceptionTest {
+
+    @Test
+    void testMessageConstructor() {
+        UploadSessionNotFoundException exception = new UploadSessionNotFoundException("Upload session not found: abc");
+        
+        assertEquals("Upload session not found: abc", exception.getMessage());
+        assertNull(exception.getCause());
+        assertTrue(exception instanceof RuntimeException);
+    }
+}
@@ -0,0 +1,34 @@
+package com.enterprise.s3browser.model;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ArchiveFormatTest {
+
+    @Test
+    void fromExtension() {
+        assertEquals(ArchiveFormat.ZIP, ArchiveFormat.fromExtension("zip"));
+        assertEquals(ArchiveFormat.TAR, ArchiveFormat.fromExtension("TAR"));
+        assertEquals(ArchiveFormat.TAR_GZ, ArchiveFormat.fromExtension("tar.gz"));
+        assertEquals(ArchiveFormat.TAR_GZ, ArchiveFormat.fromExtension("tgz"));
+    }
+
+    @Test
+    void fromExtension_DefaultsToZip() {
+        assertEquals(ArchiveFormat.ZIP, ArchiveFormat.fromExtension(null));
+        assertEquals(ArchiveFormat.ZIP, ArchiveFormat.fromExtension(""));
+    }
+
+    @Test
+    void fromExtension_Unsupported() {
+        assertThrows(IllegalArgumentException.class, () -> ArchiveFormat.fromExtension("rar"));
+    }
+
+    @Test
+    void contentTypes() {
+        assertEquals("application/zip", ArchiveFormat.ZIP.getContentType());
+        assertEquals("application/x-tar", ArchiveFormat.TAR.getContentType());
+        assertEquals("application/gzip", ArchiveFormat.TAR_GZ.getContentType());
+    }
+}
@@ -0,0 +1,28 @@
+package com.enterprise.s3browser.model;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BlockSignatureTest {
+
+    @Test
+    void testDefaultConstructor() {
+        BlockSignature block = new BlockSignature();
+
+        assertEquals(0L, block.getOffset());
+        assertEquals(0, block.getLength());
+        assertEquals(0, block.getWeak());
+        assertNull(block.getStrong());
+    }
+
+    @Test
+    void testParameterizedConstructor() {
+        BlockSignature block = new BlockSignature(1024L, 512, 0x1234abcd, "ab".repeat(32));
+
+        assertEquals(1024L, block.getOffset());
+        assertEquals(512, block.getLength());
+        assertEquals(0x1234abcd, block.getWeak());
+        assertEquals("ab".repeat(32), block.getStrong());
+    }
+}
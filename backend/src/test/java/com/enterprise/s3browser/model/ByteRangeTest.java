@@ -0,0 +1,39 @@
+package com.enterprise.s3browser.model;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ByteRangeTest {
+
+    @Test
+    void testRangeProperties() {
+        ByteRange range = new ByteRange(100L, 199L);
+        
+        assertEquals(100L, range.getStart());
+        assertEquals(199L, range.getEnd());
+        assertEquals(100L, range.getLength());
+    }
+
+    @Test
+    void testSingleByteRange() {
+        ByteRange range = new ByteRange(5L, 5L);
+        
+        assertEquals(1L, range.getLength());
+    }
+
+    @Test
+    void testHeaderValues() {
+        ByteRange range = new ByteRange(0L, 1023L);
+        
+        assertEquals("bytes=0-1023", range.toRangeHeader());
+        assertEquals("bytes 0-1023/4096", range.toContentRange(4096L));
+        assertEquals("0-1023", range.toString());
+    }
+
+    @Test
+    void testInvalidRange() {
+        assertThrows(IllegalArgumentException.class, () -> new ByteRange(-1L, 10L));
+        assertThrows(IllegalArgumentException.class, () -> new ByteRange(10L, 9L));
+    }
+}
@@ -0,0 +1,45 @@
+package com.enterprise.s3browser.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CompactedObjectTest {
+
+    private static final Instant MODIFIED = Instant.parse("2024-01-01T10:00:00Z");
+
+    @Test
+    void testDefaultConstructor() {
+        CompactedObject compacted = new CompactedObject();
+
+        assertNull(compacted.getKey());
+        assertNull(compacted.getContainer());
+        assertNull(compacted.getContainerEtag());
+        assertEquals(0L, compacted.getOffset());
+    }
+
+    @Test
+    void testParameterizedConstructor() {
+        CompactedObject compacted = new CompactedObject("logs/a.log", "\"etag\"", 10L, MODIFIED, "text/plain",
+                ".s3-browser/compaction/job/1.pack", 100L);
+
+        assertEquals("logs/a.log", compacted.getKey());
+        assertEquals("\"etag\"", compacted.getEtag());
+        assertEquals(10L, compacted.getLength());
+        assertEquals(MODIFIED, compacted.getLastModified());
+        assertEquals("text/plain", compacted.getContentType());
+        assertEquals(".s3-browser/compaction/job/1.pack", compacted.getContainer());
+        assertEquals(100L, compacted.getOffset());
+        assertNull(compacted.getContainerEtag());
+    }
+
+    @Test
+    void containerRange_IsOffsetIntoContainer() {
+        CompactedObject compacted = new CompactedObject("a", "\"etag\"", 10L, MODIFIED, null, "c", 100L);
+
+        assertEquals("bytes=100-109", compacted.containerRange(0, 9));
+        assertEquals("bytes=102-104", compacted.containerRange(2, 4));
+    }
+}
@@ -0,0 +1,34 @@
+package com.enterprise.s3browser.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CompactionIndexTest {
+
+    private static final Instant CREATED = Instant.parse("2024-01-01T10:00:00Z");
+
+    @Test
+    void testDefaultConstructor() {
+        CompactionIndex index = new CompactionIndex();
+
+        assertNull(index.getJobId());
+        assertNull(index.getPrefix());
+        assertNull(index.getCreatedAt());
+        assertTrue(index.getObjects().isEmpty());
+    }
+
+    @Test
+    void testParameterizedConstructor() {
+        CompactedObject compacted = new CompactedObject("logs/a.log", "\"etag\"", 10L, CREATED, null, "c", 0L);
+        CompactionIndex index = new CompactionIndex("job", "logs/", CREATED, List.of(compacted));
+
+        assertEquals("job", index.getJobId());
+        assertEquals("logs/", index.getPrefix());
+        assertEquals(CREATED, index.getCreatedAt());
+        assertEquals(List.of(compacted), index.getObjects());
+    }
+}
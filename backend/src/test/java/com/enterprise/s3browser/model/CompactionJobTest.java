@@ -0,0 +1,39 @@
+package com.enterprise.s3browser.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CompactionJobTest {
+
+    private static final Instant CREATED = Instant.parse("2024-01-01T10:00:00Z");
+
+    @Test
+    void testConstructor() {
+        CompactionJob job = new CompactionJob("job", "bucket", "logs/", CREATED);
+
+        assertEquals("job", job.getId());
+        assertEquals("bucket", job.getBucket());
+        assertEquals("logs/", job.getPrefix());
+        assertEquals(CREATED, job.getCreatedAt());
+        assertEquals(CompactionStatus.QUEUED, job.getStatus());
+        assertFalse(job.isCancelRequested());
+        assertEquals(0L, job.getObjectsPacked());
+    }
+
+    @Test
+    void bytesPerSecond_UsesLastProgress() {
+        CompactionJob job = new CompactionJob("job", "bucket", "", CREATED);
+        assertEquals(0L, job.bytesPerSecond());
+
+        job.setStartedAt(CREATED);
+        job.setBytesPacked(4000L);
+        job.setUpdatedAt(CREATED.plusSeconds(2));
+        assertEquals(2000L, job.bytesPerSecond());
+
+        job.setFinishedAt(CREATED.plusSeconds(4));
+        assertEquals(1000L, job.bytesPerSecond());
+    }
+}
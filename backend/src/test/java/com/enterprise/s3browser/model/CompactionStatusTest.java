@@ -0,0 +1,17 @@
+package com.enterprise.s3browser.model;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CompactionStatusTest {
+
+    @Test
+    void isFinished() {
+        assertFalse(CompactionStatus.QUEUED.isFinished());
+        assertFalse(CompactionStatus.RUNNING.isFinished());
+        assertTrue(CompactionStatus.COMPLETED.isFinished());
+        assertTrue(CompactionStatus.CANCELLED.isFinished());
+        assertTrue(CompactionStatus.FAILED.isFinished());
+    }
+}
@@ -0,0 +1,26 @@
+package com.enterprise.s3browser.model;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ContentHashTest {
+
+    @Test
+    void testDefaultConstructor() {
+        ContentHash hash = new ContentHash();
+
+        assertNull(hash.getSha256());
+        assertNull(hash.getCrc32c());
+        assertEquals(0L, hash.getSize());
+    }
+
+    @Test
+    void testParameterizedConstructor() {
+        ContentHash hash = new ContentHash("ab".repeat(32), "e3069283", 9L);
+
+        assertEquals("ab".repeat(32), hash.getSha256());
+        assertEquals("e3069283", hash.getCrc32c());
+        assertEquals(9L, hash.getSize());
+    }
+}
@@ -0,0 +1,48 @@
+package com.enterprise.s3browser.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DedupEntryTest {
+
+    private static final Instant RECORDED = Instant.parse("2024-01-01T10:00:00Z");
+
+    @Test
+    void testDefaultConstructor() {
+        DedupEntry entry = new DedupEntry();
+
+        assertNull(entry.getSha256());
+        assertNull(entry.getKey());
+        assertNull(entry.getEtag());
+        assertNull(entry.getRecordedAt());
+    }
+
+    @Test
+    void testParameterizedConstructor() {
+        DedupEntry entry = new DedupEntry("ab".repeat(32), "e3069283", 9L, "bucket", "a.bin", "\"etag\"", RECORDED);
+
+        assertEquals("ab".repeat(32), entry.getSha256());
+        assertEquals("e3069283", entry.getCrc32c());
+        assertEquals(9L, entry.getSize());
+        assertEquals("bucket", entry.getBucket());
+        assertEquals("a.bin", entry.getKey());
+        assertEquals("\"etag\"", entry.getEtag());
+        assertEquals(RECORDED, entry.getRecordedAt());
+    }
+
+    @Test
+    void testSettersAndGetters() {
+        DedupEntry entry = new DedupEntry();
+
+        entry.setKey("b.bin");
+        entry.setEtag("\"other\"");
+        entry.setSize(10L);
+
+        assertEquals("b.bin", entry.getKey());
+        assertEquals("\"other\"", entry.getEtag());
+        assertEquals(10L, entry.getSize());
+    }
+}
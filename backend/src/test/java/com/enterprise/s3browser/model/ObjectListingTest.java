@@ -0,0 +1,54 @@
+package com.enterprise.s3browser.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ObjectListingTest {
+
+    @Test
+    void testDefaultConstructor() {
+        ObjectListing listing = new ObjectListing();
+
+        assertTrue(listing.getObjects().isEmpty());
+        assertNull(listing.getStartAfter());
+        assertNull(listing.getLastKey());
+        assertNull(listing.getNextContinuationToken());
+        assertFalse(listing.isTruncated());
+    }
+
+    @Test
+    void testParameterizedConstructor() {
+        S3Object object = new S3Object("docs/b.txt", "\"b\"", 1L, null, null, false);
+        ObjectListing listing = new ObjectListing(List.of(object), "docs/a.txt", "docs/b.txt", "token");
+
+        assertEquals(List.of(object), listing.getObjects());
+        assertEquals("docs/a.txt", listing.getStartAfter());
+        assertEquals("docs/b.txt", listing.getLastKey());
+        assertEquals("token", listing.getNextContinuationToken());
+        assertTrue(listing.isTruncated());
+    }
+
+    @Test
+    void testCoversKeysWithinRange() {
+        ObjectListing listing = new ObjectListing(List.of(), "docs/a.txt", "docs/m.txt", "token");
+
+        assertFalse(listing.covers("docs/a.txt"));
+        assertTrue(listing.covers("docs/b.txt"));
+        assertTrue(listing.covers("docs/m.txt"));
+        assertFalse(listing.covers("docs/n.txt"));
+    }
+
+    @Test
+    void testLastPageCoversEverythingAfterStart() {
+        ObjectListing first = new ObjectListing(List.of(), null, "docs/m.txt", null);
+        ObjectListing last = new ObjectListing(List.of(), "docs/m.txt", "docs/p.txt", null);
+
+        assertTrue(first.covers("docs/0.txt"));
+        assertTrue(first.covers("docs/z.txt"));
+        assertFalse(last.covers("docs/m.txt"));
+        assertTrue(last.covers("docs/z.txt"));
+    }
+}
@@ -0,0 +1,37 @@
+package com.enterprise.s3browser.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ObjectSignaturesTest {
+
+    private static final Instant COMPUTED = Instant.parse("2024-01-01T10:00:00Z");
+
+    @Test
+    void testDefaultConstructor() {
+        ObjectSignatures signatures = new ObjectSignatures();
+
+        assertNull(signatures.getKey());
+        assertNull(signatures.getEtag());
+        assertTrue(signatures.getBlocks().isEmpty());
+        assertNull(signatures.getComputedAt());
+    }
+
+    @Test
+    void testParameterizedConstructor() {
+        List<BlockSignature> blocks = List.of(new BlockSignature(0L, 512, 1, "ab".repeat(32)));
+        ObjectSignatures signatures = new ObjectSignatures("bucket", "a.bin", "\"etag\"", 600L, 512, blocks, COMPUTED);
+
+        assertEquals("bucket", signatures.getBucket());
+        assertEquals("a.bin", signatures.getKey());
+        assertEquals("\"etag\"", signatures.getEtag());
+        assertEquals(600L, signatures.getSize());
+        assertEquals(512, signatures.getBlockSize());
+        assertEquals(blocks, signatures.getBlocks());
+        assertEquals(COMPUTED, signatures.getComputedAt());
+    }
+}
@@ -0,0 +1,44 @@
+package com.enterprise.s3browser.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PresignedUrlTest {
+
+    @Test
+    void testDefaultConstructor() {
+        PresignedUrl presignedUrl = new PresignedUrl();
+
+        assertNull(presignedUrl.getUrl());
+        assertNull(presignedUrl.getMethod());
+        assertNull(presignedUrl.getExpiration());
+        assertTrue(presignedUrl.getSignedHeaders().isEmpty());
+    }
+
+    @Test
+    void testParameterizedConstructor() {
+        Instant expiration = Instant.now();
+        PresignedUrl presignedUrl = new PresignedUrl("http://localhost:9000/bucket/key", "PUT", expiration,
+                Map.of("content-type", "text/plain"));
+
+        assertEquals("http://localhost:9000/bucket/key", presignedUrl.getUrl());
+        assertEquals("PUT", presignedUrl.getMethod());
+        assertEquals(expiration, presignedUrl.getExpiration());
+        assertEquals("text/plain", presignedUrl.getSignedHeaders().get("content-type"));
+    }
+
+    @Test
+    void testIsValidFor() {
+        Instant now = Instant.parse("2024-01-15T10:00:00Z");
+        PresignedUrl presignedUrl = new PresignedUrl();
+        presignedUrl.setExpiration(now.plusSeconds(120));
+
+        assertTrue(presignedUrl.isValidFor(60, now));
+        assertFalse(presignedUrl.isValidFor(120, now));
+        assertFalse(new PresignedUrl().isValidFor(0, now));
+    }
+}
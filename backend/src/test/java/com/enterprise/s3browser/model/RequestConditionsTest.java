@@ -0,0 +1,45 @@
+package com.enterprise.s3browser.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RequestConditionsTest {
+
+    @Test
+    void testDefaultConstructor() {
+        RequestConditions conditions = new RequestConditions();
+        
+        assertNull(conditions.getIfMatch());
+        assertNull(conditions.getIfNoneMatch());
+        assertNull(conditions.getIfModifiedSince());
+        assertNull(conditions.getIfUnmodifiedSince());
+        assertTrue(conditions.isEmpty());
+    }
+
+    @Test
+    void testSettersAndGetters() {
+        Instant now = Instant.now();
+        RequestConditions conditions = new RequestConditions();
+        conditions.setIfMatch("\"a\"");
+        conditions.setIfNoneMatch("\"b\"");
+        conditions.setIfModifiedSince(now);
+        conditions.setIfUnmodifiedSince(now);
+        
+        assertEquals("\"a\"", conditions.getIfMatch());
+        assertEquals("\"b\"", conditions.getIfNoneMatch());
+        assertEquals(now, conditions.getIfModifiedSince());
+        assertEquals(now, conditions.getIfUnmodifiedSince());
+        assertFalse(conditions.isEmpty());
+    }
+
+    @Test
+    void testSingleConditionIsNotEmpty() {
+        RequestConditions conditions = new RequestConditions();
+        conditions.setIfModifiedSince(Instant.now());
+        
+        assertFalse(conditions.isEmpty());
+    }
+}
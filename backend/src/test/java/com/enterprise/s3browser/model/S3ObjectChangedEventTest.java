@@ -0,0 +1,17 @@
+package com.enterprise.s3browser.model;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class S3ObjectChangedEventTest {
+
+    @Test
+    void testConstructor() {
+        S3ObjectChangedEvent event = new S3ObjectChangedEvent("http://localhost:9000", "test-bucket", "docs/a.txt");
+
+        assertEquals("http://localhost:9000", event.getEndpoint());
+        assertEquals("test-bucket", event.getBucket());
+        assertEquals("docs/a.txt", event.getKey());
+    }
+}
@@ -70,6 +70,8 @@ class S3ObjectTest {
         obj.setLastModified(now);
         obj.setStorageClass("STANDARD");
         obj.setDirectory(true);
+        obj.setContentType("text/plain");
+        obj.setPending(true);
         
         assertEquals("test-key", obj.getKey());
         assertEquals("etag123", obj.getEtag());
@@ -77,6 +79,8 @@ class S3ObjectTest {
         assertEquals(now, obj.getLastModified());
         assertEquals("STANDARD", obj.getStorageClass());
         assertTrue(obj.isDirectory());
+        assertEquals("text/plain", obj.getContentType());
+        assertTrue(obj.isPending());
     }
 
     @Test
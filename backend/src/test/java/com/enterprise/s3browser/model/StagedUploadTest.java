@@ -0,0 +1,52 @@
+package com.enterprise.s3browser.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StagedUploadTest {
+
+    private static final Instant STAGED = Instant.parse("2024-01-01T10:00:00Z");
+
+    @Test
+    void testDefaultConstructor() {
+        StagedUpload upload = new StagedUpload();
+
+        assertNull(upload.getId());
+        assertNull(upload.getKey());
+        assertEquals(0, upload.getAttempts());
+        assertNull(upload.getNextAttemptAt());
+        assertNull(upload.getLastError());
+    }
+
+    @Test
+    void testParameterizedConstructor() {
+        StagedUpload upload = new StagedUpload("0000000000000000007", 7L, "bucket", "docs/a.txt", "text/plain", 5L, STAGED);
+
+        assertEquals("0000000000000000007", upload.getId());
+        assertEquals(7L, upload.getSequence());
+        assertEquals("bucket", upload.getBucket());
+        assertEquals("docs/a.txt", upload.getKey());
+        assertEquals("text/plain", upload.getContentType());
+        assertEquals(5L, upload.getSize());
+        assertEquals(STAGED, upload.getStagedAt());
+        assertEquals(STAGED, upload.getNextAttemptAt());
+        assertEquals(0, upload.getAttempts());
+    }
+
+    @Test
+    void testSettersAndGetters() {
+        StagedUpload upload = new StagedUpload();
+        Instant next = STAGED.plusSeconds(4);
+
+        upload.setAttempts(3);
+        upload.setNextAttemptAt(next);
+        upload.setLastError("Connection refused");
+
+        assertEquals(3, upload.getAttempts());
+        assertEquals(next, upload.getNextAttemptAt());
+        assertEquals("Connection refused", upload.getLastError());
+    }
+}
@@ -0,0 +1,32 @@
+package com.enterprise.s3browser.model;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ThumbnailSizeTest {
+
+    @Test
+    void fromName() {
+        assertEquals(ThumbnailSize.SMALL, ThumbnailSize.fromName("small"));
+        assertEquals(ThumbnailSize.MEDIUM, ThumbnailSize.fromName("MEDIUM"));
+        assertEquals(ThumbnailSize.LARGE, ThumbnailSize.fromName("Large"));
+    }
+
+    @Test
+    void fromName_DefaultsToSmall() {
+        assertEquals(ThumbnailSize.SMALL, ThumbnailSize.fromName(null));
+        assertEquals(ThumbnailSize.SMALL, ThumbnailSize.fromName(""));
+    }
+
+    @Test
+    void fromName_Unsupported() {
+        assertThrows(IllegalArgumentException.class, () -> ThumbnailSize.fromName("huge"));
+    }
+
+    @Test
+    void edgesIncrease() {
+        assertTrue(ThumbnailSize.SMALL.getEdge() < ThumbnailSize.MEDIUM.getEdge());
+        assertTrue(ThumbnailSize.MEDIUM.getEdge() < ThumbnailSize.LARGE.getEdge());
+    }
+}
@@ -0,0 +1,31 @@
+package com.enterprise.s3browser.model;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ThumbnailTest {
+
+    @Test
+    void testDefaultConstructor() {
+        Thumbnail thumbnail = new Thumbnail();
+
+        assertNull(thumbnail.getKey());
+        assertNull(thumbnail.getEtag());
+        assertNull(thumbnail.getSize());
+        assertNull(thumbnail.getContentType());
+        assertNull(thumbnail.getData());
+    }
+
+    @Test
+    void testParameterizedConstructor() {
+        byte[] data = {1, 2, 3};
+        Thumbnail thumbnail = new Thumbnail("photos/cat.jpg", "\"etag1\"", ThumbnailSize.MEDIUM, "image/jpeg", data);
+
+        assertEquals("photos/cat.jpg", thumbnail.getKey());
+        assertEquals("\"etag1\"", thumbnail.getEtag());
+        assertEquals(ThumbnailSize.MEDIUM, thumbnail.getSize());
+        assertEquals("image/jpeg", thumbnail.getContentType());
+        assertArrayEquals(data, thumbnail.getData());
+    }
+}
@@ -0,0 +1,40 @@
+package com.enterprise.s3browser.model;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UploadResultTest {
+
+    @Test
+    void testSuccess() {
+        UploadResult result = UploadResult.success("a.txt", 5L);
+
+        assertEquals("a.txt", result.getKey());
+        assertEquals(5L, result.getSize());
+        assertTrue(result.isSuccess());
+        assertNull(result.getError());
+    }
+
+    @Test
+    void testFailure() {
+        UploadResult result = UploadResult.failure("a.txt", 5L, "Access Denied");
+
+        assertFalse(result.isSuccess());
+        assertEquals("Access Denied", result.getError());
+    }
+
+    @Test
+    void testSettersAndGetters() {
+        UploadResult result = new UploadResult();
+        result.setKey("b.txt");
+        result.setSize(7L);
+        result.setSuccess(true);
+        result.setError("none");
+
+        assertEquals("b.txt", result.getKey());
+        assertEquals(7L, result.getSize());
+        assertTrue(result.isSuccess());
+        assertEquals("none", result.getError());
+    }
+}
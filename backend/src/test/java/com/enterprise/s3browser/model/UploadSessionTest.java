@@ -0,0 +1,62 @@
+package com.enterprise.s3browser.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UploadSessionTest {
+
+    private static final Instant CREATED = Instant.parse("2024-01-01T10:00:00Z");
+
+    @Test
+    void testParameterizedConstructor() {
+        UploadSession session = new UploadSession("id-1", "videos/a.mp4", "video/mp4", "bucket", "upload-1", 25L, 10L, CREATED);
+
+        assertEquals("id-1", session.getId());
+        assertEquals("videos/a.mp4", session.getKey());
+        assertEquals("video/mp4", session.getContentType());
+        assertEquals("bucket", session.getBucket());
+        assertEquals("upload-1", session.getUploadId());
+        assertEquals(25L, session.getSize());
+        assertEquals(10L, session.getChunkSize());
+        assertEquals(CREATED, session.getCreatedAt());
+        assertEquals(CREATED, session.getUpdatedAt());
+        assertTrue(session.getChunkEtags().isEmpty());
+    }
+
+    @Test
+    void testChunkLayout() {
+        UploadSession session = new UploadSession("id-1", "a.bin", null, "bucket", "upload-1", 25L, 10L, CREATED);
+
+        assertEquals(3, session.chunkCount());
+        assertEquals(10L, session.chunkLength(1));
+        assertEquals(10L, session.chunkLength(2));
+        assertEquals(5L, session.chunkLength(3));
+    }
+
+    @Test
+    void testChunkLayout_EmptyObject() {
+        UploadSession session = new UploadSession("id-1", "empty.txt", null, "bucket", "upload-1", 0L, 10L, CREATED);
+
+        assertEquals(1, session.chunkCount());
+        assertEquals(0L, session.chunkLength(1));
+    }
+
+    @Test
+    void testReceivedChunks() {
+        UploadSession session = new UploadSession("id-1", "a.bin", null, "bucket", "upload-1", 25L, 10L, CREATED);
+        session.getChunkEtags().put(3, "c");
+        session.getChunkEtags().put(1, "a");
+
+        assertEquals(Arrays.asList(1, 3), session.receivedChunks());
+        assertEquals(15L, session.receivedBytes());
+        assertFalse(session.allChunksReceived());
+
+        session.getChunkEtags().put(2, "b");
+        assertTrue(session.allChunksReceived());
+        assertEquals(25L, session.receivedBytes());
+    }
+}
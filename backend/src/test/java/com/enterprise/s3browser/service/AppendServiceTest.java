@@ -0,0 +1,198 @@
+package com.enterprise.s3browser.service;
+
+import com.enterprise.s3browser.exception.S3ServiceException;
+import com.enterprise.s3browser.model.CompactedObject;
+import com.enterprise.s3browser.model.S3Configuration;
+import com.enterprise.s3browser.model.S3Object;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import software.amazon.awssdk.core.ResponseInputStream;
+import software.amazon.awssdk.http.AbortableInputStream;
+import software.amazon.awssdk.services.s3.model.CompletedPart;
+import software.amazon.awssdk.services.s3.model.GetObjectResponse;
+import software.amazon.awssdk.services.s3.model.NoSuchKeyException;
+import software.amazon.awssdk.services.s3.model.S3Exception;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class AppendServiceTest {
+
+    private static final long MIB = 1024 * 1024;
+
+    @Mock
+    private S3Service s3Service;
+
+    @Mock
+    private MultipartUploadService multipartUploadService;
+
+    @Mock
+    private CompactionService compactionService;
+
+    @InjectMocks
+    private AppendService appendService;
+
+    @BeforeEach
+    void setUp() {
+        S3Configuration config = new S3Configuration();
+        config.setBucket("test-bucket");
+        lenient().when(s3Service.getCurrentConfig()).thenReturn(config);
+        ReflectionTestUtils.setField(appendService, "smallObjectSize", 5 * MIB);
+    }
+
+    @Test
+    void append_CreatesMissingObject() throws Exception {
+        when(s3Service.getObjectMetadata("log.txt"))
+                .thenThrow(new S3ServiceException("Failed to get object metadata", NoSuchKeyException.builder().statusCode(404).build()))
+                .thenReturn(object("log.txt", 5L, "\"v1\""));
+
+        S3Object result = appendService.append("log.txt", stream("first"), 5, "text/plain");
+
+        assertEquals(5L, result.getSize());
+        verify(s3Service).uploadObject(eq("log.txt"), any(), eq(5L), eq("text/plain"));
+        verify(s3Service, never()).createMultipartUpload(any(), any());
+    }
+
+    @Test
+    void append_RewritesSmallObject() throws Exception {
+        S3Object current = object("log.txt", 6L, "\"v1\"");
+        current.setContentType("text/plain");
+        when(s3Service.getObjectMetadata("log.txt")).thenReturn(current);
+        when(s3Service.downloadObjectStream(eq("log.txt"), isNull(), argThat(conditions -> "\"v1\"".equals(conditions.getIfMatch()))))
+                .thenReturn(new ResponseInputStream<>(GetObjectResponse.builder().build(),
+                        AbortableInputStream.create(stream("line1\n"))));
+        StringBuilder written = new StringBuilder();
+        doAnswer(invocation -> {
+            written.append(new String(invocation.getArgument(1, InputStream.class).readAllBytes(), StandardCharsets.UTF_8));
+            return null;
+        }).when(s3Service).uploadObject(eq("log.txt"), any(), eq(12L), eq("text/plain"));
+
+        appendService.append("log.txt", stream("line2\n"), 6, null);
+
+        assertEquals("line1\nline2\n", written.toString());
+        verify(s3Service, never()).createMultipartUpload(any(), any());
+    }
+
+    @Test
+    void append_ComposesLargeObjectFromCopiedParts() throws Exception {
+        S3Object current = object("big.log", 600 * MIB, "\"v1\"");
+        current.setContentType("text/plain");
+        when(s3Service.getObjectMetadata("big.log")).thenReturn(current);
+        when(s3Service.createMultipartUpload("big.log", "text/plain")).thenReturn("upload-1");
+        when(multipartUploadService.copyParts("big.log", "\"v1\"", 600 * MIB, "big.log", "upload-1", 1))
+                .thenReturn(List.of(part(1), part(2)));
+        when(s3Service.uploadPartStream(eq("big.log"), eq("upload-1"), eq(3), any(), eq(6L))).thenReturn(part(3));
+
+        appendService.append("big.log", stream("line2\n"), 6, null);
+
+        verify(s3Service).completeMultipartUpload("big.log", "upload-1", List.of(part(1), part(2), part(3)));
+        verify(s3Service, never()).uploadObject(any(), any(), anyLong(), any());
+        verify(s3Service, never()).downloadObjectStream(any(), any(), any());
+    }
+
+    @Test
+    void append_RewritesCompactedObject() throws Exception {
+        when(s3Service.getObjectMetadata("big.log")).thenReturn(object("big.log", 600 * MIB, "\"v1\""));
+        when(compactionService.resolve("big.log")).thenReturn(new CompactedObject("big.log", "\"v1\"", 600 * MIB,
+                Instant.now(), null, "container.pack", 0L));
+        when(s3Service.downloadObjectStream(eq("big.log"), isNull(), argThat(conditions -> "\"v1\"".equals(conditions.getIfMatch()))))
+                .thenReturn(new ResponseInputStream<>(GetObjectResponse.builder().build(),
+                        AbortableInputStream.create(stream("line1\n"))));
+
+        appendService.append("big.log", stream("line2\n"), 6, null);
+
+        verify(s3Service).uploadObject(eq("big.log"), any(), eq(600 * MIB + 6), isNull());
+        verify(s3Service, never()).createMultipartUpload(any(), any());
+    }
+
+    @Test
+    void append_AbortsWhenComposeFails() throws Exception {
+        when(s3Service.getObjectMetadata("big.log")).thenReturn(object("big.log", 600 * MIB, "\"v1\""));
+        when(s3Service.createMultipartUpload("big.log", null)).thenReturn("upload-1");
+        when(multipartUploadService.copyParts(any(), any(), anyLong(), any(), any(), anyInt()))
+                .thenThrow(new S3ServiceException("Failed to copy part 1: PreconditionFailed"));
+
+        assertThrows(S3ServiceException.class, () -> appendService.append("big.log", stream("x"), 1, null));
+
+        verify(s3Service).abortMultipartUpload("big.log", "upload-1");
+        verify(s3Service, never()).completeMultipartUpload(any(), any(), anyList());
+    }
+
+    @Test
+    void append_OtherMetadataFailuresAreNotTreatedAsMissing() {
+        when(s3Service.getObjectMetadata("log.txt"))
+                .thenThrow(new S3ServiceException("Access Denied", S3Exception.builder().statusCode(403).build()));
+
+        assertThrows(S3ServiceException.class, () -> appendService.append("log.txt", stream("x"), 1, null));
+
+        verify(s3Service, never()).uploadObject(any(), any(), anyLong(), any());
+    }
+
+    @Test
+    void append_RequiresKnownLength() {
+        assertThrows(IllegalArgumentException.class, () -> appendService.append("log.txt", stream("x"), -1, null));
+    }
+
+    @Test
+    void append_SerializesAppendsToOneKey() throws Exception {
+        AtomicInteger active = new AtomicInteger();
+        AtomicInteger maxActive = new AtomicInteger();
+        CountDownLatch firstStarted = new CountDownLatch(1);
+        when(s3Service.getObjectMetadata("log.txt")).thenReturn(object("log.txt", 1L, "\"v1\""));
+        when(s3Service.downloadObjectStream(eq("log.txt"), isNull(), any())).thenAnswer(invocation ->
+                new ResponseInputStream<>(GetObjectResponse.builder().build(), AbortableInputStream.create(stream("a"))));
+        doAnswer(invocation -> {
+            maxActive.accumulateAndGet(active.incrementAndGet(), Math::max);
+            firstStarted.countDown();
+            Thread.sleep(100);
+            active.decrementAndGet();
+            return null;
+        }).when(s3Service).uploadObject(eq("log.txt"), any(), anyLong(), any());
+
+        ExecutorService pool = Executors.newFixedThreadPool(2);
+        try {
+            Future<?> first = pool.submit(() -> appendService.append("log.txt", stream("b"), 1, null));
+            assertTrue(firstStarted.await(5, TimeUnit.SECONDS));
+            Future<?> second = pool.submit(() -> appendService.append("log.txt", stream("c"), 1, null));
+            first.get(5, TimeUnit.SECONDS);
+            second.get(5, TimeUnit.SECONDS);
+        } finally {
+            pool.shutdownNow();
+        }
+
+        assertEquals(1, maxActive.get());
+        verify(s3Service, times(2)).uploadObject(eq("log.txt"), any(), anyLong(), any());
+        assertEquals(0, appendService.lockCount());
+    }
+
+    private static S3Object object(String key, long size, String etag) {
+        return new S3Object(key, etag, size, Instant.parse("2024-01-01T10:00:00Z"), "STANDARD", false);
+    }
+
+    private static CompletedPart part(int partNumber) {
+        return CompletedPart.builder().partNumber(partNumber).eTag("etag-" + partNumber).build();
+    }
+
+    private static InputStream stream(String content) {
+        return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+    }
+}
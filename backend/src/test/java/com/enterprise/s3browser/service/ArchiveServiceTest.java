@@ -0,0 +1,177 @@
+package com.enterprise.s3browser.service;
+
+import com.enterprise.s3browser.model.ArchiveFormat;
+import com.enterprise.s3browser.model.S3Configuration;
+import com.enterprise.s3browser.model.S3Object;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import software.amazon.awssdk.core.ResponseInputStream;
+import software.amazon.awssdk.http.AbortableInputStream;
+import software.amazon.awssdk.services.s3.model.GetObjectResponse;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ArchiveServiceTest {
+
+    @Mock
+    private S3Service s3Service;
+
+    @Mock
+    private CompactionService compactionService;
+
+    @InjectMocks
+    private ArchiveService archiveService;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(archiveService, "prefetch", 2);
+        ReflectionTestUtils.setField(archiveService, "prefetchBufferSize", 4);
+        ReflectionTestUtils.setField(archiveService, "maxThreads", 4);
+        ReflectionTestUtils.setField(archiveService, "zipLevel", 1);
+        ReflectionTestUtils.setField(archiveService, "bufferSize", 8);
+        archiveService.initialize();
+
+        S3Configuration config = new S3Configuration();
+        config.setBucket("test-bucket");
+        lenient().when(s3Service.getCurrentConfig()).thenReturn(config);
+    }
+
+    @AfterEach
+    void tearDown() {
+        archiveService.shutdown();
+    }
+
+    @Test
+    void getArchiveName() {
+        assertEquals("photos.zip", archiveService.getArchiveName("albums/photos/", ArchiveFormat.ZIP));
+        assertEquals("docs.tar.gz", archiveService.getArchiveName("docs", ArchiveFormat.TAR_GZ));
+        assertEquals("test-bucket.tar", archiveService.getArchiveName(null, ArchiveFormat.TAR));
+    }
+
+    @Test
+    void writeArchive_ZipInListingOrder() throws IOException {
+        stubObjects("albums/photos/", "albums/photos/a.txt", "first object", "albums/photos/b/c.txt", "second", "albums/photos/d.txt", "");
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        archiveService.writeArchive("albums/photos/", ArchiveFormat.ZIP, out);
+
+        List<String> names = new ArrayList<>();
+        List<String> contents = new ArrayList<>();
+        try (ZipInputStream zip = new ZipInputStream(new ByteArrayInputStream(out.toByteArray()))) {
+            ZipEntry entry;
+            while ((entry = zip.getNextEntry()) != null) {
+                names.add(entry.getName());
+                contents.add(new String(zip.readAllBytes(), StandardCharsets.UTF_8));
+            }
+        }
+        assertEquals(Arrays.asList("photos/a.txt", "photos/b/c.txt", "photos/d.txt"), names);
+        assertEquals(Arrays.asList("first object", "second", ""), contents);
+    }
+
+    @Test
+    void writeArchive_TarGz() throws IOException {
+        stubObjects("docs/", "docs/readme.md", "# Title");
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        archiveService.writeArchive("docs/", ArchiveFormat.TAR_GZ, out);
+
+        byte[] tar = new GZIPInputStream(new ByteArrayInputStream(out.toByteArray())).readAllBytes();
+        assertEquals(512 * 4, tar.length);
+        assertEquals("docs/readme.md", new String(tar, 0, 14, StandardCharsets.US_ASCII));
+        assertEquals("# Title", new String(tar, 512, 7, StandardCharsets.US_ASCII));
+    }
+
+    @Test
+    void writeArchive_IncludesCompactedObjects() throws IOException {
+        stubObjects("docs/", "docs/readme.md", "# Title");
+        S3Object compacted = new S3Object("docs/notes.txt", "etag", 5L, Instant.now(), null, false);
+        when(compactionService.isEnabled()).thenReturn(true);
+        when(compactionService.withCompacted(eq("docs/"), any(Iterator.class))).thenAnswer(invocation -> {
+            List<S3Object> merged = new ArrayList<>();
+            invocation.<Iterator<S3Object>>getArgument(1).forEachRemaining(merged::add);
+            merged.add(compacted);
+            return merged.iterator();
+        });
+        when(s3Service.downloadObjectStream("docs/notes.txt")).thenReturn(new ResponseInputStream<>(
+                GetObjectResponse.builder().contentLength(5L).build(),
+                AbortableInputStream.create(new ByteArrayInputStream("notes".getBytes(StandardCharsets.UTF_8)))));
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        archiveService.writeArchive("docs/", ArchiveFormat.TAR, out);
+
+        byte[] tar = out.toByteArray();
+        assertEquals("docs/readme.md", new String(tar, 0, 14, StandardCharsets.US_ASCII));
+        assertEquals("docs/notes.txt", new String(tar, 512 * 2, 14, StandardCharsets.US_ASCII));
+        assertEquals("notes", new String(tar, 512 * 3, 5, StandardCharsets.US_ASCII));
+    }
+
+    @Test
+    void writeArchive_FailedFetchPropagates() {
+        S3Object object = new S3Object("docs/a.txt", "etag", 3L, Instant.now(), "STANDARD", false);
+        when(s3Service.listAllObjects("docs/")).thenReturn(List.of(object).iterator());
+        when(s3Service.downloadObjectStream("docs/a.txt")).thenThrow(new RuntimeException("boom"));
+
+        assertThrows(RuntimeException.class,
+                () -> archiveService.writeArchive("docs/", ArchiveFormat.TAR, new ByteArrayOutputStream()));
+    }
+
+    @Test
+    void writeArchive_ClientDisconnectAbortsOpenStreams() {
+        List<S3Object> objects = new ArrayList<>();
+        AtomicInteger aborts = new AtomicInteger();
+        for (String key : List.of("docs/a.txt", "docs/b.txt")) {
+            byte[] content = "content larger than the head".getBytes(StandardCharsets.UTF_8);
+            objects.add(new S3Object(key, "etag", content.length, Instant.now(), "STANDARD", false));
+            when(s3Service.downloadObjectStream(key)).thenReturn(new ResponseInputStream<>(
+                    GetObjectResponse.builder().contentLength((long) content.length).build(),
+                    AbortableInputStream.create(new ByteArrayInputStream(content), aborts::incrementAndGet)));
+        }
+        when(s3Service.listAllObjects("docs/")).thenReturn(objects.iterator());
+        OutputStream disconnected = new OutputStream() {
+            @Override
+            public void write(int b) throws IOException {
+                throw new IOException("Broken pipe");
+            }
+        };
+
+        assertThrows(IOException.class, () -> archiveService.writeArchive("docs/", ArchiveFormat.TAR, disconnected));
+
+        assertEquals(2, aborts.get());
+    }
+
+    private void stubObjects(String prefix, String... keysAndContents) {
+        List<S3Object> objects = new ArrayList<>();
+        for (int i = 0; i < keysAndContents.length; i += 2) {
+            byte[] content = keysAndContents[i + 1].getBytes(StandardCharsets.UTF_8);
+            objects.add(new S3Object(keysAndContents[i], "etag" + i, content.length, Instant.now(), "STANDARD", false));
+            when(s3Service.downloadObjectStream(keysAndContents[i])).thenReturn(new ResponseInputStream<>(
+                    GetObjectResponse.builder().contentLength((long) content.length).build(),
+                    AbortableInputStream.create(new ByteArrayInputStream(content))));
+        }
+        when(s3Service.listAllObjects(prefix)).thenReturn(objects.iterator());
+    }
+}
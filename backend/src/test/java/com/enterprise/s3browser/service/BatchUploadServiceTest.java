@@ -0,0 +1,260 @@
+package com.enterprise.s3browser.service;
+
+import com.enterprise.s3browser.exception.S3ServiceException;
+import com.enterprise.s3browser.model.UploadResult;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Collectors;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class BatchUploadServiceTest {
+
+    @Mock
+    private S3Service s3Service;
+
+    @Mock
+    private MultipartUploadService multipartUploadService;
+
+    @InjectMocks
+    private BatchUploadService batchUploadService;
+
+    private final Map<String, String> stored = new ConcurrentHashMap<>();
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(batchUploadService, "concurrency", 4);
+        ReflectionTestUtils.setField(batchUploadService, "maxMemory", 4096L);
+        ReflectionTestUtils.setField(batchUploadService, "maxBufferedSize", 1024L);
+        ReflectionTestUtils.setField(batchUploadService, "maxFiles", 100);
+        ReflectionTestUtils.setField(batchUploadService, "maxArchiveEntries", 100);
+        batchUploadService.initialize();
+
+        lenient().doAnswer(invocation -> {
+            stored.put(invocation.getArgument(0), new String(invocation.getArgument(1, InputStream.class).readAllBytes(), StandardCharsets.UTF_8));
+            return null;
+        }).when(s3Service).uploadObject(any(), any(), anyLong(), any());
+    }
+
+    @AfterEach
+    void tearDown() {
+        batchUploadService.shutdown();
+    }
+
+    @Test
+    void uploadTar_StoresEveryFileUnderPrefix() throws Exception {
+        byte[] archive = archive("a.txt", "first", "nested/b.json", "{}", "./c.bin", "third");
+
+        List<UploadResult> results = batchUploadService.uploadTar("uploads", new ByteArrayInputStream(archive));
+
+        assertEquals(List.of("uploads/a.txt", "uploads/nested/b.json", "uploads/c.bin"),
+                results.stream().map(UploadResult::getKey).collect(Collectors.toList()));
+        assertTrue(results.stream().allMatch(UploadResult::isSuccess));
+        assertEquals(5L, results.get(0).getSize());
+        assertEquals("first", stored.get("uploads/a.txt"));
+        assertEquals("{}", stored.get("uploads/nested/b.json"));
+        assertEquals("third", stored.get("uploads/c.bin"));
+        verify(s3Service).uploadObject(eq("uploads/a.txt"), any(), eq(5L), eq("text/plain"));
+        verify(s3Service).uploadObject(eq("uploads/nested/b.json"), any(), eq(2L), eq("application/json"));
+    }
+
+    @Test
+    void uploadTar_ManyFilesWithinMemoryBudget() throws Exception {
+        String[] entries = new String[200];
+        for (int i = 0; i < 100; i++) {
+            entries[2 * i] = "file-" + i + ".txt";
+            entries[2 * i + 1] = "x".repeat(1000) + i;
+        }
+
+        List<UploadResult> results = batchUploadService.uploadTar("", new ByteArrayInputStream(archive(entries)));
+
+        assertEquals(100, results.size());
+        assertEquals(100, stored.size());
+        assertEquals("x".repeat(1000) + 42, stored.get("file-42.txt"));
+    }
+
+    @Test
+    void uploadTar_ReportsFailedFiles() throws Exception {
+        doThrow(new S3ServiceException("Access Denied"))
+                .when(s3Service).uploadObject(eq("b.txt"), any(), anyLong(), any());
+        byte[] archive = archive("a.txt", "first", "b.txt", "second", "../escape.txt", "nope");
+
+        List<UploadResult> results = batchUploadService.uploadTar(null, new ByteArrayInputStream(archive));
+
+        assertTrue(results.get(0).isSuccess());
+        assertFalse(results.get(1).isSuccess());
+        assertEquals("Access Denied", results.get(1).getError());
+        assertFalse(results.get(2).isSuccess());
+        assertEquals("../escape.txt", results.get(2).getKey());
+        verify(s3Service, never()).uploadObject(contains("escape"), any(), anyLong(), any());
+    }
+
+    @Test
+    void uploadTar_StreamsLargeFiles() throws Exception {
+        String large = "y".repeat(5000);
+        byte[] archive = archive("large.bin", large, "small.txt", "small");
+
+        List<UploadResult> results = batchUploadService.uploadTar("", new ByteArrayInputStream(archive));
+
+        assertTrue(results.stream().allMatch(UploadResult::isSuccess));
+        assertEquals(large, stored.get("large.bin"));
+        assertEquals("small", stored.get("small.txt"));
+        verify(multipartUploadService).shouldUseMultipart(5000L);
+    }
+
+    @Test
+    void uploadTar_LargeFilesUseMultipart() throws Exception {
+        when(multipartUploadService.shouldUseMultipart(5000L)).thenReturn(true);
+        byte[] archive = archive("large.bin", "y".repeat(5000));
+
+        List<UploadResult> results = batchUploadService.uploadTar("", new ByteArrayInputStream(archive));
+
+        assertTrue(results.get(0).isSuccess());
+        verify(multipartUploadService).upload(eq("large.bin"), any(), eq(5000L), eq("application/octet-stream"));
+    }
+
+    @Test
+    void uploadTar_TooManyFiles() throws Exception {
+        ReflectionTestUtils.setField(batchUploadService, "maxFiles", 1);
+        byte[] archive = archive("a.txt", "first", "b.txt", "second");
+
+        assertThrows(IllegalArgumentException.class, () ->
+                batchUploadService.uploadTar("", new ByteArrayInputStream(archive)));
+    }
+
+    @Test
+    void expandArchive_UnpacksZipAndReportsEachFile() throws Exception {
+        byte[] archive = zip("index.html", "<html/>", "css/", null, "css/site.css", "body {}");
+        List<UploadResult> reported = new CopyOnWriteArrayList<>();
+
+        List<UploadResult> results = batchUploadService.expandArchive("site", new ByteArrayInputStream(archive), reported::add);
+
+        assertEquals(List.of("site/index.html", "site/css/site.css"),
+                results.stream().map(UploadResult::getKey).collect(Collectors.toList()));
+        assertEquals(2, reported.size());
+        assertEquals(7L, results.get(0).getSize());
+        assertEquals("<html/>", stored.get("site/index.html"));
+        assertEquals("body {}", stored.get("site/css/site.css"));
+        verify(s3Service).uploadObject(eq("site/index.html"), any(), eq(7L), eq("text/html"));
+    }
+
+    @Test
+    void expandArchive_UnpacksGzippedTar() throws Exception {
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(compressed)) {
+            gzip.write(archive("a.txt", "first", "b/c.txt", "second"));
+        }
+
+        List<UploadResult> results = batchUploadService.expandArchive("", new ByteArrayInputStream(compressed.toByteArray()), result -> {});
+
+        assertTrue(results.stream().allMatch(UploadResult::isSuccess));
+        assertEquals("first", stored.get("a.txt"));
+        assertEquals("second", stored.get("b/c.txt"));
+    }
+
+    @Test
+    void expandArchive_StreamsLargeZipEntriesOfUnknownSize() throws Exception {
+        when(multipartUploadService.shouldUseMultipart(-1L)).thenReturn(true);
+        doAnswer(invocation -> {
+            stored.put(invocation.getArgument(0), new String(invocation.getArgument(1, InputStream.class).readAllBytes(), StandardCharsets.UTF_8));
+            return null;
+        }).when(multipartUploadService).upload(any(), any(), anyLong(), any());
+        String large = "z".repeat(5000);
+        byte[] archive = zip("large.bin", large, "small.txt", "small");
+
+        List<UploadResult> results = batchUploadService.expandArchive("", new ByteArrayInputStream(archive), result -> {});
+
+        assertTrue(results.stream().allMatch(UploadResult::isSuccess));
+        assertEquals(5000L, results.get(0).getSize());
+        assertEquals(large, stored.get("large.bin"));
+        assertEquals("small", stored.get("small.txt"));
+        verify(multipartUploadService).upload(eq("large.bin"), any(), eq(-1L), eq("application/octet-stream"));
+        verify(s3Service).uploadObject(eq("small.txt"), any(), eq(5L), eq("text/plain"));
+    }
+
+    @Test
+    void expandArchive_UnknownSizeWithoutMultipart() throws Exception {
+        byte[] archive = zip("large.bin", "z".repeat(5000), "small.txt", "small");
+
+        List<UploadResult> results = batchUploadService.expandArchive("", new ByteArrayInputStream(archive), result -> {});
+
+        assertFalse(results.get(0).isSuccess());
+        assertTrue(results.get(1).isSuccess());
+        verify(s3Service, never()).uploadObject(eq("large.bin"), any(), anyLong(), any());
+    }
+
+    @Test
+    void expandArchive_RejectsCorruptArchive() {
+        byte[] archive = new byte[1024];
+        Arrays.fill(archive, (byte) 'x');
+
+        assertThrows(IOException.class, () ->
+                batchUploadService.expandArchive("", new ByteArrayInputStream(archive), result -> {}));
+    }
+
+    @Test
+    void objectKey_NormalizesArchivePaths() {
+        assertEquals("p/a/b.txt", BatchUploadService.objectKey("p/", "./a/b.txt"));
+        assertEquals("p/a.txt", BatchUploadService.objectKey("p/", "/a.txt"));
+        assertEquals("p/a/b.txt", BatchUploadService.objectKey("p/", "a\\b.txt"));
+        assertNull(BatchUploadService.objectKey("p/", "a/../../b.txt"));
+        assertNull(BatchUploadService.objectKey("p/", "./"));
+        assertEquals("p/", BatchUploadService.normalizePrefix("p"));
+        assertEquals("", BatchUploadService.normalizePrefix(null));
+    }
+
+    private static byte[] archive(String... namesAndContents) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (TarArchiveOutputStream tar = new TarArchiveOutputStream(out)) {
+            for (int i = 0; i < namesAndContents.length; i += 2) {
+                byte[] content = namesAndContents[i + 1].getBytes(StandardCharsets.UTF_8);
+                tar.putEntry(namesAndContents[i], content.length, Instant.EPOCH);
+                tar.write(content);
+                tar.closeEntry();
+            }
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * Build a ZIP from alternating names and contents, streamed so entries carry no size up front;
+     * a null content makes a directory.
+     */
+    private static byte[] zip(String... namesAndContents) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (ZipOutputStream zip = new ZipOutputStream(out)) {
+            for (int i = 0; i < namesAndContents.length; i += 2) {
+                zip.putNextEntry(new ZipEntry(namesAndContents[i]));
+                if (namesAndContents[i + 1] != null) {
+                    zip.write(namesAndContents[i + 1].getBytes(StandardCharsets.UTF_8));
+                }
+                zip.closeEntry();
+            }
+        }
+        return out.toByteArray();
+    }
+}
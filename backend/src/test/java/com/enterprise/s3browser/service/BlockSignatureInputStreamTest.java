@@ -0,0 +1,51 @@
+package com.enterprise.s3browser.service;
+
+import com.enterprise.s3browser.model.BlockSignature;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.security.MessageDigest;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BlockSignatureInputStreamTest {
+
+    @Test
+    void read_SignsEveryWholeBlock() throws Exception {
+        byte[] content = new byte[3 * 1000 + 123];
+        new Random(5).nextBytes(content);
+        BlockSignatureInputStream in = new BlockSignatureInputStream(new ByteArrayInputStream(content), 1000);
+
+        byte[] buffer = new byte[777];
+        assertEquals(content[0] & 0xff, in.read());
+        assertEquals(10L, in.skip(10));
+        while (in.read(buffer, 0, buffer.length) >= 0) {
+            // Signed as it is read
+        }
+
+        List<BlockSignature> blocks = in.getBlocks();
+        assertEquals(3, blocks.size());
+        assertEquals(content.length, in.getSize());
+        for (int i = 0; i < 3; i++) {
+            BlockSignature block = blocks.get(i);
+            assertEquals(i * 1000L, block.getOffset());
+            assertEquals(1000, block.getLength());
+            assertEquals(RollingChecksum.of(content, i * 1000, 1000), block.getWeak());
+            MessageDigest sha256 = MessageDigest.getInstance("SHA-256");
+            sha256.update(content, i * 1000, 1000);
+            assertEquals(HexFormat.of().formatHex(sha256.digest()), block.getStrong());
+        }
+    }
+
+    @Test
+    void read_ShortContentHasNoBlocks() throws Exception {
+        BlockSignatureInputStream in = new BlockSignatureInputStream(new ByteArrayInputStream(new byte[999]), 1000);
+
+        assertEquals(999, in.readAllBytes().length);
+        assertTrue(in.getBlocks().isEmpty());
+        assertFalse(in.markSupported());
+    }
+}
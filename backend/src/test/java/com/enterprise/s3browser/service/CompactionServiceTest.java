@@ -0,0 +1,493 @@
+package com.enterprise.s3browser.service;
+
+import com.enterprise.s3browser.exception.CompactionJobNotFoundException;
+import com.enterprise.s3browser.exception.ObjectNotModifiedException;
+import com.enterprise.s3browser.exception.PreconditionFailedException;
+import com.enterprise.s3browser.exception.RangeNotSatisfiableException;
+import com.enterprise.s3browser.exception.S3ServiceException;
+import com.enterprise.s3browser.model.CompactedObject;
+import com.enterprise.s3browser.model.CompactionJob;
+import com.enterprise.s3browser.model.CompactionStatus;
+import com.enterprise.s3browser.model.RequestConditions;
+import com.enterprise.s3browser.model.S3Configuration;
+import com.enterprise.s3browser.model.S3Object;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import software.amazon.awssdk.core.ResponseInputStream;
+import software.amazon.awssdk.http.AbortableInputStream;
+import software.amazon.awssdk.services.s3.model.CompletedPart;
+import software.amazon.awssdk.services.s3.model.GetObjectResponse;
+import software.amazon.awssdk.services.s3.model.NoSuchKeyException;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CompactionServiceTest {
+
+    private static final int MIN_PART = (int) MultipartUploadService.MIN_PART_SIZE;
+    private static final Instant NOW = Instant.parse("2024-01-01T10:00:00Z");
+
+    @Mock
+    private S3Service s3Service;
+
+    @InjectMocks
+    private CompactionService compactionService;
+
+    // A fake bucket: object contents and types, and the parts of multipart uploads in progress
+    private final Map<String, byte[]> objects = new ConcurrentHashMap<>();
+    private final Map<String, String> contentTypes = new ConcurrentHashMap<>();
+    private final Map<String, Map<Integer, byte[]>> uploads = new ConcurrentHashMap<>();
+    // Keys listed with an ETag that no longer matches, as if they changed after the listing
+    private final Set<String> changedAfterListing = ConcurrentHashMap.newKeySet();
+
+    private S3Configuration config;
+
+    @BeforeEach
+    void setUp() {
+        config = new S3Configuration();
+        config.setBucket("test-bucket");
+        lenient().when(s3Service.getCurrentConfig()).thenReturn(config);
+        lenient().when(s3Service.listAllObjects(anyString())).thenAnswer(invocation -> {
+            String prefix = invocation.getArgument(0);
+            List<S3Object> listed = new ArrayList<>();
+            for (String key : new TreeMap<>(objects).keySet()) {
+                if (key.startsWith(prefix)) {
+                    String etag = changedAfterListing.contains(key) ? "\"stale\"" : etag(key);
+                    listed.add(new S3Object(key, etag, (long) objects.get(key).length, NOW, "STANDARD", false));
+                }
+            }
+            return listed.iterator();
+        });
+        lenient().when(s3Service.getObjectMetadata(anyString())).thenAnswer(invocation -> {
+            String key = invocation.getArgument(0);
+            byte[] content = requireObject(key);
+            S3Object object = new S3Object(key, etag(key), (long) content.length, NOW, "STANDARD", false);
+            object.setContentType(contentTypes.get(key));
+            return object;
+        });
+        lenient().when(s3Service.downloadObjectStream(anyString())).thenAnswer(invocation ->
+                download(invocation.getArgument(0), null, null));
+        lenient().when(s3Service.downloadObjectStream(anyString(), any(), any())).thenAnswer(invocation ->
+                download(invocation.getArgument(0), invocation.getArgument(1), invocation.getArgument(2)));
+        lenient().doAnswer(invocation -> {
+            objects.put(invocation.getArgument(0), invocation.getArgument(1, InputStream.class).readAllBytes());
+            return null;
+        }).when(s3Service).uploadObject(anyString(), any(), anyLong(), any());
+        lenient().doAnswer(invocation -> objects.remove(invocation.getArgument(0, String.class)))
+                .when(s3Service).deleteObject(anyString());
+        lenient().when(s3Service.createMultipartUpload(anyString(), any())).thenAnswer(invocation -> {
+            String uploadId = "upload-" + invocation.getArgument(0);
+            uploads.put(uploadId, new ConcurrentHashMap<>());
+            return uploadId;
+        });
+        lenient().when(s3Service.uploadPart(anyString(), anyString(), anyInt(), any(), anyInt())).thenAnswer(invocation -> {
+            int partNumber = invocation.getArgument(2);
+            uploads.get(invocation.getArgument(1, String.class))
+                    .put(partNumber, Arrays.copyOf(invocation.getArgument(3, byte[].class), invocation.getArgument(4, Integer.class)));
+            return CompletedPart.builder().partNumber(partNumber).eTag("part-" + partNumber).build();
+        });
+        lenient().when(s3Service.uploadPartCopy(anyString(), anyString(), anyInt(), anyString(), anyString(), anyLong(), anyLong()))
+                .thenAnswer(invocation -> {
+                    int partNumber = invocation.getArgument(2);
+                    String sourceKey = invocation.getArgument(3);
+                    assertEquals(etag(sourceKey), invocation.getArgument(4));
+                    uploads.get(invocation.getArgument(1, String.class)).put(partNumber, Arrays.copyOfRange(objects.get(sourceKey),
+                            (int) (long) invocation.getArgument(5, Long.class), (int) (long) invocation.getArgument(6, Long.class) + 1));
+                    return CompletedPart.builder().partNumber(partNumber).eTag("copy-" + partNumber).build();
+                });
+        lenient().doAnswer(invocation -> {
+            Map<Integer, byte[]> parts = uploads.remove(invocation.getArgument(1, String.class));
+            ByteArrayOutputStream assembled = new ByteArrayOutputStream();
+            List<CompletedPart> completed = invocation.getArgument(2);
+            for (int i = 0; i < completed.size(); i++) {
+                assertEquals(i + 1, completed.get(i).partNumber());
+                assembled.write(parts.get(i + 1));
+            }
+            objects.put(invocation.getArgument(0), assembled.toByteArray());
+            return null;
+        }).when(s3Service).completeMultipartUpload(anyString(), anyString(), anyList());
+        lenient().doAnswer(invocation -> uploads.remove(invocation.getArgument(1, String.class)))
+                .when(s3Service).abortMultipartUpload(anyString(), anyString());
+
+        configure(compactionService);
+        compactionService.initialize();
+    }
+
+    @AfterEach
+    void tearDown() {
+        compactionService.shutdown();
+    }
+
+    @Test
+    void compact_PacksSmallObjectsAndDeletesOriginals() throws Exception {
+        put("logs/a.log", "first", "text/plain");
+        put("logs/b.log", "second", "text/plain");
+        put("logs/c.json", "{}", "application/json");
+        byte[] large = new byte[2000];
+        objects.put("logs/large.bin", large);
+        put("other/d.log", "untouched", null);
+
+        CompactionJob job = run("logs/");
+
+        assertEquals(CompactionStatus.COMPLETED, job.getStatus());
+        assertEquals(4L, job.getObjectsScanned());
+        assertEquals(3L, job.getObjectsPacked());
+        assertEquals(13L, job.getBytesPacked());
+        assertEquals(1, job.getContainers());
+        assertEquals(Set.of("logs/large.bin", "other/d.log"), userKeys());
+        assertArrayEquals(large, objects.get("logs/large.bin"));
+
+        assertCompacted("logs/a.log", "first", "text/plain");
+        assertCompacted("logs/b.log", "second", "text/plain");
+        assertCompacted("logs/c.json", "{}", "application/json");
+        assertNull(compactionService.resolve("logs/large.bin"));
+    }
+
+    @Test
+    void compact_StartsNewContainerAtContainerSize() throws Exception {
+        ReflectionTestUtils.setField(compactionService, "containerSize", 10L);
+        put("a", "aaaaaa", null);
+        put("b", "bbbbbb", null);
+        put("c", "cccccc", null);
+
+        CompactionJob job = run("");
+
+        assertEquals(2, job.getContainers());
+        assertEquals(compactionService.resolve("a").getContainer(), compactionService.resolve("b").getContainer());
+        assertNotEquals(compactionService.resolve("a").getContainer(), compactionService.resolve("c").getContainer());
+        assertEquals(0L, compactionService.resolve("c").getOffset());
+        assertCompacted("c", "cccccc", null);
+    }
+
+    @Test
+    void compact_CopiesObjectsLargeEnoughToBeParts() throws Exception {
+        ReflectionTestUtils.setField(compactionService, "maxObjectSize", 2L * MIN_PART);
+        byte[] part = new byte[MIN_PART];
+        Arrays.fill(part, (byte) 7);
+        objects.put("a-part.bin", part);
+        put("b-small.txt", "small", "text/plain");
+        objects.put("c-part.bin", part.clone());
+
+        CompactionJob job = run("");
+
+        assertEquals(3L, job.getObjectsPacked());
+        // The first is copied into an empty container; the last follows buffered bytes too few to be a part
+        verify(s3Service, times(1)).uploadPartCopy(anyString(), anyString(), anyInt(), eq("a-part.bin"), anyString(), eq(0L), eq(MIN_PART - 1L));
+        verify(s3Service, never()).uploadPartCopy(anyString(), anyString(), anyInt(), eq("c-part.bin"), anyString(), anyLong(), anyLong());
+        assertArrayEquals(part, readCompacted(compactionService.resolve("a-part.bin")));
+        assertArrayEquals(part, readCompacted(compactionService.resolve("c-part.bin")));
+        assertCompacted("b-small.txt", "small", "text/plain");
+    }
+
+    @Test
+    void compact_SkipsObjectsChangedSinceListed() throws Exception {
+        put("a.txt", "kept", null);
+        put("b.txt", "packed", null);
+        changedAfterListing.add("a.txt");
+
+        CompactionJob job = run("");
+
+        assertEquals(1L, job.getObjectsPacked());
+        assertNull(compactionService.resolve("a.txt"));
+        assertTrue(objects.containsKey("a.txt"));
+        assertCompacted("b.txt", "packed", null);
+    }
+
+    @Test
+    void cancel_AbortsOpenContainerAndKeepsOriginals() throws Exception {
+        put("a.txt", "one", null);
+        put("b.txt", "two", null);
+        doAnswer(invocation -> {
+            compactionService.cancel(compactionService.getJobs().get(0).getId());
+            return "upload-1";
+        }).when(s3Service).createMultipartUpload(anyString(), any());
+
+        CompactionJob job = run("");
+
+        assertEquals(CompactionStatus.CANCELLED, job.getStatus());
+        assertEquals(0L, job.getObjectsPacked());
+        assertEquals(0, job.getContainers());
+        verify(s3Service).abortMultipartUpload(anyString(), eq("upload-1"));
+        verify(s3Service, never()).completeMultipartUpload(anyString(), anyString(), anyList());
+        assertEquals(Set.of("a.txt", "b.txt"), userKeys());
+        assertNull(compactionService.resolve("a.txt"));
+    }
+
+    @Test
+    void bucketSwitch_FailsJobWithoutTouchingEitherBucket() throws Exception {
+        put("a.txt", "one", null);
+        put("b.txt", "two", null);
+        assertNull(compactionService.resolve("a.txt"));
+        doAnswer(invocation -> {
+            config.setBucket("other-bucket");
+            return "upload-1";
+        }).when(s3Service).createMultipartUpload(anyString(), any());
+
+        CompactionJob job = await(compactionService.start(""));
+
+        assertEquals(CompactionStatus.FAILED, job.getStatus());
+        assertEquals("Bucket test-bucket is no longer selected", job.getError());
+        verify(s3Service, never()).completeMultipartUpload(anyString(), anyString(), anyList());
+        verify(s3Service, never()).uploadObject(anyString(), any(), anyLong(), any());
+        verify(s3Service, never()).deleteObject(anyString());
+        assertEquals(Set.of("a.txt", "b.txt"), userKeys());
+
+        config.setBucket("test-bucket");
+        assertNull(compactionService.resolve("a.txt"));
+    }
+
+    @Test
+    void index_SurvivesRestart() throws Exception {
+        put("logs/a.log", "first", "text/plain");
+        run("logs/");
+
+        CompactionService restarted = new CompactionService();
+        ReflectionTestUtils.setField(restarted, "s3Service", s3Service);
+        configure(restarted);
+        restarted.initialize();
+        try {
+            CompactedObject compacted = restarted.resolve("logs/a.log");
+
+            assertNotNull(compacted);
+            assertEquals("first", new String(readCompacted(compacted), StandardCharsets.UTF_8));
+        } finally {
+            restarted.shutdown();
+        }
+    }
+
+    @Test
+    void compactedObjects_ReadsEntriesAfterKeyFromIndex() throws Exception {
+        put("logs/a.log", "a", null);
+        put("logs/b.log", "b", null);
+        put("logs/2024/c.log", "c", null);
+        put("logs/2024/d/e.log", "e", null);
+        put("other.log", "x", null);
+        run("");
+
+        assertEquals(List.of("logs/2024/", "logs/a.log", "logs/b.log"), keys(compactionService.compactedObjects("logs/", null, false)));
+        assertEquals(List.of("logs/a.log", "logs/b.log"), keys(compactionService.compactedObjects("logs/", "logs/2024/", false)));
+        assertEquals(List.of("logs/b.log"), keys(compactionService.compactedObjects("logs/", "logs/a.log", true)));
+        assertEquals(List.of("logs/2024/c.log", "logs/2024/d/e.log", "logs/a.log", "logs/b.log"),
+                keys(compactionService.compactedObjects("logs/", "a", true)));
+        assertEquals(List.of(), keys(compactionService.compactedObjects("logs/", "z", true)));
+        assertEquals(List.of("logs/", "other.log"), keys(compactionService.compactedObjects(null, null, false)));
+    }
+
+    @Test
+    void forget_RemovesKeyFromIndex() throws Exception {
+        put("a.txt", "one", null);
+        put("b.txt", "two", null);
+        run("");
+
+        compactionService.forget("a.txt");
+
+        assertNull(compactionService.resolve("a.txt"));
+        assertNotNull(compactionService.resolve("b.txt"));
+        CompactionService restarted = new CompactionService();
+        ReflectionTestUtils.setField(restarted, "s3Service", s3Service);
+        configure(restarted);
+        restarted.initialize();
+        try {
+            assertNull(restarted.resolve("a.txt"));
+            assertNotNull(restarted.resolve("b.txt"));
+        } finally {
+            restarted.shutdown();
+        }
+    }
+
+    @Test
+    void withCompacted_MergesRecursiveListingInKeyOrder() throws Exception {
+        put("logs/a.log", "first", null);
+        put("logs/c/d.log", "second", null);
+        run("logs/");
+        S3Object stored = new S3Object("logs/a.log", "\"new\"", 3L, NOW, "STANDARD", false);
+        S3Object listed = new S3Object("logs/b.log", "\"b\"", 1L, NOW, "STANDARD", false);
+
+        List<S3Object> merged = new ArrayList<>();
+        compactionService.withCompacted("logs/", List.of(stored, listed).iterator()).forEachRemaining(merged::add);
+
+        assertEquals(List.of("logs/a.log", "logs/b.log", "logs/c/d.log"), merged.stream().map(S3Object::getKey).collect(Collectors.toList()));
+        assertSame(stored, merged.get(0));
+        assertEquals(6L, merged.get(2).getSize());
+    }
+
+    @Test
+    void getObjectMetadata_EvaluatesConditionsAgainstOriginal() throws Exception {
+        put("a.txt", "one", "text/plain");
+        run("");
+        String etag = compactionService.resolve("a.txt").getEtag();
+
+        S3Object object = compactionService.getObjectMetadata("a.txt", null);
+
+        assertEquals(etag, object.getEtag());
+        assertEquals(3L, object.getSize());
+        assertEquals("text/plain", object.getContentType());
+        RequestConditions ifNoneMatch = new RequestConditions();
+        ifNoneMatch.setIfNoneMatch("W/" + etag);
+        assertThrows(ObjectNotModifiedException.class, () -> compactionService.getObjectMetadata("a.txt", ifNoneMatch));
+        RequestConditions ifModifiedSince = new RequestConditions();
+        ifModifiedSince.setIfModifiedSince(NOW);
+        assertThrows(ObjectNotModifiedException.class, () -> compactionService.getObjectMetadata("a.txt", ifModifiedSince));
+        RequestConditions ifMatch = new RequestConditions();
+        ifMatch.setIfMatch("\"other\"");
+        assertThrows(PreconditionFailedException.class, () -> compactionService.getObjectMetadata("a.txt", ifMatch));
+        assertNull(compactionService.getObjectMetadata("b.txt", null));
+    }
+
+    @Test
+    void downloadObjectStream_ReadsObjectOrRangeFromContainer() throws Exception {
+        put("logs/a.log", "first", "text/plain");
+        put("logs/b.log", "second", null);
+        run("logs/");
+
+        try (ResponseInputStream<GetObjectResponse> whole = compactionService.downloadObjectStream("logs/a.log", null, null)) {
+            assertEquals("first", new String(whole.readAllBytes(), StandardCharsets.UTF_8));
+            assertEquals(5L, whole.response().contentLength());
+            assertEquals("text/plain", whole.response().contentType());
+            assertNull(whole.response().contentRange());
+        }
+        try (ResponseInputStream<GetObjectResponse> range = compactionService.downloadObjectStream("logs/b.log", "bytes=-4", null)) {
+            assertEquals("cond", new String(range.readAllBytes(), StandardCharsets.UTF_8));
+            assertEquals(4L, range.response().contentLength());
+            assertEquals("bytes 2-5/6", range.response().contentRange());
+        }
+        assertNull(compactionService.downloadObjectStream("logs/missing.log", null, null));
+        assertNull(compactionService.resolve(CompactionService.COMPACTION_PREFIX + "job.json"));
+    }
+
+    @Test
+    void downloadObjectStream_RangeNotSatisfiable() throws Exception {
+        put("a.txt", "one", null);
+        run("");
+
+        RangeNotSatisfiableException e = assertThrows(RangeNotSatisfiableException.class,
+                () -> compactionService.downloadObjectStream("a.txt", "bytes=3-", null));
+
+        assertEquals(3L, e.getObjectLength());
+    }
+
+    @Test
+    void getJob_Unknown() {
+        assertThrows(CompactionJobNotFoundException.class, () -> compactionService.getJob("missing"));
+        assertThrows(CompactionJobNotFoundException.class, () -> compactionService.cancel("missing"));
+    }
+
+    @Test
+    void start_RejectsCompactionPrefix() {
+        assertThrows(IllegalArgumentException.class, () -> compactionService.start(CompactionService.COMPACTION_PREFIX));
+    }
+
+    @Test
+    void disabled_NeverResolves() {
+        CompactionService disabled = new CompactionService();
+        ReflectionTestUtils.setField(disabled, "s3Service", s3Service);
+        disabled.initialize();
+
+        assertFalse(disabled.isEnabled());
+        assertNull(disabled.resolve("a.txt"));
+        disabled.forget("a.txt");
+        verify(s3Service, never()).listAllObjects(anyString());
+    }
+
+    private CompactionJob run(String prefix) throws InterruptedException {
+        CompactionJob job = await(compactionService.start(prefix));
+        assertNull(job.getError());
+        return job;
+    }
+
+    private CompactionJob await(CompactionJob job) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (!job.getStatus().isFinished()) {
+            assertTrue(System.currentTimeMillis() < deadline, "Compaction job did not finish");
+            Thread.sleep(10);
+        }
+        return job;
+    }
+
+    private static List<String> keys(java.util.Iterator<S3Object> objects) {
+        List<String> keys = new ArrayList<>();
+        objects.forEachRemaining(object -> keys.add(object.getKey()));
+        return keys;
+    }
+
+    private void assertCompacted(String key, String content, String contentType) {
+        CompactedObject compacted = compactionService.resolve(key);
+        assertNotNull(compacted, key);
+        assertEquals(content, new String(readCompacted(compacted), StandardCharsets.UTF_8));
+        assertEquals(contentType, compacted.getContentType());
+        assertEquals(etag(compacted.getContainer()), compacted.getContainerEtag());
+    }
+
+    private byte[] readCompacted(CompactedObject compacted) {
+        byte[] container = objects.get(compacted.getContainer());
+        return Arrays.copyOfRange(container, (int) compacted.getOffset(), (int) (compacted.getOffset() + compacted.getLength()));
+    }
+
+    private Set<String> userKeys() {
+        return objects.keySet().stream()
+                .filter(key -> !key.startsWith(CompactionService.COMPACTION_PREFIX))
+                .collect(Collectors.toSet());
+    }
+
+    private void put(String key, String content, String contentType) {
+        objects.put(key, content.getBytes(StandardCharsets.UTF_8));
+        if (contentType != null) {
+            contentTypes.put(key, contentType);
+        }
+    }
+
+    private ResponseInputStream<GetObjectResponse> download(String key, String range, RequestConditions conditions) {
+        byte[] content = requireObject(key);
+        if (conditions != null && conditions.getIfMatch() != null && !conditions.getIfMatch().equals(etag(key))) {
+            throw new PreconditionFailedException("Precondition failed for object: " + key);
+        }
+        if (range != null) {
+            String[] bounds = range.substring("bytes=".length()).split("-");
+            content = Arrays.copyOfRange(content, Integer.parseInt(bounds[0]), Integer.parseInt(bounds[1]) + 1);
+        }
+        return new ResponseInputStream<>(GetObjectResponse.builder().contentType(contentTypes.get(key)).build(),
+                AbortableInputStream.create(new ByteArrayInputStream(content)));
+    }
+
+    private byte[] requireObject(String key) {
+        byte[] content = objects.get(key);
+        if (content == null) {
+            throw new S3ServiceException("Failed to get object: " + key, NoSuchKeyException.builder().statusCode(404).build());
+        }
+        return content;
+    }
+
+    private String etag(String key) {
+        return "\"" + key + "-" + Arrays.hashCode(objects.get(key)) + "\"";
+    }
+
+    private void configure(CompactionService service) {
+        ReflectionTestUtils.setField(service, "enabled", true);
+        ReflectionTestUtils.setField(service, "maxObjectSize", 1024L);
+        ReflectionTestUtils.setField(service, "containerSize", 1024L * 1024);
+        ReflectionTestUtils.setField(service, "partSize", MIN_PART);
+        ReflectionTestUtils.setField(service, "concurrency", 4);
+    }
+}
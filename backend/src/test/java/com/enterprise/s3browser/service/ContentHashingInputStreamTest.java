@@ -0,0 +1,57 @@
+package com.enterprise.s3browser.service;
+
+import com.enterprise.s3browser.model.ContentHash;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ContentHashingInputStreamTest {
+
+    private static final byte[] CHECK = "123456789".getBytes(StandardCharsets.UTF_8);
+
+    @Test
+    void hash_MatchesKnownValues() throws Exception {
+        ContentHash hash = ContentHashingInputStream.hash(new ByteArrayInputStream(CHECK));
+
+        assertEquals("15e2b0d3c33891ebb0f1ef609ec419420c20e320ce94c65fbc8c3312448eb225", hash.getSha256());
+        assertEquals("e3069283", hash.getCrc32c());
+        assertEquals(9L, hash.getSize());
+    }
+
+    @Test
+    void hash_EmptyContent() throws Exception {
+        ContentHash hash = ContentHashingInputStream.hash(new ByteArrayInputStream(new byte[0]));
+
+        assertEquals("e3b0c44298fc1c149afbf4c8996fb92427ae41e4649b934ca495991b7852b855", hash.getSha256());
+        assertEquals("00000000", hash.getCrc32c());
+        assertEquals(0L, hash.getSize());
+    }
+
+    @Test
+    void read_HashesSingleBytesSkipsAndBlocksAlike() throws Exception {
+        byte[] content = new byte[100000];
+        new Random(7).nextBytes(content);
+        ContentHash expected = ContentHashingInputStream.hash(new ByteArrayInputStream(content));
+
+        ContentHashingInputStream in = new ContentHashingInputStream(new ByteArrayInputStream(content));
+        byte[] copy = new byte[content.length];
+        copy[0] = (byte) in.read();
+        assertEquals(20000L, in.skip(20000));
+        int read = in.read(copy, 20001, 1000);
+        assertEquals(1000, read);
+        assertEquals(content.length - 21001, in.readAllBytes().length);
+        assertEquals(-1, in.read());
+
+        assertEquals(content.length, in.getSize());
+        ContentHash hash = in.getHash();
+        assertEquals(expected.getSha256(), hash.getSha256());
+        assertEquals(expected.getCrc32c(), hash.getCrc32c());
+        assertArrayEquals(java.util.Arrays.copyOfRange(content, 20001, 21001),
+                java.util.Arrays.copyOfRange(copy, 20001, 21001));
+        assertFalse(in.markSupported());
+    }
+}
@@ -0,0 +1,190 @@
+package com.enterprise.s3browser.service;
+
+import com.enterprise.s3browser.exception.S3ServiceException;
+import com.enterprise.s3browser.model.ContentHash;
+import com.enterprise.s3browser.model.DedupEntry;
+import com.enterprise.s3browser.model.S3Configuration;
+import com.enterprise.s3browser.model.S3Object;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.test.util.ReflectionTestUtils;
+import software.amazon.awssdk.services.s3.model.S3Exception;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class DedupUploadServiceTest {
+
+    private static final Instant NOW = Instant.parse("2024-01-01T10:00:00Z");
+    private static final byte[] CONTENT = "The same content, uploaded twice".getBytes(StandardCharsets.UTF_8);
+
+    @Mock
+    private S3Service s3Service;
+
+    @Mock
+    private MultipartUploadService multipartUploadService;
+
+    @InjectMocks
+    private DedupUploadService dedupUploadService;
+
+    @TempDir
+    Path directory;
+
+    private S3Configuration config;
+    private final Map<String, String> etags = new HashMap<>();
+
+    @BeforeEach
+    void setUp() {
+        config = new S3Configuration();
+        config.setBucket("test-bucket");
+        lenient().when(s3Service.getCurrentConfig()).thenReturn(config);
+        lenient().when(s3Service.getObjectMetadata(anyString())).thenAnswer(invocation -> {
+            String key = invocation.getArgument(0);
+            if (!etags.containsKey(key)) {
+                throw new S3ServiceException("Object not found: " + key);
+            }
+            return new S3Object(key, etags.get(key), (long) CONTENT.length, NOW, "STANDARD", false);
+        });
+        lenient().doAnswer(invocation -> {
+            invocation.getArgument(1, InputStream.class).readAllBytes();
+            String etag = "\"etag-" + invocation.getArgument(0) + "\"";
+            etags.put(invocation.getArgument(0), etag);
+            return etag;
+        }).when(s3Service).uploadObject(anyString(), any(), anyLong(), any());
+
+        configure(dedupUploadService);
+        dedupUploadService.initialize();
+    }
+
+    @Test
+    void upload_SecondCopyIsCopiedServerSide() throws Exception {
+        dedupUploadService.upload("a.bin", new ByteArrayResource(CONTENT), CONTENT.length, "application/pdf");
+        dedupUploadService.upload("b.bin", new ByteArrayResource(CONTENT), CONTENT.length, "application/pdf");
+
+        verify(s3Service, times(1)).uploadObject(anyString(), any(), anyLong(), any());
+        verify(multipartUploadService).copy("a.bin", "\"etag-a.bin\"", "b.bin", CONTENT.length, "application/pdf");
+    }
+
+    @Test
+    void upload_StreamIsIndexedOnTheWay() throws Exception {
+        dedupUploadService.upload("a.bin", new ByteArrayInputStream(CONTENT), CONTENT.length, "text/plain");
+        // Indexed under the ETag the upload returned, without looking the object up again
+        verify(s3Service, never()).getObjectMetadata(anyString());
+
+        DedupEntry entry = dedupUploadService.find(sha256(), CONTENT.length);
+
+        assertNotNull(entry);
+        assertEquals("a.bin", entry.getKey());
+        assertEquals("\"etag-a.bin\"", entry.getEtag());
+        assertEquals(NOW, entry.getRecordedAt());
+        verify(s3Service).uploadObject(eq("a.bin"), any(), eq((long) CONTENT.length), eq("text/plain"));
+    }
+
+    @Test
+    void upload_SmallContentIsNotIndexed() throws Exception {
+        ReflectionTestUtils.setField(dedupUploadService, "minSize", 1024L);
+
+        dedupUploadService.upload("a.bin", new ByteArrayResource(CONTENT), CONTENT.length, null);
+        dedupUploadService.upload("b.bin", new ByteArrayInputStream(CONTENT), CONTENT.length, null);
+
+        assertNull(dedupUploadService.find(sha256(), CONTENT.length));
+        verify(s3Service, times(2)).uploadObject(anyString(), any(), anyLong(), any());
+        verify(s3Service, never()).getObjectMetadata(anyString());
+    }
+
+    @Test
+    void find_ForgetsOverwrittenSource() throws Exception {
+        dedupUploadService.upload("a.bin", new ByteArrayInputStream(CONTENT), CONTENT.length, null);
+        etags.put("a.bin", "\"changed\"");
+
+        assertNull(dedupUploadService.find(sha256(), CONTENT.length));
+        assertFalse(dedupUploadService.copyExisting("b.bin", sha256(), CONTENT.length, null));
+        verify(multipartUploadService, never()).copy(any(), any(), any(), anyLong(), any());
+    }
+
+    @Test
+    void copyExisting_SourceChangedBeforeCopy() throws Exception {
+        dedupUploadService.upload("a.bin", new ByteArrayInputStream(CONTENT), CONTENT.length, null);
+        doThrow(new S3ServiceException("Precondition Failed", S3Exception.builder().statusCode(412).build()))
+                .when(multipartUploadService).copy("a.bin", "\"etag-a.bin\"", "b.bin", CONTENT.length, null);
+
+        assertFalse(dedupUploadService.copyExisting("b.bin", sha256(), CONTENT.length, null));
+        assertFalse(dedupUploadService.copyExisting("c.bin", sha256(), CONTENT.length, null));
+        verify(multipartUploadService, times(1)).copy(any(), any(), any(), anyLong(), any());
+    }
+
+    @Test
+    void find_RequiresMatchingSizeAndValidHash() throws Exception {
+        dedupUploadService.upload("a.bin", new ByteArrayInputStream(CONTENT), CONTENT.length, null);
+
+        assertNotNull(dedupUploadService.find(sha256().toUpperCase(), CONTENT.length));
+        assertNull(dedupUploadService.find(sha256(), CONTENT.length + 1));
+        assertThrows(IllegalArgumentException.class, () -> dedupUploadService.find("not-a-hash", CONTENT.length));
+    }
+
+    @Test
+    void find_OnlyInCurrentBucket() throws Exception {
+        dedupUploadService.upload("a.bin", new ByteArrayInputStream(CONTENT), CONTENT.length, null);
+        config.setBucket("other-bucket");
+
+        assertNull(dedupUploadService.find(sha256(), CONTENT.length));
+    }
+
+    @Test
+    void index_SurvivesRestart() throws Exception {
+        dedupUploadService.upload("a.bin", new ByteArrayInputStream(CONTENT), CONTENT.length, null);
+
+        DedupUploadService restarted = new DedupUploadService();
+        ReflectionTestUtils.setField(restarted, "s3Service", s3Service);
+        ReflectionTestUtils.setField(restarted, "multipartUploadService", multipartUploadService);
+        configure(restarted);
+        restarted.initialize();
+
+        assertTrue(restarted.copyExisting("b.bin", sha256(), CONTENT.length, "text/plain"));
+        verify(multipartUploadService).copy("a.bin", "\"etag-a.bin\"", "b.bin", CONTENT.length, "text/plain");
+    }
+
+    @Test
+    void disabled_UploadsWithoutHashing() throws Exception {
+        DedupUploadService disabled = new DedupUploadService();
+        ReflectionTestUtils.setField(disabled, "s3Service", s3Service);
+        ReflectionTestUtils.setField(disabled, "multipartUploadService", multipartUploadService);
+        disabled.initialize();
+
+        disabled.upload("a.bin", new ByteArrayInputStream(CONTENT), CONTENT.length, null);
+
+        assertFalse(disabled.isEnabled());
+        assertNull(disabled.find(sha256(), CONTENT.length));
+        verify(s3Service, never()).getObjectMetadata(anyString());
+    }
+
+    private void configure(DedupUploadService service) {
+        ReflectionTestUtils.setField(service, "enabled", true);
+        ReflectionTestUtils.setField(service, "directory", directory.toString());
+        ReflectionTestUtils.setField(service, "minSize", 16L);
+        ReflectionTestUtils.setField(service, "clock", Clock.fixed(NOW, ZoneOffset.UTC));
+    }
+
+    private static String sha256() throws Exception {
+        ContentHash hash = ContentHashingInputStream.hash(new ByteArrayInputStream(CONTENT));
+        return hash.getSha256();
+    }
+}
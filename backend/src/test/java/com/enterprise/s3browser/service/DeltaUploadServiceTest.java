@@ -0,0 +1,258 @@
+package com.enterprise.s3browser.service;
+
+import com.enterprise.s3browser.exception.S3ServiceException;
+import com.enterprise.s3browser.model.S3Configuration;
+import com.enterprise.s3browser.model.S3Object;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import software.amazon.awssdk.core.ResponseInputStream;
+import software.amazon.awssdk.http.AbortableInputStream;
+import software.amazon.awssdk.services.s3.model.CompletedPart;
+import software.amazon.awssdk.services.s3.model.GetObjectResponse;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class DeltaUploadServiceTest {
+
+    private static final int BLOCK = DeltaUploadService.MIN_PART_SIZE;
+    private static final Instant NOW = Instant.parse("2024-01-01T10:00:00Z");
+
+    @Mock
+    private S3Service s3Service;
+
+    @Mock
+    private MultipartUploadService multipartUploadService;
+
+    @InjectMocks
+    private DeltaUploadService deltaUploadService;
+
+    @TempDir
+    Path directory;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    // A fake bucket: object contents and the parts of the multipart upload in progress
+    private final Map<String, byte[]> objects = new ConcurrentHashMap<>();
+    private final Map<Integer, byte[]> parts = new ConcurrentHashMap<>();
+
+    @BeforeEach
+    void setUp() {
+        S3Configuration config = new S3Configuration();
+        config.setBucket("test-bucket");
+        lenient().when(s3Service.getCurrentConfig()).thenReturn(config);
+        lenient().when(s3Service.getObjectMetadata(anyString())).thenAnswer(invocation -> {
+            String key = invocation.getArgument(0);
+            byte[] content = objects.get(key);
+            if (content == null) {
+                throw new S3ServiceException("Object not found: " + key);
+            }
+            return new S3Object(key, etag(key), (long) content.length, NOW, "STANDARD", false);
+        });
+        lenient().doAnswer(invocation -> {
+            objects.put(invocation.getArgument(0), invocation.getArgument(1, InputStream.class).readAllBytes());
+            return etag(invocation.getArgument(0));
+        }).when(s3Service).uploadObject(anyString(), any(), anyLong(), any());
+        lenient().when(s3Service.downloadObjectStream(anyString(), anyString(), any())).thenAnswer(invocation -> {
+            String[] range = invocation.getArgument(1, String.class).substring("bytes=".length()).split("-");
+            byte[] content = Arrays.copyOfRange(objects.get(invocation.getArgument(0, String.class)),
+                    Integer.parseInt(range[0]), Integer.parseInt(range[1]) + 1);
+            return new ResponseInputStream<>(GetObjectResponse.builder().build(),
+                    AbortableInputStream.create(new ByteArrayInputStream(content)));
+        });
+        lenient().when(s3Service.createMultipartUpload(anyString(), any())).thenReturn("upload-1");
+        lenient().when(s3Service.uploadPart(anyString(), eq("upload-1"), anyInt(), any(), anyInt())).thenAnswer(invocation -> {
+            int partNumber = invocation.getArgument(2);
+            parts.put(partNumber, Arrays.copyOf(invocation.getArgument(3, byte[].class), invocation.getArgument(4, Integer.class)));
+            return CompletedPart.builder().partNumber(partNumber).eTag("part-" + partNumber).build();
+        });
+        lenient().when(s3Service.uploadPartCopy(anyString(), eq("upload-1"), anyInt(), anyString(), anyString(), anyLong(), anyLong()))
+                .thenAnswer(invocation -> {
+                    int partNumber = invocation.getArgument(2);
+                    String sourceKey = invocation.getArgument(3);
+                    assertEquals(etag(sourceKey), invocation.getArgument(4));
+                    long firstByte = invocation.getArgument(5);
+                    long lastByte = invocation.getArgument(6);
+                    parts.put(partNumber, Arrays.copyOfRange(objects.get(sourceKey), (int) firstByte, (int) lastByte + 1));
+                    return CompletedPart.builder().partNumber(partNumber).eTag("copy-" + partNumber).build();
+                });
+        lenient().doAnswer(invocation -> {
+            ByteArrayOutputStream assembled = new ByteArrayOutputStream();
+            List<CompletedPart> completed = invocation.getArgument(2);
+            for (int i = 0; i < completed.size(); i++) {
+                assertEquals(i + 1, completed.get(i).partNumber());
+                assembled.write(parts.get(i + 1));
+            }
+            objects.put(invocation.getArgument(0), assembled.toByteArray());
+            parts.clear();
+            return etag(invocation.getArgument(0));
+        }).when(s3Service).completeMultipartUpload(anyString(), eq("upload-1"), anyList());
+
+        ReflectionTestUtils.setField(deltaUploadService, "meterRegistry", meterRegistry);
+        configure(deltaUploadService);
+        deltaUploadService.initialize();
+    }
+
+    @AfterEach
+    void tearDown() {
+        deltaUploadService.shutdown();
+    }
+
+    @Test
+    void shouldUseDelta_LargeUploadsWhenEnabled() {
+        assertTrue(deltaUploadService.shouldUseDelta(BLOCK));
+        assertFalse(deltaUploadService.shouldUseDelta(BLOCK - 1));
+        assertFalse(deltaUploadService.shouldUseDelta(-1));
+        assertFalse(deltaUploadService.shouldUseDelta(100_000L * BLOCK));
+    }
+
+    @Test
+    void upload_NewObjectIsSentWholeAndSigned() throws Exception {
+        byte[] content = content(4 * BLOCK + 100, 1);
+
+        assertEquals(0L, upload("big.bin", content));
+
+        assertArrayEquals(content, objects.get("big.bin"));
+        verify(s3Service).uploadObject(eq("big.bin"), any(), eq((long) content.length), eq("application/octet-stream"));
+        assertEquals(1, signatureFiles());
+        // Signed under the ETag the upload returned; the only lookup is for the previous version
+        verify(s3Service, times(1)).getObjectMetadata("big.bin");
+        assertEquals(content.length, meterRegistry.counter("s3browser.upload.delta.bytes.sent").count());
+    }
+
+    @Test
+    void upload_ChangedBlockIsTheOnlyOneSent() throws Exception {
+        byte[] original = content(4 * BLOCK, 1);
+        upload("big.bin", original);
+        byte[] modified = original.clone();
+        for (int i = BLOCK + 1000; i < BLOCK + 2000; i++) {
+            modified[i] ^= 0x5a;
+        }
+
+        long saved = upload("big.bin", modified);
+
+        assertEquals(3L * BLOCK, saved);
+        assertArrayEquals(modified, objects.get("big.bin"));
+        verify(s3Service, times(3)).uploadPartCopy(anyString(), anyString(), anyInt(), anyString(), anyString(), anyLong(), anyLong());
+        verify(s3Service, times(1)).uploadPart(anyString(), anyString(), anyInt(), any(), anyInt());
+        // Signatures were cached by the first upload, so nothing is read back
+        verify(s3Service, never()).downloadObjectStream(anyString(), anyString(), any());
+        assertEquals(3.0 * BLOCK, meterRegistry.counter("s3browser.upload.delta.bytes.saved").count());
+    }
+
+    @Test
+    void upload_FindsBlocksShiftedByAnInsertion() throws Exception {
+        byte[] original = content(4 * BLOCK + 300, 2);
+        upload("big.bin", original);
+        byte[] inserted = content(1000, 3);
+        byte[] modified = new byte[original.length + inserted.length];
+        System.arraycopy(original, 0, modified, 0, 2 * BLOCK + 10);
+        System.arraycopy(inserted, 0, modified, 2 * BLOCK + 10, inserted.length);
+        System.arraycopy(original, 2 * BLOCK + 10, modified, 2 * BLOCK + 10 + inserted.length, original.length - 2 * BLOCK - 10);
+
+        long saved = upload("big.bin", modified);
+
+        // Blocks 0, 1 and 3 are reused; block 2 holds the insertion, and the tail was never signed
+        assertEquals(3L * BLOCK, saved);
+        assertArrayEquals(modified, objects.get("big.bin"));
+    }
+
+    @Test
+    void upload_SignsCurrentVersionWithRangedReads() throws Exception {
+        byte[] original = content(3 * BLOCK + 5, 4);
+        objects.put("big.bin", original);
+        String etag = etag("big.bin");
+        byte[] modified = Arrays.copyOf(original, original.length + 10);
+
+        long saved = upload("big.bin", modified);
+
+        assertEquals(3L * BLOCK, saved);
+        assertArrayEquals(modified, objects.get("big.bin"));
+        verify(s3Service, times(3)).downloadObjectStream(eq("big.bin"), anyString(),
+                argThat(conditions -> etag.equals(conditions.getIfMatch())));
+    }
+
+    @Test
+    void upload_ShortBodyIsAborted() throws Exception {
+        byte[] original = content(2 * BLOCK, 5);
+        upload("big.bin", original);
+
+        assertThrows(IOException.class, () -> deltaUploadService.upload("big.bin",
+                new ByteArrayInputStream(original, 0, BLOCK + 10), original.length, "application/octet-stream"));
+
+        verify(s3Service).abortMultipartUpload("big.bin", "upload-1");
+        verify(s3Service, never()).completeMultipartUpload(anyString(), anyString(), anyList());
+        assertArrayEquals(original, objects.get("big.bin"));
+    }
+
+    @Test
+    void disabled_NeverUsesDelta() {
+        DeltaUploadService disabled = new DeltaUploadService();
+        ReflectionTestUtils.setField(disabled, "meterRegistry", meterRegistry);
+        ReflectionTestUtils.setField(disabled, "blockSize", BLOCK);
+        ReflectionTestUtils.setField(disabled, "concurrency", 1);
+        disabled.initialize();
+        try {
+            assertFalse(disabled.isEnabled());
+            assertFalse(disabled.shouldUseDelta(10L * BLOCK));
+        } finally {
+            disabled.shutdown();
+        }
+    }
+
+    private long upload(String key, byte[] content) throws IOException {
+        return deltaUploadService.upload(key, new ByteArrayInputStream(content), content.length, "application/octet-stream");
+    }
+
+    private String etag(String key) {
+        return "\"" + key + "-" + Arrays.hashCode(objects.get(key)) + "\"";
+    }
+
+    private long signatureFiles() throws IOException {
+        try (Stream<Path> files = Files.list(directory.resolve("delta-signatures"))) {
+            return files.count();
+        }
+    }
+
+    private void configure(DeltaUploadService service) {
+        ReflectionTestUtils.setField(service, "enabled", true);
+        ReflectionTestUtils.setField(service, "directory", directory.toString());
+        ReflectionTestUtils.setField(service, "blockSize", BLOCK);
+        ReflectionTestUtils.setField(service, "minSize", (long) BLOCK);
+        ReflectionTestUtils.setField(service, "concurrency", 2);
+        ReflectionTestUtils.setField(service, "maxMemory", 64L * 1024 * 1024);
+        ReflectionTestUtils.setField(service, "partRetries", 1);
+        ReflectionTestUtils.setField(service, "clock", Clock.fixed(NOW, ZoneOffset.UTC));
+    }
+
+    private static byte[] content(int length, long seed) {
+        byte[] content = new byte[length];
+        new Random(seed).nextBytes(content);
+        return content;
+    }
+}
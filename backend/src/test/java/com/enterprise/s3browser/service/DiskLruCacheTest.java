@@ -0,0 +1,157 @@
+package com.enterprise.s3browser.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DiskLruCacheTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void putAndGet() throws IOException {
+        DiskLruCache cache = new DiskLruCache(directory, 100);
+
+        Path file = cache.put("a", tempFile(cache, 10));
+
+        assertEquals(file, cache.get("a"));
+        assertArrayEquals(new byte[10], Files.readAllBytes(file));
+        assertEquals(10L, cache.size());
+        assertEquals(1, cache.entryCount());
+    }
+
+    @Test
+    void get_MissCountsAndReturnsNull() throws IOException {
+        DiskLruCache cache = new DiskLruCache(directory, 100);
+        cache.put("a", tempFile(cache, 10));
+
+        assertNull(cache.get("b"));
+        assertNotNull(cache.get("a"));
+
+        assertEquals(1L, cache.hitCount());
+        assertEquals(1L, cache.missCount());
+        assertEquals(0.5, cache.hitRatio());
+    }
+
+    @Test
+    void put_EvictsLeastRecentlyUsed() throws IOException {
+        DiskLruCache cache = new DiskLruCache(directory, 25);
+        Path first = cache.put("a", tempFile(cache, 10));
+        cache.put("b", tempFile(cache, 10));
+        cache.get("a");
+
+        cache.put("c", tempFile(cache, 10));
+
+        assertNotNull(cache.get("a"));
+        assertNull(cache.get("b"));
+        assertNotNull(cache.get("c"));
+        assertTrue(Files.exists(first));
+        assertEquals(20L, cache.size());
+        assertEquals(1L, cache.evictionCount());
+    }
+
+    @Test
+    void open_ChannelOutlivesEviction() throws IOException {
+        DiskLruCache cache = new DiskLruCache(directory, 15);
+        cache.put("a", Files.write(cache.createTempFile(), "first".getBytes()));
+
+        try (FileChannel channel = cache.open("a")) {
+            cache.put("b", tempFile(cache, 15));
+
+            assertNull(cache.open("a"));
+            assertArrayEquals("first".getBytes(), Channels.newInputStream(channel).readAllBytes());
+        }
+    }
+
+    @Test
+    void removalListener_ToldOfEvictedAndRemovedIds() throws IOException {
+        DiskLruCache cache = new DiskLruCache(directory, 25);
+        List<String> removed = new ArrayList<>();
+        cache.setRemovalListener(removed::add);
+        cache.put("a", tempFile(cache, 10));
+        cache.put("b", tempFile(cache, 10));
+
+        cache.put("c", tempFile(cache, 10));
+        cache.remove("b");
+
+        assertEquals(List.of("a", "b"), removed);
+    }
+
+    @Test
+    void put_RejectsEntryLargerThanCache() throws IOException {
+        DiskLruCache cache = new DiskLruCache(directory, 5);
+        Path temp = tempFile(cache, 10);
+
+        assertNull(cache.put("a", temp));
+        assertFalse(Files.exists(temp));
+        assertEquals(0L, cache.size());
+    }
+
+    @Test
+    void put_ReplacesExistingEntry() throws IOException {
+        DiskLruCache cache = new DiskLruCache(directory, 100);
+        cache.put("a", tempFile(cache, 10));
+
+        cache.put("a", tempFile(cache, 4));
+
+        assertEquals(4L, cache.size());
+        assertEquals(1, cache.entryCount());
+    }
+
+    @Test
+    void remove_DeletesFile() throws IOException {
+        DiskLruCache cache = new DiskLruCache(directory, 100);
+        Path file = cache.put("a", tempFile(cache, 10));
+
+        cache.remove("a");
+
+        assertFalse(Files.exists(file));
+        assertNull(cache.get("a"));
+        assertEquals(0L, cache.size());
+    }
+
+    @Test
+    void constructor_ReloadsEntriesAndDropsTempFiles() throws IOException {
+        DiskLruCache cache = new DiskLruCache(directory, 100);
+        cache.put("a", tempFile(cache, 10));
+        Path leftover = tempFile(cache, 3);
+
+        DiskLruCache reloaded = new DiskLruCache(directory, 100);
+
+        assertNotNull(reloaded.get("a"));
+        assertEquals(10L, reloaded.size());
+        assertFalse(Files.exists(leftover));
+        try (Stream<Path> files = Files.list(directory)) {
+            assertEquals(1L, files.count());
+        }
+    }
+
+    @Test
+    void registerMetrics() throws IOException {
+        DiskLruCache cache = new DiskLruCache(directory, 100);
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        cache.registerMetrics(registry, "objects");
+        cache.put("a", tempFile(cache, 10));
+        cache.get("a");
+
+        assertEquals(10.0, registry.get("s3browser.cache.size").tag("cache", "objects").gauge().value());
+        assertEquals(1.0, registry.get("s3browser.cache.requests").tag("result", "hit").functionCounter().count());
+        assertEquals(1.0, registry.get("s3browser.cache.hit.ratio").gauge().value());
+    }
+
+    private Path tempFile(DiskLruCache cache, int size) throws IOException {
+        return Files.write(cache.createTempFile(), new byte[size]);
+    }
+}
@@ -0,0 +1,73 @@
+package com.enterprise.s3browser.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LineIndexTest {
+
+    // Lines are 3 bytes each: "aa\n"
+    private static final byte[] CONTENT = "aa\nbb\ncc\ndd\nee\n".getBytes(StandardCharsets.US_ASCII);
+
+    @Test
+    void scan_RecordsCheckpointEveryStride() {
+        LineIndex index = new LineIndex(2);
+        index.scan(CONTENT, 0, 7);
+        index.scan(CONTENT, 7, CONTENT.length - 7);
+
+        assertArrayEquals(new long[] { 0, 0 }, index.checkpointFor(1));
+        assertArrayEquals(new long[] { 2, 6 }, index.checkpointFor(3));
+        assertArrayEquals(new long[] { 4, 12 }, index.checkpointFor(4));
+        assertEquals(5L, index.getIndexedLines());
+        assertEquals(CONTENT.length, index.getBytesScanned());
+    }
+
+    @Test
+    void checkpointFor_BeyondIndexReturnsLastCheckpoint() {
+        LineIndex index = new LineIndex(2);
+        index.scan(CONTENT, 0, 7);
+
+        assertArrayEquals(new long[] { 2, 6 }, index.checkpointFor(100));
+    }
+
+    @Test
+    void checkpointAtOffset() {
+        LineIndex index = new LineIndex(2);
+        index.scan(CONTENT, 0, CONTENT.length);
+
+        assertArrayEquals(new long[] { 0, 0 }, index.checkpointAtOffset(5));
+        assertArrayEquals(new long[] { 2, 6 }, index.checkpointAtOffset(6));
+        assertArrayEquals(new long[] { 4, 12 }, index.checkpointAtOffset(14));
+    }
+
+    @Test
+    void getTotalLines_OnlyWhenComplete() {
+        LineIndex index = new LineIndex(2);
+        index.scan(CONTENT, 0, CONTENT.length);
+        assertEquals(-1L, index.getTotalLines());
+
+        index.markComplete();
+        assertEquals(5L, index.getTotalLines());
+    }
+
+    @Test
+    void getTotalLines_CountsLastLineWithoutNewline() {
+        LineIndex index = new LineIndex(2);
+        byte[] content = "aa\nbb".getBytes(StandardCharsets.US_ASCII);
+        index.scan(content, 0, content.length);
+        index.markComplete();
+
+        assertEquals(2L, index.getTotalLines());
+    }
+
+    @Test
+    void cancel() {
+        LineIndex index = new LineIndex(2);
+        assertFalse(index.isCancelled());
+
+        index.cancel();
+        assertTrue(index.isCancelled());
+    }
+}
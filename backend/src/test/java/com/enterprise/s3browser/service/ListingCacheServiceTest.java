@@ -0,0 +1,378 @@
+package com.enterprise.s3browser.service;
+
+import com.enterprise.s3browser.exception.S3ServiceException;
+import com.enterprise.s3browser.model.ObjectListing;
+import com.enterprise.s3browser.model.S3Configuration;
+import com.enterprise.s3browser.model.S3Object;
+import com.enterprise.s3browser.model.S3ObjectChangedEvent;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ListingCacheServiceTest {
+
+    private static final Instant NOW = Instant.parse("2024-01-01T10:00:00Z");
+
+    @Mock
+    private S3Service s3Service;
+
+    @InjectMocks
+    private ListingCacheService listingCacheService;
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private S3Configuration config;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        ReflectionTestUtils.setField(listingCacheService, "meterRegistry", meterRegistry);
+        ReflectionTestUtils.setField(listingCacheService, "enabled", true);
+        ReflectionTestUtils.setField(listingCacheService, "ttlSeconds", 5L);
+        ReflectionTestUtils.setField(listingCacheService, "staleSeconds", 60L);
+        ReflectionTestUtils.setField(listingCacheService, "maxSize", 1048576L);
+        ReflectionTestUtils.setField(listingCacheService, "refreshThreads", 1);
+        listingCacheService.initialize();
+        setTime(NOW);
+
+        config = new S3Configuration();
+        config.setEndpoint("http://localhost:9000");
+        config.setBucket("test-bucket");
+        lenient().when(s3Service.getCurrentConfig()).thenReturn(config);
+    }
+
+    @AfterEach
+    void tearDown() {
+        listingCacheService.shutdown();
+    }
+
+    @Test
+    void listObjects_CachedWithinTtl() {
+        when(s3Service.listObjects("docs/", 100, null, null)).thenReturn(listing("docs/a.txt"));
+
+        ObjectListing first = listingCacheService.listObjects("docs/", 100, null, null);
+        setTime(NOW.plusSeconds(4));
+        ObjectListing second = listingCacheService.listObjects("docs/", 100, null, null);
+
+        assertEquals("docs/a.txt", second.getObjects().get(0).getKey());
+        assertEquals(first.getObjects(), second.getObjects());
+        verify(s3Service, times(1)).listObjects("docs/", 100, null, null);
+        assertEquals(1.0, meterRegistry.get("s3browser.cache.requests").tag("cache", "listings").tag("result", "hit").functionCounter().count());
+        assertEquals(1.0, meterRegistry.get("s3browser.cache.requests").tag("cache", "listings").tag("result", "miss").functionCounter().count());
+    }
+
+    @Test
+    void listObjects_PagesCachedSeparately() {
+        when(s3Service.listObjects("docs/", 1, null, null)).thenReturn(listing("docs/a.txt"));
+        when(s3Service.listObjects("docs/", 1, "token", null)).thenReturn(listing("docs/b.txt"));
+
+        assertEquals("docs/a.txt", listingCacheService.listObjects("docs/", 1, null, null).getObjects().get(0).getKey());
+        assertEquals("docs/b.txt", listingCacheService.listObjects("docs/", 1, "token", null).getObjects().get(0).getKey());
+        assertEquals("docs/a.txt", listingCacheService.listObjects("docs/", 1, null, null).getObjects().get(0).getKey());
+
+        verify(s3Service, times(1)).listObjects("docs/", 1, null, null);
+        assertEquals(2, listingCacheService.size());
+    }
+
+    @Test
+    void listObjects_CachedPagesAreReadOnly() {
+        when(s3Service.listObjects("docs/", 100, null, null)).thenReturn(listing("docs/a.txt"));
+        listingCacheService.listObjects("docs/", 100, null, null);
+
+        ObjectListing cached = listingCacheService.listObjects("docs/", 100, null, null);
+
+        assertThrows(UnsupportedOperationException.class, () -> cached.getObjects().clear());
+    }
+
+    @Test
+    void listObjects_StalePageServedWhileRefreshing() throws InterruptedException {
+        when(s3Service.listObjects("docs/", 100, null, null)).thenReturn(listing("docs/a.txt"), listing("docs/b.txt"));
+        listingCacheService.listObjects("docs/", 100, null, null);
+
+        setTime(NOW.plusSeconds(10));
+        ObjectListing stale = listingCacheService.listObjects("docs/", 100, null, null);
+
+        assertEquals("docs/a.txt", stale.getObjects().get(0).getKey());
+        assertEquals("docs/b.txt", awaitFirstKey("docs/", "docs/b.txt"));
+        verify(s3Service, times(2)).listObjects("docs/", 100, null, null);
+    }
+
+    @Test
+    void listObjects_FailedRefreshKeepsStalePage() {
+        when(s3Service.listObjects("docs/", 100, null, null))
+                .thenReturn(listing("docs/a.txt"))
+                .thenThrow(new S3ServiceException("Failed to list objects: timeout"));
+        listingCacheService.listObjects("docs/", 100, null, null);
+
+        setTime(NOW.plusSeconds(10));
+        listingCacheService.listObjects("docs/", 100, null, null);
+        verify(s3Service, timeout(5000).times(2)).listObjects("docs/", 100, null, null);
+
+        assertEquals("docs/a.txt", listingCacheService.listObjects("docs/", 100, null, null).getObjects().get(0).getKey());
+    }
+
+    @Test
+    void listObjects_RefreshListedFromAnotherBucketIsNotCached() throws Exception {
+        when(s3Service.listObjects("docs/", 100, null, null))
+                .thenReturn(listing("docs/a.txt"))
+                .thenAnswer(invocation -> {
+                    config.setBucket("other-bucket");
+                    return listing("docs/other.txt");
+                })
+                .thenReturn(listing("docs/b.txt"));
+        listingCacheService.listObjects("docs/", 100, null, null);
+
+        setTime(NOW.plusSeconds(10));
+        listingCacheService.listObjects("docs/", 100, null, null);
+        awaitIdle("refresher");
+        config.setBucket("test-bucket");
+
+        assertEquals("docs/a.txt", listingCacheService.listObjects("docs/", 100, null, null).getObjects().get(0).getKey());
+        assertEquals("docs/b.txt", awaitFirstKey("docs/", "docs/b.txt"));
+    }
+
+    @Test
+    void listObjects_ExpiredPageLoadedAgain() {
+        when(s3Service.listObjects("docs/", 100, null, null)).thenReturn(listing("docs/a.txt"), listing("docs/b.txt"));
+        listingCacheService.listObjects("docs/", 100, null, null);
+
+        setTime(NOW.plusSeconds(70));
+
+        assertEquals("docs/b.txt", listingCacheService.listObjects("docs/", 100, null, null).getObjects().get(0).getKey());
+    }
+
+    @Test
+    void onObjectChanged_InvalidatesPrefixAndParents() {
+        for (String prefix : List.of("docs/", "docs/sub/", "docs/sub/deeper/", "other/")) {
+            when(s3Service.listObjects(prefix, 100, null, null)).thenReturn(listing(prefix + "a.txt"));
+            listingCacheService.listObjects(prefix, 100, null, null);
+        }
+        when(s3Service.listObjects(isNull(), eq(100), isNull(), isNull())).thenReturn(listing("docs/"));
+        listingCacheService.listObjects(null, 100, null, null);
+
+        listingCacheService.onObjectChanged(new S3ObjectChangedEvent("http://localhost:9000", "test-bucket", "docs/sub/new.txt"));
+
+        assertEquals(2, listingCacheService.size());
+        listingCacheService.listObjects("docs/sub/deeper/", 100, null, null);
+        listingCacheService.listObjects("other/", 100, null, null);
+        listingCacheService.listObjects("docs/sub/", 100, null, null);
+        verify(s3Service, times(1)).listObjects("docs/sub/deeper/", 100, null, null);
+        verify(s3Service, times(1)).listObjects("other/", 100, null, null);
+        verify(s3Service, times(2)).listObjects("docs/sub/", 100, null, null);
+    }
+
+    @Test
+    void onObjectChanged_OtherBucketKeepsPages() {
+        when(s3Service.listObjects("docs/", 100, null, null)).thenReturn(listing("docs/a.txt"));
+        listingCacheService.listObjects("docs/", 100, null, null);
+
+        listingCacheService.onObjectChanged(new S3ObjectChangedEvent("http://localhost:9000", "other-bucket", "docs/a.txt"));
+
+        assertEquals(1, listingCacheService.size());
+    }
+
+    @Test
+    void listObjects_LoadRacingWriteIsNotCached() {
+        when(s3Service.listObjects("docs/", 100, null, null)).thenAnswer(invocation -> {
+            listingCacheService.onObjectChanged(new S3ObjectChangedEvent("http://localhost:9000", "test-bucket", "docs/new.txt"));
+            return listing("docs/a.txt");
+        });
+
+        assertEquals("docs/a.txt", listingCacheService.listObjects("docs/", 100, null, null).getObjects().get(0).getKey());
+
+        assertEquals(0, listingCacheService.size());
+    }
+
+    @Test
+    void listObjects_EvictsLeastRecentlyUsedPages() {
+        ReflectionTestUtils.setField(listingCacheService, "maxSize", 1200L);
+        when(s3Service.listObjects(any(), anyInt(), isNull(), isNull()))
+                .thenAnswer(invocation -> listing(invocation.getArgument(0) + "a.txt"));
+
+        listingCacheService.listObjects("a/", 100, null, null);
+        listingCacheService.listObjects("b/", 100, null, null);
+        listingCacheService.listObjects("a/", 100, null, null);
+        listingCacheService.listObjects("c/", 100, null, null);
+        listingCacheService.listObjects("d/", 100, null, null);
+
+        assertTrue(listingCacheService.weight() <= 1200L);
+        assertTrue(listingCacheService.evictionCount() > 0);
+        listingCacheService.listObjects("d/", 100, null, null);
+        verify(s3Service, times(1)).listObjects("d/", 100, null, null);
+        listingCacheService.listObjects("b/", 100, null, null);
+        verify(s3Service, times(2)).listObjects("b/", 100, null, null);
+    }
+
+    @Test
+    void listObjects_DisabledPassesThrough() {
+        ReflectionTestUtils.setField(listingCacheService, "enabled", false);
+        when(s3Service.listObjects("docs/", 100, null, null)).thenReturn(listing("docs/a.txt"));
+
+        listingCacheService.listObjects("docs/", 100, null, null);
+        listingCacheService.listObjects("docs/", 100, null, null);
+
+        verify(s3Service, times(2)).listObjects("docs/", 100, null, null);
+        assertEquals(0, listingCacheService.size());
+    }
+
+    @Test
+    void listObjects_PrefetchesFirstFolders() {
+        enablePrefetch(2);
+        when(s3Service.listObjects("docs/", 100, null, null)).thenReturn(listing("docs/a/", "docs/b/", "docs/c/", "docs/d.txt"));
+        when(s3Service.listObjects(argThat(prefix -> prefix != null && prefix.matches("docs/./")), eq(100), isNull(), isNull()))
+                .thenAnswer(invocation -> listing(invocation.getArgument(0) + "x.txt"));
+
+        listingCacheService.listObjects("docs/", 100, null, null);
+        verify(s3Service, timeout(5000)).listObjects("docs/b/", 100, null, null);
+        verify(s3Service, timeout(5000)).listObjects("docs/a/", 100, null, null);
+        awaitSize(3);
+
+        assertEquals("docs/a/x.txt", listingCacheService.listObjects("docs/a/", 100, null, null).getObjects().get(0).getKey());
+        verify(s3Service, times(1)).listObjects("docs/a/", 100, null, null);
+        verify(s3Service, never()).listObjects("docs/c/", 100, null, null);
+        assertEquals(1, listingCacheService.prefetchUsedCount());
+    }
+
+    @Test
+    void listObjects_PrefetchedPagesDoNotPrefetchFurther() {
+        enablePrefetch(8);
+        when(s3Service.listObjects("docs/", 100, null, null)).thenReturn(listing("docs/a/"));
+        when(s3Service.listObjects("docs/a/", 100, null, null)).thenReturn(listing("docs/a/deeper/"));
+
+        listingCacheService.listObjects("docs/", 100, null, null);
+        verify(s3Service, timeout(5000)).listObjects("docs/a/", 100, null, null);
+        awaitSize(2);
+
+        verify(s3Service, never()).listObjects("docs/a/deeper/", 100, null, null);
+    }
+
+    @Test
+    void listObjects_QueuedPrefetchSkippedAfterBucketSwitch() throws Exception {
+        enablePrefetch(8);
+        when(s3Service.listObjects("docs/", 100, null, null)).thenReturn(listing("docs/a/"));
+        CountDownLatch blocked = new CountDownLatch(1);
+        ((ExecutorService) ReflectionTestUtils.getField(listingCacheService, "prefetcher")).execute(() -> {
+            try {
+                blocked.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+
+        listingCacheService.listObjects("docs/", 100, null, null);
+        config.setBucket("other-bucket");
+        blocked.countDown();
+        awaitIdle("prefetcher");
+
+        verify(s3Service, never()).listObjects("docs/a/", 100, null, null);
+        assertEquals(1, listingCacheService.size());
+    }
+
+    @Test
+    void listObjects_PrefetchListedFromAnotherBucketIsNotCached() throws Exception {
+        enablePrefetch(8);
+        when(s3Service.listObjects("docs/", 100, null, null)).thenReturn(listing("docs/a/"));
+        when(s3Service.listObjects("docs/a/", 100, null, null)).thenAnswer(invocation -> {
+            config.setBucket("other-bucket");
+            return listing("docs/a/x.txt");
+        });
+
+        listingCacheService.listObjects("docs/", 100, null, null);
+        awaitIdle("prefetcher");
+
+        assertEquals(1, listingCacheService.size());
+    }
+
+    @Test
+    void fanOut_ShrinksWhilePrefetchedPagesGoUnused() {
+        enablePrefetch(8);
+        when(s3Service.listObjects(any(), eq(100), isNull(), isNull()))
+                .thenAnswer(invocation -> listing(invocation.getArgument(0) + "a/"));
+        assertEquals(8, listingCacheService.fanOut());
+
+        for (int i = 0; i < 10; i++) {
+            setTime(NOW.plusSeconds(100L * i));
+            listingCacheService.listObjects("folder" + i + "/", 100, null, null);
+            awaitSize(2 * (i + 1));
+        }
+        setTime(NOW.plusSeconds(1000));
+
+        assertTrue(listingCacheService.fanOut() < 8);
+        assertTrue(listingCacheService.fanOut() >= 1);
+        assertEquals(10, listingCacheService.prefetchUnusedCount());
+        assertEquals(0, listingCacheService.prefetchUsedCount());
+    }
+
+    private void enablePrefetch(int maxFanOut) {
+        listingCacheService.shutdown();
+        ReflectionTestUtils.setField(listingCacheService, "prefetchEnabled", true);
+        ReflectionTestUtils.setField(listingCacheService, "maxFanOut", maxFanOut);
+        ReflectionTestUtils.setField(listingCacheService, "prefetchThreads", 1);
+        ReflectionTestUtils.setField(listingCacheService, "prefetchQueueSize", 16);
+        ReflectionTestUtils.setField(listingCacheService, "meterRegistry", new SimpleMeterRegistry());
+        listingCacheService.initialize();
+    }
+
+    /**
+     * Wait for the tasks queued on one of the service's single-threaded executors to finish.
+     */
+    private void awaitIdle(String executor) throws Exception {
+        ((ExecutorService) ReflectionTestUtils.getField(listingCacheService, executor)).submit(() -> { }).get(5, TimeUnit.SECONDS);
+    }
+
+    private void awaitSize(int expected) {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (System.currentTimeMillis() < deadline && listingCacheService.size() < expected) {
+            Thread.yield();
+        }
+        assertEquals(expected, listingCacheService.size());
+    }
+
+    private String awaitFirstKey(String prefix, String expected) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        String key = null;
+        while (System.currentTimeMillis() < deadline) {
+            key = listingCacheService.listObjects(prefix, 100, null, null).getObjects().get(0).getKey();
+            if (expected.equals(key)) {
+                break;
+            }
+            Thread.sleep(10);
+        }
+        return key;
+    }
+
+    private void setTime(Instant instant) {
+        ReflectionTestUtils.setField(listingCacheService, "clock", Clock.fixed(instant, ZoneOffset.UTC));
+    }
+
+    private static ObjectListing listing(String... keys) {
+        List<S3Object> objects = new ArrayList<>();
+        for (String key : keys) {
+            objects.add(new S3Object(key, "\"etag\"", 1L, NOW, "STANDARD", key.endsWith("/")));
+        }
+        return new ObjectListing(objects, null, null, null);
+    }
+}
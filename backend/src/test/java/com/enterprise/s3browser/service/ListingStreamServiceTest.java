@@ -0,0 +1,200 @@
+package com.enterprise.s3browser.service;
+
+import com.enterprise.s3browser.exception.S3ServiceException;
+import com.enterprise.s3browser.model.S3Object;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import software.amazon.awssdk.core.exception.SdkClientException;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ListingStreamServiceTest {
+
+    @Mock
+    private S3Service s3Service;
+
+    @Mock
+    private WriteBehindUploadService writeBehindUploadService;
+
+    @Mock
+    private CompactionService compactionService;
+
+    @InjectMocks
+    private ListingStreamService listingStreamService;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(listingStreamService, "maxThreads", 2);
+        listingStreamService.initialize();
+        lenient().when(writeBehindUploadService.pendingObjects(any(), any(), anyBoolean())).thenReturn(Collections.emptyIterator());
+        lenient().when(compactionService.compactedObjects(any(), any(), anyBoolean())).thenReturn(Collections.emptyIterator());
+    }
+
+    @AfterEach
+    void tearDown() {
+        listingStreamService.shutdown();
+    }
+
+    @Test
+    void streamListing_WritesPagesInOrder() throws IOException {
+        when(s3Service.listObjectPages("docs/", true)).thenReturn(List.of(
+                List.of(object("docs/a.txt"), object("docs/b.txt")),
+                List.<S3Object>of(),
+                List.of(object("docs/c/d.txt"))).iterator());
+
+        List<String> keys = new ArrayList<>();
+        long entries = listingStreamService.streamListing("docs/", true,
+                page -> page.forEach(object -> keys.add(object.getKey())));
+
+        assertEquals(3, entries);
+        assertEquals(List.of("docs/a.txt", "docs/b.txt", "docs/c/d.txt"), keys);
+    }
+
+    @Test
+    void streamListing_MergesPendingAndCompactedObjects() throws IOException {
+        when(s3Service.listObjectPages("docs/", true)).thenReturn(List.of(
+                List.of(object("docs/a.txt"), object("docs/c.txt")),
+                List.of(object("docs/e.txt"))).iterator());
+        when(compactionService.compactedObjects("docs/", null, true)).thenReturn(
+                List.of(object("docs/b.txt"), object("docs/c.txt"), object("docs/f.txt")).iterator());
+        when(writeBehindUploadService.pendingObjects("docs/", null, true)).thenReturn(
+                List.of(pending("docs/c.txt"), pending("docs/d.txt")).iterator());
+
+        List<List<String>> pages = new ArrayList<>();
+        List<S3Object> written = new ArrayList<>();
+        long entries = listingStreamService.streamListing("docs/", true, page -> {
+            pages.add(page.stream().map(S3Object::getKey).collect(Collectors.toList()));
+            written.addAll(page);
+        });
+
+        assertEquals(6, entries);
+        assertEquals(List.of(List.of("docs/a.txt", "docs/b.txt", "docs/c.txt"), List.of("docs/d.txt", "docs/e.txt"), List.of("docs/f.txt")), pages);
+        assertTrue(written.get(2).isPending());
+    }
+
+    @Test
+    void streamListing_ListedFoldersAreNotRepeated() throws IOException {
+        when(s3Service.listObjectPages("docs/", false)).thenReturn(List.<List<S3Object>>of(
+                List.of(new S3Object("docs/2024/", null, 0, null, null, true), object("docs/a.txt"))).iterator());
+        when(compactionService.compactedObjects("docs/", null, false)).thenReturn(
+                List.of(object("docs/0.txt"), new S3Object("docs/2024/", null, 0, null, null, true)).iterator());
+
+        List<String> keys = new ArrayList<>();
+        listingStreamService.streamListing("docs/", false, page -> page.forEach(object -> keys.add(object.getKey())));
+
+        assertEquals(List.of("docs/0.txt", "docs/2024/", "docs/a.txt"), keys);
+    }
+
+    @Test
+    void streamListing_WritesUnlistedObjectsBetweenListedKeysInBoundedPages() throws IOException {
+        int unlisted = S3Service.MAX_PAGE_SIZE + 500;
+        when(s3Service.listObjectPages("docs/", true)).thenReturn(List.<List<S3Object>>of(
+                List.of(object("docs/a.txt"), object("docs/z.txt"))).iterator());
+        when(compactionService.compactedObjects("docs/", null, true)).thenReturn(
+                IntStream.range(0, unlisted).mapToObj(i -> object(String.format("docs/m/%05d.txt", i))).iterator());
+
+        List<Integer> pageSizes = new ArrayList<>();
+        long entries = listingStreamService.streamListing("docs/", true, page -> pageSizes.add(page.size()));
+
+        assertEquals(unlisted + 2, entries);
+        assertEquals(List.of(S3Service.MAX_PAGE_SIZE, 502), pageSizes);
+    }
+
+    @Test
+    void streamListing_FetchesNextPageWhileWriting() throws Exception {
+        CountDownLatch secondPageRequested = new CountDownLatch(1);
+        Iterator<List<S3Object>> pages = new Iterator<>() {
+            private int page;
+
+            @Override
+            public boolean hasNext() {
+                return page < 2;
+            }
+
+            @Override
+            public List<S3Object> next() {
+                if (++page == 2) {
+                    secondPageRequested.countDown();
+                }
+                return List.of(object("docs/" + page + ".txt"));
+            }
+        };
+        when(s3Service.listObjectPages("docs/", false)).thenReturn(pages);
+
+        List<Boolean> prefetched = new ArrayList<>();
+        listingStreamService.streamListing("docs/", false, page -> {
+            if (prefetched.isEmpty()) {
+                try {
+                    prefetched.add(secondPageRequested.await(5, TimeUnit.SECONDS));
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        });
+
+        assertEquals(List.of(true), prefetched);
+    }
+
+    @Test
+    void streamListing_PageFailure() {
+        Iterator<List<S3Object>> pages = new Iterator<>() {
+            @Override
+            public boolean hasNext() {
+                throw SdkClientException.create("Connection reset");
+            }
+
+            @Override
+            public List<S3Object> next() {
+                return null;
+            }
+        };
+        when(s3Service.listObjectPages("docs/", true)).thenReturn(pages);
+
+        S3ServiceException e = assertThrows(S3ServiceException.class,
+                () -> listingStreamService.streamListing("docs/", true, page -> { }));
+        assertTrue(e.getMessage().contains("Connection reset"));
+    }
+
+    @Test
+    void streamListing_WriterFailureStopsListing() {
+        when(s3Service.listObjectPages("docs/", true)).thenReturn(List.of(
+                List.of(object("docs/a.txt")),
+                List.of(object("docs/b.txt"))).iterator());
+
+        List<String> keys = new ArrayList<>();
+        assertThrows(IOException.class, () -> listingStreamService.streamListing("docs/", true, page -> {
+            keys.add(page.get(0).getKey());
+            throw new IOException("Broken pipe");
+        }));
+        assertEquals(List.of("docs/a.txt"), keys);
+    }
+
+    private static S3Object object(String key) {
+        return new S3Object(key, "\"etag\"", 1L, null, "STANDARD", false);
+    }
+
+    private static S3Object pending(String key) {
+        S3Object object = new S3Object(key, null, 1L, null, null, false);
+        object.setPending(true);
+        return object;
+    }
+}
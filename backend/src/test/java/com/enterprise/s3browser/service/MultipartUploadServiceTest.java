@@ -0,0 +1,307 @@
+package com.enterprise.s3browser.service;
+
+import com.enterprise.s3browser.exception.S3ServiceException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import software.amazon.awssdk.services.s3.model.CompletedPart;
+import software.amazon.awssdk.services.s3.model.S3Exception;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class MultipartUploadServiceTest {
+
+    private static final int MIB = 1024 * 1024;
+
+    @Mock
+    private S3Service s3Service;
+
+    @InjectMocks
+    private MultipartUploadService multipartUploadService;
+
+    private final Map<Integer, byte[]> uploadedParts = new ConcurrentHashMap<>();
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(multipartUploadService, "enabled", true);
+        ReflectionTestUtils.setField(multipartUploadService, "threshold", 10L * MIB);
+        ReflectionTestUtils.setField(multipartUploadService, "minPartSize", 5L * MIB);
+        ReflectionTestUtils.setField(multipartUploadService, "maxPartSize", 64L * MIB);
+        ReflectionTestUtils.setField(multipartUploadService, "unknownLengthPartSize", 5L * MIB);
+        ReflectionTestUtils.setField(multipartUploadService, "targetPartSeconds", 2.0);
+        ReflectionTestUtils.setField(multipartUploadService, "parallelism", 2);
+        ReflectionTestUtils.setField(multipartUploadService, "maxThreads", 4);
+        ReflectionTestUtils.setField(multipartUploadService, "maxMemory", 64L * MIB);
+        ReflectionTestUtils.setField(multipartUploadService, "partRetries", 1);
+        ReflectionTestUtils.setField(multipartUploadService, "copyPartSize", 1024L * MIB);
+        multipartUploadService.initialize();
+    }
+
+    @AfterEach
+    void tearDown() {
+        multipartUploadService.shutdown();
+    }
+
+    @Test
+    void shouldUseMultipart_LargeOrUnknownLength() {
+        assertTrue(multipartUploadService.shouldUseMultipart(10L * MIB));
+        assertTrue(multipartUploadService.shouldUseMultipart(-1L));
+        assertFalse(multipartUploadService.shouldUseMultipart(MIB));
+    }
+
+    @Test
+    void shouldUseMultipart_Disabled() {
+        ReflectionTestUtils.setField(multipartUploadService, "enabled", false);
+
+        assertFalse(multipartUploadService.shouldUseMultipart(10L * MIB));
+        assertFalse(multipartUploadService.shouldUseMultipart(-1L));
+    }
+
+    @Test
+    void choosePartSize_FitsPartLimit() {
+        assertEquals(5L * MIB, multipartUploadService.choosePartSize(100L * MIB));
+        // 200 GiB needs parts of at least 20.48 MiB, rounded up to whole MiB
+        assertEquals(21L * MIB, multipartUploadService.choosePartSize(200L * 1024 * MIB));
+        // Even beyond max-part-size when the object needs it
+        assertEquals(525L * MIB, multipartUploadService.choosePartSize(5L * 1024 * 1024 * MIB));
+    }
+
+    @Test
+    void choosePartSize_FollowsMeasuredThroughput() {
+        ReflectionTestUtils.setField(multipartUploadService, "throughput", 8.0 * MIB);
+
+        assertEquals(16L * MIB, multipartUploadService.choosePartSize(1024L * MIB));
+        // Never more than the object itself
+        assertEquals(12L * MIB, multipartUploadService.choosePartSize(12L * MIB));
+
+        ReflectionTestUtils.setField(multipartUploadService, "throughput", 1000.0 * MIB);
+        assertEquals(64L * MIB, multipartUploadService.choosePartSize(1024L * MIB));
+    }
+
+    @Test
+    void choosePartSize_UnknownLength() {
+        ReflectionTestUtils.setField(multipartUploadService, "unknownLengthPartSize", 16L * MIB);
+
+        assertEquals(16L * MIB, multipartUploadService.choosePartSize(-1L));
+    }
+
+    @Test
+    void upload_UploadsPartsInOrder() throws Exception {
+        byte[] content = content(12 * MIB + 123);
+        when(s3Service.createMultipartUpload("big.bin", "application/octet-stream")).thenReturn("upload-1");
+        recordParts();
+
+        multipartUploadService.upload("big.bin", new ByteArrayInputStream(content), content.length, "application/octet-stream");
+
+        List<CompletedPart> parts = completedParts();
+        assertEquals(Arrays.asList(1, 2, 3), parts.stream().map(CompletedPart::partNumber).collect(Collectors.toList()));
+        assertEquals(Arrays.asList("etag-1", "etag-2", "etag-3"), parts.stream().map(CompletedPart::eTag).collect(Collectors.toList()));
+        assertArrayEquals(content, reassemble(3));
+        assertTrue(multipartUploadService.getThroughput() > 0);
+        verify(s3Service, never()).uploadObject(any(), any(), anyLong(), any());
+        verify(s3Service, never()).abortMultipartUpload(any(), any());
+    }
+
+    @Test
+    void upload_UnknownLength() throws Exception {
+        byte[] content = content(11 * MIB);
+        when(s3Service.createMultipartUpload("stream.bin", null)).thenReturn("upload-1");
+        recordParts();
+
+        multipartUploadService.upload("stream.bin", new ByteArrayInputStream(content), -1L, null);
+
+        assertEquals(3, completedParts().size());
+        assertArrayEquals(content, reassemble(3));
+    }
+
+    @Test
+    void upload_ExactMultipleOfPartSize() throws Exception {
+        byte[] content = content(10 * MIB);
+        when(s3Service.createMultipartUpload("even.bin", null)).thenReturn("upload-1");
+        recordParts();
+
+        multipartUploadService.upload("even.bin", new ByteArrayInputStream(content), -1L, null);
+
+        assertEquals(2, completedParts().size());
+        assertArrayEquals(content, reassemble(2));
+    }
+
+    @Test
+    void upload_SmallStreamUsesSinglePut() throws Exception {
+        byte[] content = "small".getBytes();
+        doAnswer(invocation -> {
+            assertArrayEquals(content, invocation.getArgument(1, InputStream.class).readAllBytes());
+            return null;
+        }).when(s3Service).uploadObject(eq("small.txt"), any(), eq((long) content.length), eq("text/plain"));
+
+        multipartUploadService.upload("small.txt", new ByteArrayInputStream(content), -1L, "text/plain");
+
+        verify(s3Service).uploadObject(eq("small.txt"), any(), eq((long) content.length), eq("text/plain"));
+        verify(s3Service, never()).createMultipartUpload(any(), any());
+    }
+
+    @Test
+    void upload_RetriesFailedPart() throws Exception {
+        byte[] content = content(7 * MIB);
+        when(s3Service.createMultipartUpload("retry.bin", null)).thenReturn("upload-1");
+        AtomicInteger partTwoAttempts = new AtomicInteger();
+        when(s3Service.uploadPart(eq("retry.bin"), eq("upload-1"), anyInt(), any(), anyInt())).thenAnswer(invocation -> {
+            int partNumber = invocation.getArgument(2);
+            if (partNumber == 2 && partTwoAttempts.getAndIncrement() == 0) {
+                throw new S3ServiceException("Connection reset");
+            }
+            return recordPart(invocation.getArgument(2), invocation.getArgument(3), invocation.getArgument(4));
+        });
+
+        multipartUploadService.upload("retry.bin", new ByteArrayInputStream(content), content.length, null);
+
+        assertEquals(2, partTwoAttempts.get());
+        assertArrayEquals(content, reassemble(2));
+        verify(s3Service, times(3)).uploadPart(eq("retry.bin"), eq("upload-1"), anyInt(), any(), anyInt());
+        verify(s3Service).completeMultipartUpload(eq("retry.bin"), eq("upload-1"), anyList());
+    }
+
+    @Test
+    void upload_AbortsWhenPartKeepsFailing() {
+        byte[] content = content(12 * MIB);
+        when(s3Service.createMultipartUpload("broken.bin", null)).thenReturn("upload-1");
+        when(s3Service.uploadPart(eq("broken.bin"), eq("upload-1"), anyInt(), any(), anyInt()))
+                .thenThrow(new S3ServiceException("Service unavailable"));
+
+        assertThrows(S3ServiceException.class, () ->
+                multipartUploadService.upload("broken.bin", new ByteArrayInputStream(content), content.length, null));
+
+        verify(s3Service).abortMultipartUpload("broken.bin", "upload-1");
+        verify(s3Service, never()).completeMultipartUpload(any(), any(), anyList());
+    }
+
+    @Test
+    void copy_SmallObjectUsesCopyObject() throws Exception {
+        multipartUploadService.copy("a.bin", "\"v1\"", "b.bin", 100L * MIB, "video/mp4");
+
+        verify(s3Service).copyObject("a.bin", "\"v1\"", "b.bin", "video/mp4");
+        verify(s3Service, never()).createMultipartUpload(any(), any());
+    }
+
+    @Test
+    void copy_LargeObjectCopiesPartRanges() throws Exception {
+        long size = MultipartUploadService.MAX_COPY_SIZE + 1;
+        when(s3Service.createMultipartUpload("b.bin", null)).thenReturn("upload-1");
+        Map<Integer, String> ranges = new ConcurrentHashMap<>();
+        when(s3Service.uploadPartCopy(eq("b.bin"), eq("upload-1"), anyInt(), eq("a.bin"), eq("\"v1\""), anyLong(), anyLong())).thenAnswer(invocation -> {
+            int partNumber = invocation.getArgument(2);
+            ranges.put(partNumber, invocation.getArgument(5) + "-" + invocation.getArgument(6));
+            return CompletedPart.builder().partNumber(partNumber).eTag("etag-" + partNumber).build();
+        });
+
+        multipartUploadService.copy("a.bin", "\"v1\"", "b.bin", size, null);
+
+        // Six even parts of at most the copy part size, covering the object without gaps
+        assertEquals(6, ranges.size());
+        long partSize = (size + 5) / 6;
+        for (int partNumber = 1; partNumber <= 6; partNumber++) {
+            long firstByte = (partNumber - 1) * partSize;
+            assertEquals(firstByte + "-" + (Math.min(firstByte + partSize, size) - 1), ranges.get(partNumber));
+        }
+        assertEquals(Arrays.asList(1, 2, 3, 4, 5, 6),
+                completedParts().stream().map(CompletedPart::partNumber).collect(Collectors.toList()));
+        verify(s3Service, never()).copyObject(any(), any(), any(), any());
+    }
+
+    @Test
+    void copyParts_EvenPartsFromGivenNumber() throws Exception {
+        ReflectionTestUtils.setField(multipartUploadService, "copyPartSize", 8L * MIB);
+        Map<Integer, Long> lengths = new ConcurrentHashMap<>();
+        when(s3Service.uploadPartCopy(eq("log"), eq("upload-1"), anyInt(), eq("log"), eq("\"v1\""), anyLong(), anyLong())).thenAnswer(invocation -> {
+            int partNumber = invocation.getArgument(2);
+            lengths.put(partNumber, invocation.getArgument(6, Long.class) - invocation.getArgument(5, Long.class) + 1);
+            return CompletedPart.builder().partNumber(partNumber).eTag("etag-" + partNumber).build();
+        });
+
+        List<CompletedPart> parts = multipartUploadService.copyParts("log", "\"v1\"", 17L * MIB, "log", "upload-1", 3);
+
+        assertEquals(Arrays.asList(3, 4, 5), parts.stream().map(CompletedPart::partNumber).collect(Collectors.toList()));
+        assertEquals(17L * MIB, lengths.values().stream().mapToLong(Long::longValue).sum());
+        // An uneven split would have left a 1 MiB part below the minimum
+        assertTrue(lengths.values().stream().allMatch(length -> length >= 5L * MIB));
+    }
+
+    @Test
+    void copy_AbortsWhenPartKeepsFailing() {
+        when(s3Service.createMultipartUpload("b.bin", null)).thenReturn("upload-1");
+        when(s3Service.uploadPartCopy(eq("b.bin"), eq("upload-1"), anyInt(), eq("a.bin"), isNull(), anyLong(), anyLong()))
+                .thenThrow(new S3ServiceException("Access Denied"));
+
+        assertThrows(S3ServiceException.class, () ->
+                multipartUploadService.copy("a.bin", null, "b.bin", MultipartUploadService.MAX_COPY_SIZE * 2, null));
+
+        verify(s3Service).abortMultipartUpload("b.bin", "upload-1");
+        verify(s3Service, never()).completeMultipartUpload(any(), any(), anyList());
+    }
+
+    @Test
+    void copy_ChangedSourceIsNotRetried() {
+        when(s3Service.createMultipartUpload("b.bin", null)).thenReturn("upload-1");
+        when(s3Service.uploadPartCopy(eq("b.bin"), eq("upload-1"), anyInt(), eq("a.bin"), eq("\"v1\""), anyLong(), anyLong()))
+                .thenThrow(new S3ServiceException("Precondition Failed", S3Exception.builder().statusCode(412).build()));
+
+        assertThrows(S3ServiceException.class, () ->
+                multipartUploadService.copy("a.bin", "\"v1\"", "b.bin", MultipartUploadService.MAX_COPY_SIZE * 2, null));
+
+        verify(s3Service, times(1)).uploadPartCopy(any(), any(), eq(1), any(), any(), anyLong(), anyLong());
+        verify(s3Service).abortMultipartUpload("b.bin", "upload-1");
+    }
+
+    private void recordParts() {
+        when(s3Service.uploadPart(any(), eq("upload-1"), anyInt(), any(), anyInt())).thenAnswer(invocation ->
+                recordPart(invocation.getArgument(2), invocation.getArgument(3), invocation.getArgument(4)));
+    }
+
+    private CompletedPart recordPart(int partNumber, byte[] buffer, int length) {
+        // Buffers are reused, so keep a copy of what was sent
+        uploadedParts.put(partNumber, Arrays.copyOf(buffer, length));
+        return CompletedPart.builder().partNumber(partNumber).eTag("etag-" + partNumber).build();
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<CompletedPart> completedParts() {
+        ArgumentCaptor<List<CompletedPart>> captor = ArgumentCaptor.forClass(List.class);
+        verify(s3Service).completeMultipartUpload(any(), eq("upload-1"), captor.capture());
+        return captor.getValue();
+    }
+
+    private byte[] reassemble(int parts) {
+        assertEquals(parts, uploadedParts.size());
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        for (int partNumber = 1; partNumber <= parts; partNumber++) {
+            out.writeBytes(uploadedParts.get(partNumber));
+        }
+        return out.toByteArray();
+    }
+
+    private static byte[] content(int length) {
+        byte[] content = new byte[length];
+        new Random(42).nextBytes(content);
+        return content;
+    }
+}
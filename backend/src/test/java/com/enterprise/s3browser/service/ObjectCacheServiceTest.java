@@ -0,0 +1,169 @@
+package com.enterprise.s3browser.service;
+
+import com.enterprise.s3browser.model.S3Configuration;
+import com.enterprise.s3browser.model.S3Object;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ObjectCacheServiceTest {
+
+    private static final byte[] CONTENT = "cached content".getBytes();
+
+    @Mock
+    private S3Service s3Service;
+
+    @InjectMocks
+    private ObjectCacheService objectCacheService;
+
+    @TempDir
+    Path directory;
+
+    private SimpleMeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        ReflectionTestUtils.setField(objectCacheService, "meterRegistry", meterRegistry);
+        ReflectionTestUtils.setField(objectCacheService, "enabled", true);
+        ReflectionTestUtils.setField(objectCacheService, "directory", directory.toString());
+        ReflectionTestUtils.setField(objectCacheService, "maxSize", 1024L);
+        ReflectionTestUtils.setField(objectCacheService, "maxEntrySize", 100L);
+        objectCacheService.initialize();
+
+        S3Configuration config = new S3Configuration();
+        config.setEndpoint("http://localhost:9000");
+        config.setBucket("test-bucket");
+        lenient().when(s3Service.getCurrentConfig()).thenReturn(config);
+    }
+
+    @Test
+    void isCacheable() {
+        assertTrue(objectCacheService.isCacheable(metadata("etag1", CONTENT.length)));
+        assertFalse(objectCacheService.isCacheable(metadata(null, CONTENT.length)));
+        assertFalse(objectCacheService.isCacheable(metadata("etag1", 101L)));
+    }
+
+    @Test
+    void fillThenLookup() throws IOException {
+        S3Object metadata = metadata("etag1", CONTENT.length);
+        assertNull(objectCacheService.lookup(metadata));
+
+        fill(metadata, CONTENT);
+
+        try (FileChannel cached = objectCacheService.lookup(metadata)) {
+            assertNotNull(cached);
+            assertArrayEquals(CONTENT, Channels.newInputStream(cached).readAllBytes());
+        }
+        assertEquals(1.0, meterRegistry.get("s3browser.cache.requests").tag("result", "hit").functionCounter().count());
+        assertEquals(1.0, meterRegistry.get("s3browser.cache.requests").tag("result", "miss").functionCounter().count());
+    }
+
+    @Test
+    void lookup_ChangedEtagMisses() {
+        fill(metadata("etag1", CONTENT.length), CONTENT);
+
+        assertNull(objectCacheService.lookup(metadata("etag2", CONTENT.length)));
+    }
+
+    @Test
+    void fill_NewVersionReplacesOldOne() {
+        S3Object oldVersion = metadata("etag1", CONTENT.length);
+        fill(oldVersion, CONTENT);
+
+        fill(metadata("etag2", 3), "new".getBytes());
+
+        assertNull(objectCacheService.lookup(oldVersion));
+        assertNotNull(objectCacheService.lookup(metadata("etag2", 3)));
+    }
+
+    @Test
+    void lookup_KeepsReadingVersionReplacedMeanwhile() throws IOException {
+        S3Object oldVersion = metadata("etag1", CONTENT.length);
+        fill(oldVersion, CONTENT);
+
+        try (FileChannel cached = objectCacheService.lookup(oldVersion)) {
+            fill(metadata("etag2", 3), "new".getBytes());
+
+            assertArrayEquals(CONTENT, Channels.newInputStream(cached).readAllBytes());
+        }
+    }
+
+    @Test
+    void eviction_ForgetsLatestVersion() {
+        for (int i = 0; i < 100; i++) {
+            fill(metadata("object-" + i, "etag1", CONTENT.length), CONTENT);
+        }
+
+        // Only as many objects as fit the 1 KiB cache keep a version mapping
+        Map<?, ?> currentVersions = (Map<?, ?>) ReflectionTestUtils.getField(objectCacheService, "currentVersions");
+        assertEquals(1024 / CONTENT.length, currentVersions.size());
+        assertNotNull(objectCacheService.lookup(metadata("object-99", "etag1", CONTENT.length)));
+        assertNull(objectCacheService.lookup(metadata("object-0", "etag1", CONTENT.length)));
+    }
+
+    @Test
+    void fill_IncompleteIsDiscarded() {
+        S3Object metadata = metadata("etag1", CONTENT.length);
+        ObjectCacheService.CacheFill cacheFill = objectCacheService.startFill(metadata);
+        cacheFill.write(CONTENT, 0, 5);
+        cacheFill.commit();
+        cacheFill.close();
+
+        assertNull(objectCacheService.lookup(metadata));
+    }
+
+    @Test
+    void startFill_OnlyOneFillPerVersion() {
+        S3Object metadata = metadata("etag1", CONTENT.length);
+        ObjectCacheService.CacheFill first = objectCacheService.startFill(metadata);
+
+        assertNotNull(first);
+        assertNull(objectCacheService.startFill(metadata));
+
+        first.close();
+        assertNotNull(objectCacheService.startFill(metadata));
+    }
+
+    @Test
+    void disabled() {
+        ReflectionTestUtils.setField(objectCacheService, "enabled", false);
+        S3Object metadata = metadata("etag1", CONTENT.length);
+
+        assertFalse(objectCacheService.isEnabled());
+        assertNull(objectCacheService.lookup(metadata));
+        assertNull(objectCacheService.startFill(metadata));
+    }
+
+    private void fill(S3Object metadata, byte[] content) {
+        ObjectCacheService.CacheFill cacheFill = objectCacheService.startFill(metadata);
+        cacheFill.write(content, 0, content.length);
+        cacheFill.commit();
+        cacheFill.close();
+    }
+
+    private S3Object metadata(String etag, long size) {
+        return metadata("folder/file.txt", etag, size);
+    }
+
+    private S3Object metadata(String key, String etag, long size) {
+        return new S3Object(key, etag, size, Instant.now(), "STANDARD", false);
+    }
+}
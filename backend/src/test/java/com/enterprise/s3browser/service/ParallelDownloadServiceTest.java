@@ -0,0 +1,223 @@
+package com.enterprise.s3browser.service;
+
+import com.enterprise.s3browser.exception.PreconditionFailedException;
+import com.enterprise.s3browser.exception.S3ServiceException;
+import com.enterprise.s3browser.model.RequestConditions;
+import com.enterprise.s3browser.model.S3Configuration;
+import com.enterprise.s3browser.model.S3Object;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.test.util.ReflectionTestUtils;
+import software.amazon.awssdk.core.ResponseInputStream;
+import software.amazon.awssdk.http.AbortableInputStream;
+import software.amazon.awssdk.services.s3.model.GetObjectResponse;
+import software.amazon.awssdk.services.s3.model.S3Exception;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.Instant;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ParallelDownloadServiceTest {
+
+    private static final byte[] CONTENT = "0123456789abcdefghij".getBytes();
+
+    @Mock
+    private S3Service s3Service;
+
+    @InjectMocks
+    private ParallelDownloadService parallelDownloadService;
+
+    private MockEnvironment environment;
+
+    @BeforeEach
+    void setUp() {
+        environment = new MockEnvironment();
+        ReflectionTestUtils.setField(parallelDownloadService, "environment", environment);
+        ReflectionTestUtils.setField(parallelDownloadService, "enabled", true);
+        ReflectionTestUtils.setField(parallelDownloadService, "threshold", 10L);
+        ReflectionTestUtils.setField(parallelDownloadService, "defaultPartSize", 3L);
+        ReflectionTestUtils.setField(parallelDownloadService, "defaultParallelism", 2);
+        ReflectionTestUtils.setField(parallelDownloadService, "maxThreads", 4);
+        ReflectionTestUtils.setField(parallelDownloadService, "maxMemory", 1024L * 1024L);
+        ReflectionTestUtils.setField(parallelDownloadService, "partRetries", 1);
+        parallelDownloadService.initialize();
+
+        S3Configuration config = new S3Configuration();
+        config.setBucket("test-bucket");
+        lenient().when(s3Service.getCurrentConfig()).thenReturn(config);
+    }
+
+    @AfterEach
+    void tearDown() {
+        parallelDownloadService.shutdown();
+    }
+
+    @Test
+    void shouldDownloadInParallel_AboveThreshold() {
+        assertTrue(parallelDownloadService.shouldDownloadInParallel(metadata(20L)));
+        assertFalse(parallelDownloadService.shouldDownloadInParallel(metadata(9L)));
+    }
+
+    @Test
+    void shouldDownloadInParallel_Disabled() {
+        ReflectionTestUtils.setField(parallelDownloadService, "enabled", false);
+
+        assertFalse(parallelDownloadService.isEnabled());
+        assertFalse(parallelDownloadService.shouldDownloadInParallel(metadata(20L)));
+    }
+
+    @Test
+    void bucketOverrides() {
+        environment.setProperty("s3.download.parallel.buckets.big-bucket.part-size", "16");
+        environment.setProperty("s3.download.parallel.buckets.big-bucket.parallelism", "8");
+
+        assertEquals(16L, parallelDownloadService.getPartSize("big-bucket"));
+        assertEquals(8, parallelDownloadService.getParallelism("big-bucket"));
+        assertEquals(3L, parallelDownloadService.getPartSize("test-bucket"));
+        assertEquals(2, parallelDownloadService.getParallelism("test-bucket"));
+    }
+
+    @Test
+    void download_WritesPartsInOrder() throws Exception {
+        stubRanges();
+
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        parallelDownloadService.download("test-key", metadata(CONTENT.length), output, null);
+
+        assertArrayEquals(CONTENT, output.toByteArray());
+        verify(s3Service, times(7)).downloadObjectStream(eq("test-key"), anyString(),
+                argThat((RequestConditions c) -> "\"etag1\"".equals(c.getIfMatch())));
+    }
+
+    @Test
+    void download_FillsCache() throws Exception {
+        stubRanges();
+        ObjectCacheService.CacheFill cacheFill = mock(ObjectCacheService.CacheFill.class);
+
+        parallelDownloadService.download("test-key", metadata(CONTENT.length), new ByteArrayOutputStream(), cacheFill);
+
+        ArgumentCaptor<byte[]> buffers = ArgumentCaptor.forClass(byte[].class);
+        ArgumentCaptor<Integer> lengths = ArgumentCaptor.forClass(Integer.class);
+        InOrder inOrder = inOrder(cacheFill);
+        inOrder.verify(cacheFill, times(7)).write(buffers.capture(), eq(0), lengths.capture());
+        inOrder.verify(cacheFill).commit();
+        inOrder.verify(cacheFill).close();
+        assertEquals(CONTENT.length, lengths.getAllValues().stream().mapToInt(Integer::intValue).sum());
+    }
+
+    @Test
+    void download_FailureDiscardsCacheFill() {
+        stubRanges();
+        doThrow(new PreconditionFailedException("Precondition failed"))
+                .when(s3Service).downloadObjectStream(eq("test-key"), eq("bytes=6-8"), any(RequestConditions.class));
+        ObjectCacheService.CacheFill cacheFill = mock(ObjectCacheService.CacheFill.class);
+
+        assertThrows(PreconditionFailedException.class, () -> parallelDownloadService.download("test-key",
+                metadata(CONTENT.length), new ByteArrayOutputStream(), cacheFill));
+
+        verify(cacheFill, never()).commit();
+        verify(cacheFill).close();
+    }
+
+    @Test
+    void download_RetriesFailedPart() throws Exception {
+        stubRanges();
+        ResponseInputStream<GetObjectResponse> failing = new ResponseInputStream<>(GetObjectResponse.builder().build(),
+                AbortableInputStream.create(new ByteArrayInputStream(new byte[1])));
+        doReturn(failing).doAnswer(invocation -> rangeStream(invocation.getArgument(1)))
+                .when(s3Service).downloadObjectStream(eq("test-key"), eq("bytes=3-5"), any(RequestConditions.class));
+
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        parallelDownloadService.download("test-key", metadata(CONTENT.length), output, null);
+
+        assertArrayEquals(CONTENT, output.toByteArray());
+    }
+
+    @Test
+    void download_RetriesS3Error() throws Exception {
+        stubRanges();
+        doThrow(new S3ServiceException("Failed to download object: Slow Down"))
+                .doAnswer(invocation -> rangeStream(invocation.getArgument(1)))
+                .when(s3Service).downloadObjectStream(eq("test-key"), eq("bytes=3-5"), any(RequestConditions.class));
+
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        parallelDownloadService.download("test-key", metadata(CONTENT.length), output, null);
+
+        assertArrayEquals(CONTENT, output.toByteArray());
+    }
+
+    @Test
+    void download_MissingObjectNotRetried() {
+        stubRanges();
+        S3ServiceException notFound = new S3ServiceException("Failed to download object: Not Found",
+                S3Exception.builder().statusCode(404).message("Not Found").build());
+        doThrow(notFound).when(s3Service).downloadObjectStream(eq("test-key"), eq("bytes=3-5"), any(RequestConditions.class));
+
+        assertSame(notFound, assertThrows(S3ServiceException.class,
+                () -> parallelDownloadService.download("test-key", metadata(CONTENT.length), new ByteArrayOutputStream(), null)));
+        verify(s3Service, times(1)).downloadObjectStream(eq("test-key"), eq("bytes=3-5"), any(RequestConditions.class));
+    }
+
+    @Test
+    void download_PropagatesFailure() {
+        stubRanges();
+        doThrow(new PreconditionFailedException("Precondition failed"))
+                .when(s3Service).downloadObjectStream(eq("test-key"), eq("bytes=6-8"), any(RequestConditions.class));
+
+        assertThrows(PreconditionFailedException.class,
+                () -> parallelDownloadService.download("test-key", metadata(CONTENT.length), new ByteArrayOutputStream(), null));
+    }
+
+    @Test
+    void download_ClientDisconnect() {
+        stubRanges();
+        OutputStream disconnected = new OutputStream() {
+            @Override
+            public void write(int b) throws IOException {
+                throw new IOException("Broken pipe");
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+                throw new IOException("Broken pipe");
+            }
+        };
+
+        assertThrows(IOException.class,
+                () -> parallelDownloadService.download("test-key", metadata(CONTENT.length), disconnected, null));
+    }
+
+    private void stubRanges() {
+        lenient().when(s3Service.downloadObjectStream(eq("test-key"), anyString(), any(RequestConditions.class)))
+                .thenAnswer(invocation -> rangeStream(invocation.getArgument(1)));
+    }
+
+    private ResponseInputStream<GetObjectResponse> rangeStream(String range) {
+        String[] bounds = range.substring("bytes=".length()).split("-");
+        int start = Integer.parseInt(bounds[0]);
+        int end = Integer.parseInt(bounds[1]);
+        byte[] part = Arrays.copyOfRange(CONTENT, start, end + 1);
+        return new ResponseInputStream<>(GetObjectResponse.builder().contentLength((long) part.length).build(),
+                AbortableInputStream.create(new ByteArrayInputStream(part)));
+    }
+
+    private S3Object metadata(long size) {
+        return new S3Object("test-key", "\"etag1\"", size, Instant.now(), "STANDARD", false);
+    }
+}
@@ -0,0 +1,125 @@
+package com.enterprise.s3browser.service;
+
+import com.enterprise.s3browser.model.PresignedUrl;
+import com.enterprise.s3browser.model.S3Configuration;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class PresignedUrlServiceTest {
+
+    private static final Instant NOW = Instant.parse("2024-01-15T10:00:00Z");
+
+    @Mock
+    private S3Service s3Service;
+
+    @InjectMocks
+    private PresignedUrlService presignedUrlService;
+
+    private S3Configuration config;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(presignedUrlService, "enabled", true);
+        ReflectionTestUtils.setField(presignedUrlService, "expirationSeconds", 900L);
+        ReflectionTestUtils.setField(presignedUrlService, "refreshMarginSeconds", 60L);
+        ReflectionTestUtils.setField(presignedUrlService, "maxCachedUrls", 2);
+        setTime(NOW);
+
+        config = new S3Configuration();
+        config.setEndpoint("http://localhost:9000");
+        config.setBucket("test-bucket");
+        config.setAccessKey("access");
+        lenient().when(s3Service.getCurrentConfig()).thenReturn(config);
+    }
+
+    @Test
+    void getDownloadUrl_ReusesCachedUrl() {
+        when(s3Service.presignGetObject(eq("docs/a.pdf"), eq("attachment; filename=\"a.pdf\""), eq(Duration.ofSeconds(900))))
+                .thenReturn(url("one", NOW.plusSeconds(900)));
+
+        PresignedUrl first = presignedUrlService.getDownloadUrl("docs/a.pdf");
+        setTime(NOW.plusSeconds(600));
+        PresignedUrl second = presignedUrlService.getDownloadUrl("docs/a.pdf");
+
+        assertSame(first, second);
+        verify(s3Service, times(1)).presignGetObject(any(), any(), any());
+    }
+
+    @Test
+    void getDownloadUrl_ResignsNearExpiry() {
+        when(s3Service.presignGetObject(eq("a.pdf"), any(), any()))
+                .thenReturn(url("one", NOW.plusSeconds(900)), url("two", NOW.plusSeconds(1800)));
+
+        presignedUrlService.getDownloadUrl("a.pdf");
+        setTime(NOW.plusSeconds(850));
+
+        assertEquals("two", presignedUrlService.getDownloadUrl("a.pdf").getUrl());
+    }
+
+    @Test
+    void getDownloadUrl_CacheIsPerConfiguration() {
+        when(s3Service.presignGetObject(eq("a.pdf"), any(), any()))
+                .thenReturn(url("one", NOW.plusSeconds(900)), url("two", NOW.plusSeconds(900)));
+
+        presignedUrlService.getDownloadUrl("a.pdf");
+        config.setBucket("other-bucket");
+
+        assertEquals("two", presignedUrlService.getDownloadUrl("a.pdf").getUrl());
+    }
+
+    @Test
+    void getDownloadUrl_BoundedCache() {
+        when(s3Service.presignGetObject(any(), any(), any())).thenReturn(url("url", NOW.plusSeconds(900)));
+
+        presignedUrlService.getDownloadUrl("a");
+        presignedUrlService.getDownloadUrl("b");
+        presignedUrlService.getDownloadUrl("c");
+
+        Map<?, ?> cached = (Map<?, ?>) ReflectionTestUtils.getField(presignedUrlService, "downloadUrls");
+        assertTrue(cached.size() <= 2);
+    }
+
+    @Test
+    void getUploadUrl_NotCached() {
+        when(s3Service.presignPutObject("a.txt", "text/plain", Duration.ofSeconds(900)))
+                .thenReturn(url("put", NOW.plusSeconds(900)));
+
+        presignedUrlService.getUploadUrl("a.txt", "text/plain");
+        presignedUrlService.getUploadUrl("a.txt", "text/plain");
+
+        verify(s3Service, times(2)).presignPutObject("a.txt", "text/plain", Duration.ofSeconds(900));
+    }
+
+    @Test
+    void isRedirectDownloads_RequiresEnabled() {
+        ReflectionTestUtils.setField(presignedUrlService, "redirectDownloads", true);
+        assertTrue(presignedUrlService.isRedirectDownloads());
+
+        ReflectionTestUtils.setField(presignedUrlService, "enabled", false);
+        assertFalse(presignedUrlService.isRedirectDownloads());
+    }
+
+    private void setTime(Instant instant) {
+        ReflectionTestUtils.setField(presignedUrlService, "clock", Clock.fixed(instant, ZoneOffset.UTC));
+    }
+
+    private PresignedUrl url(String url, Instant expiration) {
+        return new PresignedUrl(url, "GET", expiration, Map.of());
+    }
+}
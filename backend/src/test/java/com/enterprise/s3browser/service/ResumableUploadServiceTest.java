@@ -0,0 +1,234 @@
+package com.enterprise.s3browser.service;
+
+import com.enterprise.s3browser.exception.S3ServiceException;
+import com.enterprise.s3browser.exception.UploadSessionNotFoundException;
+import com.enterprise.s3browser.model.S3Configuration;
+import com.enterprise.s3browser.model.UploadSession;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import software.amazon.awssdk.services.s3.model.CompletedPart;
+
+import java.io.ByteArrayInputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ResumableUploadServiceTest {
+
+    private static final long MIB = 1024 * 1024;
+    private static final Instant NOW = Instant.parse("2024-01-01T10:00:00Z");
+
+    @Mock
+    private S3Service s3Service;
+
+    @Mock
+    private MultipartUploadService multipartUploadService;
+
+    @InjectMocks
+    private ResumableUploadService resumableUploadService;
+
+    @TempDir
+    Path directory;
+
+    private S3Configuration config;
+
+    @BeforeEach
+    void setUp() {
+        configure(resumableUploadService, NOW);
+        resumableUploadService.initialize();
+
+        config = new S3Configuration();
+        config.setBucket("test-bucket");
+        lenient().when(s3Service.getCurrentConfig()).thenReturn(config);
+        lenient().when(s3Service.createMultipartUpload(any(), any())).thenReturn("upload-1");
+        lenient().when(multipartUploadService.choosePartSize(anyLong())).thenReturn(8 * MIB);
+        lenient().when(s3Service.uploadPartStream(any(), eq("upload-1"), anyInt(), any(), anyLong())).thenAnswer(invocation ->
+                CompletedPart.builder().partNumber(invocation.getArgument(2)).eTag("etag-" + invocation.getArgument(2)).build());
+    }
+
+    @Test
+    void createSession_ChoosesChunkSizeAndPersists() throws Exception {
+        UploadSession session = resumableUploadService.createSession("videos/a.mp4", "video/mp4", 20 * MIB, null);
+
+        assertEquals("videos/a.mp4", session.getKey());
+        assertEquals("test-bucket", session.getBucket());
+        assertEquals("upload-1", session.getUploadId());
+        assertEquals(8 * MIB, session.getChunkSize());
+        assertEquals(3, session.chunkCount());
+        assertTrue(Files.exists(directory.resolve("upload-sessions").resolve(session.getId() + ".json")));
+        verify(s3Service).createMultipartUpload("videos/a.mp4", "video/mp4");
+    }
+
+    @Test
+    void createSession_RaisesChunkSizeToPartLimits() {
+        UploadSession small = resumableUploadService.createSession("a.bin", null, 20 * MIB, 1024L);
+        assertEquals(MultipartUploadService.MIN_PART_SIZE, small.getChunkSize());
+
+        // 100 GiB in 5 MiB chunks would need more than 10000 parts
+        UploadSession large = resumableUploadService.createSession("b.bin", null, 100 * 1024 * MIB, 5 * MIB);
+        assertEquals(100 * 1024 * MIB / MultipartUploadService.MAX_PARTS + 1, large.getChunkSize());
+        assertTrue(large.chunkCount() <= MultipartUploadService.MAX_PARTS);
+    }
+
+    @Test
+    void uploadChunk_RecordsEtag() {
+        UploadSession session = resumableUploadService.createSession("a.bin", null, 20 * MIB, null);
+
+        resumableUploadService.uploadChunk(session.getId(), 3, new ByteArrayInputStream(new byte[0]), 4 * MIB);
+        resumableUploadService.uploadChunk(session.getId(), 1, new ByteArrayInputStream(new byte[0]), 8 * MIB);
+
+        UploadSession status = resumableUploadService.getSession(session.getId());
+        assertEquals(Arrays.asList(1, 3), status.receivedChunks());
+        assertEquals(12 * MIB, status.receivedBytes());
+        verify(s3Service).uploadPartStream(eq("a.bin"), eq("upload-1"), eq(3), any(), eq(4 * MIB));
+    }
+
+    @Test
+    void getSession_ReturnsSnapshot() {
+        UploadSession session = resumableUploadService.createSession("a.bin", null, 20 * MIB, null);
+        UploadSession status = resumableUploadService.getSession(session.getId());
+
+        resumableUploadService.uploadChunk(session.getId(), 1, new ByteArrayInputStream(new byte[0]), 8 * MIB);
+
+        assertTrue(status.receivedChunks().isEmpty());
+        assertEquals(Arrays.asList(1), resumableUploadService.getSession(session.getId()).receivedChunks());
+    }
+
+    @Test
+    void uploadChunk_RejectsWrongNumberOrLength() {
+        UploadSession session = resumableUploadService.createSession("a.bin", null, 20 * MIB, null);
+        String id = session.getId();
+
+        assertThrows(IllegalArgumentException.class, () ->
+                resumableUploadService.uploadChunk(id, 4, new ByteArrayInputStream(new byte[0]), 8 * MIB));
+        assertThrows(IllegalArgumentException.class, () ->
+                resumableUploadService.uploadChunk(id, 0, new ByteArrayInputStream(new byte[0]), 8 * MIB));
+        assertThrows(IllegalArgumentException.class, () ->
+                resumableUploadService.uploadChunk(id, 1, new ByteArrayInputStream(new byte[0]), 4 * MIB));
+        verify(s3Service, never()).uploadPartStream(any(), any(), anyInt(), any(), anyLong());
+    }
+
+    @Test
+    void getSession_Unknown() {
+        assertThrows(UploadSessionNotFoundException.class, () -> resumableUploadService.getSession("missing"));
+    }
+
+    @Test
+    void sessions_SurviveRestart() {
+        UploadSession session = resumableUploadService.createSession("a.bin", "application/zip", 20 * MIB, null);
+        resumableUploadService.uploadChunk(session.getId(), 2, new ByteArrayInputStream(new byte[0]), 8 * MIB);
+
+        ResumableUploadService restarted = new ResumableUploadService();
+        ReflectionTestUtils.setField(restarted, "s3Service", s3Service);
+        ReflectionTestUtils.setField(restarted, "multipartUploadService", multipartUploadService);
+        configure(restarted, NOW);
+        restarted.initialize();
+
+        UploadSession reloaded = restarted.getSession(session.getId());
+        assertEquals("a.bin", reloaded.getKey());
+        assertEquals("application/zip", reloaded.getContentType());
+        assertEquals("upload-1", reloaded.getUploadId());
+        assertEquals(NOW, reloaded.getCreatedAt());
+        assertEquals(List.of(2), reloaded.receivedChunks());
+        assertEquals("etag-2", reloaded.getChunkEtags().get(2));
+    }
+
+    @Test
+    void commit_CompletesWithPartsInOrder() {
+        UploadSession session = resumableUploadService.createSession("a.bin", null, 20 * MIB, null);
+        String id = session.getId();
+        resumableUploadService.uploadChunk(id, 3, new ByteArrayInputStream(new byte[0]), 4 * MIB);
+        resumableUploadService.uploadChunk(id, 1, new ByteArrayInputStream(new byte[0]), 8 * MIB);
+        resumableUploadService.uploadChunk(id, 2, new ByteArrayInputStream(new byte[0]), 8 * MIB);
+
+        resumableUploadService.commit(id);
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<CompletedPart>> parts = ArgumentCaptor.forClass(List.class);
+        verify(s3Service).completeMultipartUpload(eq("a.bin"), eq("upload-1"), parts.capture());
+        assertEquals(Arrays.asList(1, 2, 3), parts.getValue().stream().map(CompletedPart::partNumber).collect(Collectors.toList()));
+        assertEquals("etag-2", parts.getValue().get(1).eTag());
+        assertThrows(UploadSessionNotFoundException.class, () -> resumableUploadService.getSession(id));
+        assertFalse(Files.exists(directory.resolve("upload-sessions").resolve(id + ".json")));
+    }
+
+    @Test
+    void commit_RejectsIncompleteUpload() {
+        UploadSession session = resumableUploadService.createSession("a.bin", null, 20 * MIB, null);
+        resumableUploadService.uploadChunk(session.getId(), 1, new ByteArrayInputStream(new byte[0]), 8 * MIB);
+
+        assertThrows(IllegalArgumentException.class, () -> resumableUploadService.commit(session.getId()));
+
+        verify(s3Service, never()).completeMultipartUpload(any(), any(), anyList());
+        assertNotNull(resumableUploadService.getSession(session.getId()));
+    }
+
+    @Test
+    void abort_DiscardsSession() {
+        UploadSession session = resumableUploadService.createSession("a.bin", null, 20 * MIB, null);
+
+        resumableUploadService.abort(session.getId());
+
+        verify(s3Service).abortMultipartUpload("a.bin", "upload-1");
+        assertThrows(UploadSessionNotFoundException.class, () -> resumableUploadService.getSession(session.getId()));
+    }
+
+    @Test
+    void sessionOfOtherBucket_IsRejected() {
+        UploadSession session = resumableUploadService.createSession("a.bin", null, 20 * MIB, null);
+        config.setBucket("other-bucket");
+
+        assertThrows(IllegalArgumentException.class, () ->
+                resumableUploadService.uploadChunk(session.getId(), 1, new ByteArrayInputStream(new byte[0]), 8 * MIB));
+        assertThrows(IllegalArgumentException.class, () -> resumableUploadService.commit(session.getId()));
+    }
+
+    @Test
+    void removeExpired_AbortsIdleSessions() {
+        UploadSession idle = resumableUploadService.createSession("idle.bin", null, 20 * MIB, null);
+        configure(resumableUploadService, NOW.plus(Duration.ofHours(20)));
+        UploadSession active = resumableUploadService.createSession("active.bin", null, 20 * MIB, null);
+
+        configure(resumableUploadService, NOW.plus(Duration.ofHours(25)));
+        resumableUploadService.removeExpired();
+
+        verify(s3Service).abortMultipartUpload("idle.bin", "upload-1");
+        assertThrows(UploadSessionNotFoundException.class, () -> resumableUploadService.getSession(idle.getId()));
+        assertNotNull(resumableUploadService.getSession(active.getId()));
+    }
+
+    @Test
+    void removeExpired_KeepsSessionWhenAbortFails() {
+        UploadSession idle = resumableUploadService.createSession("idle.bin", null, 20 * MIB, null);
+        doThrow(new S3ServiceException("S3 client not initialized")).when(s3Service).abortMultipartUpload(any(), any());
+
+        configure(resumableUploadService, NOW.plus(Duration.ofHours(25)));
+        resumableUploadService.removeExpired();
+
+        assertNotNull(resumableUploadService.getSession(idle.getId()));
+    }
+
+    private void configure(ResumableUploadService service, Instant now) {
+        ReflectionTestUtils.setField(service, "directory", directory.toString());
+        ReflectionTestUtils.setField(service, "expirationHours", 24L);
+        ReflectionTestUtils.setField(service, "clock", Clock.fixed(now, ZoneOffset.UTC));
+    }
+}
@@ -0,0 +1,52 @@
+package com.enterprise.s3browser.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RollingChecksumTest {
+
+    @Test
+    void roll_MatchesChecksumOfEveryWindow() {
+        byte[] data = new byte[4096];
+        new Random(3).nextBytes(data);
+        int window = 700;
+        RollingChecksum checksum = new RollingChecksum();
+        checksum.update(data, 0, window);
+
+        for (int offset = 0; offset + window < data.length; offset++) {
+            assertEquals(RollingChecksum.of(data, offset, window), checksum.getValue(), "offset " + offset);
+            checksum.roll(data[offset], data[offset + window]);
+        }
+    }
+
+    @Test
+    void roll_LargeWindowsWrapSafely() {
+        byte[] data = new byte[(16 << 20) + 100];
+        java.util.Arrays.fill(data, (byte) 0xff);
+        data[data.length - 1] = 7;
+        int window = 16 << 20;
+        RollingChecksum checksum = new RollingChecksum();
+        checksum.update(data, 0, window);
+
+        for (int offset = 0; offset + window < data.length; offset++) {
+            checksum.roll(data[offset], data[offset + window]);
+        }
+
+        assertEquals(RollingChecksum.of(data, data.length - window, window), checksum.getValue());
+    }
+
+    @Test
+    void update_InPiecesEqualsAtOnce() {
+        byte[] data = "The quick brown fox jumps over the lazy dog".getBytes();
+        RollingChecksum checksum = new RollingChecksum();
+        checksum.update(data, 0, 10);
+        checksum.update(data, 10, data.length - 10);
+
+        assertEquals(RollingChecksum.of(data, 0, data.length), checksum.getValue());
+        checksum.reset();
+        assertEquals(0, checksum.getValue());
+    }
+}
@@ -1,8 +1,15 @@
 package com.enterprise.s3browser.service;
 
+import com.enterprise.s3browser.exception.ObjectNotModifiedException;
+import com.enterprise.s3browser.exception.PreconditionFailedException;
+import com.enterprise.s3browser.exception.RangeNotSatisfiableException;
 import com.enterprise.s3browser.exception.S3ServiceException;
+import com.enterprise.s3browser.model.ObjectListing;
+import com.enterprise.s3browser.model.PresignedUrl;
+import com.enterprise.s3browser.model.RequestConditions;
 import com.enterprise.s3browser.model.S3Configuration;
 import com.enterprise.s3browser.model.S3Object;
+import com.enterprise.s3browser.model.S3ObjectChangedEvent;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -10,20 +17,34 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockedStatic;
 import org.mockito.junit.jupiter.MockitoExtension;
-import software.amazon.awssdk.core.ResponseBytes;
+import org.springframework.context.ApplicationEventPublisher;
+import software.amazon.awssdk.awscore.exception.AwsErrorDetails;
+import software.amazon.awssdk.core.ResponseInputStream;
+import software.amazon.awssdk.core.exception.SdkClientException;
 import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.http.AbortableInputStream;
+import software.amazon.awssdk.http.SdkHttpResponse;
 import software.amazon.awssdk.services.s3.S3Client;
 import software.amazon.awssdk.services.s3.S3ClientBuilder;
 import software.amazon.awssdk.services.s3.model.*;
+import software.amazon.awssdk.services.s3.paginators.ListObjectsV2Iterable;
 
 import java.io.ByteArrayInputStream;
 import java.io.InputStream;
 import java.time.Instant;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -35,6 +56,12 @@ class S3ServiceTest {
     @Mock
     private S3ClientBuilder s3ClientBuilder;
 
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private CompactionService compactionService;
+
     @InjectMocks
     private S3Service s3Service;
 
@@ -124,11 +151,165 @@ class S3ServiceTest {
         assertTrue(result.stream().anyMatch(o -> o.getKey().equals("file1.txt") && !o.isDirectory()));
     }
 
+    @Test
+    void listAllObjects_FollowsContinuationTokens() {
+        setupInitializedService();
+
+        ListObjectsV2Response firstPage = ListObjectsV2Response.builder()
+                .contents(software.amazon.awssdk.services.s3.model.S3Object.builder().key("docs/a.txt").size(1L).build(),
+                        software.amazon.awssdk.services.s3.model.S3Object.builder().key("docs/sub/").size(0L).build())
+                .isTruncated(true)
+                .nextContinuationToken("token1")
+                .build();
+        ListObjectsV2Response secondPage = ListObjectsV2Response.builder()
+                .contents(software.amazon.awssdk.services.s3.model.S3Object.builder().key("docs/sub/b.txt").size(2L).build())
+                .isTruncated(false)
+                .build();
+        when(s3Client.listObjectsV2Paginator(any(ListObjectsV2Request.class)))
+                .thenAnswer(invocation -> new ListObjectsV2Iterable(s3Client, invocation.getArgument(0)));
+        when(s3Client.listObjectsV2(argThat((ListObjectsV2Request request) -> request != null && request.continuationToken() == null)))
+                .thenReturn(firstPage);
+        when(s3Client.listObjectsV2(argThat((ListObjectsV2Request request) -> request != null && "token1".equals(request.continuationToken()))))
+                .thenReturn(secondPage);
+
+        List<String> keys = new ArrayList<>();
+        s3Service.listAllObjects("docs/").forEachRemaining(object -> keys.add(object.getKey()));
+
+        assertEquals(Arrays.asList("docs/a.txt", "docs/sub/b.txt"), keys);
+    }
+
+    @Test
+    void listAllObjects_ClientNotInitialized() {
+        assertThrows(S3ServiceException.class, () -> s3Service.listAllObjects("prefix"));
+    }
+
+    @Test
+    void listObjectPages_RequestsPagesLazily() {
+        setupInitializedService();
+
+        ListObjectsV2Response firstPage = ListObjectsV2Response.builder()
+                .contents(software.amazon.awssdk.services.s3.model.S3Object.builder().key("docs/").size(0L).build(),
+                        software.amazon.awssdk.services.s3.model.S3Object.builder().key("docs/a.txt").size(1L).build())
+                .commonPrefixes(CommonPrefix.builder().prefix("docs/sub/").build())
+                .isTruncated(true)
+                .nextContinuationToken("token1")
+                .build();
+        ListObjectsV2Response secondPage = ListObjectsV2Response.builder()
+                .contents(software.amazon.awssdk.services.s3.model.S3Object.builder().key("docs/z.txt").size(2L).build())
+                .isTruncated(false)
+                .build();
+        when(s3Client.listObjectsV2Paginator(argThat((ListObjectsV2Request request) -> "/".equals(request.delimiter()))))
+                .thenAnswer(invocation -> new ListObjectsV2Iterable(s3Client, invocation.getArgument(0)));
+        when(s3Client.listObjectsV2(argThat((ListObjectsV2Request request) -> request != null && request.continuationToken() == null)))
+                .thenReturn(firstPage);
+        when(s3Client.listObjectsV2(argThat((ListObjectsV2Request request) -> request != null && "token1".equals(request.continuationToken()))))
+                .thenReturn(secondPage);
+
+        java.util.Iterator<List<S3Object>> pages = s3Service.listObjectPages("docs/", false);
+        verify(s3Client, never()).listObjectsV2(any(ListObjectsV2Request.class));
+
+        List<S3Object> first = pages.next();
+        assertEquals(2, first.size());
+        assertTrue(first.get(0).isDirectory());
+        assertEquals("docs/a.txt", first.get(1).getKey());
+        verify(s3Client, times(1)).listObjectsV2(any(ListObjectsV2Request.class));
+
+        assertEquals("docs/z.txt", pages.next().get(0).getKey());
+        assertFalse(pages.hasNext());
+    }
+
+    @Test
+    void listObjectPages_ClientNotInitialized() {
+        assertThrows(S3ServiceException.class, () -> s3Service.listObjectPages("prefix", true));
+    }
+
     @Test
     void listObjects_ClientNotInitialized() {
         assertThrows(S3ServiceException.class, () -> s3Service.listObjects("prefix"));
     }
 
+    @Test
+    void listObjects_ReturnsPageWithContinuationToken() {
+        setupInitializedService();
+
+        ListObjectsV2Response response = ListObjectsV2Response.builder()
+                .contents(software.amazon.awssdk.services.s3.model.S3Object.builder().key("docs/a.txt").size(1L).build(),
+                        software.amazon.awssdk.services.s3.model.S3Object.builder().key("docs/c/").size(0L).build())
+                .commonPrefixes(CommonPrefix.builder().prefix("docs/b/").build())
+                .isTruncated(true)
+                .nextContinuationToken("s3-token")
+                .build();
+        when(s3Client.listObjectsV2(argThat((ListObjectsV2Request request) ->
+                request.maxKeys() == 3 && "docs/".equals(request.prefix()) && "docs/0".equals(request.startAfter()))))
+                .thenReturn(response);
+
+        ObjectListing listing = s3Service.listObjects("docs/", 3, null, "docs/0");
+
+        assertEquals(2, listing.getObjects().size());
+        assertEquals("docs/0", listing.getStartAfter());
+        assertEquals("docs/c/", listing.getLastKey());
+        assertTrue(listing.isTruncated());
+        assertArrayEquals(new String[] { "s3-token", "docs/c/" },
+                S3Service.decodeContinuationToken(listing.getNextContinuationToken()));
+    }
+
+    @Test
+    void listObjects_ResumesFromContinuationToken() {
+        setupInitializedService();
+
+        ListObjectsV2Response response = ListObjectsV2Response.builder()
+                .contents(software.amazon.awssdk.services.s3.model.S3Object.builder().key("docs/d.txt").size(1L).build())
+                .isTruncated(false)
+                .build();
+        when(s3Client.listObjectsV2(argThat((ListObjectsV2Request request) ->
+                "s3-token".equals(request.continuationToken()) && request.startAfter() == null)))
+                .thenReturn(response);
+
+        String token = S3Service.encodeContinuationToken("s3-token", "docs/c/");
+        ObjectListing listing = s3Service.listObjects("docs/", 100, token, "ignored");
+
+        assertEquals(1, listing.getObjects().size());
+        assertEquals("docs/c/", listing.getStartAfter());
+        assertFalse(listing.isTruncated());
+        assertNull(listing.getNextContinuationToken());
+    }
+
+    @Test
+    void listObjects_ResumesAfterKeyOfTokenWithoutS3Token() {
+        setupInitializedService();
+
+        ListObjectsV2Response response = ListObjectsV2Response.builder()
+                .commonPrefixes(CommonPrefix.builder().prefix("docs/b/").build())
+                .contents(software.amazon.awssdk.services.s3.model.S3Object.builder().key("docs/c.txt").size(1L).build())
+                .isTruncated(false)
+                .build();
+        when(s3Client.listObjectsV2(argThat((ListObjectsV2Request request) ->
+                request.continuationToken() == null && "docs/b/".equals(request.startAfter()))))
+                .thenReturn(response);
+
+        ObjectListing listing = s3Service.listObjects("docs/", 100, S3Service.continuationTokenAfter("docs/b/"), "ignored");
+
+        assertEquals("docs/b/", listing.getStartAfter());
+        assertFalse(listing.covers("docs/b/"));
+        assertTrue(listing.covers("docs/c.txt"));
+        assertNull(listing.getNextContinuationToken());
+    }
+
+    @Test
+    void listObjects_RejectsInvalidPageSize() {
+        assertThrows(IllegalArgumentException.class, () -> s3Service.listObjects("docs/", 0, null, null));
+        assertThrows(IllegalArgumentException.class, () -> s3Service.listObjects("docs/", 1001, null, null));
+        verifyNoInteractions(s3Client);
+    }
+
+    @Test
+    void listObjects_RejectsMalformedContinuationToken() {
+        assertThrows(IllegalArgumentException.class, () -> s3Service.listObjects("docs/", 10, "no-separator", null));
+        assertThrows(IllegalArgumentException.class, () -> s3Service.listObjects("docs/", 10, "!!.??", null));
+        assertThrows(IllegalArgumentException.class, () -> s3Service.listObjects("docs/", 10, ".", null));
+        verifyNoInteractions(s3Client);
+    }
+
     @Test
     void getObjectMetadata_Success() {
         setupInitializedService();
@@ -150,29 +331,225 @@ class S3ServiceTest {
         assertFalse(result.isDirectory());
     }
 
+    @Test
+    void getObjectMetadata_ConcurrentCallsShareOneRequest() throws Exception {
+        setupInitializedService();
+
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(s3Client.headObject(any(HeadObjectRequest.class))).thenAnswer(invocation -> {
+            started.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return HeadObjectResponse.builder().contentLength(100L).eTag("etag1").build();
+        });
+
+        ExecutorService callers = Executors.newFixedThreadPool(2);
+        try {
+            Future<S3Object> first = callers.submit(() -> s3Service.getObjectMetadata("test-key"));
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+            AtomicReference<Thread> secondThread = new AtomicReference<>();
+            Future<S3Object> second = callers.submit(() -> {
+                secondThread.set(Thread.currentThread());
+                return s3Service.getObjectMetadata("test-key");
+            });
+            // Release the request only once the second caller is waiting for it
+            long deadline = System.currentTimeMillis() + 5000;
+            while (System.currentTimeMillis() < deadline
+                    && (secondThread.get() == null || secondThread.get().getState() != Thread.State.WAITING)) {
+                Thread.sleep(1);
+            }
+            release.countDown();
+
+            assertEquals("etag1", first.get(5, TimeUnit.SECONDS).getEtag());
+            assertSame(first.get(), second.get(5, TimeUnit.SECONDS));
+            verify(s3Client, times(1)).headObject(any(HeadObjectRequest.class));
+        } finally {
+            callers.shutdownNow();
+        }
+    }
+
+    @Test
+    void getObjectMetadata_ForwardsConditions() {
+        setupInitializedService();
+
+        HeadObjectResponse response = HeadObjectResponse.builder()
+                .contentLength(100L)
+                .eTag("etag1")
+                .contentType("text/plain")
+                .build();
+        Instant since = Instant.parse("2015-10-21T07:28:00Z");
+
+        when(s3Client.headObject(argThat((HeadObjectRequest r) ->
+                "\"etag0\"".equals(r.ifNoneMatch()) && since.equals(r.ifModifiedSince())))).thenReturn(response);
+
+        RequestConditions conditions = new RequestConditions();
+        conditions.setIfNoneMatch("\"etag0\"");
+        conditions.setIfModifiedSince(since);
+        S3Object result = s3Service.getObjectMetadata("test-key", conditions);
+
+        assertEquals("text/plain", result.getContentType());
+    }
+
+    @Test
+    void getObjectMetadata_NotModified() {
+        setupInitializedService();
+
+        SdkHttpResponse httpResponse = SdkHttpResponse.builder()
+                .statusCode(304)
+                .putHeader("ETag", "\"etag1\"")
+                .putHeader("Last-Modified", "Wed, 21 Oct 2015 07:28:00 GMT")
+                .build();
+        when(s3Client.headObject(any(HeadObjectRequest.class))).thenThrow(S3Exception.builder()
+                .statusCode(304)
+                .awsErrorDetails(AwsErrorDetails.builder().sdkHttpResponse(httpResponse).build())
+                .build());
+
+        RequestConditions conditions = new RequestConditions();
+        conditions.setIfNoneMatch("\"etag1\"");
+        ObjectNotModifiedException exception = assertThrows(ObjectNotModifiedException.class,
+                () -> s3Service.getObjectMetadata("test-key", conditions));
+
+        assertEquals("\"etag1\"", exception.getEtag());
+        assertEquals(Instant.parse("2015-10-21T07:28:00Z"), exception.getLastModified());
+    }
+
+    @Test
+    void downloadObjectStream_PreconditionFailed() {
+        setupInitializedService();
+
+        when(s3Client.getObject(any(GetObjectRequest.class)))
+                .thenThrow(S3Exception.builder().statusCode(412).message("PreconditionFailed").build());
+
+        RequestConditions conditions = new RequestConditions();
+        conditions.setIfMatch("\"etag1\"");
+        assertThrows(PreconditionFailedException.class, () -> s3Service.downloadObjectStream("test-key", null, conditions));
+    }
+
     @Test
     void getObjectMetadata_ClientNotInitialized() {
         assertThrows(S3ServiceException.class, () -> s3Service.getObjectMetadata("test-key"));
     }
 
     @Test
-    void downloadObject_Success() {
+    void downloadObjectStream_Success() throws Exception {
         setupInitializedService();
 
         byte[] content = "test content".getBytes();
-        GetObjectResponse getObjectResponse = GetObjectResponse.builder().build();
-        ResponseBytes<GetObjectResponse> response = ResponseBytes.fromByteArray(getObjectResponse, content);
+        GetObjectResponse getObjectResponse = GetObjectResponse.builder()
+                .contentLength((long) content.length)
+                .build();
+        ResponseInputStream<GetObjectResponse> stream = new ResponseInputStream<>(
+                getObjectResponse, AbortableInputStream.create(new ByteArrayInputStream(content)));
 
-        when(s3Client.getObjectAsBytes(any(GetObjectRequest.class))).thenReturn(response);
+        when(s3Client.getObject(any(GetObjectRequest.class))).thenReturn(stream);
 
-        ResponseBytes<GetObjectResponse> result = s3Service.downloadObject("test-key");
+        try (ResponseInputStream<GetObjectResponse> result = s3Service.downloadObjectStream("test-key")) {
+            assertEquals(content.length, result.response().contentLength());
+            assertArrayEquals(content, result.readAllBytes());
+        }
+    }
+
+    @Test
+    void downloadObjectStream_Range() throws Exception {
+        setupInitializedService();
+
+        byte[] content = "test".getBytes();
+        GetObjectResponse getObjectResponse = GetObjectResponse.builder()
+                .contentLength((long) content.length)
+                .contentRange("bytes 0-3/12")
+                .build();
+        ResponseInputStream<GetObjectResponse> stream = new ResponseInputStream<>(
+                getObjectResponse, AbortableInputStream.create(new ByteArrayInputStream(content)));
 
-        assertArrayEquals(content, result.asByteArray());
+        when(s3Client.getObject(argThat((GetObjectRequest r) -> "bytes=0-3".equals(r.range())))).thenReturn(stream);
+
+        try (ResponseInputStream<GetObjectResponse> result = s3Service.downloadObjectStream("test-key", "bytes=0-3")) {
+            assertEquals("bytes 0-3/12", result.response().contentRange());
+            assertArrayEquals(content, result.readAllBytes());
+        }
     }
 
     @Test
-    void downloadObject_ClientNotInitialized() {
-        assertThrows(S3ServiceException.class, () -> s3Service.downloadObject("test-key"));
+    void downloadObjectStream_RangeNotSatisfiable() {
+        setupInitializedService();
+
+        when(s3Client.getObject(any(GetObjectRequest.class)))
+                .thenThrow(S3Exception.builder().statusCode(416).message("InvalidRange").build());
+
+        assertThrows(RangeNotSatisfiableException.class, () -> s3Service.downloadObjectStream("test-key", "bytes=100-"));
+    }
+
+    @Test
+    void downloadObjectStream_MissingKeyIsServedFromCompaction() {
+        setupInitializedService();
+
+        when(s3Client.getObject(any(GetObjectRequest.class)))
+                .thenThrow(NoSuchKeyException.builder().statusCode(404).message("Not Found").build());
+        RequestConditions conditions = new RequestConditions();
+        ResponseInputStream<GetObjectResponse> compacted = new ResponseInputStream<>(GetObjectResponse.builder().build(),
+                AbortableInputStream.create(new ByteArrayInputStream(new byte[0])));
+        when(compactionService.downloadObjectStream("logs/small.txt", "bytes=0-3", conditions)).thenReturn(compacted);
+
+        assertSame(compacted, s3Service.downloadObjectStream("logs/small.txt", "bytes=0-3", conditions));
+    }
+
+    @Test
+    void getObjectMetadata_MissingKeyIsServedFromCompaction() {
+        setupInitializedService();
+
+        when(s3Client.headObject(any(HeadObjectRequest.class)))
+                .thenThrow(NoSuchKeyException.builder().statusCode(404).message("Not Found").build());
+        S3Object compacted = new S3Object("logs/small.txt", "\"small\"", 5L, Instant.now(), null, false);
+        when(compactionService.getObjectMetadata("logs/small.txt", null)).thenReturn(compacted);
+
+        assertSame(compacted, s3Service.getObjectMetadata("logs/small.txt"));
+        assertThrows(S3ServiceException.class, () -> s3Service.getObjectMetadata("logs/other.txt"));
+    }
+
+    @Test
+    void downloadObjectStream_OtherFailuresAreNotServedFromCompaction() {
+        setupInitializedService();
+
+        when(s3Client.getObject(any(GetObjectRequest.class)))
+                .thenThrow(S3Exception.builder().statusCode(403).message("Access Denied").build());
+
+        assertThrows(S3ServiceException.class, () -> s3Service.downloadObjectStream("logs/small.txt"));
+        verifyNoInteractions(compactionService);
+    }
+
+    @Test
+    void downloadObjectStream_ClientNotInitialized() {
+        assertThrows(S3ServiceException.class, () -> s3Service.downloadObjectStream("test-key"));
+    }
+
+    @Test
+    void presignGetObject_Success() {
+        setupInitializedService();
+
+        PresignedUrl presigned = s3Service.presignGetObject("docs/a.pdf", "attachment; filename=\"a.pdf\"", java.time.Duration.ofMinutes(5));
+
+        assertTrue(presigned.getUrl().startsWith("http://localhost:9000/test-bucket/docs/a.pdf?"));
+        assertTrue(presigned.getUrl().contains("X-Amz-Signature="));
+        assertTrue(presigned.getUrl().contains("response-content-disposition="));
+        assertEquals("GET", presigned.getMethod());
+        assertNotNull(presigned.getExpiration());
+        assertFalse(presigned.getSignedHeaders().containsKey("host"));
+    }
+
+    @Test
+    void presignPutObject_SignsContentType() {
+        setupInitializedService();
+
+        PresignedUrl presigned = s3Service.presignPutObject("docs/a.txt", "text/plain", java.time.Duration.ofMinutes(5));
+
+        assertEquals("PUT", presigned.getMethod());
+        assertEquals("text/plain", presigned.getSignedHeaders().get("content-type"));
+    }
+
+    @Test
+    void presignGetObject_ClientNotInitialized() {
+        assertThrows(S3ServiceException.class,
+                () -> s3Service.presignGetObject("key", null, java.time.Duration.ofMinutes(5)));
     }
 
     @Test
@@ -181,10 +558,11 @@ class S3ServiceTest {
 
         InputStream inputStream = new ByteArrayInputStream("test content".getBytes());
         when(s3Client.putObject(any(PutObjectRequest.class), any(RequestBody.class)))
-                .thenReturn(PutObjectResponse.builder().build());
+                .thenReturn(PutObjectResponse.builder().eTag("\"etag1\"").build());
 
-        assertDoesNotThrow(() -> s3Service.uploadObject("test-key", inputStream, 12L, "text/plain"));
+        assertEquals("\"etag1\"", s3Service.uploadObject("test-key", inputStream, 12L, "text/plain"));
         verify(s3Client).putObject(any(PutObjectRequest.class), any(RequestBody.class));
+        verify(eventPublisher).publishEvent(argThat((Object event) -> isChangeOf(event, "test-key")));
     }
 
     @Test
@@ -193,6 +571,165 @@ class S3ServiceTest {
         assertThrows(S3ServiceException.class, () -> s3Service.uploadObject("test-key", inputStream, 12L, "text/plain"));
     }
 
+    @Test
+    void createMultipartUpload_ReturnsUploadId() {
+        setupInitializedService();
+
+        when(s3Client.createMultipartUpload(any(CreateMultipartUploadRequest.class)))
+                .thenReturn(CreateMultipartUploadResponse.builder().uploadId("upload-1").build());
+
+        assertEquals("upload-1", s3Service.createMultipartUpload("test-key", "text/plain"));
+        verify(s3Client).createMultipartUpload(argThat((CreateMultipartUploadRequest request) ->
+                "test-key".equals(request.key()) && "text/plain".equals(request.contentType())));
+    }
+
+    @Test
+    void uploadPart_StreamsBufferPrefix() throws Exception {
+        setupInitializedService();
+
+        byte[] buffer = "part content and stale bytes".getBytes();
+        when(s3Client.uploadPart(any(UploadPartRequest.class), any(RequestBody.class))).thenAnswer(invocation -> {
+            RequestBody body = invocation.getArgument(1);
+            try (InputStream stream = body.contentStreamProvider().newStream()) {
+                assertEquals("part content", new String(stream.readAllBytes()));
+            }
+            return UploadPartResponse.builder().eTag("\"etag-2\"").build();
+        });
+
+        CompletedPart part = s3Service.uploadPart("test-key", "upload-1", 2, buffer, 12);
+
+        assertEquals(2, part.partNumber());
+        assertEquals("\"etag-2\"", part.eTag());
+        verify(s3Client).uploadPart(argThat((UploadPartRequest request) ->
+                "upload-1".equals(request.uploadId()) && request.partNumber() == 2 && request.contentLength() == 12L),
+                any(RequestBody.class));
+    }
+
+    @Test
+    void uploadPartStream_StreamsRequestBody() throws Exception {
+        setupInitializedService();
+
+        when(s3Client.uploadPart(any(UploadPartRequest.class), any(RequestBody.class))).thenAnswer(invocation -> {
+            RequestBody body = invocation.getArgument(1);
+            assertEquals(5L, body.optionalContentLength().orElse(-1L));
+            return UploadPartResponse.builder().eTag("\"etag-1\"").build();
+        });
+
+        CompletedPart part = s3Service.uploadPartStream("test-key", "upload-1", 1, new ByteArrayInputStream("chunk".getBytes()), 5L);
+
+        assertEquals(1, part.partNumber());
+        assertEquals("\"etag-1\"", part.eTag());
+    }
+
+    @Test
+    void completeMultipartUpload_SendsParts() {
+        setupInitializedService();
+
+        List<CompletedPart> parts = Arrays.asList(
+                CompletedPart.builder().partNumber(1).eTag("a").build(),
+                CompletedPart.builder().partNumber(2).eTag("b").build());
+        when(s3Client.completeMultipartUpload(any(CompleteMultipartUploadRequest.class)))
+                .thenReturn(CompleteMultipartUploadResponse.builder().eTag("\"etag-2\"").build());
+
+        assertEquals("\"etag-2\"", s3Service.completeMultipartUpload("test-key", "upload-1", parts));
+
+        verify(s3Client).completeMultipartUpload(argThat((CompleteMultipartUploadRequest request) ->
+                "upload-1".equals(request.uploadId()) && request.multipartUpload().parts().equals(parts)));
+    }
+
+    @Test
+    void uploadPartCopy_CopiesSourceRange() {
+        setupInitializedService();
+
+        when(s3Client.uploadPartCopy(any(UploadPartCopyRequest.class)))
+                .thenReturn(UploadPartCopyResponse.builder()
+                        .copyPartResult(CopyPartResult.builder().eTag("\"etag-2\"").build())
+                        .build());
+
+        CompletedPart part = s3Service.uploadPartCopy("test-key", "upload-1", 2, "source-key", 100L, 199L);
+
+        assertEquals(2, part.partNumber());
+        assertEquals("\"etag-2\"", part.eTag());
+        verify(s3Client).uploadPartCopy(argThat((UploadPartCopyRequest request) ->
+                "source-key".equals(request.sourceKey()) && "test-key".equals(request.destinationKey())
+                        && "bytes=100-199".equals(request.copySourceRange()) && request.partNumber() == 2));
+    }
+
+    @Test
+    void uploadPartCopy_RequiresSourceEtag() {
+        setupInitializedService();
+
+        when(s3Client.uploadPartCopy(any(UploadPartCopyRequest.class)))
+                .thenReturn(UploadPartCopyResponse.builder()
+                        .copyPartResult(CopyPartResult.builder().eTag("\"etag-1\"").build())
+                        .build());
+
+        s3Service.uploadPartCopy("test-key", "upload-1", 1, "test-key", "\"old\"", 0L, 99L);
+
+        verify(s3Client).uploadPartCopy(argThat((UploadPartCopyRequest request) ->
+                "\"old\"".equals(request.copySourceIfMatch()) && "bytes=0-99".equals(request.copySourceRange())));
+    }
+
+    @Test
+    void copyObject_ReplacesContentType() {
+        setupInitializedService();
+
+        when(s3Client.copyObject(any(CopyObjectRequest.class)))
+                .thenReturn(CopyObjectResponse.builder().build());
+
+        s3Service.copyObject("source-key", "test-key", "text/plain");
+        s3Service.copyObject("source-key", "other-key", null);
+
+        verify(s3Client).copyObject(argThat((CopyObjectRequest request) ->
+                "test-key".equals(request.destinationKey()) && request.metadataDirective() == MetadataDirective.REPLACE
+                        && "text/plain".equals(request.contentType())));
+        verify(s3Client).copyObject(argThat((CopyObjectRequest request) ->
+                "other-key".equals(request.destinationKey()) && request.metadataDirective() == null));
+    }
+
+    @Test
+    void copyObject_PinnedToSourceEtag() {
+        setupInitializedService();
+
+        when(s3Client.copyObject(any(CopyObjectRequest.class)))
+                .thenReturn(CopyObjectResponse.builder().build());
+
+        s3Service.copyObject("source-key", "\"old\"", "test-key", null);
+
+        verify(s3Client).copyObject(argThat((CopyObjectRequest request) ->
+                "\"old\"".equals(request.copySourceIfMatch()) && "source-key".equals(request.sourceKey())));
+    }
+
+    @Test
+    void copyObject_Failure() {
+        setupInitializedService();
+
+        when(s3Client.copyObject(any(CopyObjectRequest.class)))
+                .thenThrow(NoSuchKeyException.builder().message("Not Found").build());
+
+        S3ServiceException exception = assertThrows(S3ServiceException.class, () ->
+                s3Service.copyObject("missing", "test-key", null));
+        assertTrue(exception.getMessage().contains("Failed to copy object"));
+    }
+
+    @Test
+    void abortMultipartUpload_Success() {
+        setupInitializedService();
+
+        when(s3Client.abortMultipartUpload(any(AbortMultipartUploadRequest.class)))
+                .thenReturn(AbortMultipartUploadResponse.builder().build());
+
+        s3Service.abortMultipartUpload("test-key", "upload-1");
+
+        verify(s3Client).abortMultipartUpload(argThat((AbortMultipartUploadRequest request) ->
+                "upload-1".equals(request.uploadId()) && "test-key".equals(request.key())));
+    }
+
+    @Test
+    void uploadPart_ClientNotInitialized() {
+        assertThrows(S3ServiceException.class, () -> s3Service.uploadPart("test-key", "upload-1", 1, new byte[1], 1));
+    }
+
     @Test
     void deleteObject_Success() {
         setupInitializedService();
@@ -202,6 +739,17 @@ class S3ServiceTest {
 
         assertDoesNotThrow(() -> s3Service.deleteObject("test-key"));
         verify(s3Client).deleteObject(any(DeleteObjectRequest.class));
+        verify(eventPublisher).publishEvent(argThat((Object event) -> isChangeOf(event, "test-key")));
+    }
+
+    @Test
+    void deleteObject_FailurePublishesNoChange() {
+        setupInitializedService();
+
+        when(s3Client.deleteObject(any(DeleteObjectRequest.class))).thenThrow(SdkClientException.create("Connection reset"));
+
+        assertThrows(S3ServiceException.class, () -> s3Service.deleteObject("test-key"));
+        verifyNoInteractions(eventPublisher);
     }
 
     @Test
@@ -242,6 +790,7 @@ class S3ServiceTest {
 
         assertDoesNotThrow(() -> s3Service.createFolder("test-folder"));
         verify(s3Client).putObject(any(PutObjectRequest.class), any(RequestBody.class));
+        verify(eventPublisher).publishEvent(argThat((Object event) -> isChangeOf(event, "test-folder/")));
     }
 
     @Test
@@ -271,6 +820,12 @@ class S3ServiceTest {
         assertFalse(s3Service.isInitialized());
     }
 
+    private boolean isChangeOf(Object event, String key) {
+        return event instanceof S3ObjectChangedEvent
+                && "test-bucket".equals(((S3ObjectChangedEvent) event).getBucket())
+                && key.equals(((S3ObjectChangedEvent) event).getKey());
+    }
+
     private void setupInitializedService() {
         try (MockedStatic<S3Client> mockedS3Client = mockStatic(S3Client.class)) {
             mockedS3Client.when(S3Client::builder).thenReturn(s3ClientBuilder);
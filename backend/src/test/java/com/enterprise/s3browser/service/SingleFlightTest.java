@@ -0,0 +1,173 @@
+package com.enterprise.s3browser.service;
+
+import com.enterprise.s3browser.exception.S3ServiceException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import software.amazon.awssdk.core.exception.AbortedException;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SingleFlightTest {
+
+    private static final List<Object> KEY = List.of("listObjects", "docs/");
+
+    private final SingleFlight singleFlight = new SingleFlight();
+    private final ExecutorService callers = Executors.newCachedThreadPool();
+    private final AtomicInteger calls = new AtomicInteger();
+    private final CountDownLatch started = new CountDownLatch(1);
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    @AfterEach
+    void tearDown() {
+        callers.shutdownNow();
+    }
+
+    @Test
+    void execute_ConcurrentCallersShareOneCall() throws Exception {
+        Future<String> leader = callers.submit(() -> singleFlight.execute(KEY, () -> blockingCall("result")));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        AtomicReference<Thread> followerThread = new AtomicReference<>();
+        Future<String> follower = callers.submit(() -> {
+            followerThread.set(Thread.currentThread());
+            return singleFlight.execute(KEY, () -> "own call");
+        });
+        awaitWaiting(followerThread);
+
+        release.countDown();
+
+        assertEquals("result", leader.get(5, TimeUnit.SECONDS));
+        assertEquals("result", follower.get(5, TimeUnit.SECONDS));
+        assertEquals(1, calls.get());
+        assertEquals(0, singleFlight.size());
+    }
+
+    @Test
+    void execute_ErrorReachesEveryCaller() throws Exception {
+        S3ServiceException failure = new S3ServiceException("Failed to list objects: Access Denied");
+        Future<String> leader = callers.submit(() -> singleFlight.execute(KEY, () -> {
+            blockingCall("unused");
+            throw failure;
+        }));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        AtomicReference<Thread> followerThread = new AtomicReference<>();
+        Future<String> follower = callers.submit(() -> {
+            followerThread.set(Thread.currentThread());
+            return singleFlight.execute(KEY, () -> "own call");
+        });
+        awaitWaiting(followerThread);
+
+        release.countDown();
+
+        assertSame(failure, assertThrows(ExecutionException.class, () -> leader.get(5, TimeUnit.SECONDS)).getCause());
+        assertSame(failure, assertThrows(ExecutionException.class, () -> follower.get(5, TimeUnit.SECONDS)).getCause());
+        assertEquals(1, calls.get());
+    }
+
+    @Test
+    void execute_SequentialCallsAreNotShared() {
+        assertEquals(1, (int) singleFlight.execute(KEY, calls::incrementAndGet));
+        assertEquals(2, (int) singleFlight.execute(KEY, calls::incrementAndGet));
+    }
+
+    @Test
+    void execute_DifferentKeysAreNotShared() throws Exception {
+        Future<String> leader = callers.submit(() -> singleFlight.execute(KEY, () -> blockingCall("docs")));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        assertEquals("other", singleFlight.execute(List.of("listObjects", "other/"), () -> "other"));
+
+        release.countDown();
+        assertEquals("docs", leader.get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void execute_InterruptedLeaderDoesNotFailFollowers() throws Exception {
+        AtomicReference<Thread> leaderThread = new AtomicReference<>();
+        Future<String> leader = callers.submit(() -> {
+            leaderThread.set(Thread.currentThread());
+            return singleFlight.execute(KEY, () -> {
+                calls.incrementAndGet();
+                started.countDown();
+                try {
+                    release.await();
+                    return "unused";
+                } catch (InterruptedException e) {
+                    throw AbortedException.create("Thread was interrupted", e);
+                }
+            });
+        });
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        AtomicReference<Thread> followerThread = new AtomicReference<>();
+        Future<String> follower = callers.submit(() -> {
+            followerThread.set(Thread.currentThread());
+            return singleFlight.execute(KEY, () -> "retried");
+        });
+        awaitWaiting(followerThread);
+
+        leaderThread.get().interrupt();
+
+        assertInstanceOf(AbortedException.class, assertThrows(ExecutionException.class, () -> leader.get(5, TimeUnit.SECONDS)).getCause());
+        assertEquals("retried", follower.get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void execute_InterruptedFollowerLeavesCallRunning() throws Exception {
+        Future<String> leader = callers.submit(() -> singleFlight.execute(KEY, () -> blockingCall("result")));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        AtomicReference<Thread> followerThread = new AtomicReference<>();
+        Future<String> follower = callers.submit(() -> {
+            followerThread.set(Thread.currentThread());
+            return singleFlight.execute(KEY, () -> "own call");
+        });
+        awaitWaiting(followerThread);
+
+        followerThread.get().interrupt();
+
+        assertInstanceOf(S3ServiceException.class, assertThrows(ExecutionException.class, () -> follower.get(5, TimeUnit.SECONDS)).getCause());
+        release.countDown();
+        assertEquals("result", leader.get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void forget_LaterCallersStartTheirOwnCall() throws Exception {
+        Future<String> leader = callers.submit(() -> singleFlight.execute(KEY, () -> blockingCall("before write")));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        singleFlight.forget(key -> key.get(1).equals("docs/"));
+
+        assertEquals("after write", singleFlight.execute(KEY, () -> "after write"));
+        release.countDown();
+        assertEquals("before write", leader.get(5, TimeUnit.SECONDS));
+        assertEquals(0, singleFlight.size());
+    }
+
+    private String blockingCall(String result) {
+        calls.incrementAndGet();
+        started.countDown();
+        try {
+            assertTrue(release.await(5, TimeUnit.SECONDS));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return result;
+    }
+
+    private static void awaitWaiting(AtomicReference<Thread> thread) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (System.currentTimeMillis() < deadline
+                && (thread.get() == null || thread.get().getState() != Thread.State.WAITING)) {
+            Thread.sleep(1);
+        }
+        assertEquals(Thread.State.WAITING, thread.get().getState());
+    }
+}
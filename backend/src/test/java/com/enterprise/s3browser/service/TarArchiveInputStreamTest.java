@@ -0,0 +1,154 @@
+package com.enterprise.s3browser.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TarArchiveInputStreamTest {
+
+    private static final Instant MODIFIED = Instant.parse("2024-01-15T10:30:00Z");
+
+    @Test
+    void readsEntriesWrittenByTarArchiveOutputStream() throws IOException {
+        String longName = "folder/" + "é".repeat(60) + ".txt";
+        byte[] archive = archive("docs/hello.txt", "hello", longName, "long name", "empty.txt", "");
+
+        TarArchiveInputStream tar = new TarArchiveInputStream(new ByteArrayInputStream(archive));
+
+        TarArchiveInputStream.Entry first = tar.getNextEntry();
+        assertEquals("docs/hello.txt", first.getName());
+        assertEquals(5L, first.getSize());
+        assertEquals(MODIFIED, first.getLastModified());
+        assertTrue(first.isFile());
+        assertEquals("hello", new String(tar.readAllBytes(), StandardCharsets.UTF_8));
+
+        TarArchiveInputStream.Entry second = tar.getNextEntry();
+        assertEquals(longName, second.getName());
+        assertEquals("long name", new String(tar.readAllBytes(), StandardCharsets.UTF_8));
+
+        TarArchiveInputStream.Entry third = tar.getNextEntry();
+        assertEquals("empty.txt", third.getName());
+        assertEquals(0, tar.readAllBytes().length);
+
+        assertNull(tar.getNextEntry());
+        assertNull(tar.getNextEntry());
+    }
+
+    @Test
+    void skipsUnreadContent() throws IOException {
+        byte[] archive = archive("a.txt", "x".repeat(1500), "b.txt", "second");
+
+        TarArchiveInputStream tar = new TarArchiveInputStream(new ByteArrayInputStream(archive));
+        tar.getNextEntry();
+        assertEquals('x', tar.read());
+
+        assertEquals("b.txt", tar.getNextEntry().getName());
+        assertEquals("second", new String(tar.readAllBytes(), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void readsGnuLongNamesAndDirectories() throws IOException {
+        String longName = "deep/" + "d".repeat(150) + "/file.bin";
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] nameBytes = (longName + "\0").getBytes(StandardCharsets.US_ASCII);
+        out.write(header("././@LongLink", nameBytes.length, 'L'));
+        out.write(padded(nameBytes));
+        out.write(header("deep/truncated", 3, '0'));
+        out.write(padded("abc".getBytes(StandardCharsets.US_ASCII)));
+        out.write(header("deep/", 0, '5'));
+        out.write(new byte[1024]);
+
+        TarArchiveInputStream tar = new TarArchiveInputStream(new ByteArrayInputStream(out.toByteArray()));
+
+        TarArchiveInputStream.Entry file = tar.getNextEntry();
+        assertEquals(longName, file.getName());
+        assertEquals("abc", new String(tar.readAllBytes(), StandardCharsets.US_ASCII));
+
+        TarArchiveInputStream.Entry directory = tar.getNextEntry();
+        assertTrue(directory.isDirectory());
+        assertFalse(directory.isFile());
+        assertNull(tar.getNextEntry());
+    }
+
+    @Test
+    void rejectsCorruptHeader() throws IOException {
+        byte[] archive = archive("a.txt", "hello");
+        archive[0] = 'b';
+
+        TarArchiveInputStream tar = new TarArchiveInputStream(new ByteArrayInputStream(archive));
+
+        assertThrows(IOException.class, tar::getNextEntry);
+    }
+
+    @Test
+    void rejectsTruncatedEntry() throws IOException {
+        byte[] archive = Arrays.copyOf(archive("a.txt", "x".repeat(1000)), 512 + 100);
+
+        TarArchiveInputStream tar = new TarArchiveInputStream(new ByteArrayInputStream(archive));
+        tar.getNextEntry();
+
+        assertThrows(EOFException.class, tar::readAllBytes);
+    }
+
+    @Test
+    void endsAtEndOfInputWithoutTrailer() throws IOException {
+        byte[] archive = archive("a.txt", "hello");
+        byte[] withoutTrailer = Arrays.copyOf(archive, 1024);
+
+        TarArchiveInputStream tar = new TarArchiveInputStream(new ByteArrayInputStream(withoutTrailer));
+
+        assertEquals("a.txt", tar.getNextEntry().getName());
+        assertNull(tar.getNextEntry());
+    }
+
+    /**
+     * Build an archive from alternating names and contents.
+     */
+    static byte[] archive(String... namesAndContents) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (TarArchiveOutputStream tar = new TarArchiveOutputStream(out)) {
+            for (int i = 0; i < namesAndContents.length; i += 2) {
+                byte[] content = namesAndContents[i + 1].getBytes(StandardCharsets.UTF_8);
+                tar.putEntry(namesAndContents[i], content.length, MODIFIED);
+                tar.write(content);
+                tar.closeEntry();
+            }
+        }
+        return out.toByteArray();
+    }
+
+    private static byte[] header(String name, long size, char type) {
+        byte[] header = new byte[512];
+        put(header, name, 0);
+        put(header, String.format("%07o", 0644), 100);
+        put(header, String.format("%011o", size), 124);
+        put(header, String.format("%011o", MODIFIED.getEpochSecond()), 136);
+        header[156] = (byte) type;
+        put(header, "ustar  ", 257);
+        Arrays.fill(header, 148, 156, (byte) ' ');
+        long sum = 0;
+        for (byte b : header) {
+            sum += b & 0xff;
+        }
+        put(header, String.format("%06o", sum), 148);
+        header[154] = 0;
+        return header;
+    }
+
+    private static void put(byte[] header, String value, int offset) {
+        byte[] bytes = value.getBytes(StandardCharsets.US_ASCII);
+        System.arraycopy(bytes, 0, header, offset, bytes.length);
+    }
+
+    private static byte[] padded(byte[] content) {
+        return Arrays.copyOf(content, (content.length + 511) / 512 * 512);
+    }
+}
@@ -0,0 +1,93 @@
+package com.enterprise.s3browser.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TarArchiveOutputStreamTest {
+
+    private static final Instant MODIFIED = Instant.parse("2024-01-15T10:30:00Z");
+
+    @Test
+    void writesUstarEntry() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (TarArchiveOutputStream tar = new TarArchiveOutputStream(out)) {
+            tar.putEntry("docs/hello.txt", 5, MODIFIED);
+            tar.write("hello".getBytes());
+            tar.closeEntry();
+        }
+
+        byte[] archive = out.toByteArray();
+        assertEquals(512 * 4, archive.length);
+        assertEquals("docs/hello.txt", field(archive, 0, 100));
+        assertEquals(5L, Long.parseLong(field(archive, 124, 12), 8));
+        assertEquals(MODIFIED.getEpochSecond(), Long.parseLong(field(archive, 136, 12), 8));
+        assertEquals('0', archive[156]);
+        assertEquals("ustar", field(archive, 257, 6));
+        assertEquals(checksum(archive, 0), Long.parseLong(field(archive, 148, 7), 8));
+        assertEquals("hello", new String(archive, 512, 5, StandardCharsets.US_ASCII));
+        assertArrayEquals(new byte[1024], Arrays.copyOfRange(archive, 1024, 2048));
+    }
+
+    @Test
+    void longNameUsesPaxHeader() throws IOException {
+        String name = "folder/" + "é".repeat(60) + ".txt";
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (TarArchiveOutputStream tar = new TarArchiveOutputStream(out)) {
+            tar.putEntry(name, 0, MODIFIED);
+            tar.closeEntry();
+        }
+
+        byte[] archive = out.toByteArray();
+        assertEquals('x', archive[156]);
+        int paxLength = (int) Long.parseLong(field(archive, 124, 12), 8);
+        String pax = new String(archive, 512, paxLength, StandardCharsets.UTF_8);
+        String record = "path=" + name + "\n";
+        int recordLength = Integer.parseInt(pax.substring(0, pax.indexOf(' ')));
+        assertEquals(pax.getBytes(StandardCharsets.UTF_8).length, recordLength);
+        assertTrue(pax.endsWith(record));
+
+        int entryHeader = 512 + ((paxLength + 511) / 512) * 512;
+        assertEquals('0', archive[entryHeader + 156]);
+        assertEquals(checksum(archive, entryHeader), Long.parseLong(field(archive, entryHeader + 148, 7), 8));
+    }
+
+    @Test
+    void rejectsContentBeyondDeclaredSize() throws IOException {
+        TarArchiveOutputStream tar = new TarArchiveOutputStream(new ByteArrayOutputStream());
+        tar.putEntry("a.txt", 2, MODIFIED);
+
+        assertThrows(IOException.class, () -> tar.write("abc".getBytes()));
+    }
+
+    @Test
+    void rejectsShortEntry() throws IOException {
+        TarArchiveOutputStream tar = new TarArchiveOutputStream(new ByteArrayOutputStream());
+        tar.putEntry("a.txt", 2, MODIFIED);
+        tar.write('a');
+
+        assertThrows(IOException.class, tar::closeEntry);
+    }
+
+    private static String field(byte[] header, int offset, int length) {
+        int end = offset;
+        while (end < offset + length && header[end] != 0) {
+            end++;
+        }
+        return new String(header, offset, end - offset, StandardCharsets.US_ASCII).trim();
+    }
+
+    private static long checksum(byte[] archive, int offset) {
+        long sum = 0;
+        for (int i = 0; i < 512; i++) {
+            sum += (i >= 148 && i < 156) ? ' ' : archive[offset + i] & 0xff;
+        }
+        return sum;
+    }
+}
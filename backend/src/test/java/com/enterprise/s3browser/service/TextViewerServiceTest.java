@@ -0,0 +1,225 @@
+package com.enterprise.s3browser.service;
+
+import com.enterprise.s3browser.exception.TextIndexNotReadyException;
+import com.enterprise.s3browser.model.S3Configuration;
+import com.enterprise.s3browser.model.S3Object;
+import com.enterprise.s3browser.model.TextPage;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.core.task.SyncTaskExecutor;
+import org.springframework.core.task.support.ExecutorServiceAdapter;
+import org.springframework.test.util.ReflectionTestUtils;
+import software.amazon.awssdk.core.ResponseInputStream;
+import software.amazon.awssdk.http.AbortableInputStream;
+import software.amazon.awssdk.services.s3.model.GetObjectResponse;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class TextViewerServiceTest {
+
+    private static final String KEY = "logs/app.log";
+
+    @Mock
+    private S3Service s3Service;
+
+    @InjectMocks
+    private TextViewerService textViewerService;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(textViewerService, "indexStride", 2);
+        ReflectionTestUtils.setField(textViewerService, "indexChunkSize", 16L);
+        ReflectionTestUtils.setField(textViewerService, "maxIndexes", 4);
+        ReflectionTestUtils.setField(textViewerService, "readSize", 8);
+        ReflectionTestUtils.setField(textViewerService, "maxScanBytes", 1024L);
+        ReflectionTestUtils.setField(textViewerService, "maxLines", 100);
+        ReflectionTestUtils.setField(textViewerService, "maxLineLength", 1024);
+        // Index scans run inline so every test sees a complete index
+        ReflectionTestUtils.setField(textViewerService, "indexExecutor", new ExecutorServiceAdapter(new SyncTaskExecutor()));
+
+        S3Configuration config = new S3Configuration();
+        config.setBucket("test-bucket");
+        lenient().when(s3Service.getCurrentConfig()).thenReturn(config);
+    }
+
+    @Test
+    void readLines_FromLineNumber() {
+        stubObject(numberedLines(10));
+
+        TextPage page = textViewerService.readLines(KEY, 3, 2);
+
+        assertEquals(Arrays.asList("line3", "line4"), page.getLines());
+        assertEquals(3L, page.getStartLine());
+        assertEquals(18L, page.getStartOffset());
+        assertEquals(30L, page.getEndOffset());
+        assertTrue(page.isIndexComplete());
+        assertEquals(10L, page.getTotalLines());
+    }
+
+    @Test
+    void readLines_PastEnd() {
+        stubObject(numberedLines(3));
+
+        TextPage page = textViewerService.readLines(KEY, 10, 5);
+
+        assertTrue(page.getLines().isEmpty());
+        assertEquals(3L, page.getStartLine());
+    }
+
+    @Test
+    void readLines_BeyondScanLimitWhileIndexing() {
+        ReflectionTestUtils.setField(textViewerService, "indexExecutor", new ExecutorServiceAdapter(task -> { }));
+        ReflectionTestUtils.setField(textViewerService, "maxScanBytes", 8L);
+        stubObject(numberedLines(10));
+
+        assertThrows(TextIndexNotReadyException.class, () -> textViewerService.readLines(KEY, 8, 1));
+    }
+
+    @Test
+    void readTail() {
+        stubObject(numberedLines(10));
+
+        TextPage page = textViewerService.readTail(KEY, 3);
+
+        assertEquals(Arrays.asList("line7", "line8", "line9"), page.getLines());
+        assertEquals(7L, page.getStartLine());
+        assertEquals(60L, page.getEndOffset());
+    }
+
+    @Test
+    void readTail_WithoutTrailingNewline() {
+        stubObject("a\nb\nc");
+
+        TextPage page = textViewerService.readTail(KEY, 2);
+
+        assertEquals(Arrays.asList("b", "c"), page.getLines());
+        assertEquals(1L, page.getStartLine());
+    }
+
+    @Test
+    void readTail_MoreLinesThanObject() {
+        stubObject("a\nb\n");
+
+        assertEquals(Arrays.asList("a", "b"), textViewerService.readTail(KEY, 10).getLines());
+    }
+
+    @Test
+    void readFromOffset_SkipsToNextLineStart() {
+        stubObject(numberedLines(10));
+
+        TextPage page = textViewerService.readFromOffset(KEY, 20, 2);
+
+        assertEquals(Arrays.asList("line4", "line5"), page.getLines());
+        assertEquals(24L, page.getStartOffset());
+        assertEquals(4L, page.getStartLine());
+    }
+
+    @Test
+    void readFromOffset_AtLineStart() {
+        stubObject(numberedLines(10));
+
+        TextPage page = textViewerService.readFromOffset(KEY, 18, 1);
+
+        assertEquals(Collections.singletonList("line3"), page.getLines());
+        assertEquals(3L, page.getStartLine());
+    }
+
+    @Test
+    void readLines_StripsCarriageReturnAndTruncatesLongLines() {
+        ReflectionTestUtils.setField(textViewerService, "maxLineLength", 4);
+        stubObject("abcdefgh\r\nxy\r\n");
+
+        assertEquals(Arrays.asList("abcd", "xy"), textViewerService.readLines(KEY, 0, 10).getLines());
+    }
+
+    @Test
+    void readLines_LineLongerThanScanLimitIsTruncated() {
+        ReflectionTestUtils.setField(textViewerService, "indexExecutor", new ExecutorServiceAdapter(task -> { }));
+        ReflectionTestUtils.setField(textViewerService, "maxScanBytes", 16L);
+        stubObject("x".repeat(100));
+
+        TextPage page = textViewerService.readLines(KEY, 0, 10);
+
+        assertEquals(Collections.singletonList("x".repeat(16)), page.getLines());
+        assertEquals(16L, page.getEndOffset());
+        verify(s3Service, times(2)).downloadObjectStream(eq(KEY), anyString(), any());
+    }
+
+    @Test
+    void readLines_SkipStopsAtScanLimitInsideLongLine() {
+        ReflectionTestUtils.setField(textViewerService, "indexExecutor", new ExecutorServiceAdapter(task -> { }));
+        ReflectionTestUtils.setField(textViewerService, "maxScanBytes", 16L);
+        stubObject("x".repeat(100) + "\nlast\n");
+
+        assertThrows(TextIndexNotReadyException.class, () -> textViewerService.readLines(KEY, 1, 1));
+        verify(s3Service, times(2)).downloadObjectStream(eq(KEY), anyString(), any());
+    }
+
+    @Test
+    void readFromOffset_InsideLongLineReadsBoundedAmount() {
+        ReflectionTestUtils.setField(textViewerService, "indexExecutor", new ExecutorServiceAdapter(task -> { }));
+        ReflectionTestUtils.setField(textViewerService, "maxScanBytes", 16L);
+        stubObject("x".repeat(100));
+
+        TextPage page = textViewerService.readFromOffset(KEY, 10, 10);
+
+        assertEquals(Collections.singletonList("x".repeat(16)), page.getLines());
+        assertEquals(25L, page.getStartOffset());
+        assertNull(page.getStartLine());
+        verify(s3Service, times(4)).downloadObjectStream(eq(KEY), anyString(), any());
+    }
+
+    @Test
+    void readLines_EmptyObject() {
+        stubObject("");
+
+        TextPage page = textViewerService.readLines(KEY, 0, 10);
+
+        assertTrue(page.getLines().isEmpty());
+        assertEquals(0L, page.getTotalLines());
+    }
+
+    @Test
+    void rangedReadsArePinnedToEtag() {
+        stubObject(numberedLines(2));
+
+        textViewerService.readLines(KEY, 0, 1);
+
+        verify(s3Service, atLeastOnce()).downloadObjectStream(eq(KEY), anyString(),
+                argThat(conditions -> "\"etag1\"".equals(conditions.getIfMatch())));
+    }
+
+    private void stubObject(String text) {
+        byte[] content = text.getBytes(StandardCharsets.UTF_8);
+        S3Object metadata = new S3Object(KEY, "\"etag1\"", content.length, Instant.now(), "STANDARD", false);
+        when(s3Service.getObjectMetadata(KEY)).thenReturn(metadata);
+        lenient().when(s3Service.downloadObjectStream(eq(KEY), anyString(), any())).thenAnswer(invocation -> {
+            String[] bounds = invocation.getArgument(1, String.class).substring("bytes=".length()).split("-");
+            int start = Integer.parseInt(bounds[0]);
+            int end = Math.min(Integer.parseInt(bounds[1]), content.length - 1);
+            return new ResponseInputStream<>(GetObjectResponse.builder().contentLength((long) (end - start + 1)).build(),
+                    AbortableInputStream.create(new ByteArrayInputStream(content, start, end - start + 1)));
+        });
+    }
+
+    private static String numberedLines(int count) {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            text.append("line").append(i).append('\n');
+        }
+        return text.toString();
+    }
+}
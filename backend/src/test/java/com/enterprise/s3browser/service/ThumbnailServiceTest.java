@@ -0,0 +1,236 @@
+package com.enterprise.s3browser.service;
+
+import com.enterprise.s3browser.model.S3Configuration;
+import com.enterprise.s3browser.model.S3Object;
+import com.enterprise.s3browser.model.Thumbnail;
+import com.enterprise.s3browser.model.ThumbnailSize;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import software.amazon.awssdk.core.ResponseInputStream;
+import software.amazon.awssdk.http.AbortableInputStream;
+import software.amazon.awssdk.services.s3.model.GetObjectResponse;
+
+import javax.imageio.ImageIO;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ThumbnailServiceTest {
+
+    @Mock
+    private S3Service s3Service;
+
+    @InjectMocks
+    private ThumbnailService thumbnailService;
+
+    @TempDir
+    Path directory;
+
+    private SimpleMeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        ReflectionTestUtils.setField(thumbnailService, "meterRegistry", meterRegistry);
+        ReflectionTestUtils.setField(thumbnailService, "enabled", true);
+        ReflectionTestUtils.setField(thumbnailService, "directory", directory.toString());
+        ReflectionTestUtils.setField(thumbnailService, "maxSize", 1048576L);
+        ReflectionTestUtils.setField(thumbnailService, "threads", 2);
+        ReflectionTestUtils.setField(thumbnailService, "queueCapacity", 16);
+        ReflectionTestUtils.setField(thumbnailService, "maxSourceSize", 1048576L);
+        ReflectionTestUtils.setField(thumbnailService, "maxBatchSize", 10);
+        ReflectionTestUtils.setField(thumbnailService, "quality", 0.8f);
+        thumbnailService.initialize();
+
+        S3Configuration config = new S3Configuration();
+        config.setEndpoint("http://localhost:9000");
+        config.setBucket("test-bucket");
+        lenient().when(s3Service.getCurrentConfig()).thenReturn(config);
+    }
+
+    @AfterEach
+    void tearDown() {
+        thumbnailService.shutdown();
+    }
+
+    @Test
+    void isImage() {
+        assertTrue(thumbnailService.isImage("photos/cat.jpg"));
+        assertTrue(thumbnailService.isImage("photos/dog.PNG"));
+        assertFalse(thumbnailService.isImage("docs/report.pdf"));
+        assertFalse(thumbnailService.isImage("photos.jpg/README"));
+        assertFalse(thumbnailService.isImage("noextension"));
+    }
+
+    @Test
+    void getThumbnail_ScalesToFitSize() throws Exception {
+        stubImage("photos/wide.png", "\"etag1\"", image(1000, 500));
+
+        Thumbnail thumbnail = thumbnailService.getThumbnail("photos/wide.png", ThumbnailSize.SMALL).get(10, TimeUnit.SECONDS);
+
+        assertEquals("image/jpeg", thumbnail.getContentType());
+        assertEquals("\"etag1\"", thumbnail.getEtag());
+        BufferedImage decoded = ImageIO.read(new ByteArrayInputStream(thumbnail.getData()));
+        assertEquals(64, decoded.getWidth());
+        assertEquals(32, decoded.getHeight());
+    }
+
+    @Test
+    void getThumbnail_DoesNotEnlargeSmallImages() throws Exception {
+        stubImage("photos/icon.png", "\"etag1\"", image(16, 8));
+
+        Thumbnail thumbnail = thumbnailService.getThumbnail("photos/icon.png", ThumbnailSize.LARGE).get(10, TimeUnit.SECONDS);
+
+        BufferedImage decoded = ImageIO.read(new ByteArrayInputStream(thumbnail.getData()));
+        assertEquals(16, decoded.getWidth());
+        assertEquals(8, decoded.getHeight());
+    }
+
+    @Test
+    void getThumbnail_RendersAllSizesOnceAndCachesThem() throws Exception {
+        stubImage("photos/cat.png", "\"etag1\"", image(800, 800));
+
+        thumbnailService.getThumbnail("photos/cat.png", ThumbnailSize.SMALL).get(10, TimeUnit.SECONDS);
+        Thumbnail medium = thumbnailService.getThumbnail("photos/cat.png", ThumbnailSize.MEDIUM).get(10, TimeUnit.SECONDS);
+
+        assertEquals(160, ImageIO.read(new ByteArrayInputStream(medium.getData())).getWidth());
+        verify(s3Service, times(1)).downloadObjectStream(eq("photos/cat.png"), isNull(), any());
+        assertEquals(1L, meterRegistry.get("s3browser.thumbnail.render").timer().count());
+    }
+
+    @Test
+    void getThumbnail_NewVersionIsRenderedAgain() throws Exception {
+        stubImage("photos/cat.png", "\"etag1\"", image(100, 100));
+        thumbnailService.getThumbnail("photos/cat.png", ThumbnailSize.SMALL).get(10, TimeUnit.SECONDS);
+
+        stubImage("photos/cat.png", "\"etag2\"", image(100, 100));
+        Thumbnail thumbnail = thumbnailService.getThumbnail("photos/cat.png", ThumbnailSize.SMALL).get(10, TimeUnit.SECONDS);
+
+        assertEquals("\"etag2\"", thumbnail.getEtag());
+        verify(s3Service, times(2)).downloadObjectStream(eq("photos/cat.png"), isNull(), any());
+    }
+
+    @Test
+    void getThumbnail_DownloadIsPinnedToEtag() throws Exception {
+        stubImage("photos/cat.png", "\"etag1\"", image(10, 10));
+
+        thumbnailService.getThumbnail("photos/cat.png", ThumbnailSize.SMALL).get(10, TimeUnit.SECONDS);
+
+        verify(s3Service).downloadObjectStream(eq("photos/cat.png"), isNull(),
+                argThat(conditions -> "\"etag1\"".equals(conditions.getIfMatch())));
+    }
+
+    @Test
+    void getThumbnail_NotAnImageKey() throws Exception {
+        assertNull(thumbnailService.getThumbnail("docs/report.pdf", ThumbnailSize.SMALL).get(10, TimeUnit.SECONDS));
+        verifyNoInteractions(s3Service);
+    }
+
+    @Test
+    void getThumbnail_UndecodableContent() throws Exception {
+        stubObject("photos/broken.jpg", "\"etag1\"", "not an image".getBytes());
+
+        assertNull(thumbnailService.getThumbnail("photos/broken.jpg", ThumbnailSize.SMALL).get(10, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void getThumbnail_SourceTooLarge() throws Exception {
+        S3Object metadata = new S3Object("photos/huge.jpg", "\"etag1\"", 1048577L, Instant.now(), "STANDARD", false);
+        when(s3Service.getObjectMetadata("photos/huge.jpg")).thenReturn(metadata);
+
+        assertNull(thumbnailService.getThumbnail("photos/huge.jpg", ThumbnailSize.SMALL).get(10, TimeUnit.SECONDS));
+        verify(s3Service, never()).downloadObjectStream(anyString(), any(), any());
+    }
+
+    @Test
+    void getThumbnail_QueueFull() {
+        ThreadPoolExecutor saturated = mock(ThreadPoolExecutor.class);
+        doThrow(new RejectedExecutionException("full")).when(saturated).execute(any());
+        ReflectionTestUtils.setField(thumbnailService, "executor", saturated);
+
+        assertTrue(thumbnailService.getThumbnail("photos/cat.png", ThumbnailSize.SMALL).isCompletedExceptionally());
+    }
+
+    @Test
+    void getThumbnails_LeavesOutObjectsWithoutThumbnail() throws Exception {
+        stubImage("photos/cat.png", "\"etag1\"", image(100, 100));
+        stubObject("photos/broken.jpg", "\"etag2\"", "not an image".getBytes());
+        when(s3Service.getObjectMetadata("photos/missing.png")).thenThrow(new RuntimeException("Not found"));
+
+        List<Thumbnail> thumbnails = thumbnailService.getThumbnails(
+                Arrays.asList("photos/cat.png", "docs/report.pdf", "photos/broken.jpg", "photos/missing.png", "photos/cat.png"),
+                ThumbnailSize.SMALL).get(10, TimeUnit.SECONDS);
+
+        assertEquals(1, thumbnails.size());
+        assertEquals("photos/cat.png", thumbnails.get(0).getKey());
+    }
+
+    @Test
+    void getThumbnails_QueueFullFailsBatch() {
+        ThreadPoolExecutor saturated = mock(ThreadPoolExecutor.class);
+        doThrow(new RejectedExecutionException("full")).when(saturated).execute(any());
+        ReflectionTestUtils.setField(thumbnailService, "executor", saturated);
+
+        CompletableFuture<List<Thumbnail>> thumbnails = thumbnailService.getThumbnails(
+                Arrays.asList("docs/report.pdf", "photos/cat.png", "photos/dog.png"), ThumbnailSize.SMALL);
+
+        ExecutionException failure = assertThrows(ExecutionException.class, () -> thumbnails.get(10, TimeUnit.SECONDS));
+        assertInstanceOf(RejectedExecutionException.class, failure.getCause());
+        verify(saturated, times(1)).execute(any());
+    }
+
+    @Test
+    void getThumbnails_TooManyKeys() {
+        List<String> keys = Arrays.asList("1.png", "2.png", "3.png", "4.png", "5.png", "6.png", "7.png", "8.png", "9.png", "10.png", "11.png");
+
+        assertThrows(IllegalArgumentException.class, () -> thumbnailService.getThumbnails(keys, ThumbnailSize.SMALL));
+    }
+
+    private void stubImage(String key, String etag, BufferedImage image) throws IOException {
+        ByteArrayOutputStream content = new ByteArrayOutputStream();
+        ImageIO.write(image, "png", content);
+        stubObject(key, etag, content.toByteArray());
+    }
+
+    private void stubObject(String key, String etag, byte[] content) {
+        S3Object metadata = new S3Object(key, etag, content.length, Instant.now(), "STANDARD", false);
+        when(s3Service.getObjectMetadata(key)).thenReturn(metadata);
+        lenient().when(s3Service.downloadObjectStream(eq(key), isNull(), any())).thenAnswer(invocation ->
+                new ResponseInputStream<>(GetObjectResponse.builder().contentLength((long) content.length).build(),
+                        AbortableInputStream.create(new ByteArrayInputStream(content))));
+    }
+
+    private static BufferedImage image(int width, int height) {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = image.createGraphics();
+        graphics.setColor(Color.BLUE);
+        graphics.fillRect(0, 0, width, height);
+        graphics.dispose();
+        return image;
+    }
+}
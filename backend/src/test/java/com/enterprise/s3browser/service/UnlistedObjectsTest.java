@@ -0,0 +1,116 @@
+package com.enterprise.s3browser.service;
+
+import com.enterprise.s3browser.model.S3Object;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UnlistedObjectsTest {
+
+    private static final Instant NOW = Instant.parse("2024-01-01T00:00:00Z");
+
+    @Test
+    void mergeWith_YieldsListedAndUnlistedInKeyOrder() {
+        UnlistedObjects unlisted = new UnlistedObjects(
+                iterator(pending("b.txt"), pending("e.txt")),
+                iterator(object("a.txt"), object("d.txt")));
+
+        List<S3Object> merged = drain(unlisted.mergeWith(List.of(object("f.txt"), object("c.txt")), "c.txt"));
+
+        assertEquals(List.of("a.txt", "b.txt", "c.txt", "f.txt"), keys(merged));
+        assertEquals(List.of("d.txt", "e.txt"), keys(drain(unlisted.remaining())));
+    }
+
+    @Test
+    void mergeWith_PendingReplacesListedButCompactedDoesNot() {
+        S3Object listedFolder = folder("a/");
+        UnlistedObjects unlisted = new UnlistedObjects(
+                iterator(pending("b.txt")),
+                iterator(folder("a/"), object("b.txt"), object("c.txt")));
+
+        List<S3Object> merged = drain(unlisted.mergeWith(List.of(listedFolder, object("b.txt"), object("c.txt")), null));
+
+        assertEquals(List.of("a/", "b.txt", "c.txt"), keys(merged));
+        assertSame(listedFolder, merged.get(0));
+        assertTrue(merged.get(1).isPending());
+        assertFalse(merged.get(2).isPending());
+    }
+
+    @Test
+    void mergeWith_ReadsUnlistedOnlyAsFarAsConsumed() {
+        List<String> read = new ArrayList<>();
+        Iterator<S3Object> compacted = iterator(object("a.txt"), object("b.txt"), object("c.txt"));
+        UnlistedObjects unlisted = new UnlistedObjects(iterator(), new Iterator<>() {
+            @Override
+            public boolean hasNext() {
+                return compacted.hasNext();
+            }
+
+            @Override
+            public S3Object next() {
+                S3Object next = compacted.next();
+                read.add(next.getKey());
+                return next;
+            }
+        });
+
+        Iterator<S3Object> merged = unlisted.mergeWith(List.of(), null);
+        merged.next();
+
+        assertEquals(List.of("a.txt", "b.txt"), read);
+    }
+
+    @Test
+    void delimited_RollsObjectsUpIntoFoldersAfterKey() {
+        TreeMap<String, S3Object> objects = new TreeMap<>();
+        for (String key : List.of("docs/a.txt", "docs/b/c.txt", "docs/b/d/e.txt", "docs/f.txt", "docs/g/h.txt", "docs/g/i.txt")) {
+            objects.put(key, object(key));
+        }
+        List<String> asked = new ArrayList<>();
+
+        List<S3Object> entries = drain(UnlistedObjects.delimited("docs/", null, after -> {
+            asked.add(after);
+            return (after == null ? objects : objects.tailMap(after, false)).values().iterator();
+        }));
+
+        assertEquals(List.of("docs/a.txt", "docs/b/", "docs/f.txt", "docs/g/"), keys(entries));
+        assertTrue(entries.get(1).isDirectory());
+        assertEquals(3, asked.size());
+        assertEquals(List.of("docs/f.txt", "docs/g/"),
+                keys(drain(UnlistedObjects.delimited("docs/", "docs/b/", after -> objects.tailMap(after, false).values().iterator()))));
+    }
+
+    private static S3Object object(String key) {
+        return new S3Object(key, "etag", 1L, NOW, "STANDARD", false);
+    }
+
+    private static S3Object folder(String key) {
+        return new S3Object(key, null, 0L, null, null, true);
+    }
+
+    private static S3Object pending(String key) {
+        S3Object object = object(key);
+        object.setPending(true);
+        return object;
+    }
+
+    private static Iterator<S3Object> iterator(S3Object... objects) {
+        return List.of(objects).iterator();
+    }
+
+    private static List<S3Object> drain(Iterator<S3Object> objects) {
+        List<S3Object> drained = new ArrayList<>();
+        objects.forEachRemaining(drained::add);
+        return drained;
+    }
+
+    private static List<String> keys(List<S3Object> objects) {
+        return objects.stream().map(S3Object::getKey).toList();
+    }
+}
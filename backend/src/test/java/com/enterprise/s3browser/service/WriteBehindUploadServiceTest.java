@@ -0,0 +1,352 @@
+package com.enterprise.s3browser.service;
+
+import com.enterprise.s3browser.exception.S3ServiceException;
+import com.enterprise.s3browser.model.S3Configuration;
+import com.enterprise.s3browser.model.S3Object;
+import com.enterprise.s3browser.model.StagedUpload;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class WriteBehindUploadServiceTest {
+
+    private static final Instant NOW = Instant.parse("2024-01-01T10:00:00Z");
+
+    @Mock
+    private S3Service s3Service;
+
+    @Mock
+    private MultipartUploadService multipartUploadService;
+
+    @InjectMocks
+    private WriteBehindUploadService writeBehindUploadService;
+
+    @TempDir
+    Path directory;
+
+    private S3Configuration config;
+    private final List<String> stored = new CopyOnWriteArrayList<>();
+    private volatile boolean available = true;
+
+    @BeforeEach
+    void setUp() {
+        config = new S3Configuration();
+        config.setBucket("test-bucket");
+        lenient().when(s3Service.getCurrentConfig()).thenReturn(config);
+        lenient().doAnswer(invocation -> {
+            if (!available) {
+                throw new S3ServiceException("Connection refused");
+            }
+            stored.add(invocation.getArgument(0) + "=" + read(invocation.getArgument(1)));
+            return null;
+        }).when(s3Service).uploadObject(any(), any(), anyLong(), any());
+
+        configure(writeBehindUploadService, NOW);
+        writeBehindUploadService.initialize();
+    }
+
+    @AfterEach
+    void tearDown() {
+        writeBehindUploadService.shutdown();
+    }
+
+    @Test
+    void tryStage_DisabledUploadsDirectly() throws Exception {
+        WriteBehindUploadService disabled = new WriteBehindUploadService();
+        ReflectionTestUtils.setField(disabled, "s3Service", s3Service);
+        disabled.initialize();
+
+        assertNull(disabled.tryStage("a.txt", stream("hello"), 5, "text/plain"));
+        assertFalse(disabled.isEnabled());
+    }
+
+    @Test
+    void tryStage_StoresInBackgroundAndCleansUp() throws Exception {
+        StagedUpload upload = writeBehindUploadService.tryStage("docs/a.txt", stream("hello"), 5, "text/plain");
+
+        assertNotNull(upload);
+        assertEquals("test-bucket", upload.getBucket());
+        verify(s3Service, timeout(5000)).uploadObject(eq("docs/a.txt"), any(), eq(5L), eq("text/plain"));
+        waitUntilDrained();
+        assertEquals(List.of("docs/a.txt=hello"), stored);
+        assertEquals(0, stagedFiles().size());
+    }
+
+    @Test
+    void tryStage_RejectsShortBody() {
+        assertThrows(IOException.class, () ->
+                writeBehindUploadService.tryStage("a.txt", stream("hel"), 5, "text/plain"));
+
+        assertEquals(0, writeBehindUploadService.pendingCount());
+        assertEquals(0, stagedFiles().size());
+        verify(s3Service, never()).uploadObject(any(), any(), anyLong(), any());
+    }
+
+    @Test
+    void tryStage_FallsBackWhenStagingIsFull() throws Exception {
+        ReflectionTestUtils.setField(writeBehindUploadService, "maxStagedSize", 4L);
+
+        assertNull(writeBehindUploadService.tryStage("a.txt", stream("hello"), 5, "text/plain"));
+        assertNull(writeBehindUploadService.tryStage("b.txt", stream("x"), -1, "text/plain"));
+    }
+
+    @Test
+    void failedUpload_IsRetriedAfterBackoff() throws Exception {
+        doThrow(new S3ServiceException("Connection refused"))
+                .doAnswer(invocation -> {
+                    stored.add(invocation.getArgument(0) + "=" + read(invocation.getArgument(1)));
+                    return null;
+                })
+                .when(s3Service).uploadObject(eq("a.txt"), any(), anyLong(), any());
+
+        StagedUpload upload = writeBehindUploadService.tryStage("a.txt", stream("hello"), 5, "text/plain");
+        verify(s3Service, timeout(5000)).uploadObject(eq("a.txt"), any(), anyLong(), any());
+        waitUntil(() -> upload.getAttempts() == 1);
+
+        assertEquals("Connection refused", upload.getLastError());
+        assertEquals(NOW.plusSeconds(1), upload.getNextAttemptAt());
+        assertEquals(1, writeBehindUploadService.getPending("").size());
+
+        configure(writeBehindUploadService, NOW.plusSeconds(1));
+        writeBehindUploadService.pump();
+
+        waitUntilDrained();
+        assertEquals(List.of("a.txt=hello"), stored);
+    }
+
+    @Test
+    void uploadsOfOneKey_KeepOrderAndSkipSupersededContent() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            String content = read(invocation.getArgument(1));
+            if (content.equals("v1")) {
+                release.await(5, TimeUnit.SECONDS);
+            }
+            stored.add(content);
+            return null;
+        }).when(s3Service).uploadObject(eq("a.txt"), any(), anyLong(), any());
+
+        writeBehindUploadService.tryStage("a.txt", stream("v1"), 2, "text/plain");
+        writeBehindUploadService.tryStage("a.txt", stream("v2"), 2, "text/plain");
+        writeBehindUploadService.tryStage("a.txt", stream("v3"), 2, "text/plain");
+        assertEquals(3, writeBehindUploadService.pendingCount());
+        release.countDown();
+
+        waitUntilDrained();
+        assertEquals(Arrays.asList("v1", "v3"), stored);
+        assertEquals(0, stagedFiles().size());
+    }
+
+    @Test
+    void stagedUploads_SurviveRestart() throws Exception {
+        available = false;
+        StagedUpload first = writeBehindUploadService.tryStage("a.txt", stream("first"), 5, "text/plain");
+        StagedUpload second = writeBehindUploadService.tryStage("b/c.txt", stream("second"), 6, "text/plain");
+        waitUntil(() -> first.getAttempts() == 1 && second.getAttempts() == 1);
+        writeBehindUploadService.shutdown();
+        Files.writeString(directory.resolve("write-behind").resolve("0000000000000000009.data.tmp"), "torn");
+
+        WriteBehindUploadService restarted = new WriteBehindUploadService();
+        ReflectionTestUtils.setField(restarted, "s3Service", s3Service);
+        ReflectionTestUtils.setField(restarted, "multipartUploadService", multipartUploadService);
+        configure(restarted, NOW);
+        restarted.initialize();
+        try {
+            assertEquals(2, restarted.pendingCount());
+            assertEquals(Arrays.asList("a.txt", "b/c.txt"),
+                    restarted.getPending("").stream().map(StagedUpload::getKey).collect(Collectors.toList()));
+
+            StagedUpload next = restarted.tryStage("d.txt", stream("third"), 5, "text/plain");
+            assertEquals(3L, next.getSequence());
+
+            config.setBucket("other-bucket");
+            assertTrue(restarted.getPending("").isEmpty());
+            config.setBucket("test-bucket");
+
+            available = true;
+            configure(restarted, NOW.plusSeconds(3600));
+            restarted.pump();
+            waitUntil(() -> restarted.pendingCount() == 0);
+            assertTrue(stored.containsAll(Arrays.asList("a.txt=first", "b/c.txt=second", "d.txt=third")));
+            assertEquals(0, stagedFiles().size());
+        } finally {
+            restarted.shutdown();
+        }
+    }
+
+    @Test
+    void pendingObjects_ListsEntriesAfterKeyDirectlyUnderPrefix() throws Exception {
+        available = false;
+        writeBehindUploadService.tryStage("docs/a/c.txt", stream("c"), 1, null);
+        writeBehindUploadService.tryStage("docs/b.txt", stream("b"), 1, "text/plain");
+        writeBehindUploadService.tryStage("docs/d/e.txt", stream("e"), 1, null);
+        writeBehindUploadService.tryStage("docs/d/f/g.txt", stream("g"), 1, null);
+
+        assertEquals(Arrays.asList("docs/a/", "docs/b.txt", "docs/d/"), keys(writeBehindUploadService.pendingObjects("docs/", null, false)));
+        assertEquals(Arrays.asList("docs/b.txt", "docs/d/"), keys(writeBehindUploadService.pendingObjects("docs/", "docs/a/", false)));
+        assertEquals(Arrays.asList("docs/d/e.txt", "docs/d/f/g.txt"), keys(writeBehindUploadService.pendingObjects("docs/", "docs/b.txt", true)));
+    }
+
+    @Test
+    void getPendingUpload_ReadsStagedContent() throws Exception {
+        available = false;
+        StagedUpload upload = writeBehindUploadService.tryStage("docs/a.txt", stream("hello"), 5, "text/plain");
+
+        assertSame(upload, writeBehindUploadService.getPendingUpload("docs/a.txt"));
+        assertNull(writeBehindUploadService.getPendingUpload("docs/b.txt"));
+        try (InputStream content = writeBehindUploadService.openPending(upload)) {
+            assertEquals("hello", read(content));
+        }
+    }
+
+    @Test
+    void discardPending_DropsQueuedUploads() throws Exception {
+        available = false;
+        StagedUpload upload = writeBehindUploadService.tryStage("docs/a.txt", stream("hello"), 5, "text/plain");
+        waitUntil(() -> upload.getAttempts() == 1);
+
+        writeBehindUploadService.discardPending("docs/a.txt");
+
+        assertNull(writeBehindUploadService.getPendingUpload("docs/a.txt"));
+        // The failed attempt may still be finishing; its upload is dropped when it does
+        waitUntilDrained();
+        assertNull(writeBehindUploadService.openPending(upload));
+        assertEquals(0, stagedFiles().size());
+        verify(s3Service, never()).deleteObject(any());
+        available = true;
+        configure(writeBehindUploadService, NOW.plusSeconds(3600));
+        writeBehindUploadService.pump();
+        assertTrue(stored.isEmpty());
+    }
+
+    @Test
+    void discardPending_DeletesUploadStoredMeanwhile() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            started.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            stored.add(read(invocation.getArgument(1)));
+            return null;
+        }).when(s3Service).uploadObject(eq("a.txt"), any(), anyLong(), any());
+
+        writeBehindUploadService.tryStage("a.txt", stream("v1"), 2, "text/plain");
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        writeBehindUploadService.tryStage("a.txt", stream("v2"), 2, "text/plain");
+
+        writeBehindUploadService.discardPending("a.txt");
+        assertTrue(writeBehindUploadService.getPending("").isEmpty());
+        release.countDown();
+
+        verify(s3Service, timeout(5000)).deleteObject("a.txt");
+        waitUntilDrained();
+        assertEquals(List.of("v1"), stored);
+        assertEquals(0, stagedFiles().size());
+    }
+
+    @Test
+    void discardPending_NewerUploadStoredAfterDelete() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            String content = read(invocation.getArgument(1));
+            if (content.equals("v1")) {
+                started.countDown();
+                release.await(5, TimeUnit.SECONDS);
+            }
+            stored.add(content);
+            return null;
+        }).when(s3Service).uploadObject(eq("a.txt"), any(), anyLong(), any());
+        doAnswer(invocation -> {
+            // The scheduler may pump while the object is being deleted, which must not start the newer upload
+            writeBehindUploadService.pump();
+            Thread.sleep(100);
+            stored.add("deleted");
+            return null;
+        }).when(s3Service).deleteObject("a.txt");
+
+        writeBehindUploadService.tryStage("a.txt", stream("v1"), 2, "text/plain");
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        writeBehindUploadService.discardPending("a.txt");
+        writeBehindUploadService.tryStage("a.txt", stream("v2"), 2, "text/plain");
+        release.countDown();
+
+        waitUntilDrained();
+        assertEquals(Arrays.asList("v1", "deleted", "v2"), stored);
+        assertEquals(0, stagedFiles().size());
+    }
+
+    private void configure(WriteBehindUploadService service, Instant now) {
+        ReflectionTestUtils.setField(service, "enabled", true);
+        ReflectionTestUtils.setField(service, "directory", directory.toString());
+        ReflectionTestUtils.setField(service, "concurrency", 2);
+        ReflectionTestUtils.setField(service, "maxStagedSize", 1024L * 1024);
+        ReflectionTestUtils.setField(service, "retryInitialDelaySeconds", 1L);
+        ReflectionTestUtils.setField(service, "retryMaxDelaySeconds", 60L);
+        ReflectionTestUtils.setField(service, "clock", Clock.fixed(now, ZoneOffset.UTC));
+    }
+
+    private static List<String> keys(java.util.Iterator<S3Object> objects) {
+        List<String> keys = new java.util.ArrayList<>();
+        objects.forEachRemaining(object -> keys.add(object.getKey()));
+        return keys;
+    }
+
+    private void waitUntilDrained() throws InterruptedException {
+        waitUntil(() -> writeBehindUploadService.pendingCount() == 0);
+    }
+
+    private static void waitUntil(java.util.function.BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean()) {
+            if (System.nanoTime() > deadline) {
+                fail("Timed out waiting for staged uploads");
+            }
+            Thread.sleep(10);
+        }
+    }
+
+    private List<Path> stagedFiles() {
+        try (Stream<Path> files = Files.list(directory.resolve("write-behind"))) {
+            return files.collect(Collectors.toList());
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static InputStream stream(String content) {
+        return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String read(InputStream inputStream) throws IOException {
+        return new String(inputStream.readAllBytes(), StandardCharsets.UTF_8);
+    }
+}